@@ -0,0 +1,259 @@
+package com.esotericsoftware.color;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.ACES2065_1;
+import com.esotericsoftware.color.space.ACEScc;
+import com.esotericsoftware.color.space.ACEScct;
+import com.esotericsoftware.color.space.ACEScg;
+import com.esotericsoftware.color.space.LRGB;
+
+/** Batch conversion between the ACES encodings and linear sRGB on planar float arrays. Each {@link Transform} decodes, applies
+ * a single fused 3x3 matrix, and encodes. The matrices are the products of those used by the records, so results match
+ * {@link ACES2065_1}, {@link ACEScg}, {@link ACEScc} and {@link ACEScct} to float precision.
+ * <p>
+ * The ACEScc and ACEScct log curves use table based log2 and exp2 with linear interpolation over 1024 segments per octave: log2
+ * has an absolute error < 2e-7 and exp2 a relative error < 2e-7, below float precision for the encoded values. NaN is not
+ * preserved. Thread safe. */
+public class ACES {
+	static private final Cache<TransformKey, Transform> transforms = Metrics.register(new Cache<>("ACES.transform", 32));
+	static private final int chunk = 8192;
+	static private final float[] log2Table = new float[1025], exp2Table = new float[1025];
+	static {
+		for (int i = 0; i <= 1024; i++) {
+			log2Table[i] = (float)(Math.log(1 + i / 1024d) / Math.log(2));
+			exp2Table[i] = (float)Math.pow(2, i / 1024d);
+		}
+	}
+
+	/** Linear sRGB to ACES AP0, as {@link com.esotericsoftware.color.space.Color#ACES2065_1()}. */
+	static private final float[] lrgbToAP0 = { //
+		0.43953127f, 0.38391885f, 0.17654988f, //
+		0.08959387f, 0.81347942f, 0.09692672f, //
+		0.01738063f, 0.11176223f, 0.87085713f};
+	/** Linear sRGB to ACES AP1, as {@link com.esotericsoftware.color.space.Color#ACEScg()}. */
+	static private final float[] lrgbToAP1 = { //
+		0.61309741f, 0.33952315f, 0.04737945f, //
+		0.07019486f, 0.91635524f, 0.0134499f, //
+		0.0206156f, 0.10956263f, 0.86982177f};
+	/** ACES AP0 to linear sRGB, as {@link ACES2065_1#LRGB()}. */
+	static private final float[] ap0ToLRGB = { //
+		2.52140088f, -1.1338984f, -0.38750249f, //
+		-0.27621892f, 1.37270743f, -0.09648852f, //
+		-0.01538264f, -0.1529724f, 1.16835505f};
+	/** ACES AP1 to linear sRGB, as {@link ACEScg#LRGB()}. */
+	static private final float[] ap1ToLRGB = { //
+		1.70482663f, -0.62151743f, -0.0833092f, //
+		-0.13028185f, 1.14085365f, -0.0105718f, //
+		-0.0240072f, -0.12895973f, 1.15296693f};
+
+	/** Returns a shared transform. */
+	static public Transform get (Space from, Space to) {
+		return transforms.get(new TransformKey(from, to), key -> new Transform(from, to));
+	}
+
+	static public Cache<?, Transform> cache () {
+		return transforms;
+	}
+
+	/** Returns log2 of a positive normal float, within 2e-7 plus float rounding. */
+	static public float log2 (float value) {
+		int bits = Float.floatToRawIntBits(value);
+		int index = (bits >>> 13) & 0x3ff;
+		float fraction = (bits & 0x1fff) * (1 / 8192f), low = log2Table[index];
+		return ((bits >>> 23) - 127) + low + (log2Table[index + 1] - low) * fraction;
+	}
+
+	/** Returns 2 to the power, within a relative 2e-7 plus float rounding. */
+	static public float exp2 (float power) {
+		float floor = (float)Math.floor(power);
+		float scaled = (power - floor) * 1024;
+		int index = (int)scaled;
+		if (index > 1023) index = 1023; // Rounding for tiny negative powers.
+		float low = exp2Table[index];
+		float mantissa = low + (exp2Table[index + 1] - low) * (scaled - index);
+		int exponent = (int)floor;
+		if (exponent < -126 || exponent > 127) return Math.scalb(mantissa, exponent);
+		return mantissa * Float.intBitsToFloat(exponent + 127 << 23);
+	}
+
+	/** Converts planes with {@link #get(Space, Space)}.
+	 * @param outR May be the same array as r, likewise for outG and g, and outB and b. */
+	static public void convert (Space from, Space to, float[] r, float[] g, float[] b, float[] outR, float[] outG, float[] outB) {
+		get(from, to).apply(r, g, b, outR, outG, outB);
+	}
+
+	/** Same as {@link #convert(Space, Space, float[], float[], float[], float[], float[], float[])}, in parallel. */
+	static public void convertParallel (Space from, Space to, float[] r, float[] g, float[] b, float[] outR, float[] outG,
+		float[] outB) {
+		get(from, to).applyParallel(r, g, b, outR, outG, outB);
+	}
+
+	static float encodeCC (float linear) {
+		if (linear <= 0) return -0.3584474886f; // (log2(pow(2,-16)) + 9.72) / 17.52
+		if (linear < 0.00003051757812f) return (log2(0.00001525878906f + linear * 0.5f) + 9.72f) / 17.52f; // pow(2, -15)
+		return (log2(linear) + 9.72f) / 17.52f;
+	}
+
+	static float decodeCC (float encoded) {
+		if (encoded < -0.3014698893f) return (exp2(encoded * 17.52f - 9.72f) - 0.00001525878906f) * 2; // (9.72 - 15) / 17.52
+		return exp2(encoded * 17.52f - 9.72f);
+	}
+
+	static float encodeCCT (float linear) {
+		if (linear <= 0.0078125f) return 10.5402377416545f * linear + 0.0729055341958355f;
+		return (log2(linear) + 9.72f) / 17.52f;
+	}
+
+	static float decodeCCT (float encoded) {
+		if (encoded <= 0.155251141552511f) return (encoded - 0.0729055341958355f) / 10.5402377416545f;
+		if (encoded < 1.4679964f) return exp2(encoded * 17.52f - 9.72f); // (log2(65504) + 9.72) / 17.52
+		return 65504;
+	}
+
+	static private int check (int... lengths) {
+		int n = lengths[0];
+		for (int i = 1; i < lengths.length; i++)
+			if (lengths[i] != n) throw new IllegalArgumentException("Array lengths must match: " + lengths[i] + " != " + n);
+		return n;
+	}
+
+	static private float[] multiply (float[] a, float[] b) {
+		var result = new float[9];
+		for (int row = 0; row < 3; row++)
+			for (int col = 0; col < 3; col++)
+				result[row * 3 + col] = a[row * 3] * b[col] + a[row * 3 + 1] * b[3 + col] + a[row * 3 + 2] * b[6 + col];
+		return result;
+	}
+
+	/** ACES encodings and linear sRGB. */
+	static public enum Space {
+		/** Linear sRGB, as {@link LRGB}. */
+		lrgb,
+		/** Linear AP0, as {@link ACES2065_1}. */
+		aces2065_1,
+		/** Linear AP1, as {@link ACEScg}. */
+		acescg,
+		/** Logarithmic AP1, as {@link ACEScc}. */
+		acescc,
+		/** Logarithmic AP1 with a linear toe, as {@link ACEScct}. */
+		acescct;
+
+		/** Returns the matrix from linear sRGB to this space's primaries, or null for linear sRGB. */
+		float[] fromLRGB () {
+			return switch (this) {
+			case lrgb -> null;
+			case aces2065_1 -> lrgbToAP0;
+			default -> lrgbToAP1;
+			};
+		}
+
+		/** Returns the matrix from this space's primaries to linear sRGB, or null for linear sRGB. */
+		float[] toLRGB () {
+			return switch (this) {
+			case lrgb -> null;
+			case aces2065_1 -> ap0ToLRGB;
+			default -> ap1ToLRGB;
+			};
+		}
+	}
+
+	/** Decodes, applies a fused 3x3 matrix, and encodes. The matrix is null when both spaces have the same primaries. */
+	static public class Transform {
+		public final Space from, to;
+		final float[] matrix;
+
+		public Transform (Space from, Space to) {
+			this.from = from;
+			this.to = to;
+			float[] toLRGB = from.toLRGB(), fromLRGB = to.fromLRGB();
+			if (from == to || (toLRGB == ap1ToLRGB && fromLRGB == lrgbToAP1)) // Same primaries.
+				matrix = null;
+			else if (toLRGB == null)
+				matrix = fromLRGB;
+			else if (fromLRGB == null)
+				matrix = toLRGB;
+			else
+				matrix = multiply(fromLRGB, toLRGB);
+		}
+
+		/** Returns a copy of the row-major 3x3 matrix applied to the decoded values, or the identity. */
+		public float[] matrix () {
+			return matrix == null ? new float[] {1, 0, 0, 0, 1, 0, 0, 0, 1} : matrix.clone();
+		}
+
+		/** @param outR May be the same array as r, likewise for outG and g, and outB and b. */
+		public void apply (float[] r, float[] g, float[] b, float[] outR, float[] outG, float[] outB) {
+			int n = check(r.length, g.length, b.length, outR.length, outG.length, outB.length);
+			apply(r, g, b, outR, outG, outB, 0, n);
+		}
+
+		/** Same as {@link #apply(float[], float[], float[], float[], float[], float[])}, in parallel. */
+		public void applyParallel (float[] r, float[] g, float[] b, float[] outR, float[] outG, float[] outB) {
+			int n = check(r.length, g.length, b.length, outR.length, outG.length, outB.length);
+			IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+				.forEach(c -> apply(r, g, b, outR, outG, outB, c * chunk, Math.min(n, c * chunk + chunk)));
+		}
+
+		/** Converts pixels [from..to). */
+		public void apply (float[] r, float[] g, float[] b, float[] outR, float[] outG, float[] outB, int from, int to) {
+			Space source = this.from, target = this.to;
+			float[] m = matrix;
+			float m00 = 1, m01 = 0, m02 = 0, m10 = 0, m11 = 1, m12 = 0, m20 = 0, m21 = 0, m22 = 1;
+			if (m != null) {
+				m00 = m[0];
+				m01 = m[1];
+				m02 = m[2];
+				m10 = m[3];
+				m11 = m[4];
+				m12 = m[5];
+				m20 = m[6];
+				m21 = m[7];
+				m22 = m[8];
+			}
+			for (int i = from; i < to; i++) {
+				float rr = r[i], gg = g[i], bb = b[i];
+				switch (source) {
+				case acescc -> {
+					rr = decodeCC(rr);
+					gg = decodeCC(gg);
+					bb = decodeCC(bb);
+				}
+				case acescct -> {
+					rr = decodeCCT(rr);
+					gg = decodeCCT(gg);
+					bb = decodeCCT(bb);
+				}
+				default -> {
+				}
+				}
+				if (m != null) {
+					float x = m00 * rr + m01 * gg + m02 * bb;
+					float y = m10 * rr + m11 * gg + m12 * bb;
+					bb = m20 * rr + m21 * gg + m22 * bb;
+					rr = x;
+					gg = y;
+				}
+				switch (target) {
+				case acescc -> {
+					rr = encodeCC(rr);
+					gg = encodeCC(gg);
+					bb = encodeCC(bb);
+				}
+				case acescct -> {
+					rr = encodeCCT(rr);
+					gg = encodeCCT(gg);
+					bb = encodeCCT(bb);
+				}
+				default -> {
+				}
+				}
+				outR[i] = rr;
+				outG[i] = gg;
+				outB[i] = bb;
+			}
+		}
+	}
+
+	static private record TransformKey (Space from, Space to) {}
+}
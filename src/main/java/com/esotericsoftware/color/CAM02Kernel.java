@@ -0,0 +1,313 @@
+package com.esotericsoftware.color;
+
+import static com.esotericsoftware.color.Colors.*;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.CAM02;
+import com.esotericsoftware.color.space.CAM02LCD;
+import com.esotericsoftware.color.space.CAM02SCD;
+import com.esotericsoftware.color.space.CAM02UCS;
+import com.esotericsoftware.color.space.XYZ;
+
+/** {@link CAM02} conversions compiled for one {@link CAM02.VC}. Constants that depend only on the viewing conditions are folded
+ * once, and the CAT02, {@link CAM02.VC#rgbD()}, HPE, and FL scaling are fused into one matrix each way, so XYZ to CAM02-UCS
+ * needs no atan2 or cos. Results match {@link XYZ#CAM02(CAM02.VC)}, {@link CAM02#XYZ(CAM02.VC)} and the UCS conversions within
+ * float precision. Thread safe. */
+public class CAM02Kernel {
+	static private final float cos2 = (float)Math.cos(2), sin2 = (float)Math.sin(2);
+	static private final Cache<Key, CAM02Kernel> cache = Metrics.register(new Cache<>("CAM02Kernel", 64));
+
+	public final CAM02.VC vc;
+	/** XYZ to FL scaled HPE responses, and the inverse. */
+	private final float m00, m01, m02, m10, m11, m12, m20, m21, m22;
+	private final float i00, i01, i02, i10, i11, i12, i20, i21, i22;
+	private final float Nbb, AwInv, cz, p1Scale, alphaScale, qScale, FLRoot;
+	private final float p2Scale, czInv, alphaScaleInv;
+
+	public CAM02Kernel (CAM02.VC vc) {
+		if (vc == null) throw new IllegalArgumentException("vc cannot be null.");
+		this.vc = vc;
+		float[] rgbD = vc.rgbD();
+		float[] cat02 = {0.7328f, 0.4296f, -0.1624f, -0.7036f, 1.6975f, 0.0061f, 0.0030f, 0.0136f, 0.9834f};
+		float[] hpe = {0.7409791f, 0.21802516f, 0.04100575f, 0.28535329f, 0.62420157f, 0.09044513f, -0.00962761f, -0.00569803f,
+			1.01532564f};
+		float[] m = new float[9]; // FL / 100 * HPE * rgbD * CAT02.
+		float FL = vc.FL() / 100;
+		for (int row = 0; row < 3; row++)
+			for (int col = 0; col < 3; col++)
+				for (int k = 0; k < 3; k++)
+					m[row * 3 + col] += FL * hpe[row * 3 + k] * rgbD[k] * cat02[k * 3 + col];
+		m00 = m[0];
+		m01 = m[1];
+		m02 = m[2];
+		m10 = m[3];
+		m11 = m[4];
+		m12 = m[5];
+		m20 = m[6];
+		m21 = m[7];
+		m22 = m[8];
+		float[] cat02Inv = {1.0961f, -0.2789f, 0.1828f, 0.4544f, 0.4735f, 0.0721f, -0.0096f, -0.0057f, 1.0153f};
+		float[] hpeInv = {1.5591524f, -0.54472268f, -0.01444531f, -0.71432672f, 1.85030997f, -0.13597611f, 0.01077551f,
+			0.00521877f, 0.98400561f};
+		float[] i = new float[9]; // CAT02^-1 * rgbD^-1 * HPE^-1 * 100 / FL.
+		FL = 1 / FL;
+		for (int row = 0; row < 3; row++)
+			for (int col = 0; col < 3; col++)
+				for (int k = 0; k < 3; k++)
+					i[row * 3 + col] += cat02Inv[row * 3 + k] / rgbD[k] * hpeInv[k * 3 + col] * FL;
+		i00 = i[0];
+		i01 = i[1];
+		i02 = i[2];
+		i10 = i[3];
+		i11 = i[4];
+		i12 = i[5];
+		i20 = i[6];
+		i21 = i[7];
+		i22 = i[8];
+		Nbb = vc.Nbb();
+		AwInv = 1 / vc.Aw();
+		cz = vc.c() * vc.z();
+		p1Scale = 50000 / 13f * vc.Nc() * vc.Ncb() * 0.25f;
+		alphaScale = (float)Math.pow(1.64 - Math.pow(0.29, vc.n()), 0.73);
+		FLRoot = (float)Math.pow(vc.FL(), 0.25);
+		qScale = 4 / vc.c() * (vc.Aw() + 4) * FLRoot;
+		p2Scale = vc.Aw() / vc.Nbb();
+		czInv = 1 / cz;
+		alphaScaleInv = 1 / alphaScale;
+	}
+
+	/** Returns a kernel shared through a bounded cache, keyed by the values of the viewing conditions so equal VCs share a
+	 * kernel even when they are different instances. */
+	static public CAM02Kernel get (CAM02.VC vc) {
+		if (vc == null) throw new IllegalArgumentException("vc cannot be null.");
+		float[] rgbD = vc.rgbD();
+		var key = new Key(vc.Aw(), vc.Nbb(), vc.Ncb(), vc.c(), vc.Nc(), vc.n(), rgbD[0], rgbD[1], rgbD[2], vc.FL(), vc.FLRoot(), vc.z(),
+			vc.wp(), vc.La(), vc.Yb(), vc.F());
+		return cache.get(key, k -> new CAM02Kernel(vc));
+	}
+
+	/** Returns the cache used by {@link #get(CAM02.VC)}. */
+	static public Cache<?, CAM02Kernel> cache () {
+		return cache;
+	}
+
+	public CAM02 CAM02 (XYZ xyz) {
+		return CAM02(xyz.X(), xyz.Y(), xyz.Z());
+	}
+
+	public CAM02 CAM02 (float X, float Y, float Z) {
+		var out = new float[4];
+		forward(Space.jch, X, Y, Z, out, 0);
+		float J = out[0], C = out[1], sqrtJ = (float)Math.sqrt(Math.abs(J) / 100);
+		float Q = J == 0 ? 0 : qScale * sqrtJ, M = C * FLRoot;
+		return new CAM02(J, C, out[2], Q, M, M == 0 || Q == 0 ? 0 : 100 * (float)Math.sqrt(Math.abs(M / Q)));
+	}
+
+	public CAM02UCS CAM02UCS (XYZ xyz) {
+		var out = new float[4];
+		forward(Space.ucs, xyz.X(), xyz.Y(), xyz.Z(), out, 0);
+		return new CAM02UCS(out[0], out[1], out[2]);
+	}
+
+	public CAM02LCD CAM02LCD (XYZ xyz) {
+		var out = new float[4];
+		forward(Space.lcd, xyz.X(), xyz.Y(), xyz.Z(), out, 0);
+		return new CAM02LCD(out[0], out[1], out[2]);
+	}
+
+	public CAM02SCD CAM02SCD (XYZ xyz) {
+		var out = new float[4];
+		forward(Space.scd, xyz.X(), xyz.Y(), xyz.Z(), out, 0);
+		return new CAM02SCD(out[0], out[1], out[2]);
+	}
+
+	/** Uses J, C, and h. */
+	public XYZ XYZ (CAM02 cam02) {
+		var out = new float[3];
+		inverse(Space.jch, cam02.J(), cam02.C(), cam02.h(), out, 0);
+		return new XYZ(out[0], out[1], out[2]);
+	}
+
+	public XYZ XYZ (CAM02UCS ucs) {
+		var out = new float[3];
+		inverse(Space.ucs, ucs.J(), ucs.a(), ucs.b(), out, 0);
+		return new XYZ(out[0], out[1], out[2]);
+	}
+
+	public XYZ XYZ (CAM02LCD lcd) {
+		var out = new float[3];
+		inverse(Space.lcd, lcd.J(), lcd.a(), lcd.b(), out, 0);
+		return new XYZ(out[0], out[1], out[2]);
+	}
+
+	public XYZ XYZ (CAM02SCD scd) {
+		var out = new float[3];
+		inverse(Space.scd, scd.J(), scd.a(), scd.b(), out, 0);
+		return new XYZ(out[0], out[1], out[2]);
+	}
+
+	/** Converts many colors without allocating.
+	 * @param xyz 3 values per color.
+	 * @param out Receives 3 values per color in the space. */
+	public void forward (Space space, float[] xyz, float[] out) {
+		forward(space, xyz, out, 0, xyz.length / 3);
+	}
+
+	/** Same as {@link #forward(Space, float[], float[])}, but colors are converted in parallel. */
+	public void forwardParallel (Space space, float[] xyz, float[] out) {
+		int count = xyz.length / 3, chunk = 4096;
+		IntStream.range(0, (count + chunk - 1) / chunk).parallel()
+			.forEach(c -> forward(space, xyz, out, c * chunk, Math.min(count, c * chunk + chunk)));
+	}
+
+	/** Converts colors [from..to). */
+	public void forward (Space space, float[] xyz, float[] out, int from, int to) {
+		if (out.length < to * 3) throw new IllegalArgumentException("out must have 3 values per color: " + out.length);
+		var temp = new float[4];
+		for (int i = from * 3, n = to * 3; i < n; i += 3) {
+			forward(space, xyz[i], xyz[i + 1], xyz[i + 2], temp, 0);
+			out[i] = temp[0];
+			out[i + 1] = temp[1];
+			out[i + 2] = temp[2];
+		}
+	}
+
+	/** Converts many colors to XYZ without allocating.
+	 * @param in 3 values per color in the space.
+	 * @param xyz Receives 3 values per color. */
+	public void inverse (Space space, float[] in, float[] xyz) {
+		inverse(space, in, xyz, 0, in.length / 3);
+	}
+
+	/** Same as {@link #inverse(Space, float[], float[])}, but colors are converted in parallel. */
+	public void inverseParallel (Space space, float[] in, float[] xyz) {
+		int count = in.length / 3, chunk = 4096;
+		IntStream.range(0, (count + chunk - 1) / chunk).parallel()
+			.forEach(c -> inverse(space, in, xyz, c * chunk, Math.min(count, c * chunk + chunk)));
+	}
+
+	/** Converts colors [from..to). */
+	public void inverse (Space space, float[] in, float[] xyz, int from, int to) {
+		if (xyz.length < to * 3) throw new IllegalArgumentException("xyz must have 3 values per color: " + xyz.length);
+		for (int i = from * 3, n = to * 3; i < n; i += 3)
+			inverse(space, in[i], in[i + 1], in[i + 2], xyz, i);
+	}
+
+	/** @param out Must have room for 4 values. */
+	private void forward (Space space, float X, float Y, float Z, float[] out, int o) {
+		float rA = adapt(m00 * X + m01 * Y + m02 * Z);
+		float gA = adapt(m10 * X + m11 * Y + m12 * Z);
+		float bA = adapt(m20 * X + m21 * Y + m22 * Z);
+		float a = (11 * rA + -12 * gA + bA) / 11, b = (rA + gA - 2 * bA) / 9;
+		float r = (float)Math.sqrt(a * a + b * b), cosH, sinH;
+		if (r == 0) {
+			cosH = 1;
+			sinH = 0;
+		} else {
+			cosH = a / r;
+			sinH = b / r;
+		}
+		float A = (2 * rA + gA + 0.05f * bA - 0.305f) * Nbb;
+		float J = 100 * Math.signum(A) * (float)Math.pow(Math.abs(A) * AwInv, cz);
+		// The eccentricity is 0.25 * (cos(h + 2) + 3.8).
+		float t = p1Scale * (cosH * cos2 - sinH * sin2 + 3.8f) * r / (rA + gA + 21 / 20f * bA);
+		float C = J == 0 ? 0 : (float)Math.pow(t, 0.9) * (float)Math.sqrt(Math.abs(J) / 100) * alphaScale;
+		if (space == Space.jch) {
+			float h = (float)Math.atan2(b, a) * radDeg;
+			out[o] = J;
+			out[o + 1] = C;
+			out[o + 2] = h < 0 ? h + 360 : h;
+			return;
+		}
+		float Mstar = (float)Math.log1p(space.c2 * C * FLRoot) / space.c2;
+		out[o] = 1.7f * J / (1 + 0.007f * J);
+		out[o + 1] = Mstar * cosH;
+		out[o + 2] = Mstar * sinH;
+	}
+
+	private void inverse (Space space, float c0, float c1, float c2, float[] xyz, int o) {
+		float J, C, cosH, sinH;
+		if (space == Space.jch) {
+			J = c0;
+			C = c1;
+			float h = c2 * degRad;
+			cosH = (float)Math.cos(h);
+			sinH = (float)Math.sin(h);
+		} else {
+			J = c0 / (1.7f - 0.007f * c0);
+			float Mstar = (float)Math.sqrt(c1 * c1 + c2 * c2);
+			C = Mstar == 0 ? 0 : (float)(Math.expm1(Mstar * space.c2) / space.c2) / FLRoot;
+			if (Mstar == 0) {
+				cosH = 1;
+				sinH = 0;
+			} else {
+				cosH = c1 / Mstar;
+				sinH = c2 / Mstar;
+			}
+		}
+		if (J == 0) {
+			xyz[o] = 0;
+			xyz[o + 1] = 0;
+			xyz[o + 2] = 0;
+			return;
+		}
+		float t = (float)Math.pow(C / (float)Math.sqrt(Math.max(Math.abs(J), EPSILON) / 100) * alphaScaleInv, 1 / 0.9);
+		float A = Math.signum(J) * (float)Math.pow(Math.abs(J) / 100, czInv);
+		float p2 = p2Scale * A + 0.305f, p3 = 21 / 20f, a, b;
+		if (t < EPSILON) {
+			a = 0;
+			b = 0;
+		} else {
+			float p1 = p1Scale * (cosH * cos2 - sinH * sin2 + 3.8f) / t, n = p2 * (2 + p3) * (460 / 1403f);
+			if (Math.abs(sinH) >= Math.abs(cosH)) {
+				float cosH_sinH = cosH / sinH;
+				b = n / (p1 / sinH + (2 + p3) * (220 / 1403f) * cosH_sinH - (27f / 1403f) + p3 * (6300 / 1403f));
+				a = b * cosH_sinH;
+			} else {
+				float sinH_cosH = sinH / cosH;
+				a = n / (p1 / cosH + (2 + p3) * (220 / 1403f) - ((27f / 1403f) - p3 * (6300 / 1403f)) * sinH_cosH);
+				b = a * sinH_cosH;
+			}
+		}
+		float rC = unadapt((460 * p2 + 451 * a + 288 * b) / 1403 - 0.1f);
+		float gC = unadapt((460 * p2 - 891 * a - 261 * b) / 1403 - 0.1f);
+		float bC = unadapt((460 * p2 - 220 * a - 6300 * b) / 1403 - 0.1f);
+		xyz[o] = i00 * rC + i01 * gC + i02 * bC;
+		xyz[o + 1] = i10 * rC + i11 * gC + i12 * bC;
+		xyz[o + 2] = i20 * rC + i21 * gC + i22 * bC;
+	}
+
+	/** Post-adaptation non-linear response compression of an FL scaled response. */
+	static private float adapt (float v) {
+		float f = (float)Math.pow(Math.abs(v), 0.42);
+		return Math.signum(v) * 400 * f / (f + 27.13f) + 0.1f;
+	}
+
+	/** @param v Response with the 0.1 offset removed. */
+	static private float unadapt (float v) {
+		float abs = Math.abs(v);
+		return Math.signum(v) * (float)Math.pow(Math.max(0, 27.13f * abs / (400 - abs)), 1 / 0.42);
+	}
+
+	/** Output of the batch conversions. */
+	public enum Space {
+		/** Lightness, chroma, and hue angle. */
+		jch(0),
+		/** {@link CAM02UCS}. */
+		ucs(0.0228f),
+		/** {@link CAM02LCD}. */
+		lcd(0.0053f),
+		/** {@link CAM02SCD}. */
+		scd(0.0363f);
+
+		final float c2;
+
+		Space (float c2) {
+			this.c2 = c2;
+		}
+	}
+
+	private record Key (float Aw, float Nbb, float Ncb, float c, float Nc, float n, float rD, float gD, float bD, float FL,
+		float FLRoot, float z, XYZ wp, float La, float Yb, float F) {}
+}
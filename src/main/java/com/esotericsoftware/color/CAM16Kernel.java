@@ -0,0 +1,286 @@
+package com.esotericsoftware.color;
+
+import static com.esotericsoftware.color.Colors.*;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.CAM16;
+import com.esotericsoftware.color.space.CAM16LCD;
+import com.esotericsoftware.color.space.CAM16SCD;
+import com.esotericsoftware.color.space.CAM16UCS;
+import com.esotericsoftware.color.space.XYZ;
+
+/** {@link CAM16} conversions compiled for one {@link CAM16.VC}. Constants that depend only on the viewing conditions are folded
+ * once, the CAT16 matrix is fused with the {@link CAM16.VC#rgbD()} and FL scaling, and hue is carried as cos/sin instead of
+ * trigonometry where possible, so XYZ to CAM16-UCS needs no atan2 or cos. Results match {@link XYZ#CAM16(CAM16.VC)},
+ * {@link CAM16#XYZ(CAM16.VC)} and the UCS conversions within float precision. Thread safe. */
+public class CAM16Kernel {
+	static private final float cos2 = (float)Math.cos(2), sin2 = (float)Math.sin(2);
+	static private final Cache<Key, CAM16Kernel> cache = Metrics.register(new Cache<>("CAM16Kernel", 64));
+
+	public final CAM16.VC vc;
+	/** XYZ to FL scaled, adapted cone responses, and the inverse. */
+	private final float m00, m01, m02, m10, m11, m12, m20, m21, m22;
+	private final float i00, i01, i02, i10, i11, i12, i20, i21, i22;
+	/** p2 to lightness, eccentricity to t, t^0.9 to alpha, sqrt(J/100) to Q, alpha to s. */
+	private final float jScale, cz, p1Scale, alphaScale, qScale, sScale, FLRoot;
+	private final float p2Scale, czInv, alphaScaleInv;
+
+	public CAM16Kernel (CAM16.VC vc) {
+		if (vc == null) throw new IllegalArgumentException("vc cannot be null.");
+		this.vc = vc;
+		float[] rgbD = vc.rgbD();
+		float FL = vc.FL() / 100, r = rgbD[0] * FL, g = rgbD[1] * FL, b = rgbD[2] * FL;
+		m00 = 0.401288f * r;
+		m01 = 0.650173f * r;
+		m02 = -0.051461f * r;
+		m10 = -0.250268f * g;
+		m11 = 1.204414f * g;
+		m12 = 0.045854f * g;
+		m20 = -0.002079f * b;
+		m21 = 0.048952f * b;
+		m22 = 0.953127f * b;
+		r = 1 / r;
+		g = 1 / g;
+		b = 1 / b;
+		i00 = 1.8620678f * r;
+		i01 = -1.0112547f * g;
+		i02 = 0.14918678f * b;
+		i10 = 0.38752654f * r;
+		i11 = 0.62144744f * g;
+		i12 = -0.00897398f * b;
+		i20 = -0.0158415f * r;
+		i21 = -0.03412294f * g;
+		i22 = 1.0499644f * b;
+		jScale = vc.Nbb() / vc.Aw();
+		cz = vc.c() * vc.z();
+		p1Scale = 50000 / 13f * vc.Nc() * vc.Ncb() * 0.25f;
+		alphaScale = (float)Math.pow(1.64 - Math.pow(0.29, vc.n()), 0.73);
+		qScale = 4 / vc.c() * (vc.Aw() + 4) * vc.FLRoot();
+		sScale = 50 * (float)Math.sqrt(vc.c() / (vc.Aw() + 4));
+		FLRoot = vc.FLRoot();
+		p2Scale = vc.Aw() / vc.Nbb();
+		czInv = 1 / cz;
+		alphaScaleInv = 1 / alphaScale;
+	}
+
+	/** Returns a kernel shared through a bounded cache, keyed by the values of the viewing conditions so equal VCs share a
+	 * kernel even when they are different instances. */
+	static public CAM16Kernel get (CAM16.VC vc) {
+		if (vc == null) throw new IllegalArgumentException("vc cannot be null.");
+		float[] rgbD = vc.rgbD();
+		var key = new Key(vc.Aw(), vc.Nbb(), vc.Ncb(), vc.c(), vc.Nc(), vc.n(), rgbD[0], rgbD[1], rgbD[2], vc.FL(), vc.FLRoot(), vc.z(),
+			vc.wp(), vc.La(), vc.Yb());
+		return cache.get(key, k -> new CAM16Kernel(vc));
+	}
+
+	/** Returns the cache used by {@link #get(CAM16.VC)}. */
+	static public Cache<?, CAM16Kernel> cache () {
+		return cache;
+	}
+
+	public CAM16 CAM16 (XYZ xyz) {
+		return CAM16(xyz.X(), xyz.Y(), xyz.Z());
+	}
+
+	public CAM16 CAM16 (float X, float Y, float Z) {
+		var out = new float[6];
+		forward(X, Y, Z, out, 0);
+		float J = out[0], sqrtJ = (float)Math.sqrt(J / 100), alpha = out[3];
+		float C = alpha * sqrtJ, h = (float)Math.atan2(out[2], out[1]) * radDeg;
+		h = h < 0 ? h + 360 : h >= 360 ? h - 360 : h;
+		return new CAM16(J, C, h, qScale * sqrtJ, C * FLRoot, sScale * (float)Math.sqrt(alpha));
+	}
+
+	public CAM16UCS CAM16UCS (XYZ xyz) {
+		var out = new float[4];
+		forward(Space.ucs, xyz.X(), xyz.Y(), xyz.Z(), out, 0);
+		return new CAM16UCS(out[0], out[1], out[2]);
+	}
+
+	public CAM16LCD CAM16LCD (XYZ xyz) {
+		var out = new float[4];
+		forward(Space.lcd, xyz.X(), xyz.Y(), xyz.Z(), out, 0);
+		return new CAM16LCD(out[0], out[1], out[2]);
+	}
+
+	public CAM16SCD CAM16SCD (XYZ xyz) {
+		var out = new float[4];
+		forward(Space.scd, xyz.X(), xyz.Y(), xyz.Z(), out, 0);
+		return new CAM16SCD(out[0], out[1], out[2]);
+	}
+
+	/** Uses J, C, and h. */
+	public XYZ XYZ (CAM16 cam16) {
+		var out = new float[3];
+		inverse(Space.jch, cam16.J(), cam16.C(), cam16.h(), out, 0);
+		return new XYZ(out[0], out[1], out[2]);
+	}
+
+	public XYZ XYZ (CAM16UCS ucs) {
+		var out = new float[3];
+		inverse(Space.ucs, ucs.J(), ucs.a(), ucs.b(), out, 0);
+		return new XYZ(out[0], out[1], out[2]);
+	}
+
+	public XYZ XYZ (CAM16LCD lcd) {
+		var out = new float[3];
+		inverse(Space.lcd, lcd.J(), lcd.a(), lcd.b(), out, 0);
+		return new XYZ(out[0], out[1], out[2]);
+	}
+
+	public XYZ XYZ (CAM16SCD scd) {
+		var out = new float[3];
+		inverse(Space.scd, scd.J(), scd.a(), scd.b(), out, 0);
+		return new XYZ(out[0], out[1], out[2]);
+	}
+
+	/** Converts many colors without allocating.
+	 * @param xyz 3 values per color.
+	 * @param out Receives 3 values per color in the space. */
+	public void forward (Space space, float[] xyz, float[] out) {
+		forward(space, xyz, out, 0, xyz.length / 3);
+	}
+
+	/** Same as {@link #forward(Space, float[], float[])}, but colors are converted in parallel. */
+	public void forwardParallel (Space space, float[] xyz, float[] out) {
+		int count = xyz.length / 3, chunk = 4096;
+		IntStream.range(0, (count + chunk - 1) / chunk).parallel()
+			.forEach(c -> forward(space, xyz, out, c * chunk, Math.min(count, c * chunk + chunk)));
+	}
+
+	/** Converts colors [from..to). */
+	public void forward (Space space, float[] xyz, float[] out, int from, int to) {
+		if (out.length < to * 3) throw new IllegalArgumentException("out must have 3 values per color: " + out.length);
+		var temp = new float[4];
+		for (int i = from * 3, n = to * 3; i < n; i += 3) {
+			forward(space, xyz[i], xyz[i + 1], xyz[i + 2], temp, 0);
+			out[i] = temp[0];
+			out[i + 1] = temp[1];
+			out[i + 2] = temp[2];
+		}
+	}
+
+	/** Converts many colors to XYZ without allocating.
+	 * @param in 3 values per color in the space.
+	 * @param xyz Receives 3 values per color. */
+	public void inverse (Space space, float[] in, float[] xyz) {
+		inverse(space, in, xyz, 0, in.length / 3);
+	}
+
+	/** Same as {@link #inverse(Space, float[], float[])}, but colors are converted in parallel. */
+	public void inverseParallel (Space space, float[] in, float[] xyz) {
+		int count = in.length / 3, chunk = 4096;
+		IntStream.range(0, (count + chunk - 1) / chunk).parallel()
+			.forEach(c -> inverse(space, in, xyz, c * chunk, Math.min(count, c * chunk + chunk)));
+	}
+
+	/** Converts colors [from..to). */
+	public void inverse (Space space, float[] in, float[] xyz, int from, int to) {
+		if (xyz.length < to * 3) throw new IllegalArgumentException("xyz must have 3 values per color: " + xyz.length);
+		for (int i = from * 3, n = to * 3; i < n; i += 3)
+			inverse(space, in[i], in[i + 1], in[i + 2], xyz, i);
+	}
+
+	/** Writes J, a, b, and alpha, where C = alpha * sqrt(J / 100). */
+	private void forward (float X, float Y, float Z, float[] out, int o) {
+		float rA = adapt(m00 * X + m01 * Y + m02 * Z);
+		float gA = adapt(m10 * X + m11 * Y + m12 * Z);
+		float bA = adapt(m20 * X + m21 * Y + m22 * Z);
+		float a = (11 * rA + -12 * gA + bA) / 11, b = (rA + gA - 2 * bA) / 9;
+		float u = (20 * rA + 20 * gA + 21 * bA) / 20, p2 = (40 * rA + 20 * gA + bA) / 20;
+		float r = (float)Math.sqrt(a * a + b * b);
+		// cos(h + 2) from a and b, the eccentricity is 0.25 * (cos(h + 2) + 3.8).
+		float cosH2 = r == 0 ? cos2 : (a * cos2 - b * sin2) / r;
+		float t = p1Scale * (cosH2 + 3.8f) * r / (u + 0.305f);
+		out[o] = 100 * (float)Math.pow(p2 * jScale, cz);
+		out[o + 1] = a;
+		out[o + 2] = b;
+		out[o + 3] = alphaScale * (float)Math.pow(t, 0.9);
+	}
+
+	/** @param out Must have room for 4 values. */
+	private void forward (Space space, float X, float Y, float Z, float[] out, int o) {
+		forward(X, Y, Z, out, o);
+		float J = out[o], a = out[o + 1], b = out[o + 2];
+		float C = out[o + 3] * (float)Math.sqrt(J / 100);
+		if (space == Space.jch) {
+			float h = (float)Math.atan2(b, a) * radDeg;
+			out[o + 1] = C;
+			out[o + 2] = h < 0 ? h + 360 : h >= 360 ? h - 360 : h;
+			return;
+		}
+		float r = (float)Math.sqrt(a * a + b * b);
+		float Mstar = (float)Math.log1p(space.c2 * C * FLRoot) / space.c2, scale = r == 0 ? 0 : Mstar / r;
+		out[o] = space.KL * J / (1 + 0.007f * J);
+		out[o + 1] = a * scale;
+		out[o + 2] = b * scale;
+	}
+
+	private void inverse (Space space, float c0, float c1, float c2, float[] xyz, int o) {
+		float J, C, cosH, sinH;
+		if (space == Space.jch) {
+			J = c0;
+			C = c1;
+			float h = c2 * degRad;
+			cosH = (float)Math.cos(h);
+			sinH = (float)Math.sin(h);
+		} else {
+			J = c0 / (space.KL - 0.007f * c0);
+			float Mstar = (float)Math.sqrt(c1 * c1 + c2 * c2);
+			C = (float)(Math.expm1(Mstar * space.c2) / space.c2) / FLRoot;
+			if (Mstar == 0) {
+				cosH = 1;
+				sinH = 0;
+			} else {
+				cosH = c1 / Mstar;
+				sinH = c2 / Mstar;
+			}
+		}
+		float alpha = C == 0 || J == 0 ? 0 : C / (float)Math.sqrt(J / 100);
+		float t = (float)Math.pow(alpha * alphaScaleInv, 1 / 0.9);
+		float p2 = p2Scale * (float)Math.pow(J / 100, czInv);
+		float p1 = p1Scale * (cosH * cos2 - sinH * sin2 + 3.8f);
+		float gamma = 23 * (p2 + 0.305f) * t / (23 * p1 + 11 * t * cosH + 108 * t * sinH);
+		float a = gamma * cosH, b = gamma * sinH;
+		float rC = unadapt((460 * p2 + 451 * a + 288 * b) / 1403);
+		float gC = unadapt((460 * p2 - 891 * a - 261 * b) / 1403);
+		float bC = unadapt((460 * p2 - 220 * a - 6300 * b) / 1403);
+		xyz[o] = i00 * rC + i01 * gC + i02 * bC;
+		xyz[o + 1] = i10 * rC + i11 * gC + i12 * bC;
+		xyz[o + 2] = i20 * rC + i21 * gC + i22 * bC;
+	}
+
+	/** Post-adaptation non-linear response compression of an FL scaled response. */
+	static private float adapt (float v) {
+		float f = (float)Math.pow(Math.abs(v), 0.42);
+		return Math.signum(v) * 400 * f / (f + 27.13f);
+	}
+
+	static private float unadapt (float v) {
+		float abs = Math.abs(v);
+		return Math.signum(v) * (float)Math.pow(Math.max(0, 27.13f * abs / (400 - abs)), 1 / 0.42);
+	}
+
+	/** Output of the batch conversions. */
+	public enum Space {
+		/** Lightness, chroma, and hue angle. */
+		jch(0, 0),
+		/** {@link CAM16UCS}. */
+		ucs(1.7f, 0.0228f),
+		/** {@link CAM16LCD}. */
+		lcd(0.77f, 0.15f),
+		/** {@link CAM16SCD}. */
+		scd(1.65f, 0.0228f);
+
+		final float KL, c2;
+
+		Space (float KL, float c2) {
+			this.KL = KL;
+			this.c2 = c2;
+		}
+	}
+
+	private record Key (float Aw, float Nbb, float Ncb, float c, float Nc, float n, float rD, float gD, float bD, float FL,
+		float FLRoot, float z, XYZ wp, float La, float Yb) {}
+}
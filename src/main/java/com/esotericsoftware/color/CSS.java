@@ -0,0 +1,472 @@
+package com.esotericsoftware.color;
+
+import static com.esotericsoftware.color.Colors.*;
+
+import java.io.IOException;
+
+import com.esotericsoftware.color.space.HSL;
+import com.esotericsoftware.color.space.LCh;
+import com.esotericsoftware.color.space.LMS.CAT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.Oklab;
+import com.esotericsoftware.color.space.Oklch;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.XYZ;
+
+/** Parses and writes CSS Color 4 colors: <code>#rgb</code>, <code>#rgba</code>, <code>#rrggbb</code>, <code>#rrggbbaa</code>,
+ * <code>rgb()</code>, <code>rgba()</code>, <code>hsl()</code>, <code>hsla()</code>, <code>lab()</code>, <code>lch()</code>,
+ * <code>oklab()</code>, <code>oklch()</code> and <code>color()</code> with the srgb, srgb-linear, display-p3, rec2020, xyz,
+ * xyz-d50 and xyz-d65 spaces. Both the modern and legacy comma syntaxes are accepted and <code>none</code> is 0, or NaN for hue.
+ * <p>
+ * The methods taking a values array parse directly over the characters and write numbers without allocating. */
+public class CSS {
+	static private final double[] pow10 = new double[39];
+	static {
+		pow10[0] = 1;
+		for (int i = 1; i < pow10.length; i++)
+			pow10[i] = pow10[i - 1] * 10;
+	}
+
+	/** @see #parse(CharSequence, int, int, float[]) */
+	static public Syntax parse (CharSequence text, float[] values) {
+		return parse(text, 0, text.length(), values);
+	}
+
+	/** Parses a color without allocating.
+	 * @param values Receives the 3 components in the units of the record type for the syntax (see {@link Syntax#record(float[])})
+	 *           and the alpha [0..1]. Hue is degrees [0..360). Other values are not clamped.
+	 * @return The syntax, or null if the characters [start..end) are not a supported color. */
+	static public Syntax parse (CharSequence text, int start, int end, float[] values) {
+		if (values.length < 4) throw new IllegalArgumentException("values must have length >= 4: " + values.length);
+		start = skip(text, start, end);
+		while (end > start && whitespace(text.charAt(end - 1)))
+			end--;
+		if (start == end) return null;
+		if (text.charAt(start) == '#') return hex(text, start + 1, end, values) ? Syntax.hex : null;
+		int open = start;
+		while (open < end && text.charAt(open) != '(')
+			open++;
+		if (open == end || text.charAt(end - 1) != ')') return null;
+		end--;
+		Syntax syntax;
+		int i = open + 1;
+		if (matches(text, start, open, "rgb") || matches(text, start, open, "rgba"))
+			syntax = Syntax.rgb;
+		else if (matches(text, start, open, "hsl") || matches(text, start, open, "hsla"))
+			syntax = Syntax.hsl;
+		else if (matches(text, start, open, "lab"))
+			syntax = Syntax.lab;
+		else if (matches(text, start, open, "lch"))
+			syntax = Syntax.lch;
+		else if (matches(text, start, open, "oklab"))
+			syntax = Syntax.oklab;
+		else if (matches(text, start, open, "oklch"))
+			syntax = Syntax.oklch;
+		else if (matches(text, start, open, "color")) {
+			i = skip(text, i, end);
+			int name = i;
+			while (i < end && !whitespace(text.charAt(i)))
+				i++;
+			syntax = null;
+			if (matches(text, name, i, "xyz"))
+				syntax = Syntax.xyzD65;
+			else {
+				for (Syntax s : Syntax.values) {
+					if (s.space != null && matches(text, name, i, s.space)) {
+						syntax = s;
+						break;
+					}
+				}
+			}
+			if (syntax == null || i == end) return null;
+		} else
+			return null;
+		return components(text, skip(text, i, end), end, values, syntax) ? syntax : null;
+	}
+
+	/** Parses a color.
+	 * @return The record for the syntax, see {@link Syntax#record(float[])}. Alpha is discarded.
+	 * @throws IllegalArgumentException if the text is not a supported color. */
+	static public Record parse (CharSequence text) {
+		var values = new float[4];
+		Syntax syntax = parse(text, 0, text.length(), values);
+		if (syntax == null) throw new IllegalArgumentException("Invalid CSS color: " + text);
+		return syntax.record(values);
+	}
+
+	static private boolean hex (CharSequence text, int i, int end, float[] values) {
+		int n = end - i;
+		if (n != 3 && n != 4 && n != 6 && n != 8) return false;
+		values[3] = 1;
+		if (n < 6) {
+			for (int c = 0; c < n; c++) {
+				int digit = hexDigit(text.charAt(i + c));
+				if (digit < 0) return false;
+				values[c] = digit * 17 / 255f;
+			}
+		} else {
+			for (int c = 0; c < n >> 1; c++) {
+				int high = hexDigit(text.charAt(i + c * 2)), low = hexDigit(text.charAt(i + c * 2 + 1));
+				if (high < 0 || low < 0) return false;
+				values[c] = (high << 4 | low) / 255f;
+			}
+		}
+		return true;
+	}
+
+	/** Parses 3 components and an optional alpha up to end. */
+	static private boolean components (CharSequence text, int i, int end, float[] values, Syntax syntax) {
+		i = component(text, i, end, values, 0, syntax);
+		if (i < 0) return false;
+		i = skip(text, i, end);
+		boolean commas = i < end && text.charAt(i) == ',';
+		if (commas && !syntax.legacy) return false;
+		for (int c = 1; c < 3; c++) {
+			if (commas) {
+				if (i == end || text.charAt(i) != ',') return false;
+				i = skip(text, i + 1, end);
+			}
+			i = component(text, i, end, values, c, syntax);
+			if (i < 0) return false;
+			i = skip(text, i, end);
+		}
+		values[3] = 1;
+		if (i < end) {
+			if (text.charAt(i) != (commas ? ',' : '/')) return false;
+			i = skip(text, i + 1, end);
+			if (matches(text, i, Math.min(end, i + 4), "none")) {
+				values[3] = 0;
+				i = delimiter(text, i + 4, end);
+			} else {
+				i = number(text, i, end, values, 3);
+				if (i < 0) return false;
+				if (i < end && text.charAt(i) == '%') {
+					values[3] /= 100;
+					i++;
+				}
+				values[3] = clamp(values[3]);
+				i = delimiter(text, i, end);
+			}
+			if (i < 0) return false;
+			i = skip(text, i, end);
+		}
+		return i == end;
+	}
+
+	/** @return The index after the component, or -1. */
+	static private int component (CharSequence text, int i, int end, float[] values, int index, Syntax syntax) {
+		boolean hue = index == syntax.hue;
+		if (matches(text, i, Math.min(end, i + 4), "none")) {
+			values[index] = hue ? Float.NaN : 0;
+			return delimiter(text, i + 4, end);
+		}
+		i = number(text, i, end, values, index);
+		if (i < 0) return -1;
+		float value = values[index];
+		if (i < end && text.charAt(i) == '%') {
+			if (hue) return -1;
+			values[index] = value * syntax.percent[index] / 100;
+			i++;
+		} else if (hue) {
+			int unit = i;
+			while (i < end && Character.isLetter(text.charAt(i)))
+				i++;
+			if (matches(text, unit, i, "rad"))
+				value *= radDeg;
+			else if (matches(text, unit, i, "grad"))
+				value *= 0.9f;
+			else if (matches(text, unit, i, "turn"))
+				value *= 360;
+			else if (i != unit && !matches(text, unit, i, "deg")) //
+				return -1;
+			value %= 360;
+			values[index] = value < 0 ? value + 360 : value;
+		} else
+			values[index] = value * syntax.scale[index];
+		return delimiter(text, i, end);
+	}
+
+	/** Parses a CSS number into values[index].
+	 * @return The index after the number, or -1. */
+	static private int number (CharSequence text, int i, int end, float[] values, int index) {
+		boolean negative = false;
+		if (i < end) {
+			char c = text.charAt(i);
+			if (c == '-' || c == '+') {
+				negative = c == '-';
+				i++;
+			}
+		}
+		long mantissa = 0;
+		int exponent = 0, digits = 0;
+		for (; i < end; i++, digits++) {
+			int digit = text.charAt(i) - '0';
+			if (digit < 0 || digit > 9) break;
+			if (mantissa < 100000000000000000L)
+				mantissa = mantissa * 10 + digit;
+			else
+				exponent++;
+		}
+		if (i < end && text.charAt(i) == '.') {
+			for (i++; i < end; i++, digits++) {
+				int digit = text.charAt(i) - '0';
+				if (digit < 0 || digit > 9) break;
+				if (mantissa < 100000000000000000L) {
+					mantissa = mantissa * 10 + digit;
+					exponent--;
+				}
+			}
+		}
+		if (digits == 0) return -1;
+		if (i + 1 < end && (text.charAt(i) | 0x20) == 'e') { // Only an exponent if digits follow, else a unit.
+			int e = i + 1;
+			boolean negativeExponent = false;
+			char c = text.charAt(e);
+			if (c == '-' || c == '+') {
+				negativeExponent = c == '-';
+				e++;
+			}
+			if (e < end && text.charAt(e) >= '0' && text.charAt(e) <= '9') {
+				int value = 0;
+				for (; e < end; e++) {
+					int digit = text.charAt(e) - '0';
+					if (digit < 0 || digit > 9) break;
+					if (value < 1000) value = value * 10 + digit;
+				}
+				exponent += negativeExponent ? -value : value;
+				i = e;
+			}
+		}
+		double value = mantissa;
+		if (exponent < -56)
+			value = 0;
+		else if (exponent < 0) {
+			if (exponent < -38) {
+				value /= pow10[38];
+				exponent += 38;
+			}
+			value /= pow10[-exponent];
+		} else if (exponent > 38)
+			value = mantissa == 0 ? 0 : Float.MAX_VALUE;
+		else if (exponent > 0) //
+			value *= pow10[exponent];
+		if (value > Float.MAX_VALUE) value = Float.MAX_VALUE; // Out of range numbers are clamped, as CSS does.
+		values[index] = (float)(negative ? -value : value);
+		return i;
+	}
+
+	/** @return The index if at the end or a separator, else -1. */
+	static private int delimiter (CharSequence text, int i, int end) {
+		if (i == end) return i;
+		char c = text.charAt(i);
+		return whitespace(c) || c == ',' || c == '/' ? i : -1;
+	}
+
+	static private int skip (CharSequence text, int i, int end) {
+		while (i < end && whitespace(text.charAt(i)))
+			i++;
+		return i;
+	}
+
+	static private boolean whitespace (char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+
+	/** Case insensitive comparison of [start..end) to an ASCII name. */
+	static private boolean matches (CharSequence text, int start, int end, String name) {
+		int n = name.length();
+		if (end - start != n) return false;
+		for (int i = 0; i < n; i++) {
+			char c = text.charAt(start + i);
+			if (c >= 'A' && c <= 'Z') c += 32;
+			if (c != name.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	/** Writes the color using the modern syntax. Alpha is omitted when 1 and NaN values are written as <code>none</code>.
+	 * @param values 3 components in the units {@link #parse(CharSequence, int, int, float[])} produces, and an optional alpha.
+	 * @throws IllegalArgumentException if a value is infinite. */
+	static public <T extends Appendable> T write (Syntax syntax, float[] values, T out) {
+		float alpha = values.length > 3 ? clamp(values[3]) : 1;
+		try {
+			if (syntax == Syntax.hex) {
+				out.append('#');
+				for (int i = 0; i < 3; i++)
+					hex(out, values[i]);
+				if (alpha < 1) hex(out, alpha);
+				return out;
+			}
+			out.append(syntax.function).append('(');
+			if (syntax.space != null) out.append(syntax.space).append(' ');
+			for (int i = 0; i < 3; i++) {
+				if (i > 0) out.append(' ');
+				float value = values[i];
+				if (i == syntax.hue || Float.isNaN(value))
+					number(out, value, 3);
+				else if (syntax == Syntax.hsl) {
+					number(out, value * 100, 3);
+					out.append('%');
+				} else
+					number(out, value / syntax.scale[i], syntax.decimals);
+			}
+			if (alpha < 1) {
+				out.append(" / ");
+				number(out, alpha, 3);
+			}
+			out.append(')');
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
+		}
+		return out;
+	}
+
+	/** @see #write(Syntax, float[], Appendable) */
+	static public String toString (Syntax syntax, float[] values) {
+		return write(syntax, values, new StringBuilder(32)).toString();
+	}
+
+	/** Writes {@link RGB} as hex, {@link HSL}, {@link Lab}, {@link LCh}, {@link Oklab} and {@link Oklch} as their functions,
+	 * {@link LRGB} as <code>color(srgb-linear)</code> and {@link XYZ} as <code>color(xyz-d65)</code>.
+	 * @throws IllegalArgumentException if the color's type has no CSS syntax. */
+	static public <T extends Appendable> T write (Record color, T out) {
+		Syntax syntax;
+		if (color instanceof RGB)
+			syntax = Syntax.hex;
+		else if (color instanceof HSL)
+			syntax = Syntax.hsl;
+		else if (color instanceof Lab)
+			syntax = Syntax.lab;
+		else if (color instanceof LCh)
+			syntax = Syntax.lch;
+		else if (color instanceof Oklab)
+			syntax = Syntax.oklab;
+		else if (color instanceof Oklch)
+			syntax = Syntax.oklch;
+		else if (color instanceof LRGB)
+			syntax = Syntax.srgbLinear;
+		else if (color instanceof XYZ xyz) //
+			return write(Syntax.xyzD65, new float[] {xyz.X() / 100, xyz.Y() / 100, xyz.Z() / 100, 1}, out);
+		else
+			throw new IllegalArgumentException("No CSS syntax for: " + color.getClass().getSimpleName());
+		var values = new float[] {0, 0, 0, 1};
+		Colors.floats(color, values, 0);
+		return write(syntax, values, out);
+	}
+
+	/** @see #write(Record, Appendable) */
+	static public String toString (Record color) {
+		return write(color, new StringBuilder(32)).toString();
+	}
+
+	static private void hex (Appendable out, float value) throws IOException {
+		int i = Math.round(clamp(value) * 255);
+		out.append(hexDigits[i >> 4]).append(hexDigits[i & 15]);
+	}
+
+	static private final char[] hexDigits = "0123456789abcdef".toCharArray();
+
+	/** Writes a number rounded to the decimals, without trailing zeros. Numbers too large to scale exactly are written with an
+	 * exponent. */
+	static private void number (Appendable out, float value, int decimals) throws IOException {
+		if (Float.isNaN(value)) {
+			out.append("none");
+			return;
+		}
+		if (Float.isInfinite(value)) throw new IllegalArgumentException("value must be finite: " + value);
+		double scaled = Math.abs((double)value) * pow10[decimals];
+		if (scaled >= 1e15) {
+			out.append(Float.toString(value));
+			return;
+		}
+		long scale = (long)pow10[decimals], n = Math.round(scaled);
+		if (n != 0 && value < 0) out.append('-');
+		long whole = n / scale, fraction = n % scale;
+		long p = 1;
+		while (p * 10 <= whole)
+			p *= 10;
+		for (; p > 0; p /= 10)
+			out.append((char)('0' + whole / p % 10));
+		if (fraction != 0) {
+			out.append('.');
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				decimals--;
+			}
+			for (p = (long)pow10[decimals - 1]; p > 0; p /= 10)
+				out.append((char)('0' + fraction / p % 10));
+		}
+	}
+
+	static public enum Syntax {
+		hex(null, "rgb", false, -1, 0, 1 / 255f, 1, 1 / 255f, 1, 1 / 255f, 1), //
+		rgb(null, "rgb", true, -1, 2, 1 / 255f, 1, 1 / 255f, 1, 1 / 255f, 1), //
+		hsl(null, "hsl", true, 0, 3, 1, 0, 0.01f, 1, 0.01f, 1), //
+		lab(null, "lab", false, -1, 3, 1, 100, 1, 125, 1, 125), //
+		lch(null, "lch", false, 2, 3, 1, 100, 1, 150, 1, 0), //
+		oklab(null, "oklab", false, -1, 5, 1, 1, 1, 0.4f, 1, 0.4f), //
+		oklch(null, "oklch", false, 2, 5, 1, 1, 1, 0.4f, 1, 0), //
+		srgb("srgb"), //
+		srgbLinear("srgb-linear"), //
+		displayP3("display-p3"), //
+		rec2020("rec2020"), //
+		xyzD50("xyz-d50"), //
+		xyzD65("xyz-d65");
+
+		static final Syntax[] values = values();
+
+		/** The <code>color()</code> space name, or null. */
+		public final String space;
+		final String function;
+		final boolean legacy;
+		final int hue, decimals;
+		/** Multiplier for numbers and the value of 100% per component. */
+		final float[] scale, percent;
+
+		Syntax (String space) {
+			this(space, "color", false, -1, 5, 1, 1, 1, 1, 1, 1);
+		}
+
+		Syntax (String space, String function, boolean legacy, int hue, int decimals, float scale0, float percent0, float scale1,
+			float percent1, float scale2, float percent2) {
+			this.space = space;
+			this.function = function;
+			this.legacy = legacy;
+			this.hue = hue;
+			this.decimals = decimals;
+			scale = new float[] {scale0, scale1, scale2};
+			percent = new float[] {percent0, percent1, percent2};
+		}
+
+		/** Creates the record for parsed values: {@link RGB} for hex, rgb and srgb, {@link HSL}, {@link Lab}, {@link LCh},
+		 * {@link Oklab}, {@link Oklch}, {@link LRGB} for srgb-linear, and D65 {@link XYZ} [0..100] for display-p3 (through
+		 * {@link Gamut#DisplayP3}), rec2020 (through {@link Gamut#Rec2020}) and the xyz spaces (xyz-d50 is adapted with Bradford).
+		 * Alpha is discarded. */
+		public Record record (float[] values) {
+			float a = values[0], b = values[1], c = values[2];
+			return switch (this) {
+			case hex, rgb, srgb -> new RGB(a, b, c);
+			case hsl -> new HSL(a, b, c);
+			case lab -> new Lab(a, b, c);
+			case lch -> new LCh(a, b, c);
+			case oklab -> new Oklab(a, b, c);
+			case oklch -> new Oklch(a, b, c);
+			case srgbLinear -> new LRGB(a, b, c);
+			case displayP3 -> Gamut.DisplayP3.XYZ(new LRGB(linear(a), linear(b), linear(c)));
+			case rec2020 -> Gamut.Rec2020.XYZ(new LRGB(rec2020(a), rec2020(b), rec2020(c)));
+			case xyzD65 -> new XYZ(a * 100, b * 100, c * 100);
+			case xyzD50 -> ChromaticAdaptation.get(Observer.CIE2_1931.D50, Observer.CIE2_1931.D65, CAT.Bradford)
+				.XYZ(new XYZ(a * 100, b * 100, c * 100));
+			};
+		}
+
+		/** Rec. 2020 inverse transfer function, mirrored for negative values. */
+		static private float rec2020 (float encoded) {
+			float abs = Math.abs(encoded);
+			float linear = abs < 0.081242864f ? abs / 4.5f
+				: (float)Math.pow((abs + 0.09929682680944) / 1.09929682680944, 1 / 0.45);
+			return encoded < 0 ? -linear : linear;
+		}
+	}
+}
@@ -0,0 +1,264 @@
+package com.esotericsoftware.color;
+
+import static com.esotericsoftware.color.Colors.*;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.LMS.CAT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.RGB;
+
+/** Color vision deficiency simulation and daltonization for sRGB. Each type, method, and severity is compiled into one linear
+ * RGB matrix, or for {@link Method#brettel} two matrices selected by a plane, then applied per pixel with table based sRGB
+ * decoding and encoding. Dichromat projections are computed in {@link CAT#HPE} cone space from the CIE 1931 observer, and lower
+ * severities interpolate between the identity and the dichromat matrix to approximate anomalous trichromacy. Immutable and
+ * thread safe. */
+public class CVD {
+	static private final Cache<Key, CVD> cache = Metrics.register(new Cache<>("CVD", 64));
+	static private final int chunk = 8192;
+	/** Machado et al. (2009) linear sRGB matrices for severity 1, for protan, deutan, and tritan. */
+	static private final double[][] machado = { //
+		{0.152286, 1.052583, -0.204868, 0.114503, 0.786281, 0.099216, -0.003882, -0.048116, 1.051998}, //
+		{0.367322, 0.860646, -0.227968, 0.280085, 0.672501, 0.047413, -0.01182, 0.04294, 0.968881}, //
+		{1.255528, -0.076749, -0.178779, -0.078411, 0.930809, 0.147602, 0.004733, 0.691367, 0.3039}};
+
+	public final Type type;
+	public final Method method;
+	/** [0..1], 1 is dichromacy. */
+	public final float severity;
+	/** True if colors are shifted to be more distinguishable for the deficiency, rather than simulated. */
+	public final boolean daltonize;
+	/** Row major linear RGB. For {@link Method#brettel} the second matrix is used for colors on the negative side of the
+	 * separation plane, otherwise it is the same as the first. */
+	private final float[] matrix1, matrix2;
+	private final float planeR, planeG, planeB;
+
+	/** Returns a shared simulation. */
+	static public CVD simulate (Type type, Method method, float severity) {
+		return get(type, method, severity, false);
+	}
+
+	/** Returns a shared daltonization. */
+	static public CVD daltonize (Type type, Method method, float severity) {
+		return get(type, method, severity, true);
+	}
+
+	static public CVD get (Type type, Method method, float severity, boolean daltonize) {
+		return cache.get(new Key(type, method, severity, daltonize), key -> new CVD(type, method, severity, daltonize));
+	}
+
+	static public Cache<?, CVD> cache () {
+		return cache;
+	}
+
+	/** @param severity [0..1].
+	 * @param daltonize False to simulate, true to shift the colors lost by the simulation into channels the deficiency can
+	 *           distinguish (Fidaner et al. 2005). */
+	public CVD (Type type, Method method, float severity, boolean daltonize) {
+		if (type == null) throw new IllegalArgumentException("type cannot be null.");
+		if (method == null) throw new IllegalArgumentException("method cannot be null.");
+		if (!(severity >= 0 && severity <= 1)) throw new IllegalArgumentException("severity must be [0..1]: " + severity);
+		if (method == Method.vienot && type == Type.tritan) throw new IllegalArgumentException("vienot does not support tritan.");
+		this.type = type;
+		this.method = method;
+		this.severity = severity;
+		this.daltonize = daltonize;
+
+		double[] rgbToLMS = multiply(toDouble(CAT.HPE.forward()), toDouble(Gamut.sRGB.RGB_XYZ)), lmsToRGB = invert(rgbToLMS);
+		double[] white = transform(rgbToLMS, 1, 1, 1);
+		int cone = type.ordinal();
+		double[] simulation1, simulation2;
+		double[] plane = null;
+		switch (method) {
+		case machado -> {
+			simulation1 = machado[cone];
+			simulation2 = simulation1;
+		}
+		case vienot -> {
+			// One plane through white and the sRGB blue primary.
+			double[] projection = projection(cone, cross(white, transform(rgbToLMS, 0, 0, 1)));
+			simulation1 = multiply(lmsToRGB, multiply(projection, rgbToLMS));
+			simulation2 = simulation1;
+		}
+		default -> {
+			// Two half planes through white and monochromatic anchors, selected by the plane through white and the missing cone axis.
+			double[] anchor1 = monochromatic(type == Type.tritan ? 485 : 475), anchor2 = monochromatic(type == Type.tritan ? 660 : 575);
+			simulation1 = multiply(lmsToRGB, multiply(projection(cone, cross(white, anchor1)), rgbToLMS));
+			simulation2 = multiply(lmsToRGB, multiply(projection(cone, cross(white, anchor2)), rgbToLMS));
+			var axis = new double[3];
+			axis[cone] = 1;
+			double[] separation = cross(white, axis);
+			if (dot(separation, anchor1) < 0) {
+				for (int i = 0; i < 3; i++)
+					separation[i] = -separation[i];
+			}
+			plane = new double[3]; // separation . (rgbToLMS * rgb)
+			for (int i = 0; i < 3; i++)
+				plane[i] = separation[0] * rgbToLMS[i] + separation[1] * rgbToLMS[3 + i] + separation[2] * rgbToLMS[6 + i];
+		}
+		}
+		matrix1 = compile(simulation1, severity, daltonize, type);
+		matrix2 = simulation2 == simulation1 ? matrix1 : compile(simulation2, severity, daltonize, type);
+		if (plane != null) {
+			planeR = (float)plane[0];
+			planeG = (float)plane[1];
+			planeB = (float)plane[2];
+		} else {
+			planeR = 0;
+			planeG = 0;
+			planeB = 0;
+		}
+	}
+
+	/** @return A copy of the row major linear RGB matrix, for {@link Method#brettel} the one for colors on the positive side of
+	 *         the separation plane. */
+	public float[] matrix () {
+		return matrix1.clone();
+	}
+
+	/** @return Not clamped. */
+	public LRGB LRGB (LRGB rgb) {
+		float r = rgb.r(), g = rgb.g(), b = rgb.b();
+		float[] m = planeR * r + planeG * g + planeB * b >= 0 ? matrix1 : matrix2;
+		return new LRGB(m[0] * r + m[1] * g + m[2] * b, m[3] * r + m[4] * g + m[5] * b, m[6] * r + m[7] * g + m[8] * b);
+	}
+
+	/** @return Clamped. */
+	public RGB RGB (RGB rgb) {
+		LRGB result = LRGB(rgb.LRGB());
+		return new RGB(sRGB(result.r()), sRGB(result.g()), sRGB(result.b()));
+	}
+
+	/** Transforms packed 0xAARRGGBB sRGB pixels, keeping alpha.
+	 * @param out May be the same array as in. */
+	public void argb (int[] in, int[] out) {
+		argb(in, out, 0, check(in.length, out.length));
+	}
+
+	/** Same as {@link #argb(int[], int[])}, in parallel. */
+	public void argbParallel (int[] in, int[] out) {
+		int n = check(in.length, out.length);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> argb(in, out, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Transforms pixels [from..to). Runs of equal pixels are computed once. */
+	public void argb (int[] in, int[] out, int from, int to) {
+		float[] matrix1 = this.matrix1, matrix2 = this.matrix2;
+		float planeR = this.planeR, planeG = this.planeG, planeB = this.planeB;
+		int last = 0, result = 0;
+		boolean cached = false;
+		for (int i = from; i < to; i++) {
+			int pixel = in[i];
+			if (!cached || (pixel & 0xffffff) != last) {
+				last = pixel & 0xffffff;
+				cached = true;
+				float r = linear8(pixel >>> 16 & 0xff), g = linear8(pixel >>> 8 & 0xff), b = linear8(pixel & 0xff);
+				float[] m = planeR * r + planeG * g + planeB * b >= 0 ? matrix1 : matrix2;
+				result = sRGB8(m[0] * r + m[1] * g + m[2] * b) << 16 //
+					| sRGB8(m[3] * r + m[4] * g + m[5] * b) << 8 //
+					| sRGB8(m[6] * r + m[7] * g + m[8] * b);
+			}
+			out[i] = (pixel & 0xff000000) | result;
+		}
+	}
+
+	/** Interpolates the simulation by severity, then optionally daltonizes: I + shift * (I - simulation). */
+	static private float[] compile (double[] simulation, float severity, boolean daltonize, Type type) {
+		var m = new double[9];
+		for (int i = 0; i < 9; i++)
+			m[i] = (i % 4 == 0 ? 1 - severity : 0) + simulation[i] * severity;
+		if (daltonize) {
+			// Lost red-green contrast is added to green and blue, lost blue-yellow contrast to red and green.
+			double[] shift = type == Type.tritan ? new double[] {1, 0, 0.7, 0, 1, 0.7, 0, 0, 0}
+				: new double[] {0, 0, 0, 0.7, 1, 0, 0.7, 0, 1};
+			var error = new double[9];
+			for (int i = 0; i < 9; i++)
+				error[i] = (i % 4 == 0 ? 1 : 0) - m[i];
+			m = multiply(shift, error);
+			for (int i = 0; i < 9; i += 4)
+				m[i] += 1;
+		}
+		var result = new float[9];
+		for (int i = 0; i < 9; i++)
+			result[i] = (float)m[i];
+		return result;
+	}
+
+	/** Returns the LMS matrix that replaces the missing cone so colors lie on the plane with the normal. */
+	static private double[] projection (int cone, double[] normal) {
+		double[] m = {1, 0, 0, 0, 1, 0, 0, 0, 1};
+		for (int i = 0; i < 3; i++)
+			m[cone * 3 + i] = i == cone ? 0 : -normal[i] / normal[cone];
+		return m;
+	}
+
+	static private double[] monochromatic (int wavelength) {
+		Observer observer = Observer.CIE2_1931;
+		int i = (wavelength - 380) / 5;
+		return transform(toDouble(CAT.HPE.forward()), observer.xbar[i], observer.ybar[i], observer.zbar[i]);
+	}
+
+	static private double[] transform (double[] m, double x, double y, double z) {
+		return new double[] {m[0] * x + m[1] * y + m[2] * z, m[3] * x + m[4] * y + m[5] * z, m[6] * x + m[7] * y + m[8] * z};
+	}
+
+	static private double[] cross (double[] a, double[] b) {
+		return new double[] {a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2], a[0] * b[1] - a[1] * b[0]};
+	}
+
+	static private double dot (double[] a, double[] b) {
+		return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+	}
+
+	static private double[] multiply (double[] a, double[] b) {
+		var result = new double[9];
+		for (int row = 0; row < 3; row++)
+			for (int col = 0; col < 3; col++)
+				result[row * 3 + col] = a[row * 3] * b[col] + a[row * 3 + 1] * b[3 + col] + a[row * 3 + 2] * b[6 + col];
+		return result;
+	}
+
+	static private double[] invert (double[] m) {
+		double det = m[0] * (m[4] * m[8] - m[5] * m[7]) - m[1] * (m[3] * m[8] - m[5] * m[6]) + m[2] * (m[3] * m[7] - m[4] * m[6]);
+		return new double[] { //
+			(m[4] * m[8] - m[5] * m[7]) / det, (m[2] * m[7] - m[1] * m[8]) / det, (m[1] * m[5] - m[2] * m[4]) / det, //
+			(m[5] * m[6] - m[3] * m[8]) / det, (m[0] * m[8] - m[2] * m[6]) / det, (m[2] * m[3] - m[0] * m[5]) / det, //
+			(m[3] * m[7] - m[4] * m[6]) / det, (m[1] * m[6] - m[0] * m[7]) / det, (m[0] * m[4] - m[1] * m[3]) / det};
+	}
+
+	static private double[] toDouble (float[] m) {
+		var result = new double[9];
+		for (int i = 0; i < 9; i++)
+			result[i] = m[i];
+		return result;
+	}
+
+	static private double[] toDouble (float[][] m) {
+		var result = new double[9];
+		for (int i = 0; i < 9; i++)
+			result[i] = m[i / 3][i % 3];
+		return result;
+	}
+
+	/** The missing or anomalous cone. */
+	static public enum Type {
+		/** Long wavelength (red) cones. */
+		protan,
+		/** Medium wavelength (green) cones. */
+		deutan,
+		/** Short wavelength (blue) cones. */
+		tritan
+	}
+
+	static public enum Method {
+		/** Brettel, Viénot, and Mollon (1997): two half planes, accurate for all types. */
+		brettel,
+		/** Viénot, Brettel, and Mollon (1999): a single plane, for protan and deutan only. */
+		vienot,
+		/** Machado, Oliveira, and Fernandes (2009) severity 1 matrices. */
+		machado
+	}
+
+	static private record Key (Type type, Method method, float severity, boolean daltonize) {}
+}
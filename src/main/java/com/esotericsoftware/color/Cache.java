@@ -0,0 +1,90 @@
+package com.esotericsoftware.color;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/** Bounded, thread safe memoization of immutable values. When full, about 1/8 of the entries are evicted in arbitrary order.
+ * Values may be computed more than once when threads race for the same key, but only one value is ever stored. Hits and misses
+ * are counted only while {@link Metrics#enabled()}. */
+public class Cache<K, V> {
+	private final ConcurrentHashMap<K, V> map;
+	private final String name;
+	private final int capacity;
+	private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+	/** @param capacity Maximum number of entries, > 0. */
+	public Cache (int capacity) {
+		this(null, capacity);
+	}
+
+	/** @param name May be null. Identifies the cache in {@link Metrics} when passed to {@link Metrics#register(Cache)}.
+	 * @param capacity Maximum number of entries, > 0. */
+	public Cache (String name, int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+		this.name = name;
+		this.capacity = capacity;
+		map = new ConcurrentHashMap<>(Math.min(capacity, 256));
+	}
+
+	/** Returns the cached value for the key, computing and storing it if absent.
+	 * @param compute Must not return null. */
+	public V get (K key, Function<? super K, ? extends V> compute) {
+		V value = map.get(key);
+		if (value != null) {
+			if (Metrics.enabled()) hits.increment();
+			return value;
+		}
+		if (Metrics.enabled()) misses.increment();
+		value = compute.apply(key);
+		if (value == null) throw new IllegalStateException("compute returned null for key: " + key);
+		if (map.size() >= capacity) evict();
+		V existing = map.putIfAbsent(key, value);
+		return existing != null ? existing : value;
+	}
+
+	/** @return The cached value, or null. Does not affect {@link #hits()} or {@link #misses()}. */
+	public V peek (K key) {
+		return map.get(key);
+	}
+
+	private void evict () {
+		int count = Math.max(1, capacity >> 3);
+		for (Iterator<K> iter = map.keySet().iterator(); iter.hasNext() && count > 0; count--) {
+			iter.next();
+			iter.remove();
+		}
+	}
+
+	public void clear () {
+		map.clear();
+	}
+
+	/** @return May be null. */
+	public String name () {
+		return name;
+	}
+
+	public int size () {
+		return map.size();
+	}
+
+	public int capacity () {
+		return capacity;
+	}
+
+	public long hits () {
+		return hits.sum();
+	}
+
+	public long misses () {
+		return misses.sum();
+	}
+
+	/** @return [0..1] or NaN if the cache has not been used while metrics were enabled. */
+	public float hitRatio () {
+		long hits = this.hits.sum(), total = hits + misses.sum();
+		return total == 0 ? Float.NaN : hits / (float)total;
+	}
+}
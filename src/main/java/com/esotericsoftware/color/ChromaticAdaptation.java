@@ -0,0 +1,141 @@
+package com.esotericsoftware.color;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.Gamut.RGBGamut;
+import com.esotericsoftware.color.space.LMS;
+import com.esotericsoftware.color.space.LMS.CAT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.XYZ;
+
+/** Chromatic adaptation from a source to a target white point fused into a single 3x3 matrix: to {@link LMS}, von Kries scaling,
+ * and back. For {@link RGBGamut} pairs the gamut matrices are fused too, mapping linear RGB of the source gamut directly to
+ * adapted linear RGB of the target gamut. Immutable and thread safe. */
+public class ChromaticAdaptation {
+	static private final Cache<Key, ChromaticAdaptation> cache = Metrics.register(new Cache<>("ChromaticAdaptation", 256));
+
+	public final CAT transform;
+	/** Row major. */
+	private final float m00, m01, m02, m10, m11, m12, m20, m21, m22;
+
+	/** Maps XYZ under the source illuminant to XYZ under the target illuminant. */
+	public ChromaticAdaptation (XYZ sourceIlluminant, XYZ targetIlluminant, CAT transform) {
+		this(matrix(sourceIlluminant, targetIlluminant, transform), transform);
+	}
+
+	/** Maps linear RGB of the source gamut to linear RGB of the target gamut, adapting between their white points. */
+	public ChromaticAdaptation (RGBGamut source, RGBGamut target, CAT transform) {
+		this(matrix(source, target, transform), transform);
+	}
+
+	private ChromaticAdaptation (float[][] m, CAT transform) {
+		this.transform = transform;
+		m00 = m[0][0];
+		m01 = m[0][1];
+		m02 = m[0][2];
+		m10 = m[1][0];
+		m11 = m[1][1];
+		m12 = m[1][2];
+		m20 = m[2][0];
+		m21 = m[2][1];
+		m22 = m[2][2];
+	}
+
+	/** Returns an XYZ adaptation shared through a bounded cache. */
+	static public ChromaticAdaptation get (XYZ sourceIlluminant, XYZ targetIlluminant, CAT transform) {
+		return cache.get(new Key(sourceIlluminant, targetIlluminant, transform),
+			key -> new ChromaticAdaptation(sourceIlluminant, targetIlluminant, transform));
+	}
+
+	/** Returns a linear RGB adaptation shared through a bounded cache. Gamuts are compared by identity. */
+	static public ChromaticAdaptation get (RGBGamut source, RGBGamut target, CAT transform) {
+		return cache.get(new Key(source, target, transform), key -> new ChromaticAdaptation(source, target, transform));
+	}
+
+	/** Returns the cache used by the get methods. */
+	static public Cache<?, ChromaticAdaptation> cache () {
+		return cache;
+	}
+
+	/** @return The fused matrix, row major. */
+	public float[] matrix () {
+		return new float[] {m00, m01, m02, m10, m11, m12, m20, m21, m22};
+	}
+
+	public XYZ XYZ (XYZ xyz) {
+		float X = xyz.X(), Y = xyz.Y(), Z = xyz.Z();
+		return new XYZ(m00 * X + m01 * Y + m02 * Z, m10 * X + m11 * Y + m12 * Z, m20 * X + m21 * Y + m22 * Z);
+	}
+
+	/** For adaptations between {@link RGBGamut} pairs. Values are not clamped. */
+	public LRGB LRGB (LRGB rgb) {
+		float r = rgb.r(), g = rgb.g(), b = rgb.b();
+		return new LRGB(m00 * r + m01 * g + m02 * b, m10 * r + m11 * g + m12 * b, m20 * r + m21 * g + m22 * b);
+	}
+
+	/** Applies the matrix to many colors without allocating.
+	 * @param in 3 values per color, XYZ or linear RGB matching how this adaptation was created.
+	 * @param out Receives 3 values per color. May be the same array as in. */
+	public void apply (float[] in, float[] out) {
+		apply(in, out, 0, in.length / 3);
+	}
+
+	/** Same as {@link #apply(float[], float[])}, but colors are adapted in parallel. */
+	public void applyParallel (float[] in, float[] out) {
+		int count = in.length / 3, chunk = 8192;
+		IntStream.range(0, (count + chunk - 1) / chunk).parallel()
+			.forEach(c -> apply(in, out, c * chunk, Math.min(count, c * chunk + chunk)));
+	}
+
+	/** Adapts colors [from..to). */
+	public void apply (float[] in, float[] out, int from, int to) {
+		if (out.length < to * 3) throw new IllegalArgumentException("out must have 3 values per color: " + out.length);
+		float m00 = this.m00, m01 = this.m01, m02 = this.m02, m10 = this.m10, m11 = this.m11, m12 = this.m12;
+		float m20 = this.m20, m21 = this.m21, m22 = this.m22;
+		for (int i = from * 3, n = to * 3; i < n; i += 3) {
+			float a = in[i], b = in[i + 1], c = in[i + 2];
+			out[i] = m00 * a + m01 * b + m02 * c;
+			out[i + 1] = m10 * a + m11 * b + m12 * c;
+			out[i + 2] = m20 * a + m21 * b + m22 * c;
+		}
+	}
+
+	/** backward * diag(target LMS / source LMS) * forward. */
+	static private float[][] matrix (XYZ sourceIlluminant, XYZ targetIlluminant, CAT transform) {
+		if (sourceIlluminant == null) throw new IllegalArgumentException("sourceIlluminant cannot be null.");
+		if (targetIlluminant == null) throw new IllegalArgumentException("targetIlluminant cannot be null.");
+		if (transform == null) throw new IllegalArgumentException("transform cannot be null.");
+		float[] forward = transform.forward(), backward = transform.backward();
+		LMS source = sourceIlluminant.LMS(transform), target = targetIlluminant.LMS(transform);
+		float[] scale = {target.L() / source.L(), target.M() / source.M(), target.S() / source.S()};
+		var m = new float[3][3];
+		for (int row = 0; row < 3; row++)
+			for (int col = 0; col < 3; col++)
+				for (int k = 0; k < 3; k++)
+					m[row][col] += backward[row * 3 + k] * scale[k] * forward[k * 3 + col];
+		return m;
+	}
+
+	/** Target XYZ_RGB * XYZ adaptation * source RGB_XYZ / 100. */
+	static private float[][] matrix (RGBGamut source, RGBGamut target, CAT transform) {
+		if (source == null) throw new IllegalArgumentException("source cannot be null.");
+		if (target == null) throw new IllegalArgumentException("target cannot be null.");
+		float[][] m = matrix(source.whitePoint(), target.whitePoint(), transform);
+		return multiply(multiply(target.XYZ_RGB, m), source.RGB_XYZ, 0.01f);
+	}
+
+	static private float[][] multiply (float[][] a, float[][] b) {
+		return multiply(a, b, 1);
+	}
+
+	static private float[][] multiply (float[][] a, float[][] b, float scale) {
+		var m = new float[3][3];
+		for (int row = 0; row < 3; row++)
+			for (int col = 0; col < 3; col++)
+				m[row][col] = (a[row][0] * b[0][col] + a[row][1] * b[1][col] + a[row][2] * b[2][col]) * scale;
+		return m;
+	}
+
+	/** Source and target are white points or gamuts. */
+	private record Key (Object source, Object target, CAT transform) {}
+}
@@ -0,0 +1,375 @@
+package com.esotericsoftware.color;
+
+import java.nio.ByteBuffer;
+
+import com.esotericsoftware.color.space.CAM16UCS;
+import com.esotericsoftware.color.space.CCT;
+import com.esotericsoftware.color.space.CMYK;
+import com.esotericsoftware.color.space.HSL;
+import com.esotericsoftware.color.space.HSV;
+import com.esotericsoftware.color.space.ITP;
+import com.esotericsoftware.color.space.LCh;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.Luv;
+import com.esotericsoftware.color.space.Oklab;
+import com.esotericsoftware.color.space.Oklch;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.RGBW;
+import com.esotericsoftware.color.space.RGBWW;
+import com.esotericsoftware.color.space.XYZ;
+import com.esotericsoftware.color.space.uv;
+import com.esotericsoftware.color.space.xy;
+import com.esotericsoftware.color.space.xyY;
+
+/** Compact binary encoding of colors. Each color or frame starts with a one byte tag: the {@link Space} id in the low 5 bits, the
+ * {@link Precision} in the next 2 bits and a delta flag in the high bit. Components follow, packed at the selected precision.
+ * <p>
+ * A frame is a batch of colors: the tag, the color count as a varint, then the components. A delta frame instead encodes each
+ * component as a varint difference from the same component in the previous frame, so unchanged values take one byte.
+ * Quantization is idempotent, so the encoder may pass the previous original values while the decoder passes the previous decoded
+ * values.
+ * <p>
+ * Multi-byte components use the buffer's byte order. Immutable and thread safe. */
+public class ColorCodec {
+	static private final ColorCodec[][] codecs = new ColorCodec[32][Precision.values().length];
+	static {
+		for (Space space : Space.values())
+			for (Precision precision : Precision.values())
+				codecs[space.id][precision.ordinal()] = new ColorCodec(space, precision);
+	}
+
+	public final Space space;
+	public final Precision precision;
+	private final int tag;
+	private final float[] min, step, scale;
+
+	private ColorCodec (Space space, Precision precision) {
+		this.space = space;
+		this.precision = precision;
+		tag = space.id | precision.ordinal() << 5;
+		int n = space.components;
+		min = new float[n];
+		step = new float[n];
+		scale = new float[n];
+		for (int i = 0; i < n; i++) {
+			float low = space.ranges[i * 2], high = space.ranges[i * 2 + 1];
+			min[i] = low;
+			step[i] = (high - low) / precision.levels;
+			scale[i] = precision.levels / (high - low);
+		}
+	}
+
+	static public ColorCodec get (Space space, Precision precision) {
+		if (space == null) throw new IllegalArgumentException("space cannot be null.");
+		if (precision == null) throw new IllegalArgumentException("precision cannot be null.");
+		return codecs[space.id][precision.ordinal()];
+	}
+
+	/** Returns the codec for a tag byte. The delta flag is ignored. */
+	static public ColorCodec get (int tag) {
+		ColorCodec codec = codecs[tag & 31][tag >>> 5 & 3];
+		if (codec == null) throw new IllegalArgumentException("Unknown color tag: " + (tag & 0xff));
+		return codec;
+	}
+
+	/** Returns the codec for the next color or frame in the buffer without consuming it. */
+	static public ColorCodec peek (ByteBuffer buffer) {
+		return get(buffer.get(buffer.position()));
+	}
+
+	/** @return True if the next frame in the buffer is a delta frame. The buffer is not consumed. */
+	static public boolean peekDelta (ByteBuffer buffer) {
+		return (buffer.get(buffer.position()) & 0x80) != 0;
+	}
+
+	/** @return The number of bytes {@link #write(ByteBuffer, float[], int)} uses for count colors, including the header. */
+	public int bytes (int count) {
+		return 1 + varintBytes(count) + count * space.components * precision.bytes;
+	}
+
+	/** Writes the tag and components of a single color.
+	 * @param color Must be of this codec's {@link Space#type}. */
+	public void write (ByteBuffer buffer, Record color) {
+		if (color.getClass() != space.type)
+			throw new IllegalArgumentException("color must be " + space.type.getSimpleName() + ": " + color.getClass().getSimpleName());
+		var values = new float[5];
+		Colors.floats(color, values, 0);
+		buffer.put((byte)tag);
+		for (int i = 0, n = space.components; i < n; i++)
+			put(buffer, values[i], i);
+	}
+
+	/** Writes a single color using the codec for its type.
+	 * @throws IllegalArgumentException if the type has no {@link Space}. */
+	static public void write (ByteBuffer buffer, Record color, Precision precision) {
+		get(Space.of(color.getClass()), precision).write(buffer, color);
+	}
+
+	/** Reads a single color written by {@link #write(ByteBuffer, Record)}. */
+	static public Record read (ByteBuffer buffer) {
+		int tag = buffer.get();
+		if ((tag & 0x80) != 0) throw new IllegalArgumentException("Expected a color, found a delta frame.");
+		ColorCodec codec = get(tag);
+		var values = new float[5];
+		for (int i = 0, n = codec.space.components; i < n; i++)
+			values[i] = codec.get(buffer, i);
+		return codec.space.factory.create(values, 0);
+	}
+
+	/** Writes a frame.
+	 * @param values {@link Space#components} values per color. */
+	public void write (ByteBuffer buffer, float[] values, int count) {
+		int n = space.components * count;
+		if (values.length < n)
+			throw new IllegalArgumentException("values must have " + space.components + " values per color: " + values.length);
+		buffer.put((byte)tag);
+		putVarint(buffer, count);
+		int components = space.components;
+		switch (precision) {
+		case float32 -> {
+			for (int i = 0; i < n; i++)
+				buffer.putFloat(values[i]);
+		}
+		case float16 -> {
+			for (int i = 0; i < n; i++)
+				buffer.putShort(Float.floatToFloat16(values[i]));
+		}
+		case fixed16 -> {
+			for (int i = 0; i < n; i++)
+				buffer.putShort((short)quantize(values[i], i % components));
+		}
+		case fixed8 -> {
+			for (int i = 0; i < n; i++)
+				buffer.put((byte)quantize(values[i], i % components));
+		}
+		}
+	}
+
+	/** Writes a delta frame.
+	 * @param values {@link Space#components} values per color.
+	 * @param previous The previous frame's values, with at least as many colors. */
+	public void writeDelta (ByteBuffer buffer, float[] values, float[] previous, int count) {
+		int n = space.components * count;
+		if (values.length < n)
+			throw new IllegalArgumentException("values must have " + space.components + " values per color: " + values.length);
+		if (previous.length < n)
+			throw new IllegalArgumentException("previous must have " + space.components + " values per color: " + previous.length);
+		buffer.put((byte)(tag | 0x80));
+		putVarint(buffer, count);
+		int components = space.components;
+		switch (precision) {
+		case float32 -> {
+			for (int i = 0; i < n; i++)
+				putVarint(buffer, Float.floatToRawIntBits(values[i]) ^ Float.floatToRawIntBits(previous[i]));
+		}
+		case float16 -> {
+			for (int i = 0; i < n; i++)
+				putVarint(buffer, (Float.floatToFloat16(values[i]) ^ Float.floatToFloat16(previous[i])) & 0xffff);
+		}
+		default -> {
+			for (int i = 0; i < n; i++) {
+				int delta = quantize(values[i], i % components) - quantize(previous[i], i % components);
+				putVarint(buffer, delta << 1 ^ delta >> 31); // Zigzag.
+			}
+		}
+		}
+	}
+
+	/** Reads a frame written by this codec.
+	 * @param values Receives {@link Space#components} values per color.
+	 * @return The number of colors read.
+	 * @throws IllegalArgumentException if the frame is a delta frame. */
+	public int read (ByteBuffer buffer, float[] values) {
+		return read(buffer, values, null);
+	}
+
+	/** Reads a full or delta frame written by this codec.
+	 * @param values Receives {@link Space#components} values per color.
+	 * @param previous The previous frame's decoded values, used for delta frames. May be null if the frame is not a delta frame,
+	 *           or the same array as values to update it in place.
+	 * @return The number of colors read. */
+	public int read (ByteBuffer buffer, float[] values, float[] previous) {
+		int tag = buffer.get() & 0xff;
+		if ((tag & 0x7f) != this.tag) throw new IllegalArgumentException("Frame is for another codec: " + get(tag));
+		boolean delta = (tag & 0x80) != 0;
+		if (delta && previous == null) throw new IllegalArgumentException("previous is required for a delta frame.");
+		int count = getVarint(buffer), components = space.components, n = components * count;
+		if (count < 0) throw new IllegalArgumentException("Invalid color count: " + count);
+		if (values.length < n)
+			throw new IllegalArgumentException("values must have " + components + " values per color: " + values.length);
+		if (delta && previous.length < n)
+			throw new IllegalArgumentException("previous must have " + components + " values per color: " + previous.length);
+		if (!delta) {
+			for (int i = 0; i < n; i++)
+				values[i] = get(buffer, i % components);
+			return count;
+		}
+		switch (precision) {
+		case float32 -> {
+			for (int i = 0; i < n; i++)
+				values[i] = Float.intBitsToFloat(Float.floatToRawIntBits(previous[i]) ^ getVarint(buffer));
+		}
+		case float16 -> {
+			for (int i = 0; i < n; i++)
+				values[i] = Float.float16ToFloat((short)(Float.floatToFloat16(previous[i]) ^ getVarint(buffer)));
+		}
+		default -> {
+			for (int i = 0; i < n; i++) {
+				int zigzag = getVarint(buffer), c = i % components;
+				values[i] = dequantize(quantize(previous[i], c) + (zigzag >>> 1 ^ -(zigzag & 1)), c);
+			}
+		}
+		}
+		return count;
+	}
+
+	private void put (ByteBuffer buffer, float value, int component) {
+		switch (precision) {
+		case float32 -> buffer.putFloat(value);
+		case float16 -> buffer.putShort(Float.floatToFloat16(value));
+		case fixed16 -> buffer.putShort((short)quantize(value, component));
+		case fixed8 -> buffer.put((byte)quantize(value, component));
+		}
+	}
+
+	private float get (ByteBuffer buffer, int component) {
+		return switch (precision) {
+		case float32 -> buffer.getFloat();
+		case float16 -> Float.float16ToFloat(buffer.getShort());
+		case fixed16 -> dequantize(buffer.getShort() & 0xffff, component);
+		case fixed8 -> dequantize(buffer.get() & 0xff, component);
+		};
+	}
+
+	/** Values outside the component's range are clamped, NaN is encoded as the minimum. */
+	private int quantize (float value, int component) {
+		int q = Math.round((value - min[component]) * scale[component]), levels = precision.levels;
+		return q < 0 ? 0 : (q > levels ? levels : q);
+	}
+
+	private float dequantize (int q, int component) {
+		return min[component] + q * step[component];
+	}
+
+	public String toString () {
+		return space + " " + precision;
+	}
+
+	static private void putVarint (ByteBuffer buffer, int value) {
+		while ((value & ~0x7f) != 0) {
+			buffer.put((byte)(value & 0x7f | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+
+	static private int getVarint (ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = buffer.get();
+			value |= (b & 0x7f) << shift;
+			if (b >= 0) return value;
+		}
+		throw new IllegalArgumentException("Invalid varint.");
+	}
+
+	static private int varintBytes (int value) {
+		int bytes = 1;
+		while ((value & ~0x7f) != 0) {
+			value >>>= 7;
+			bytes++;
+		}
+		return bytes;
+	}
+
+	static public enum Precision {
+		/** 4 bytes per component, lossless. */
+		float32(4, 0),
+		/** 2 bytes per component, about 3 significant digits. */
+		float16(2, 0),
+		/** 2 bytes per component, 65536 steps over the component's range. */
+		fixed16(2, 65535),
+		/** 1 byte per component, 256 steps over the component's range. */
+		fixed8(1, 255);
+
+		public final int bytes;
+		final int levels;
+
+		Precision (int bytes, int levels) {
+			this.bytes = bytes;
+			this.levels = levels;
+		}
+	}
+
+	/** Color types with a stable wire id and the component ranges used for fixed point precision. */
+	static public enum Space {
+		rgb(0, RGB.class, (v, i) -> new RGB(v[i], v[i + 1], v[i + 2]), 0, 1, 0, 1, 0, 1),
+		lrgb(1, LRGB.class, (v, i) -> new LRGB(v[i], v[i + 1], v[i + 2]), 0, 1, 0, 1, 0, 1),
+		xyz(2, XYZ.class, (v, i) -> new XYZ(v[i], v[i + 1], v[i + 2]), 0, 200, 0, 200, 0, 200),
+		xyY(3, xyY.class, (v, i) -> new xyY(v[i], v[i + 1], v[i + 2]), 0, 1, 0, 1, 0, 200),
+		xy(4, xy.class, (v, i) -> new xy(v[i], v[i + 1]), 0, 1, 0, 1),
+		uv(5, uv.class, (v, i) -> new uv(v[i], v[i + 1]), 0, 1, 0, 1),
+		lab(6, Lab.class, (v, i) -> new Lab(v[i], v[i + 1], v[i + 2]), 0, 100, -128, 128, -128, 128),
+		lch(7, LCh.class, (v, i) -> new LCh(v[i], v[i + 1], v[i + 2]), 0, 100, 0, 200, 0, 360),
+		luv(8, Luv.class, (v, i) -> new Luv(v[i], v[i + 1], v[i + 2]), 0, 100, -200, 200, -200, 200),
+		oklab(9, Oklab.class, (v, i) -> new Oklab(v[i], v[i + 1], v[i + 2]), 0, 1, -0.5f, 0.5f, -0.5f, 0.5f),
+		oklch(10, Oklch.class, (v, i) -> new Oklch(v[i], v[i + 1], v[i + 2]), 0, 1, 0, 0.5f, 0, 360),
+		hsl(11, HSL.class, (v, i) -> new HSL(v[i], v[i + 1], v[i + 2]), 0, 360, 0, 1, 0, 1),
+		hsv(12, HSV.class, (v, i) -> new HSV(v[i], v[i + 1], v[i + 2]), 0, 360, 0, 1, 0, 1),
+		itp(13, ITP.class, (v, i) -> new ITP(v[i], v[i + 1], v[i + 2]), 0, 1, -0.5f, 0.5f, -0.5f, 0.5f),
+		cam16ucs(14, CAM16UCS.class, (v, i) -> new CAM16UCS(v[i], v[i + 1], v[i + 2]), 0, 100, -60, 60, -60, 60),
+		cmyk(15, CMYK.class, (v, i) -> new CMYK(v[i], v[i + 1], v[i + 2], v[i + 3]), 0, 1, 0, 1, 0, 1, 0, 1),
+		rgbw(16, RGBW.class, (v, i) -> new RGBW(v[i], v[i + 1], v[i + 2], v[i + 3]), 0, 1, 0, 1, 0, 1, 0, 1),
+		rgbww(17, RGBWW.class, (v, i) -> new RGBWW(v[i], v[i + 1], v[i + 2], v[i + 3], v[i + 4]), 0, 1, 0, 1, 0, 1, 0, 1, 0, 1),
+		cct(18, CCT.class, (v, i) -> new CCT(v[i], v[i + 1]), 1000, 25000, -0.05f, 0.05f);
+
+		static private final Space[] ids = new Space[32];
+		static {
+			for (Space space : values())
+				ids[space.id] = space;
+		}
+
+		/** Wire id, [0..31]. */
+		public final int id;
+		public final Class<? extends Record> type;
+		public final int components;
+		final Factory factory;
+		/** Min and max per component. */
+		final float[] ranges;
+
+		Space (int id, Class<? extends Record> type, Factory factory, float... ranges) {
+			this.id = id;
+			this.type = type;
+			this.factory = factory;
+			this.ranges = ranges;
+			components = ranges.length / 2;
+		}
+
+		/** @return The minimum of the fixed point range for the component. */
+		public float min (int component) {
+			return ranges[component * 2];
+		}
+
+		/** @return The maximum of the fixed point range for the component. */
+		public float max (int component) {
+			return ranges[component * 2 + 1];
+		}
+
+		static public Space of (Class<? extends Record> type) {
+			for (Space space : values())
+				if (space.type == type) return space;
+			throw new IllegalArgumentException("No space for type: " + type.getSimpleName());
+		}
+
+		static public Space id (int id) {
+			Space space = id >= 0 && id < 32 ? ids[id] : null;
+			if (space == null) throw new IllegalArgumentException("Unknown space id: " + id);
+			return space;
+		}
+	}
+
+	static interface Factory {
+		Record create (float[] values, int offset);
+	}
+}
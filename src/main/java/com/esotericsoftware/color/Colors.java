@@ -1,8 +1,23 @@
 
 package com.esotericsoftware.color;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.RecordComponent;
 
+import com.esotericsoftware.color.space.HSL;
+import com.esotericsoftware.color.space.HSV;
+import com.esotericsoftware.color.space.LCh;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.Oklab;
+import com.esotericsoftware.color.space.Oklch;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.XYZ;
+
 /** @author Nathan Sweet <misc@n4te.com> */
 public class Colors {
 	static public final float PI = 3.1415927f, radDeg = 180 / PI, degRad = PI / 180;
@@ -83,6 +98,34 @@ public class Colors {
 		return (float)Math.pow((srgb + 0.055) / 1.055, 2.4);
 	}
 
+	/** Returns the nearest 8-bit sRGB code for a linear value, clamped, by binary search of the code boundaries. Same as
+	 * <code>Math.round(clamp(sRGB(linear)) * 255)</code> without the pow. NaN is 0. */
+	static public int sRGB8 (float linear) {
+		float[] thresholds = sRGB8Thresholds;
+		int code = 0;
+		for (int step = 128; step > 0; step >>= 1)
+			if (thresholds[code + step] <= linear) code += step;
+		return code;
+	}
+
+	/** Returns the linear value of an 8-bit sRGB code by table lookup. Same as <code>linear(srgb / 255f)</code>.
+	 * @param srgb [0..255] */
+	static public float linear8 (int srgb) {
+		return linear8[srgb];
+	}
+
+	/** Linear values where each 8-bit sRGB code begins, [1..255]. */
+	static private final float[] sRGB8Thresholds = new float[256];
+	/** Linear value of each 8-bit sRGB code. */
+	static private final float[] linear8 = new float[256];
+	static {
+		sRGB8Thresholds[0] = Float.NEGATIVE_INFINITY;
+		for (int i = 1; i < 256; i++)
+			sRGB8Thresholds[i] = linear((i - 0.5f) / 255);
+		for (int i = 0; i < 256; i++)
+			linear8[i] = linear(i / 255f);
+	}
+
 	/** @return [0..255] */
 	static public int dmx8 (float value) {
 		return Math.round(value * 255);
@@ -93,58 +136,185 @@ public class Colors {
 		return (int)(value * 65535);
 	}
 
+	/** Returns the record's components as floats. Accessors are looked up once per record class, see
+	 * {@link #floats(Record, float[], int)}. */
 	static public float[] floats (Record record) {
-		RecordComponent[] components = record.getClass().getRecordComponents();
-		float[] values = new float[components.length];
-		try {
-			for (int i = 0; i < components.length; i++)
-				values[i] = (float)components[i].getAccessor().invoke(record);
-		} catch (Exception ex) {
-			throw new RuntimeException(ex);
-		}
+		var values = new float[components(record)];
+		floats(record, values, 0);
 		return values;
 	}
 
+	/** @return The number of components of the record's class. */
+	static public int components (Record record) {
+		return switch (record) {
+		case RGB _, LRGB _, XYZ _, Lab _, Oklab _, LCh _, Oklch _, HSL _, HSV _ -> 3;
+		default -> accessors.get(record.getClass()).length;
+		};
+	}
+
+	/** Writes the record's components as floats without reflection. Built-in spaces use typed fast paths, other record classes use
+	 * method handles created on first use. Components must be numeric primitives.
+	 * @return The number of values written. */
+	static public int floats (Record record, float[] out, int offset) {
+		return switch (record) {
+		case RGB rgb -> floats(out, offset, rgb.r(), rgb.g(), rgb.b());
+		case LRGB rgb -> floats(out, offset, rgb.r(), rgb.g(), rgb.b());
+		case XYZ xyz -> floats(out, offset, xyz.X(), xyz.Y(), xyz.Z());
+		case Lab lab -> floats(out, offset, lab.L(), lab.a(), lab.b());
+		case Oklab oklab -> floats(out, offset, oklab.L(), oklab.a(), oklab.b());
+		case LCh lch -> floats(out, offset, lch.L(), lch.C(), lch.h());
+		case Oklch oklch -> floats(out, offset, oklch.L(), oklch.C(), oklch.h());
+		case HSL hsl -> floats(out, offset, hsl.H(), hsl.S(), hsl.L());
+		case HSV hsv -> floats(out, offset, hsv.H(), hsv.S(), hsv.V());
+		default -> {
+			MethodHandle[] handles = accessors.get(record.getClass());
+			try {
+				for (int i = 0; i < handles.length; i++)
+					out[offset + i] = (float)handles[i].invokeExact(record);
+			} catch (Throwable ex) {
+				throw new RuntimeException(ex);
+			}
+			yield handles.length;
+		}
+		};
+	}
+
+	static private int floats (float[] out, int offset, float a, float b, float c) {
+		out[offset] = a;
+		out[offset + 1] = b;
+		out[offset + 2] = c;
+		return 3;
+	}
+
+	/** Component accessors per record class, adapted to (Record)float. */
+	static private final ClassValue<MethodHandle[]> accessors = new ClassValue<>() {
+		protected MethodHandle[] computeValue (Class<?> type) {
+			RecordComponent[] components = type.getRecordComponents();
+			if (components == null) throw new IllegalArgumentException("Not a record: " + type.getName());
+			var handles = new MethodHandle[components.length];
+			MethodType methodType = MethodType.methodType(float.class, Record.class);
+			Lookup lookup = MethodHandles.publicLookup();
+			for (int i = 0; i < components.length; i++) {
+				Class<?> componentType = components[i].getType();
+				if (!componentType.isPrimitive() || componentType == boolean.class) throw new IllegalArgumentException(
+					"Record component must be numeric: " + type.getSimpleName() + "." + components[i].getName());
+				try {
+					handles[i] = MethodHandles.explicitCastArguments(lookup.unreflect(components[i].getAccessor()), methodType);
+				} catch (IllegalAccessException ex) {
+					throw new RuntimeException(ex);
+				}
+			}
+			return handles;
+		}
+	};
+
 	static public String hex (Record record) {
-		return hex(floats(record));
+		return hex(record, new StringBuilder(8)).toString();
+	}
+
+	/** Appends each component as 2 hex digits, without creating strings for values [0..1].
+	 * @return The appendable. */
+	static public <T extends Appendable> T hex (Record record, T out) {
+		var values = new float[components(record)];
+		floats(record, values, 0);
+		return hex(out, values);
 	}
 
 	static public String hex (float... values) {
-		StringBuilder buffer = new StringBuilder(values.length << 1);
-		for (float value : values) {
-			String hex = Integer.toHexString(Math.round(value * 255));
-			if (hex.length() == 1) buffer.append('0');
-			buffer.append(hex);
+		return hex(new StringBuilder(values.length << 1), values).toString();
+	}
+
+	/** @return The appendable. */
+	static public <T extends Appendable> T hex (T out, float... values) {
+		try {
+			for (float value : values) {
+				int i = Math.round(value * 255);
+				if (i >= 0 && i <= 255) {
+					out.append(hexDigits[i >> 4]);
+					out.append(hexDigits[i & 15]);
+				} else
+					out.append(Integer.toHexString(i));
+			}
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
 		}
-		return buffer.toString();
+		return out;
+	}
+
+	static private final char[] hexDigits = "0123456789abcdef".toCharArray();
+
+	/** @return [0..15] for an ASCII hex digit in either case, else -1. Unlike {@link Character#digit(char, int)}, other Unicode
+	 *         digits and letters are rejected. */
+	static public int hexDigit (char c) {
+		if (c >= '0' && c <= '9') return c - '0';
+		c |= 0x20; // Lowercase, leaves digits and non-letters unmatched.
+		if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+		return -1;
 	}
 
 	static public String toString (Record record) {
-		return toString(floats(record));
+		return toString(record, new StringBuilder(32)).toString();
+	}
+
+	/** Appends the components separated by ", ".
+	 * @return The appendable. */
+	static public <T extends Appendable> T toString (Record record, T out) {
+		var values = new float[components(record)];
+		floats(record, values, 0);
+		return toString(out, values);
 	}
 
 	static public String toString (float... values) {
-		StringBuilder buffer = new StringBuilder(values.length * 5);
-		for (float value : values) {
-			buffer.append(value);
-			buffer.append(", ");
+		return toString(new StringBuilder(values.length * 5), values).toString();
+	}
+
+	/** @return The appendable. */
+	static public <T extends Appendable> T toString (T out, float... values) {
+		try {
+			for (int i = 0, n = values.length; i < n; i++) {
+				if (i > 0) out.append(", ");
+				if (out instanceof StringBuilder buffer)
+					buffer.append(values[i]);
+				else
+					out.append(Float.toString(values[i]));
+			}
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
 		}
-		buffer.setLength(buffer.length() - 2);
-		return buffer.toString();
+		return out;
 	}
 
 	static public String toString255 (Record record) {
-		return toString255(floats(record));
+		return toString255(record, new StringBuilder(16)).toString();
+	}
+
+	/** Appends the components scaled to [0..255] and rounded, separated by ", ".
+	 * @return The appendable. */
+	static public <T extends Appendable> T toString255 (Record record, T out) {
+		var values = new float[components(record)];
+		floats(record, values, 0);
+		return toString255(out, values);
 	}
 
 	static public String toString255 (float... values) {
-		StringBuilder buffer = new StringBuilder(values.length * 5);
-		for (float value : values) {
-			buffer.append(Math.round(value * 255));
-			buffer.append(", ");
+		return toString255(new StringBuilder(values.length * 5), values).toString();
+	}
+
+	/** @return The appendable. */
+	static public <T extends Appendable> T toString255 (T out, float... values) {
+		try {
+			for (int i = 0, n = values.length; i < n; i++) {
+				if (i > 0) out.append(", ");
+				int value = Math.round(values[i] * 255);
+				if (out instanceof StringBuilder buffer)
+					buffer.append(value);
+				else
+					out.append(Integer.toString(value));
+			}
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
 		}
-		buffer.setLength(buffer.length() - 2);
-		return buffer.toString();
+		return out;
 	}
 
 	static public float[] matrixMultiply (float row0, float row1, float row2, float[][] matrix) {
@@ -195,4 +365,12 @@ public class Colors {
 		inv[2][2] = (m[0][0] * m[1][1] - m[1][0] * m[0][1]) * invdet;
 		return inv;
 	}
+
+	/** @return n.
+	 * @throws IllegalArgumentException if any length is less than n. */
+	static int check (int n, int... lengths) {
+		for (int length : lengths)
+			if (length < n) throw new IllegalArgumentException("All arrays must have " + n + " values: " + length);
+		return n;
+	}
 }
@@ -0,0 +1,241 @@
+package com.esotericsoftware.color;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.Color;
+import com.esotericsoftware.color.space.HCT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.Oklch;
+import com.esotericsoftware.color.space.RGB;
+
+/** Bulk contrast auditing of a palette: WCAG 2 contrast ratios and APCA lightness contrast (Lc) for every foreground and
+ * background pair. Luminance and the APCA exponents are computed once per color, so filling an N x N matrix is a few arithmetic
+ * operations per pair. {@link #repair(RGB, RGB, float, Repair)} finds the smallest lightness change that meets a ratio.
+ * Immutable and thread safe. */
+public class Contrast {
+	static private final int chunk = 1 << 16;
+	static private final float[] apca8 = new float[256];
+	static {
+		for (int i = 0; i < 256; i++)
+			apca8[i] = (float)Math.pow(i / 255d, 2.4);
+	}
+
+	/** Number of colors. */
+	public final int size;
+	/** WCAG relative luminance per color, [0..1]. */
+	private final float[] luminance;
+	/** Soft clamped APCA luminance raised to the exponents for each polarity. */
+	private final float[] apcaY, background56, text57, background65, text62;
+
+	/** @param rgb Packed 0xRRGGBB sRGB colors, the alpha byte is ignored. */
+	public Contrast (int[] rgb) {
+		size = rgb.length;
+		luminance = new float[size];
+		apcaY = new float[size];
+		background56 = new float[size];
+		text57 = new float[size];
+		background65 = new float[size];
+		text62 = new float[size];
+		for (int i = 0; i < size; i++) {
+			int r = rgb[i] >>> 16 & 0xff, g = rgb[i] >>> 8 & 0xff, b = rgb[i] & 0xff;
+			luminance[i] = 0.2126729f * Colors.linear8(r) + 0.7151522f * Colors.linear8(g) + 0.072175f * Colors.linear8(b);
+			apca(i, 0.2126729f * apca8[r] + 0.7151522f * apca8[g] + 0.072175f * apca8[b]);
+		}
+	}
+
+	public Contrast (RGB... colors) {
+		size = colors.length;
+		luminance = new float[size];
+		apcaY = new float[size];
+		background56 = new float[size];
+		text57 = new float[size];
+		background65 = new float[size];
+		text62 = new float[size];
+		for (int i = 0; i < size; i++) {
+			luminance[i] = luminance(colors[i]);
+			apca(i, apcaY(colors[i]));
+		}
+	}
+
+	private void apca (int i, float Y) {
+		if (Y < 0.022f) Y += (float)Math.pow(0.022f - Y, 1.414f); // Soft clamp near black.
+		apcaY[i] = Y;
+		background56[i] = (float)Math.pow(Y, 0.56);
+		text57[i] = (float)Math.pow(Y, 0.57);
+		background65[i] = (float)Math.pow(Y, 0.65);
+		text62[i] = (float)Math.pow(Y, 0.62);
+	}
+
+	/** @return WCAG relative luminance, [0..1]. */
+	public float luminance (int index) {
+		return luminance[index];
+	}
+
+	/** @return WCAG 2 contrast ratio, [1..21]. */
+	public float ratio (int foreground, int background) {
+		return ratio(luminance[foreground], luminance[background]);
+	}
+
+	/** @return APCA Lc, about [-108..106]. Positive for dark text on a light background, 0 when the magnitude before the 2.7
+	 *         offset is below 10, so nonzero results are at least 7.3. */
+	public float APCA (int text, int background) {
+		float textY = apcaY[text], backgroundY = apcaY[background];
+		if (Math.abs(backgroundY - textY) < 0.0005f) return 0;
+		if (backgroundY > textY) {
+			float S = (background56[background] - text57[text]) * 1.14f;
+			return S < 0.1f ? 0 : (S - 0.027f) * 100;
+		}
+		float S = (background65[background] - text62[text]) * 1.14f;
+		return S > -0.1f ? 0 : (S + 0.027f) * 100;
+	}
+
+	/** Fills the contrast ratio for every pair.
+	 * @param out Receives size * size values, the foreground row major: <code>out[foreground * size + background]</code>. */
+	public void ratios (float[] out) {
+		ratios(out, 0, check(out));
+	}
+
+	/** Same as {@link #ratios(float[])}, rows in parallel. */
+	public void ratiosParallel (float[] out) {
+		int n = check(out), rows = Math.max(1, chunk / Math.max(1, n));
+		IntStream.range(0, (n + rows - 1) / rows).parallel().forEach(c -> ratios(out, c * rows, Math.min(n, c * rows + rows)));
+	}
+
+	/** Fills foreground rows [fromRow..toRow). */
+	public void ratios (float[] out, int fromRow, int toRow) {
+		float[] luminance = this.luminance;
+		int n = size;
+		for (int fg = fromRow; fg < toRow; fg++) {
+			float fgY = luminance[fg] + 0.05f;
+			for (int bg = 0, i = fg * n; bg < n; bg++, i++) {
+				float bgY = luminance[bg] + 0.05f;
+				out[i] = fgY > bgY ? fgY / bgY : bgY / fgY;
+			}
+		}
+	}
+
+	/** Fills the APCA Lc for every pair.
+	 * @param out Receives size * size values, the text row major: <code>out[text * size + background]</code>. */
+	public void APCA (float[] out) {
+		APCA(out, 0, check(out));
+	}
+
+	/** Same as {@link #APCA(float[])}, rows in parallel. */
+	public void APCAParallel (float[] out) {
+		int n = check(out), rows = Math.max(1, chunk / Math.max(1, n));
+		IntStream.range(0, (n + rows - 1) / rows).parallel().forEach(c -> APCA(out, c * rows, Math.min(n, c * rows + rows)));
+	}
+
+	/** Fills text rows [fromRow..toRow). */
+	public void APCA (float[] out, int fromRow, int toRow) {
+		int n = size;
+		for (int text = fromRow; text < toRow; text++)
+			for (int bg = 0, i = text * n; bg < n; bg++, i++)
+				out[i] = APCA(text, bg);
+	}
+
+	private int check (float[] out) {
+		if (out.length < size * size) throw new IllegalArgumentException("out must have " + size * size + " values: " + out.length);
+		return size;
+	}
+
+	/** @return WCAG relative luminance, [0..1]. Same as {@link RGB#Y()} / 100. */
+	static public float luminance (RGB rgb) {
+		return 0.2126729f * Colors.linear(rgb.r()) + 0.7151522f * Colors.linear(rgb.g()) + 0.072175f * Colors.linear(rgb.b());
+	}
+
+	/** @return WCAG 2 contrast ratio for two relative luminances, [1..21]. */
+	static public float ratio (float luminance1, float luminance2) {
+		float Y1 = luminance1 + 0.05f, Y2 = luminance2 + 0.05f;
+		return Y1 > Y2 ? Y1 / Y2 : Y2 / Y1;
+	}
+
+	/** @return APCA 0.0.98G-4g Lc for text on a background, about [-108..106]. Positive for dark text on a light background, 0
+	 *         when the magnitude before the 2.7 offset is below 10, so nonzero results are at least 7.3. */
+	static public float APCA (RGB text, RGB background) {
+		return new Contrast(text, background).APCA(0, 1);
+	}
+
+	/** APCA screen luminance, using a simple 2.4 exponent rather than the sRGB curve. */
+	static private float apcaY (RGB rgb) {
+		return 0.2126729f * (float)Math.pow(rgb.r(), 2.4) + 0.7151522f * (float)Math.pow(rgb.g(), 2.4)
+			+ 0.072175f * (float)Math.pow(rgb.b(), 2.4);
+	}
+
+	/** Returns the foreground with the smallest lightness change that gives at least the WCAG 2 contrast ratio against the
+	 * background, searching lighter and darker by bisection.
+	 * @param ratio [1..21], eg 4.5 for AA or 7 for AAA.
+	 * @return The foreground if it already meets the ratio, or null if no lightness meets it. */
+	static public RGB repair (RGB foreground, RGB background, float ratio, Repair method) {
+		if (!(ratio >= 1 && ratio <= 21)) throw new IllegalArgumentException("ratio must be [1..21]: " + ratio);
+		if (method == null) throw new IllegalArgumentException("method cannot be null.");
+		float backgroundY = luminance(background);
+		if (ratio(luminance(foreground), backgroundY) >= ratio) return foreground;
+		Color original = method == Repair.hct ? foreground.HCT() : foreground.Oklch();
+		float start = method == Repair.hct ? ((HCT)original).T() : ((Oklch)original).L(), max = method == Repair.hct ? 100 : 1;
+		RGB best = null;
+		float bestDelta = Float.MAX_VALUE;
+		for (float limit : new float[] {max, 0}) {
+			RGB color = adjust(method, original, limit);
+			if (ratio(luminance(color), backgroundY) < ratio) continue; // Not reachable in this direction.
+			float fail = start, pass = limit;
+			for (int i = 0; i < 24 && Math.abs(pass - fail) > max * 0.00001f; i++) {
+				float mid = (fail + pass) / 2;
+				RGB midColor = adjust(method, original, mid);
+				if (ratio(luminance(midColor), backgroundY) >= ratio) {
+					pass = mid;
+					color = midColor;
+				} else
+					fail = mid;
+			}
+			float delta = Math.abs(pass - start);
+			if (delta < bestDelta) {
+				best = color;
+				bestDelta = delta;
+			}
+		}
+		return best;
+	}
+
+	static private RGB adjust (Repair method, Color original, float value) {
+		return switch (method) {
+		case hct -> {
+			var hct = (HCT)original;
+			yield new HCT(hct.h(), hct.C(), value).RGB();
+		}
+		case oklch -> {
+			var oklch = (Oklch)original;
+			yield oklch(value, oklch.C(), oklch.h());
+		}
+		};
+	}
+
+	/** Reduces chroma by bisection until the color is in sRGB, so clamping the channels does not shift the hue. */
+	static private RGB oklch (float L, float C, float h) {
+		if (inGamut(new Oklch(L, C, h).LRGB())) return new Oklch(L, C, h).RGB();
+		float low = 0, high = C;
+		for (int i = 0; i < 16; i++) {
+			float mid = (low + high) / 2;
+			if (inGamut(new Oklch(L, mid, h).LRGB()))
+				low = mid;
+			else
+				high = mid;
+		}
+		return new Oklch(L, low, h).RGB();
+	}
+
+	static private boolean inGamut (LRGB rgb) {
+		return rgb.r() >= -0.00001f && rgb.r() <= 1.00001f && rgb.g() >= -0.00001f && rgb.g() <= 1.00001f && rgb.b() >= -0.00001f
+			&& rgb.b() <= 1.00001f;
+	}
+
+	/** The lightness changed by {@link Contrast#repair(RGB, RGB, float, Repair)}, keeping the hue of that space and as much chroma
+	 * as fits in sRGB. */
+	static public enum Repair {
+		/** {@link HCT} tone, which is L*, so luminance changes predictably. */
+		hct,
+		/** {@link Oklch} lightness. Chroma is reduced at constant lightness and Oklch hue until the color is in sRGB. Oklch hue is
+		 * not constant CAM16 hue, so saturated blues can shift by several degrees of HCT hue. */
+		oklch
+	}
+}
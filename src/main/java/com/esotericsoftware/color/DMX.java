@@ -0,0 +1,147 @@
+package com.esotericsoftware.color;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.RGBWW.WW;
+
+/** Solves RGBW and RGBWW channels for many fixtures and writes them directly into 512 byte DMX universes. Fixtures are
+ * patched once, then {@link #solve(float[], byte[][])} can be called every frame without allocating per fixture. Thread safe
+ * if each call uses different universe buffers. */
+public class DMX {
+	static public final int universeSize = 512;
+
+	/** Number of fixtures. */
+	public final int fixtures;
+	private final int[] universes, offsets;
+	private final boolean[] wide;
+	/** Null for RGBW fixtures. */
+	private final WW[] ww;
+	/** 3 values per RGBW fixture. */
+	private final float[] white;
+	/** Fixture indices sorted by universe, with the start of each universe's fixtures in {@link #groupStart}. */
+	private final int[] order, groupStart;
+	private final int universeCount;
+
+	public DMX (Patch... patches) {
+		fixtures = patches.length;
+		universes = new int[fixtures];
+		offsets = new int[fixtures];
+		wide = new boolean[fixtures];
+		ww = new WW[fixtures];
+		white = new float[fixtures * 3];
+		int maxUniverse = -1;
+		for (int i = 0; i < fixtures; i++) {
+			Patch patch = patches[i];
+			universes[i] = patch.universe;
+			offsets[i] = patch.offset;
+			wide[i] = patch.wide;
+			maxUniverse = Math.max(maxUniverse, patch.universe);
+			ww[i] = patch.ww;
+			if (patch.w != null) {
+				white[i * 3] = patch.w.r();
+				white[i * 3 + 1] = patch.w.g();
+				white[i * 3 + 2] = patch.w.b();
+			}
+		}
+		universeCount = maxUniverse + 1;
+
+		// Group fixtures by universe so each universe can be written by a single thread.
+		order = IntStream.range(0, fixtures).boxed().sorted((a, b) -> Integer.compare(universes[a], universes[b]))
+			.mapToInt(Integer::intValue).toArray();
+		int[] starts = new int[fixtures + 1];
+		int groups = 0;
+		for (int i = 0; i < fixtures; i++)
+			if (i == 0 || universes[order[i]] != universes[order[i - 1]]) starts[groups++] = i;
+		starts[groups] = fixtures;
+		groupStart = Arrays.copyOf(starts, groups + 1);
+	}
+
+	/** Returns the number of universe buffers required, the highest patched universe + 1. */
+	public int universes () {
+		return universeCount;
+	}
+
+	/** Solves every fixture and writes its channels into the universes.
+	 * @param lrgb Linear RGB [0..1], 3 values per fixture in patch order.
+	 * @param universes At least {@link #universes()} buffers of at least 512 bytes. Unpatched channels are not modified. */
+	public void solve (float[] lrgb, byte[][] universes) {
+		check(lrgb, universes);
+		var out = new float[5];
+		for (int i = 0; i < fixtures; i++)
+			solve(i, lrgb, universes, out);
+	}
+
+	/** Same as {@link #solve(float[], byte[][])}, but universes are solved in parallel. Each universe is written by one
+	 * thread. */
+	public void solveParallel (float[] lrgb, byte[][] universes) {
+		check(lrgb, universes);
+		IntStream.range(0, groupStart.length - 1).parallel().forEach(group -> {
+			var out = new float[5];
+			for (int i = groupStart[group], n = groupStart[group + 1]; i < n; i++)
+				solve(order[i], lrgb, universes, out);
+		});
+	}
+
+	private void check (float[] lrgb, byte[][] universes) {
+		if (lrgb.length < fixtures * 3)
+			throw new IllegalArgumentException("lrgb must have 3 values per fixture: " + lrgb.length + " < " + fixtures * 3);
+		if (universes.length < universeCount)
+			throw new IllegalArgumentException("universes must have " + universeCount + " buffers: " + universes.length);
+	}
+
+	private void solve (int i, float[] lrgb, byte[][] universes, float[] out) {
+		int c = i * 3;
+		float r = lrgb[c], g = lrgb[c + 1], b = lrgb[c + 2];
+		int channels;
+		if (ww[i] != null) {
+			LRGB.RGBWW(r, g, b, ww[i], out, 0);
+			channels = 5;
+		} else {
+			float wr = white[c], wg = white[c + 1], wb = white[c + 2];
+			float W = LRGB.RGBW(r, g, b, wr, wg, wb);
+			out[0] = Math.max(0, r - W * wr);
+			out[1] = Math.max(0, g - W * wg);
+			out[2] = Math.max(0, b - W * wb);
+			out[3] = W;
+			channels = 4;
+		}
+		byte[] universe = universes[this.universes[i]];
+		int offset = offsets[i];
+		if (wide[i]) {
+			for (int ch = 0; ch < channels; ch++, offset += 2) {
+				int value = Colors.dmx16(Colors.clamp(out[ch]));
+				universe[offset] = (byte)(value >>> 8);
+				universe[offset + 1] = (byte)value;
+			}
+		} else {
+			for (int ch = 0; ch < channels; ch++)
+				universe[offset + ch] = (byte)Colors.dmx8(Colors.clamp(out[ch]));
+		}
+	}
+
+	/** Where a fixture's channels are written. Channels are R, G, B, W or R, G, B, W1, W2. 16-bit channels are written coarse
+	 * then fine.
+	 * @param offset Index of the fixture's first channel in the universe buffer, the DMX address - 1.
+	 * @param w White LED color for RGBW, or null.
+	 * @param ww White LED colors for RGBWW, or null.
+	 * @param wide True for 16-bit channels. */
+	public record Patch (int universe, int offset, LRGB w, WW ww, boolean wide) {
+		public Patch {
+			if (universe < 0) throw new IllegalArgumentException("universe must be >= 0: " + universe);
+			if ((w == null) == (ww == null)) throw new IllegalArgumentException("Exactly one of w or ww is required.");
+			int end = offset + (ww != null ? 5 : 4) * (wide ? 2 : 1);
+			if (offset < 0 || end > universeSize)
+				throw new IllegalArgumentException("Channels must be within the universe [0.." + universeSize + "]: " + offset);
+		}
+
+		public Patch (int universe, int offset, LRGB w, boolean wide) {
+			this(universe, offset, w, null, wide);
+		}
+
+		public Patch (int universe, int offset, WW ww, boolean wide) {
+			this(universe, offset, null, ww, wide);
+		}
+	}
+}
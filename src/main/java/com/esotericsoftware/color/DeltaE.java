@@ -0,0 +1,287 @@
+package com.esotericsoftware.color;
+
+import static com.esotericsoftware.color.Colors.*;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.CAM16UCS;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.RGB;
+
+/** Batch color difference over whole images. Each comparison writes an optional per-pixel difference map and returns
+ * {@link Stats} computed in the same pass. Thread safe. */
+public class DeltaE {
+	/** Histogram for {@link Stats#p95()}: the exponent and top 7 mantissa bits of the difference, 128 bins per octave from 2^-20
+	 * to 2^12, so the resolution is relative and suits any metric's range. */
+	static private final int minBin = 127 - 20 << 7, bins = 32 << 7;
+	static private final int chunk = 1 << 14;
+
+	/** Compares planar coordinates in the metric's space: L*a*b* for the CIE metrics, J'a'b' for CAM16-UCS, Lab for Oklab.
+	 * @param map Receives the difference per pixel, may be null. */
+	static public Stats compare (Metric metric, float[] L1, float[] a1, float[] b1, float[] L2, float[] a2, float[] b2,
+		float[] map) {
+		int n = check(L1.length, map, a1.length, b1.length, L2.length, a2.length, b2.length);
+		var stats = new Accumulator();
+		compare(metric, L1, a1, b1, L2, a2, b2, map, 0, n, stats);
+		return stats.stats();
+	}
+
+	/** Same as {@link #compare(Metric, float[], float[], float[], float[], float[], float[], float[])}, in parallel. */
+	static public Stats compareParallel (Metric metric, float[] L1, float[] a1, float[] b1, float[] L2, float[] a2, float[] b2,
+		float[] map) {
+		int n = check(L1.length, map, a1.length, b1.length, L2.length, a2.length, b2.length);
+		return IntStream.range(0, (n + chunk - 1) / chunk).parallel().mapToObj(c -> {
+			var stats = new Accumulator();
+			compare(metric, L1, a1, b1, L2, a2, b2, map, c * chunk, Math.min(n, c * chunk + chunk), stats);
+			return stats;
+		}).reduce(Accumulator::add).orElseGet(Accumulator::new).stats();
+	}
+
+	/** Compares packed sRGB, converting each pixel to the metric's space.
+	 * @param rgb1 0xRRGGBB, alpha is ignored.
+	 * @param rgb2 0xRRGGBB, alpha is ignored.
+	 * @param map Receives the difference per pixel, may be null. */
+	static public Stats compare (Metric metric, int[] rgb1, int[] rgb2, float[] map) {
+		int n = check(rgb1.length, map, rgb2.length);
+		var stats = new Accumulator();
+		compare(metric, rgb1, rgb2, map, 0, n, stats);
+		return stats.stats();
+	}
+
+	/** Same as {@link #compare(Metric, int[], int[], float[])}, in parallel. */
+	static public Stats compareParallel (Metric metric, int[] rgb1, int[] rgb2, float[] map) {
+		int n = check(rgb1.length, map, rgb2.length);
+		return IntStream.range(0, (n + chunk - 1) / chunk).parallel().mapToObj(c -> {
+			var stats = new Accumulator();
+			compare(metric, rgb1, rgb2, map, c * chunk, Math.min(n, c * chunk + chunk), stats);
+			return stats;
+		}).reduce(Accumulator::add).orElseGet(Accumulator::new).stats();
+	}
+
+	/** Converts packed sRGB to planar coordinates in the metric's space, eg to reuse a reference image. */
+	static public void planar (Metric metric, int[] rgb, float[] c0, float[] c1, float[] c2) {
+		int n = check(rgb.length, null, c0.length, c1.length, c2.length);
+		var out = new float[3];
+		for (int i = 0; i < n; i++) {
+			metric.coords(rgb[i], out);
+			c0[i] = out[0];
+			c1[i] = out[1];
+			c2[i] = out[2];
+		}
+	}
+
+	static private int check (int n, float[] map, int... lengths) {
+		Colors.check(n, lengths);
+		if (map != null && map.length < n) throw new IllegalArgumentException("map must have " + n + " values: " + map.length);
+		return n;
+	}
+
+	static private void compare (Metric metric, float[] L1, float[] a1, float[] b1, float[] L2, float[] a2, float[] b2,
+		float[] map, int from, int to, Accumulator stats) {
+		for (int i = from; i < to; i++) {
+			float d = metric.difference(L1[i], a1[i], b1[i], L2[i], a2[i], b2[i]);
+			if (map != null) map[i] = d;
+			stats.add(d);
+		}
+	}
+
+	static private void compare (Metric metric, int[] rgb1, int[] rgb2, float[] map, int from, int to, Accumulator stats) {
+		var c1 = new float[3];
+		var c2 = new float[3];
+		int last1 = -1, last2 = -1;
+		for (int i = from; i < to; i++) {
+			int p1 = rgb1[i] & 0xffffff, p2 = rgb2[i] & 0xffffff;
+			float d;
+			if (p1 == p2)
+				d = 0;
+			else {
+				if (p1 != last1) {
+					metric.coords(p1, c1);
+					last1 = p1;
+				}
+				if (p2 != last2) {
+					metric.coords(p2, c2);
+					last2 = p2;
+				}
+				d = metric.difference(c1[0], c1[1], c1[2], c2[0], c2[1], c2[2]);
+			}
+			if (map != null) map[i] = d;
+			stats.add(d);
+		}
+	}
+
+	/** Same as {@link Lab#deltaE2000(Lab, float, float, float)} with 1 for lightness, chroma, and hue, but with the powers
+	 * expanded to multiplication. */
+	static public float deltaE2000 (float L1, float a1, float b1, float L2, float a2, float b2) {
+		float C1 = (float)Math.sqrt(a1 * a1 + b1 * b1), C2 = (float)Math.sqrt(a2 * a2 + b2 * b2);
+		float Cab = (C1 + C2) / 2, Cab2 = Cab * Cab, Cab7 = Cab2 * Cab2 * Cab2 * Cab;
+		float G = 0.5f * (1 - (float)Math.sqrt(Cab7 / (Cab7 + 6103515625f)));
+		float a1p = (1 + G) * a1, a2p = (1 + G) * a2;
+		float C1p = (float)Math.sqrt(a1p * a1p + b1 * b1), C2p = (float)Math.sqrt(a2p * a2p + b2 * b2);
+		float h1p = (float)Math.atan2(b1, a1p) * radDeg, h2p = (float)Math.atan2(b2, a2p) * radDeg;
+		if (h1p < 0) h1p += 360;
+		if (h2p < 0) h2p += 360;
+		float dLp = L2 - L1, dCp = C2p - C1p, dhp = h2p - h1p;
+		if (dhp > 180)
+			dhp -= 360;
+		else if (dhp < -180) //
+			dhp += 360;
+		float dHp = 2 * (float)Math.sqrt(C1p * C2p) * (float)Math.sin(dhp * degRad / 2);
+		float Lp = (L1 + L2) / 2, Cp = (C1p + C2p) / 2, hp = h1p + h2p;
+		if (Math.abs(h1p - h2p) > 180) hp += hp < 360 ? 360 : -360;
+		hp /= 2;
+		float hpRad = hp * degRad;
+		float T = 1 - 0.17f * (float)Math.cos(hpRad - 30 * degRad) + 0.24f * (float)Math.cos(2 * hpRad)
+			+ 0.32f * (float)Math.cos(3 * hpRad + 6 * degRad) - 0.2f * (float)Math.cos(4 * hpRad - 63 * degRad);
+		float Lp50 = (Lp - 50) * (Lp - 50);
+		float SL = 1 + 0.015f * Lp50 / (float)Math.sqrt(20 + Lp50);
+		float SC = 1 + 0.045f * Cp;
+		float SH = 1 + 0.015f * Cp * T;
+		float x = (hp - 275) / 25, dTheta = 30 * (float)Math.exp(-x * x);
+		float Cp2 = Cp * Cp, Cp7 = Cp2 * Cp2 * Cp2 * Cp, RC = 2 * (float)Math.sqrt(Cp7 / (Cp7 + 6103515625f));
+		float RT = -RC * (float)Math.sin(2 * dTheta * degRad);
+		float dL = dLp / SL, dC = dCp / SC, dH = dHp / SH;
+		float deltaE2 = dL * dL + dC * dC + dH * dH + RT * dC * dH;
+		return deltaE2 <= 0 ? 0 : (float)Math.sqrt(deltaE2);
+	}
+
+	/** CIE94 with graphic arts weights (kL=1, K1=0.045, K2=0.015). Not symmetric, the first color is the reference. */
+	static public float deltaE94 (float L1, float a1, float b1, float L2, float a2, float b2) {
+		float C1 = (float)Math.sqrt(a1 * a1 + b1 * b1), C2 = (float)Math.sqrt(a2 * a2 + b2 * b2);
+		float dL = L1 - L2, dC = C1 - C2, da = a1 - a2, db = b1 - b2;
+		float dH2 = Math.max(0, da * da + db * db - dC * dC);
+		float SC = 1 + 0.045f * C1, SH = 1 + 0.015f * C1;
+		dC /= SC;
+		return (float)Math.sqrt(dL * dL + dC * dC + dH2 / (SH * SH));
+	}
+
+	static private float distance (float x1, float y1, float z1, float x2, float y2, float z2) {
+		float dx = x1 - x2, dy = y1 - y2, dz = z1 - z2;
+		return (float)Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+
+	/** Same as {@link RGB#Lab()}, using a table for linearization. */
+	static private void lab (int rgb, float[] out) {
+		float r = linear8(rgb >>> 16 & 0xff), g = linear8(rgb >>> 8 & 0xff), b = linear8(rgb & 0xff);
+		var wp = Observer.Default.D65;
+		float X = (41.24564f * r + 35.75761f * g + 18.04375f * b) / wp.X();
+		float Y = (21.26729f * r + 71.51522f * g + 7.2175f * b) / wp.Y();
+		float Z = (1.93339f * r + 11.9192f * g + 95.03041f * b) / wp.Z();
+		X = X > Lab.e ? (float)Math.cbrt(X) : (Lab.k * X + 16) / 116;
+		Y = Y > Lab.e ? (float)Math.cbrt(Y) : (Lab.k * Y + 16) / 116;
+		Z = Z > Lab.e ? (float)Math.cbrt(Z) : (Lab.k * Z + 16) / 116;
+		out[0] = 116 * Y - 16;
+		out[1] = 500 * (X - Y);
+		out[2] = 200 * (Y - Z);
+	}
+
+	public enum Metric {
+		cie76 {
+			float difference (float L1, float a1, float b1, float L2, float a2, float b2) {
+				return distance(L1, a1, b1, L2, a2, b2);
+			}
+		},
+		cie94 {
+			float difference (float L1, float a1, float b1, float L2, float a2, float b2) {
+				return deltaE94(L1, a1, b1, L2, a2, b2);
+			}
+		},
+		cie2000 {
+			float difference (float L1, float a1, float b1, float L2, float a2, float b2) {
+				return deltaE2000(L1, a1, b1, L2, a2, b2);
+			}
+		},
+		/** Euclidean distance in {@link CAM16UCS} with sRGB viewing conditions. */
+		cam16ucs {
+			float difference (float J1, float a1, float b1, float J2, float a2, float b2) {
+				return distance(J1, a1, b1, J2, a2, b2);
+			}
+
+			void coords (int rgb, float[] out) {
+				CAM16UCS ucs = new RGB(rgb).CAM16UCS();
+				out[0] = ucs.J();
+				out[1] = ucs.a();
+				out[2] = ucs.b();
+			}
+		},
+		/** Euclidean distance in Oklab. */
+		oklab {
+			float difference (float L1, float a1, float b1, float L2, float a2, float b2) {
+				return distance(L1, a1, b1, L2, a2, b2);
+			}
+
+			void coords (int rgb, float[] out) {
+				float r = linear8(rgb >>> 16 & 0xff), g = linear8(rgb >>> 8 & 0xff), b = linear8(rgb & 0xff);
+				float l = (float)Math.cbrt(0.4122214708f * r + 0.5363325363f * g + 0.0514459929f * b);
+				float m = (float)Math.cbrt(0.2119034982f * r + 0.6806995451f * g + 0.1073969566f * b);
+				float s = (float)Math.cbrt(0.0883024619f * r + 0.2817188376f * g + 0.6299787005f * b);
+				out[0] = 0.2104542553f * l + 0.793617785f * m - 0.0040720468f * s;
+				out[1] = 1.9779984951f * l - 2.428592205f * m + 0.4505937099f * s;
+				out[2] = 0.0259040371f * l + 0.7827717662f * m - 0.808675766f * s;
+			}
+		},
+		/** ITU-R BT.2124 deltaE ITP over ICtCp, see {@link HDR#deltaEITP(float, float, float, float, float, float)}. Packed sRGB
+		 * is converted as {@link RGB#ITP()} does, using a PQ LUT. */
+		itp {
+			float difference (float I1, float Ct1, float Cp1, float I2, float Ct2, float Cp2) {
+				return HDR.deltaEITP(I1, Ct1, Cp1, I2, Ct2, Cp2);
+			}
+
+			void coords (int rgb, float[] out) {
+				float r = linear8(rgb >>> 16 & 0xff), g = linear8(rgb >>> 8 & 0xff), b = linear8(rgb & 0xff);
+				HDR.ICtCp(0.627404f * r + 0.329282f * g + 0.0433136f * b, // To BT.2020.
+					0.069097f * r + 0.91954f * g + 0.0113612f * b, //
+					0.0163916f * r + 0.0880132f * g + 0.895595f * b, out);
+			}
+		};
+
+		abstract float difference (float c1, float c2, float c3, float d1, float d2, float d3);
+
+		/** @param rgb 0xRRGGBB. */
+		void coords (int rgb, float[] out) {
+			lab(rgb, out);
+		}
+	}
+
+	/** @param p95 95th percentile, accurate to 1% of its value from 2^-20 to 2^12. */
+	public record Stats (int count, float mean, float p95, float max) {}
+
+	/** Sum, max, and a logarithmic histogram for the percentile. */
+	static private class Accumulator {
+		final int[] histogram = new int[bins];
+		double sum;
+		float max;
+		int count;
+
+		void add (float d) {
+			sum += d;
+			if (d > max) max = d;
+			count++;
+			int bin = (Float.floatToRawIntBits(d) >> 16) - minBin;
+			histogram[bin < 0 ? 0 : bin >= bins ? bins - 1 : bin]++;
+		}
+
+		Accumulator add (Accumulator other) {
+			sum += other.sum;
+			max = Math.max(max, other.max);
+			count += other.count;
+			for (int i = 0; i < bins; i++)
+				histogram[i] += other.histogram[i];
+			return this;
+		}
+
+		Stats stats () {
+			if (count == 0) return new Stats(0, Float.NaN, Float.NaN, Float.NaN);
+			long rank = (long)Math.ceil(count * 0.95), seen = 0;
+			float p95 = max;
+			for (int i = 0; i < bins; i++) {
+				seen += histogram[i];
+				if (seen >= rank) {
+					if (i < bins - 1) p95 = Math.min(max, Float.intBitsToFloat(minBin + i + 1 << 16)); // Bin's upper bound.
+					break;
+				}
+			}
+			return new Stats(count, (float)(sum / count), p95, max);
+		}
+	}
+}
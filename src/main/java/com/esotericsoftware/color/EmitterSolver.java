@@ -0,0 +1,328 @@
+package com.esotericsoftware.color;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.Gamut.PolygonGamut;
+import com.esotericsoftware.color.space.XYZ;
+import com.esotericsoftware.color.space.xy;
+
+/** Solves drives for fixtures with 3 to 8 emitters, such as RGBWAUV or multi-white LEDs. A target XYZ is mapped to drives
+ * [0..1] by bounded least squares: the XYZ error is minimized and ties between drive combinations that produce the same color
+ * are broken by minimizing the weighted sum of squared drives. The system matrix is factored once per active emitter subset
+ * when the solver is created, so a solve is a few small matrix-vector products. Thread safe. */
+public class EmitterSolver {
+	/** Relative strength of the tie-break, small enough to not noticeably affect the XYZ error. */
+	static private final double regularization = 1e-6;
+
+	public final Emitter[] emitters;
+	/** Convex hull of the emitter chromaticities, the chromaticities the fixture can reproduce. */
+	public final PolygonGamut gamut;
+	/** Sum of all emitter flux, the Y at full drive. */
+	public final float flux;
+	private final int n;
+	/** 3 x n, normalized by {@link #flux}. */
+	private final double[] A;
+	/** n x n, A^T A + regularization * weights. */
+	private final double[] H;
+	/** Inverse of H restricted to each subset of free emitters, indexed by subset bit mask. */
+	private final double[][] inverses;
+
+	/** Uses a weight of 1 for all emitters, spreading drive across emitters. */
+	public EmitterSolver (Emitter... emitters) {
+		this(null, emitters);
+	}
+
+	/** @param weights Tie-break weight per emitter, > 0. Higher weights favor using the emitter less. May be null. */
+	public EmitterSolver (float[] weights, Emitter... emitters) {
+		n = emitters.length;
+		if (n < 3 || n > 8) throw new IllegalArgumentException("emitters must be [3..8]: " + n);
+		if (weights != null && weights.length != n)
+			throw new IllegalArgumentException("weights must have one value per emitter: " + weights.length);
+		this.emitters = emitters.clone();
+		float total = 0;
+		for (Emitter emitter : emitters)
+			total += emitter.flux;
+		flux = total;
+
+		A = new double[3 * n];
+		for (int i = 0; i < n; i++) {
+			Emitter emitter = emitters[i];
+			double x = emitter.xy.x(), y = emitter.xy.y(), Y = emitter.flux / (double)total;
+			A[i] = x / y * Y;
+			A[n + i] = Y;
+			A[2 * n + i] = (1 - x - y) / y * Y;
+		}
+		H = new double[n * n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				double sum = 0;
+				for (int r = 0; r < 3; r++)
+					sum += A[r * n + i] * A[r * n + j];
+				H[i * n + j] = sum;
+			}
+			float weight = weights == null ? 1 : weights[i];
+			if (!(weight > 0)) throw new IllegalArgumentException("weights must be > 0: " + weight);
+			H[i * n + i] += regularization * weight;
+		}
+		inverses = new double[1 << n][];
+		for (int mask = 1; mask < inverses.length; mask++)
+			inverses[mask] = invert(mask);
+
+		gamut = new PolygonGamut(hull(emitters));
+	}
+
+	private double[] invert (int mask) {
+		int size = Integer.bitCount(mask);
+		int[] index = indices(mask, size);
+		double[] m = new double[size * size], inv = new double[size * size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++)
+				m[i * size + j] = H[index[i] * n + index[j]];
+			inv[i * size + i] = 1;
+		}
+		// Gauss-Jordan with partial pivoting. H is symmetric positive definite so this cannot fail.
+		for (int c = 0; c < size; c++) {
+			int pivot = c;
+			for (int r = c + 1; r < size; r++)
+				if (Math.abs(m[r * size + c]) > Math.abs(m[pivot * size + c])) pivot = r;
+			if (pivot != c) {
+				for (int k = 0; k < size; k++) {
+					double t = m[c * size + k];
+					m[c * size + k] = m[pivot * size + k];
+					m[pivot * size + k] = t;
+					t = inv[c * size + k];
+					inv[c * size + k] = inv[pivot * size + k];
+					inv[pivot * size + k] = t;
+				}
+			}
+			double scale = 1 / m[c * size + c];
+			for (int k = 0; k < size; k++) {
+				m[c * size + k] *= scale;
+				inv[c * size + k] *= scale;
+			}
+			for (int r = 0; r < size; r++) {
+				if (r == c) continue;
+				double f = m[r * size + c];
+				if (f == 0) continue;
+				for (int k = 0; k < size; k++) {
+					m[r * size + k] -= f * m[c * size + k];
+					inv[r * size + k] -= f * inv[c * size + k];
+				}
+			}
+		}
+		return inv;
+	}
+
+	static private int[] indices (int mask, int size) {
+		int[] index = new int[size];
+		for (int i = 0, k = 0; k < size; i++)
+			if ((mask & 1 << i) != 0) index[k++] = i;
+		return index;
+	}
+
+	/** Returns the convex hull of the emitter chromaticities, counterclockwise. */
+	static private xy[] hull (Emitter[] emitters) {
+		xy[] points = new xy[emitters.length];
+		for (int i = 0; i < points.length; i++)
+			points[i] = emitters[i].xy;
+		Arrays.sort(points, (a, b) -> a.x() != b.x() ? Float.compare(a.x(), b.x()) : Float.compare(a.y(), b.y()));
+		xy[] hull = new xy[points.length * 2];
+		int k = 0;
+		for (xy p : points) {
+			while (k >= 2 && cross(hull[k - 2], hull[k - 1], p) <= 0)
+				k--;
+			hull[k++] = p;
+		}
+		for (int i = points.length - 2, lower = k + 1; i >= 0; i--) {
+			xy p = points[i];
+			while (k >= lower && cross(hull[k - 2], hull[k - 1], p) <= 0)
+				k--;
+			hull[k++] = p;
+		}
+		if (k - 1 < 3) throw new IllegalArgumentException("Emitter chromaticities must not be collinear.");
+		return Arrays.copyOf(hull, k - 1);
+	}
+
+	static private float cross (xy o, xy a, xy b) {
+		return (a.x() - o.x()) * (b.y() - o.y()) - (a.y() - o.y()) * (b.x() - o.x());
+	}
+
+	public int size () {
+		return n;
+	}
+
+	/** @return Drives [0..1], one per emitter. */
+	public float[] solve (XYZ target) {
+		var drives = new float[n];
+		solve(target.X(), target.Y(), target.Z(), drives, 0, new double[n * 4]);
+		return drives;
+	}
+
+	/** @param Y In the same units as the emitter flux.
+	 * @return Drives [0..1], one per emitter. */
+	public float[] solve (xy xy, float Y) {
+		return solve(xy.XYZ(Y));
+	}
+
+	/** Returns the drives that produce the chromaticity at the highest Y the fixture can reach. If the chromaticity is outside
+	 * the {@link #gamut}, the nearest reachable color is used.
+	 * @return Drives [0..1], one per emitter. */
+	public float[] solveMax (xy xy) {
+		var drives = new float[n];
+		var scratch = new double[n * 4];
+		xy target = gamut.nearest(xy);
+		float low = 0, high = flux;
+		for (int i = 0; i < 24; i++) {
+			float Y = (low + high) / 2;
+			XYZ xyz = target.XYZ(Y);
+			if (solve(xyz.X(), xyz.Y(), xyz.Z(), drives, 0, scratch) < 1e-3f * Y)
+				low = Y;
+			else
+				high = Y;
+		}
+		XYZ xyz = target.XYZ(low);
+		solve(xyz.X(), xyz.Y(), xyz.Z(), drives, 0, scratch);
+		return drives;
+	}
+
+	/** Solves many targets.
+	 * @param xyz 3 values per target, Y in the same units as the emitter flux.
+	 * @param drives Receives {@link #size()} values per target. */
+	public void solve (float[] xyz, float[] drives) {
+		int count = check(xyz, drives);
+		var scratch = new double[n * 4];
+		for (int i = 0; i < count; i++)
+			solve(xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2], drives, i * n, scratch);
+	}
+
+	/** Same as {@link #solve(float[], float[])}, but targets are solved in parallel. */
+	public void solveParallel (float[] xyz, float[] drives) {
+		int count = check(xyz, drives), chunk = 256;
+		IntStream.range(0, (count + chunk - 1) / chunk).parallel().forEach(c -> {
+			var scratch = new double[n * 4];
+			for (int i = c * chunk, end = Math.min(count, i + chunk); i < end; i++)
+				solve(xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2], drives, i * n, scratch);
+		});
+	}
+
+	private int check (float[] xyz, float[] drives) {
+		if (xyz.length % 3 != 0) throw new IllegalArgumentException("xyz must have 3 values per target: " + xyz.length);
+		int count = xyz.length / 3;
+		if (drives.length < count * n)
+			throw new IllegalArgumentException("drives must have " + n + " values per target: " + drives.length);
+		return count;
+	}
+
+	/** Primal active set method for the box constrained quadratic program.
+	 * @return The XYZ error distance, in the units of the target. */
+	private float solve (float X, float Y, float Z, float[] drives, int offset, double[] scratch) {
+		int n = this.n;
+		double[] A = this.A, H = this.H;
+		double scale = 1.0 / flux, tx = X * scale, ty = Y * scale, tz = Z * scale;
+		// scratch: g, d, p, rhs.
+		for (int i = 0; i < n; i++) {
+			scratch[i] = A[i] * tx + A[n + i] * ty + A[2 * n + i] * tz;
+			scratch[n + i] = 0;
+		}
+		int free = 0, upper = 0; // Bit masks, emitters in neither are at 0.
+		for (int iteration = 0, max = n * 4; iteration < max; iteration++) {
+			if (free != 0) {
+				// Solve the free emitters with the fixed ones held.
+				int size = Integer.bitCount(free);
+				for (int i = 0, k = 0; i < n; i++) {
+					if ((free & 1 << i) == 0) continue;
+					double rhs = scratch[i];
+					for (int j = 0; j < n; j++)
+						if ((free & 1 << j) == 0) rhs -= H[i * n + j] * scratch[n + j];
+					scratch[3 * n + k++] = rhs;
+				}
+				double[] inverse = inverses[free];
+				double alpha = 1;
+				int blocking = -1;
+				for (int i = 0, k = 0; i < n; i++) {
+					if ((free & 1 << i) == 0) continue;
+					double p = 0;
+					for (int j = 0; j < size; j++)
+						p += inverse[k * size + j] * scratch[3 * n + j];
+					scratch[2 * n + i] = p;
+					double d = scratch[n + i];
+					if (p < 0 && d - p > 1e-12) {
+						double a = d / (d - p);
+						if (a < alpha) {
+							alpha = a;
+							blocking = i;
+						}
+					} else if (p > 1 && p - d > 1e-12) {
+						double a = (1 - d) / (p - d);
+						if (a < alpha) {
+							alpha = a;
+							blocking = i;
+						}
+					}
+					k++;
+				}
+				for (int i = 0; i < n; i++)
+					if ((free & 1 << i) != 0) scratch[n + i] += alpha * (scratch[2 * n + i] - scratch[n + i]);
+				if (blocking != -1) {
+					// Step to the first bound reached and hold that emitter there.
+					free &= ~(1 << blocking);
+					if (scratch[2 * n + blocking] > 1) {
+						scratch[n + blocking] = 1;
+						upper |= 1 << blocking;
+					} else
+						scratch[n + blocking] = 0;
+					continue;
+				}
+			}
+			// Release the held emitter whose gradient most wants it to move into the box.
+			int release = -1;
+			double best = 1e-12;
+			for (int i = 0; i < n; i++) {
+				if ((free & 1 << i) != 0) continue;
+				double gradient = -scratch[i];
+				for (int j = 0; j < n; j++)
+					gradient += H[i * n + j] * scratch[n + j];
+				double violation = (upper & 1 << i) != 0 ? gradient : -gradient;
+				if (violation > best) {
+					best = violation;
+					release = i;
+				}
+			}
+			if (release == -1) break;
+			free |= 1 << release;
+			upper &= ~(1 << release);
+		}
+		double ex = -tx, ey = -ty, ez = -tz;
+		for (int i = 0; i < n; i++) {
+			double d = Math.min(1, Math.max(0, scratch[n + i]));
+			drives[offset + i] = (float)d;
+			ex += A[i] * d;
+			ey += A[n + i] * d;
+			ez += A[2 * n + i] * d;
+		}
+		return (float)(Math.sqrt(ex * ex + ey * ey + ez * ez) * flux);
+	}
+
+	/** Returns the XYZ produced by the drives. */
+	public XYZ XYZ (float[] drives) {
+		double X = 0, Y = 0, Z = 0;
+		for (int i = 0; i < n; i++) {
+			double d = drives[i] * flux;
+			X += A[i] * d;
+			Y += A[n + i] * d;
+			Z += A[2 * n + i] * d;
+		}
+		return new XYZ((float)X, (float)Y, (float)Z);
+	}
+
+	/** @param xy Chromaticity of the emitter.
+	 * @param flux Y at full drive, > 0. Any unit can be used if targets use the same unit. */
+	public record Emitter (xy xy, float flux) {
+		public Emitter {
+			if (xy == null) throw new IllegalArgumentException("xy cannot be null.");
+			if (!(xy.y() > 0)) throw new IllegalArgumentException("xy.y must be > 0: " + xy.y());
+			if (!(flux > 0)) throw new IllegalArgumentException("flux must be > 0: " + flux);
+		}
+	}
+}
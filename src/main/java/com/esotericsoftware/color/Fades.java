@@ -0,0 +1,235 @@
+package com.esotericsoftware.color;
+
+import static com.esotericsoftware.color.Colors.*;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.LCh;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.Oklab;
+import com.esotericsoftware.color.space.Oklch;
+import com.esotericsoftware.color.space.XYZ;
+
+/** Many simultaneous color fades in one interpolation space. Start and end colors are converted once when a fade is set, then
+ * {@link #update(float, float[])} evaluates every fade into a packed linear RGB array without allocating. Hues are interpolated
+ * the same as {@link Colors#lerpAngle(float, float, float)}: the shortest way around, and a NaN hue takes the other hue. Setting
+ * fades is not thread safe, updating is. */
+public class Fades {
+	public final Space space;
+	public final int capacity;
+	/** 3 values per fade: the start in {@link #space}, and the change to the end. */
+	private final float[] start, delta;
+	private final float[] begin, duration;
+	private final byte[] easing;
+	private final XYZ white;
+
+	/** Lab and LCh use {@link Observer#Default} D65. */
+	public Fades (Space space, int capacity) {
+		this(space, capacity, Observer.Default.D65);
+	}
+
+	/** @param whitePoint Used by Lab and LCh. */
+	public Fades (Space space, int capacity, XYZ whitePoint) {
+		if (space == null) throw new IllegalArgumentException("space cannot be null.");
+		if (capacity < 0) throw new IllegalArgumentException("capacity must be >= 0: " + capacity);
+		this.space = space;
+		this.capacity = capacity;
+		white = whitePoint;
+		start = new float[capacity * 3];
+		delta = new float[capacity * 3];
+		begin = new float[capacity];
+		duration = new float[capacity];
+		easing = new byte[capacity];
+	}
+
+	/** Sets a fade, converting the colors to the interpolation space. Before the start time the from color is output, after the
+	 * start time + duration the to color.
+	 * @param duration Seconds or any other unit used by {@link #update(float, float[])} time, >= 0. */
+	public void set (int index, LRGB from, LRGB to, float startTime, float duration, Easing easing) {
+		if (!(duration >= 0)) throw new IllegalArgumentException("duration must be >= 0: " + duration);
+		int i = index * 3;
+		switch (space) {
+		case lrgb -> set(i, from.r(), from.g(), from.b(), to.r(), to.g(), to.b());
+		case oklab -> {
+			Oklab a = from.Oklab(), b = to.Oklab();
+			set(i, a.L(), a.a(), a.b(), b.L(), b.a(), b.b());
+		}
+		case oklch -> {
+			Oklch a = from.Oklch(), b = to.Oklch();
+			set(i, a.L(), a.C(), a.h(), b.L(), b.C(), b.h());
+		}
+		case lab -> {
+			Lab a = from.Lab(white), b = to.Lab(white);
+			set(i, a.L(), a.a(), a.b(), b.L(), b.a(), b.b());
+		}
+		case lch -> {
+			LCh a = from.LCh(white), b = to.LCh(white);
+			set(i, a.L(), a.C(), a.h(), b.L(), b.C(), b.h());
+		}
+		}
+		begin[index] = startTime;
+		this.duration[index] = duration;
+		this.easing[index] = (byte)easing.ordinal();
+	}
+
+	private void set (int i, float a0, float a1, float a2, float b0, float b1, float b2) {
+		start[i] = a0;
+		start[i + 1] = a1;
+		delta[i] = b0 - a0;
+		delta[i + 1] = b1 - a1;
+		if (space.polar) {
+			// Same as lerpAngle, resolved once.
+			if (Float.isNaN(a2)) {
+				a2 = Float.isNaN(b2) ? 0 : b2;
+				b2 = a2;
+			} else if (Float.isNaN(b2)) //
+				b2 = a2;
+			else {
+				float diff = b2 - a2;
+				if (diff > 180)
+					diff -= 360;
+				else if (diff < -180) //
+					diff += 360;
+				b2 = a2 + diff;
+			}
+		}
+		start[i + 2] = a2;
+		delta[i + 2] = b2 - a2;
+	}
+
+	/** Writes the linear RGB of all fades at the time. Values are not clamped.
+	 * @param lrgb Receives 3 values per fade. */
+	public void update (float time, float[] lrgb) {
+		update(time, lrgb, 0, capacity);
+	}
+
+	/** Same as {@link #update(float, float[])}, but fades are evaluated in parallel. */
+	public void updateParallel (float time, float[] lrgb) {
+		int chunk = 4096;
+		IntStream.range(0, (capacity + chunk - 1) / chunk).parallel()
+			.forEach(c -> update(time, lrgb, c * chunk, Math.min(capacity, c * chunk + chunk)));
+	}
+
+	/** Writes the linear RGB of fades [from..to). */
+	public void update (float time, float[] lrgb, int from, int to) {
+		if (lrgb.length < to * 3) throw new IllegalArgumentException("lrgb must have 3 values per fade: " + lrgb.length);
+		float[] start = this.start, delta = this.delta, begin = this.begin, duration = this.duration;
+		byte[] easing = this.easing;
+		Easing[] easings = Easing.values;
+		Space space = this.space;
+		float wX = white.X() / 100, wY = white.Y() / 100, wZ = white.Z() / 100;
+		for (int index = from; index < to; index++) {
+			float d = duration[index], t = d > 0 ? (time - begin[index]) / d : time >= begin[index] ? 1 : 0;
+			t = easings[easing[index]].apply(t < 0 ? 0 : t > 1 ? 1 : t);
+			int i = index * 3;
+			float c0 = start[i] + delta[i] * t, c1 = start[i + 1] + delta[i + 1] * t, c2 = start[i + 2] + delta[i + 2] * t;
+			switch (space) {
+			case lrgb -> {
+				lrgb[i] = c0;
+				lrgb[i + 1] = c1;
+				lrgb[i + 2] = c2;
+			}
+			case oklch -> {
+				float h = c2 * degRad;
+				oklab(c0, c1 * (float)Math.cos(h), c1 * (float)Math.sin(h), lrgb, i);
+			}
+			case oklab -> oklab(c0, c1, c2, lrgb, i);
+			case lch -> {
+				float h = c2 * degRad;
+				lab(c0, c1 * (float)Math.cos(h), c1 * (float)Math.sin(h), wX, wY, wZ, lrgb, i);
+			}
+			case lab -> lab(c0, c1, c2, wX, wY, wZ, lrgb, i);
+			}
+		}
+	}
+
+	/** @return True if the fade has reached its end color at the time. */
+	public boolean done (int index, float time) {
+		return time >= begin[index] + duration[index];
+	}
+
+	/** Same as {@link Oklab#LRGB()}. */
+	static private void oklab (float L, float a, float b, float[] lrgb, int i) {
+		float l = L + 0.3963377774f * a + 0.2158037573f * b;
+		float m = L - 0.1055613458f * a - 0.0638541728f * b;
+		float s = L - 0.0894841775f * a - 1.291485548f * b;
+		l *= l * l;
+		m *= m * m;
+		s *= s * s;
+		lrgb[i] = 4.0767416621f * l - 3.3077115913f * m + 0.2309699292f * s;
+		lrgb[i + 1] = -1.2684380046f * l + 2.6097574011f * m - 0.3413193965f * s;
+		lrgb[i + 2] = -0.0041960863f * l - 0.7034186147f * m + 1.707614701f * s;
+	}
+
+	/** Same as {@link Lab#XYZ(XYZ)} then {@link XYZ#LRGB()}. */
+	static private void lab (float L, float a, float b, float wX, float wY, float wZ, float[] lrgb, int i) {
+		float Y = (L + 16) / 116;
+		float X = a / 500 + Y;
+		float Z = Y - b / 200;
+		float X3 = X * X * X;
+		X = (X3 > Lab.e ? X3 : (116 * X - 16) / Lab.k) * wX;
+		Y = Lab.LstarToYn(L) * wY;
+		float Z3 = Z * Z * Z;
+		Z = (Z3 > Lab.e ? Z3 : (116 * Z - 16) / Lab.k) * wZ;
+		lrgb[i] = 3.2404542f * X - 1.5371385f * Y - 0.4985314f * Z;
+		lrgb[i + 1] = -0.969266f * X + 1.8760108f * Y + 0.041556f * Z;
+		lrgb[i + 2] = 0.0556434f * X - 0.2040259f * Y + 1.0572252f * Z;
+	}
+
+	public enum Space {
+		lrgb(false), oklab(false), oklch(true), lab(false), lch(true);
+
+		/** True if the third component is a hue angle. */
+		public final boolean polar;
+
+		Space (boolean polar) {
+			this.polar = polar;
+		}
+	}
+
+	public enum Easing {
+		linear {
+			public float apply (float t) {
+				return t;
+			}
+		},
+		smoothstep {
+			public float apply (float t) {
+				return t * t * (3 - 2 * t);
+			}
+		},
+		/** Cubic. */
+		in {
+			public float apply (float t) {
+				return t * t * t;
+			}
+		},
+		/** Cubic. */
+		out {
+			public float apply (float t) {
+				t = 1 - t;
+				return 1 - t * t * t;
+			}
+		},
+		/** Cubic. */
+		inOut {
+			public float apply (float t) {
+				if (t < 0.5f) return 4 * t * t * t;
+				t = -2 * t + 2;
+				return 1 - t * t * t / 2;
+			}
+		},
+		sine {
+			public float apply (float t) {
+				return (1 - (float)Math.cos(t * PI)) / 2;
+			}
+		};
+
+		static final Easing[] values = values();
+
+		/** @param t [0..1]
+		 * @return [0..1] */
+		abstract public float apply (float t);
+	}
+}
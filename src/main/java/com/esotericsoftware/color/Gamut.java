@@ -182,7 +182,9 @@ public interface Gamut {
 		}
 
 		public xy nearest (xy xy) {
-			if (contains(xy)) return xy;
+			boolean inside = contains(xy);
+			if (Metrics.enabled()) Metrics.gamut(!inside);
+			if (inside) return xy;
 			xy pAB = closestPointOnSegment(xy, red, green);
 			xy pAC = closestPointOnSegment(xy, red, blue);
 			xy pBC = closestPointOnSegment(xy, green, blue);
@@ -196,7 +198,9 @@ public interface Gamut {
 		}
 
 		public uv nearest (uv uv) {
-			if (contains(uv.xy())) return uv;
+			boolean inside = contains(uv.xy());
+			if (Metrics.enabled()) Metrics.gamut(!inside);
+			if (inside) return uv;
 			uv pAB = closestPointOnSegment(uv, red, green);
 			uv pAC = closestPointOnSegment(uv, red, blue);
 			uv pBC = closestPointOnSegment(uv, green, blue);
@@ -210,7 +214,9 @@ public interface Gamut {
 		}
 
 		public xy raycast (xy xy) {
-			if (contains(xy)) return xy;
+			boolean inside = contains(xy);
+			if (Metrics.enabled()) Metrics.gamut(!inside);
+			if (inside) return xy;
 			float dx = xy.x() - wpxy.x(), dy = xy.y() - wpxy.y();
 			xy intersection = null;
 			float minT = Float.MAX_VALUE;
@@ -242,7 +248,9 @@ public interface Gamut {
 		}
 
 		public uv raycast (uv uv) {
-			if (contains(uv)) return uv;
+			boolean inside = contains(uv);
+			if (Metrics.enabled()) Metrics.gamut(!inside);
+			if (inside) return uv;
 			float dx = uv.u() - wpuv.u(), dy = uv.v() - wpuv.v();
 			uv intersection = null;
 			float minT = Float.MAX_VALUE;
@@ -278,7 +286,7 @@ public interface Gamut {
 			float X = RGB_XYZ[0][0] * r + RGB_XYZ[0][1] * g + RGB_XYZ[0][2] * b;
 			float Y = RGB_XYZ[1][0] * r + RGB_XYZ[1][1] * g + RGB_XYZ[1][2] * b;
 			float Z = RGB_XYZ[2][0] * r + RGB_XYZ[2][1] * g + RGB_XYZ[2][2] * b;
-			return new XYZ(X * 100, Y * 100, Z * 100);
+			return new XYZ(X, Y, Z);
 		}
 
 		public LRGB LRGB (XYZ XYZ) {
@@ -467,7 +475,9 @@ public interface Gamut {
 		}
 
 		public xy nearest (xy xy) {
-			if (contains(xy)) return xy;
+			boolean inside = contains(xy);
+			if (Metrics.enabled()) Metrics.gamut(!inside);
+			if (inside) return xy;
 			float minDist = Float.MAX_VALUE;
 			xy closest = null;
 			GamutVertex a = vertices[vertices.length - 1];
@@ -484,7 +494,9 @@ public interface Gamut {
 		}
 
 		public uv nearest (uv uv) {
-			if (contains(uv.xy())) return uv;
+			boolean inside = contains(uv.xy());
+			if (Metrics.enabled()) Metrics.gamut(!inside);
+			if (inside) return uv;
 			float minDist = Float.MAX_VALUE;
 			uv closest = null;
 			GamutVertex a = vertices[vertices.length - 1];
@@ -502,7 +514,9 @@ public interface Gamut {
 
 		/** Requires white point to be set. */
 		public xy raycast (xy xy) {
-			if (contains(xy)) return xy;
+			boolean inside = contains(xy);
+			if (Metrics.enabled()) Metrics.gamut(!inside);
+			if (inside) return xy;
 			float dx = xy.x() - wpxy.x(), dy = xy.y() - wpxy.y();
 			xy intersection = null;
 			float minT = Float.MAX_VALUE;
@@ -523,7 +537,9 @@ public interface Gamut {
 
 		/** Requires white point to be set. */
 		public uv raycast (uv uv) {
-			if (contains(uv)) return uv;
+			boolean inside = contains(uv);
+			if (Metrics.enabled()) Metrics.gamut(!inside);
+			if (inside) return uv;
 			float dx = uv.u() - wpuv.u(), dy = uv.v() - wpuv.v();
 			uv intersection = null;
 			float minT = Float.MAX_VALUE;
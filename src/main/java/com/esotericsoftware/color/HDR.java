@@ -0,0 +1,289 @@
+package com.esotericsoftware.color;
+
+import static com.esotericsoftware.color.space.ITP.*;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.ITP;
+
+/** Table based HDR transfer functions and batch ICtCp conversion. {@link CodeTable} decodes 10 or 12-bit PQ and HLG code values
+ * exactly and {@link Lut} evaluates the transfer functions on floats within a measured error. Linear values are [0..1]: for PQ 1
+ * is 10000 cd/m2, as for {@link ITP}, and for HLG 1 is the nominal peak of the scene light. Thread safe. */
+public class HDR {
+	static private final Cache<LutKey, Lut> luts = Metrics.register(new Cache<>("HDR.lut", 32));
+	static private final Cache<CodeKey, CodeTable> codeTables = Metrics.register(new Cache<>("HDR.codeTable", 32));
+	static private final int chunk = 8192;
+	/** BT.2100 HLG constants. */
+	static private final double hlgA = 0.17883277, hlgB = 1 - 4 * hlgA, hlgC = 0.5 - hlgA * Math.log(4 * hlgA);
+
+	/** Returns a shared LUT for the transfer function.
+	 * @param encode True for linear to encoded, false for encoded to linear.
+	 * @param maxError The largest allowed absolute error, > 0. */
+	static public Lut lut (Transfer transfer, boolean encode, float maxError) {
+		return luts.get(new LutKey(transfer, encode, maxError), key -> new Lut(transfer, encode, maxError));
+	}
+
+	/** Returns a shared code value table.
+	 * @param bits Eg 10 or 12, [8..16].
+	 * @param narrow True for narrow (video) range, eg 64..940 for 10-bit, false for full range. */
+	static public CodeTable codeTable (Transfer transfer, int bits, boolean narrow) {
+		return codeTables.get(new CodeKey(transfer, bits, narrow), key -> new CodeTable(transfer, bits, narrow));
+	}
+
+	/** Converts linear Rec. 2020 planes to ICtCp planes, using a PQ LUT. Same as {@link com.esotericsoftware.color.space.Color#ITP()}
+	 * without the sRGB to Rec. 2020 conversion.
+	 * @param I May be the same array as r, likewise for Ct and g, and Cp and b. */
+	static public void ICtCp (float[] r, float[] g, float[] b, float[] I, float[] Ct, float[] Cp) {
+		int n = Colors.check(r.length, g.length, b.length, I.length, Ct.length, Cp.length);
+		ICtCp(r, g, b, I, Ct, Cp, 0, n);
+	}
+
+	/** Same as {@link #ICtCp(float[], float[], float[], float[], float[], float[])}, in parallel. */
+	static public void ICtCpParallel (float[] r, float[] g, float[] b, float[] I, float[] Ct, float[] Cp) {
+		int n = Colors.check(r.length, g.length, b.length, I.length, Ct.length, Cp.length);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> ICtCp(r, g, b, I, Ct, Cp, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Converts pixels [from..to). */
+	static public void ICtCp (float[] r, float[] g, float[] b, float[] I, float[] Ct, float[] Cp, int from, int to) {
+		Lut pq = ICtCpLuts.encode;
+		for (int i = from; i < to; i++) {
+			float rr = r[i], gg = g[i], bb = b[i];
+			float L = pq.get((1688 / 4096f) * rr + (2146 / 4096f) * gg + (262 / 4096f) * bb);
+			float M = pq.get((683 / 4096f) * rr + (2951 / 4096f) * gg + (462 / 4096f) * bb);
+			float S = pq.get((99 / 4096f) * rr + (309 / 4096f) * gg + (3688 / 4096f) * bb);
+			I[i] = 0.5f * L + 0.5f * M;
+			Ct[i] = 1.613769531f * L + -3.323486328f * M + 1.709716797f * S;
+			Cp[i] = 4.378173828f * L + -4.245605469f * M + -0.132568359f * S;
+		}
+	}
+
+	/** Converts one linear Rec. 2020 color to ICtCp, using a PQ LUT.
+	 * @param out Receives I, Ct, and Cp. */
+	static public void ICtCp (float r, float g, float b, float[] out) {
+		Lut pq = ICtCpLuts.encode;
+		float L = pq.get((1688 / 4096f) * r + (2146 / 4096f) * g + (262 / 4096f) * b);
+		float M = pq.get((683 / 4096f) * r + (2951 / 4096f) * g + (462 / 4096f) * b);
+		float S = pq.get((99 / 4096f) * r + (309 / 4096f) * g + (3688 / 4096f) * b);
+		out[0] = 0.5f * L + 0.5f * M;
+		out[1] = 1.613769531f * L + -3.323486328f * M + 1.709716797f * S;
+		out[2] = 4.378173828f * L + -4.245605469f * M + -0.132568359f * S;
+	}
+
+	/** Converts ICtCp planes to linear Rec. 2020 planes, using a PQ LUT.
+	 * @param r May be the same array as I, likewise for g and Ct, and b and Cp. */
+	static public void Rec2020 (float[] I, float[] Ct, float[] Cp, float[] r, float[] g, float[] b) {
+		int n = Colors.check(I.length, Ct.length, Cp.length, r.length, g.length, b.length);
+		Rec2020(I, Ct, Cp, r, g, b, 0, n);
+	}
+
+	/** Same as {@link #Rec2020(float[], float[], float[], float[], float[], float[])}, in parallel. */
+	static public void Rec2020Parallel (float[] I, float[] Ct, float[] Cp, float[] r, float[] g, float[] b) {
+		int n = Colors.check(I.length, Ct.length, Cp.length, r.length, g.length, b.length);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> Rec2020(I, Ct, Cp, r, g, b, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Converts pixels [from..to). */
+	static public void Rec2020 (float[] I, float[] Ct, float[] Cp, float[] r, float[] g, float[] b, int from, int to) {
+		Lut pq = ICtCpLuts.decode;
+		for (int i = from; i < to; i++) {
+			float ii = I[i], ct = Ct[i], cp = Cp[i];
+			float L = pq.get(ii + 0.00860514f * ct + 0.11103f * cp);
+			float M = pq.get(ii + -0.00860514f * ct + -0.11103f * cp);
+			float S = pq.get(ii + 0.56003125f * ct + -0.32062717f * cp);
+			r[i] = 3.4366088f * L + -2.5064522f * M + 0.0698454f * S;
+			g[i] = -0.7913296f * L + 1.9836005f * M + -0.1922709f * S;
+			b[i] = -0.0259499f * L + -0.0989138f * M + 1.1248637f * S;
+		}
+	}
+
+	/** ITU-R BT.2124 color difference, where 1 is about one just noticeable difference. See
+	 * {@link DeltaE.Metric#itp} for batches. */
+	static public float deltaEITP (float I1, float Ct1, float Cp1, float I2, float Ct2, float Cp2) {
+		float dI = I1 - I2, dT = (Ct1 - Ct2) * 0.5f, dP = Cp1 - Cp2;
+		return 720 * (float)Math.sqrt(dI * dI + dT * dT + dP * dP);
+	}
+
+	static public enum Transfer {
+		/** SMPTE ST 2084 perceptual quantizer. Encoding is the inverse EOTF, decoding the EOTF. */
+		pq(2, 0) {
+			public double encode (double linear) {
+				if (linear <= 0) return 0;
+				double pow = Math.pow(linear, PQ_m1);
+				return Math.pow((PQ_c1 + PQ_c2 * pow) / (1 + PQ_c3 * pow), PQ_m2);
+			}
+
+			public double decode (double encoded) {
+				if (encoded <= 0) return 0;
+				double pow = Math.pow(encoded, 1 / (double)PQ_m2);
+				return Math.pow(Math.max(0, pow - PQ_c1) / (PQ_c2 - PQ_c3 * pow), 1 / (double)PQ_m1);
+			}
+		},
+		/** BT.2100 hybrid log-gamma. Encoding is the OETF, decoding the inverse OETF. Scene light, the OOTF is not applied. */
+		hlg(1, 0) {
+			public double encode (double linear) {
+				if (linear <= 0) return 0;
+				return linear <= 1 / 12d ? Math.sqrt(3 * linear) : hlgA * Math.log(12 * linear - hlgB) + hlgC;
+			}
+
+			public double decode (double encoded) {
+				if (encoded <= 0) return 0;
+				return encoded <= 0.5 ? encoded * encoded / 3 : (Math.exp((encoded - hlgC) / hlgA) + hlgB) / 12;
+			}
+		};
+
+		/** Number of square roots applied to the input before the table lookup, for encoding and decoding. */
+		final int encodeWarp, decodeWarp;
+
+		Transfer (int encodeWarp, int decodeWarp) {
+			this.encodeWarp = encodeWarp;
+			this.decodeWarp = decodeWarp;
+		}
+
+		/** @param linear [0..1].
+		 * @return Encoded [0..1]. */
+		abstract public double encode (double linear);
+
+		/** @param encoded [0..1].
+		 * @return Linear [0..1]. */
+		abstract public double decode (double encoded);
+	}
+
+	/** A transfer function over [0..1] sampled into a table with linear interpolation. For steep curves the input is warped by
+	 * square roots before the lookup, so the table is accurate near 0 without being large. Inputs are clamped [0..1]. */
+	static public class Lut {
+		public final Transfer transfer;
+		public final boolean encode;
+		/** The largest absolute error measured against the double precision function when the table was built. */
+		public final float maxError;
+		private final float[] table;
+		private final int size, warp;
+
+		/** Doubles the table size until the measured error is at most maxError.
+		 * @throws IllegalArgumentException if maxError is not reached with 2^20 entries. */
+		public Lut (Transfer transfer, boolean encode, float maxError) {
+			if (!(maxError > 0)) throw new IllegalArgumentException("maxError must be > 0: " + maxError);
+			this.transfer = transfer;
+			this.encode = encode;
+			warp = encode ? transfer.encodeWarp : transfer.decodeWarp;
+			for (int size = 256;; size <<= 1) {
+				if (size > 1 << 20) throw new IllegalArgumentException("maxError cannot be reached: " + maxError);
+				var table = new float[size + 1];
+				for (int i = 0; i <= size; i++)
+					table[i] = (float)exact(unwarp(i / (double)size));
+				// Measure between samples, where linear interpolation is worst.
+				double error = 0;
+				for (int i = 0; i < size; i++) {
+					for (int s = 1; s < 4; s++) {
+						double u = (i + s / 4d) / size;
+						double interpolated = table[i] + (table[i + 1] - table[i]) * (s / 4d);
+						error = Math.max(error, Math.abs(interpolated - exact(unwarp(u))));
+					}
+				}
+				if (error <= maxError) {
+					this.table = table;
+					this.size = size;
+					this.maxError = (float)error;
+					return;
+				}
+			}
+		}
+
+		private double exact (double value) {
+			return encode ? transfer.encode(value) : transfer.decode(value);
+		}
+
+		private double unwarp (double u) {
+			for (int i = 0; i < warp; i++)
+				u *= u;
+			return u;
+		}
+
+		public float get (float value) {
+			if (!(value > 0)) return table[0];
+			if (value >= 1) return table[size];
+			if (warp == 1)
+				value = (float)Math.sqrt(value);
+			else if (warp == 2) //
+				value = (float)Math.sqrt(Math.sqrt(value));
+			float position = value * size;
+			int index = (int)position;
+			return table[index] + (table[index + 1] - table[index]) * (position - index);
+		}
+
+		/** @param out May be the same array as in. */
+		public void get (float[] in, float[] out, int from, int to) {
+			for (int i = from; i < to; i++)
+				out[i] = get(in[i]);
+		}
+
+		/** @return The number of table entries. */
+		public int size () {
+			return size + 1;
+		}
+	}
+
+	/** Exact linear values for every code value at a bit depth. Encoding uses a {@link Lut} and rounds to the nearest code. */
+	static public class CodeTable {
+		public final Transfer transfer;
+		public final int bits;
+		public final boolean narrow;
+		/** The lowest and highest code values for [0..1]. */
+		public final int black, white;
+		private final float[] linear;
+		private final Lut encoder;
+
+		public CodeTable (Transfer transfer, int bits, boolean narrow) {
+			if (bits < 8 || bits > 16) throw new IllegalArgumentException("bits must be [8..16]: " + bits);
+			this.transfer = transfer;
+			this.bits = bits;
+			this.narrow = narrow;
+			int max = (1 << bits) - 1;
+			black = narrow ? 16 << bits - 8 : 0;
+			white = narrow ? 235 << bits - 8 : max;
+			linear = new float[max + 1];
+			for (int code = 0; code <= max; code++)
+				linear[code] = (float)transfer.decode(Math.max(0, Math.min(1, (code - black) / (double)(white - black))));
+			// Half a code step keeps rounding exact except right at the midpoints.
+			encoder = lut(transfer, true, 0.5f / (white - black) / 8);
+		}
+
+		/** @return Linear [0..1]. Codes outside [black..white] are clamped. */
+		public float linear (int code) {
+			return linear[Math.max(0, Math.min(linear.length - 1, code))];
+		}
+
+		/** @param linear [0..1], clamped. */
+		public int code (float linear) {
+			return black + Math.round(encoder.get(linear) * (white - black));
+		}
+
+		/** @param codes Unsigned code values.
+		 * @param linear Receives the linear values. */
+		public void decode (short[] codes, float[] linear, int from, int to) {
+			float[] table = this.linear;
+			int max = table.length - 1;
+			for (int i = from; i < to; i++)
+				linear[i] = table[Math.min(max, codes[i] & 0xffff)];
+		}
+
+		/** @param codes Receives unsigned code values. */
+		public void encode (float[] linear, short[] codes, int from, int to) {
+			Lut encoder = this.encoder;
+			int black = this.black, range = white - black;
+			for (int i = from; i < to; i++)
+				codes[i] = (short)(black + Math.round(encoder.get(linear[i]) * range));
+		}
+	}
+
+	/** PQ LUTs for the ICtCp conversions, built on first use. The encoding error of 0.00001 is about 0.007 deltaE ITP. */
+	static private class ICtCpLuts {
+		static final Lut encode = lut(Transfer.pq, true, 0.00001f), decode = lut(Transfer.pq, false, 0.000001f);
+	}
+
+	private record LutKey (Transfer transfer, boolean encode, float maxError) {}
+
+	private record CodeKey (Transfer transfer, int bits, boolean narrow) {}
+}
@@ -0,0 +1,428 @@
+package com.esotericsoftware.color;
+
+import static com.esotericsoftware.color.Colors.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.Gamut.RGBGamut;
+import com.esotericsoftware.color.space.LMS.CAT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.XYZ;
+import com.esotericsoftware.color.space.xy;
+
+/** An ICC v2 or v4 RGB matrix/TRC profile. Tone curves are compiled into tables and the colorant matrix is fused with them, so
+ * device RGB converts to the D50 profile connection space (PCS) XYZ or Lab without an external CMM. {@link #gamut} gives the
+ * native primaries and white point for use with the rest of the library. LUT based profiles (A2B0/mAB) are not supported.
+ * Immutable and thread safe. */
+public class ICCProfile {
+	static private final Cache<Key, ICCProfile> cache = Metrics.register(new Cache<>("ICCProfile", 64));
+
+	/** The version, eg 0x04300000 for 4.3. */
+	public final int version;
+	/** Header signatures, eg "mntr", "RGB " and "XYZ ". */
+	public final String deviceClass, colorSpace, connectionSpace;
+	/** The profile ID from the header, or the MD5 computed as the ICC specification describes if the header's is zero. */
+	public final byte[] id;
+	/** The PCS illuminant, normally D50. Y is 100. */
+	public final XYZ pcsWhitePoint;
+	/** Native primaries and white point, recovered by undoing the adaptation to the PCS. */
+	public final RGBGamut gamut;
+	public final Curve red, green, blue;
+	/** Linear device RGB to PCS XYZ [0..1], row major. */
+	private final float m00, m01, m02, m10, m11, m12, m20, m21, m22;
+	private final float i00, i01, i02, i10, i11, i12, i20, i21, i22;
+	/** Linear values for 8-bit device values. */
+	private final float[] red8, green8, blue8;
+
+	/** @param data The complete profile.
+	 * @throws IllegalArgumentException if the data is not a valid RGB matrix/TRC profile. */
+	public ICCProfile (byte[] data) {
+		this(data, id(data));
+	}
+
+	private ICCProfile (byte[] data, byte[] id) {
+		var buffer = ByteBuffer.wrap(data);
+		if (data.length < 132 || buffer.getInt(36) != 0x61637370) throw new IllegalArgumentException("Not an ICC profile.");
+		this.id = id;
+		version = buffer.getInt(8);
+		deviceClass = signature(data, 12);
+		colorSpace = signature(data, 16);
+		connectionSpace = signature(data, 20);
+		if (!colorSpace.equals("RGB ")) throw new IllegalArgumentException("Only RGB profiles are supported: " + colorSpace);
+		XYZ pcs = xyz(buffer, 68);
+		pcsWhitePoint = pcs.Y() > 0 ? pcs : new XYZ(96.42f, 100, 82.49f);
+
+		int rXYZ = -1, gXYZ = -1, bXYZ = -1, rTRC = -1, gTRC = -1, bTRC = -1, wtpt = -1, chad = -1;
+		boolean lut = false;
+		for (int i = 0, n = buffer.getInt(128); i < n; i++) {
+			int entry = 132 + i * 12;
+			if (entry + 12 > data.length) throw new IllegalArgumentException("Invalid tag table.");
+			int offset = buffer.getInt(entry + 4), size = buffer.getInt(entry + 8);
+			if (offset < 0 || size < 0 || offset > data.length - size)
+				throw new IllegalArgumentException("Invalid tag offset or size: " + signature(data, entry));
+			switch (signature(data, entry)) {
+			case "rXYZ" -> rXYZ = offset;
+			case "gXYZ" -> gXYZ = offset;
+			case "bXYZ" -> bXYZ = offset;
+			case "rTRC" -> rTRC = offset;
+			case "gTRC" -> gTRC = offset;
+			case "bTRC" -> bTRC = offset;
+			case "wtpt" -> wtpt = offset;
+			case "chad" -> chad = offset;
+			case "A2B0", "A2B1", "A2B2" -> lut = true;
+			}
+		}
+		if (rXYZ == -1 || gXYZ == -1 || bXYZ == -1 || rTRC == -1 || gTRC == -1 || bTRC == -1) {
+			if (lut) throw new IllegalArgumentException("LUT based profiles are not supported.");
+			throw new IllegalArgumentException("Profile is missing matrix/TRC tags.");
+		}
+
+		XYZ r = xyzTag(buffer, rXYZ), g = xyzTag(buffer, gXYZ), b = xyzTag(buffer, bXYZ);
+		m00 = r.X() / 100;
+		m01 = g.X() / 100;
+		m02 = b.X() / 100;
+		m10 = r.Y() / 100;
+		m11 = g.Y() / 100;
+		m12 = b.Y() / 100;
+		m20 = r.Z() / 100;
+		m21 = g.Z() / 100;
+		m22 = b.Z() / 100;
+		float[][] inverse = invert3x3(new float[][] {{m00, m01, m02}, {m10, m11, m12}, {m20, m21, m22}});
+		i00 = inverse[0][0];
+		i01 = inverse[0][1];
+		i02 = inverse[0][2];
+		i10 = inverse[1][0];
+		i11 = inverse[1][1];
+		i12 = inverse[1][2];
+		i20 = inverse[2][0];
+		i21 = inverse[2][1];
+		i22 = inverse[2][2];
+
+		red = curve(buffer, rTRC);
+		green = rTRC == gTRC ? red : curve(buffer, gTRC);
+		blue = rTRC == bTRC ? red : curve(buffer, bTRC);
+		red8 = red.table8();
+		green8 = green == red ? red8 : green.table8();
+		blue8 = blue == red ? red8 : blue.table8();
+
+		// Undo the adaptation to the PCS: chad if present, else Bradford from the media white point.
+		XYZ white;
+		float[][] adaptation;
+		if (chad != -1) {
+			check(buffer, chad, 44, "chad");
+			if (buffer.getInt(chad) != 0x73663332) throw new IllegalArgumentException("Invalid chad tag.");
+			adaptation = new float[3][3];
+			for (int i = 0; i < 9; i++)
+				adaptation[i / 3][i % 3] = s15Fixed16(buffer, chad + 8 + i * 4);
+			float[] w = matrixMultiply(pcsWhitePoint.X(), pcsWhitePoint.Y(), pcsWhitePoint.Z(), invert3x3(adaptation));
+			white = new XYZ(w[0], w[1], w[2]);
+		} else {
+			white = wtpt != -1 ? xyzTag(buffer, wtpt) : pcsWhitePoint;
+			if (Math.abs(white.X() - pcsWhitePoint.X()) < 0.1f && Math.abs(white.Z() - pcsWhitePoint.Z()) < 0.1f)
+				white = pcsWhitePoint;
+			float[] m = ChromaticAdaptation.get(white, pcsWhitePoint, CAT.Bradford).matrix();
+			adaptation = new float[][] {{m[0], m[1], m[2]}, {m[3], m[4], m[5]}, {m[6], m[7], m[8]}};
+		}
+		float[][] toNative = invert3x3(adaptation);
+		float scale = 100 / white.Y();
+		gamut = new RGBGamut(primary(r, toNative), primary(g, toNative), primary(b, toNative),
+			new XYZ(white.X() * scale, 100, white.Z() * scale));
+	}
+
+	/** Returns a profile shared through a bounded cache, keyed by the profile ID. */
+	static public ICCProfile get (byte[] data) {
+		byte[] id = id(data);
+		return cache.get(new Key(ByteBuffer.wrap(id).getLong(), ByteBuffer.wrap(id).getLong(8)),
+			key -> new ICCProfile(data, id));
+	}
+
+	/** Returns the cache used by {@link #get(byte[])}. */
+	static public Cache<?, ICCProfile> cache () {
+		return cache;
+	}
+
+	/** Device RGB to linear device RGB through the tone curves. */
+	public LRGB LRGB (RGB rgb) {
+		return new LRGB(red.apply(rgb.r()), green.apply(rgb.g()), blue.apply(rgb.b()));
+	}
+
+	/** Device RGB to PCS XYZ [0..100]. */
+	public XYZ XYZ (RGB rgb) {
+		float r = red.apply(rgb.r()), g = green.apply(rgb.g()), b = blue.apply(rgb.b());
+		return new XYZ((m00 * r + m01 * g + m02 * b) * 100, (m10 * r + m11 * g + m12 * b) * 100,
+			(m20 * r + m21 * g + m22 * b) * 100);
+	}
+
+	/** PCS XYZ [0..100] to device RGB, clamped. */
+	public RGB RGB (XYZ xyz) {
+		float X = xyz.X() / 100, Y = xyz.Y() / 100, Z = xyz.Z() / 100;
+		return new RGB(red.invert(i00 * X + i01 * Y + i02 * Z), green.invert(i10 * X + i11 * Y + i12 * Z),
+			blue.invert(i20 * X + i21 * Y + i22 * Z));
+	}
+
+	/** Converts device RGB to PCS XYZ [0..100].
+	 * @param rgb 3 values per color [0..1].
+	 * @param xyz Receives 3 values per color. May be the same array as rgb. */
+	public void XYZ (float[] rgb, float[] xyz) {
+		XYZ(rgb, xyz, 0, rgb.length / 3);
+	}
+
+	/** Same as {@link #XYZ(float[], float[])}, but colors are converted in parallel. */
+	public void XYZParallel (float[] rgb, float[] xyz) {
+		int count = rgb.length / 3, chunk = 8192;
+		IntStream.range(0, (count + chunk - 1) / chunk).parallel()
+			.forEach(c -> XYZ(rgb, xyz, c * chunk, Math.min(count, c * chunk + chunk)));
+	}
+
+	/** Converts colors [from..to). */
+	public void XYZ (float[] rgb, float[] xyz, int from, int to) {
+		if (xyz.length < to * 3) throw new IllegalArgumentException("xyz must have 3 values per color: " + xyz.length);
+		float m00 = this.m00 * 100, m01 = this.m01 * 100, m02 = this.m02 * 100, m10 = this.m10 * 100, m11 = this.m11 * 100;
+		float m12 = this.m12 * 100, m20 = this.m20 * 100, m21 = this.m21 * 100, m22 = this.m22 * 100;
+		Curve red = this.red, green = this.green, blue = this.blue;
+		for (int i = from * 3, n = to * 3; i < n; i += 3) {
+			float r = red.apply(rgb[i]), g = green.apply(rgb[i + 1]), b = blue.apply(rgb[i + 2]);
+			xyz[i] = m00 * r + m01 * g + m02 * b;
+			xyz[i + 1] = m10 * r + m11 * g + m12 * b;
+			xyz[i + 2] = m20 * r + m21 * g + m22 * b;
+		}
+	}
+
+	/** Converts 8-bit device RGB to PCS XYZ [0..100] through 256 entry tables.
+	 * @param rgb 3 bytes per color.
+	 * @param xyz Receives 3 values per color. */
+	public void XYZ (byte[] rgb, float[] xyz) {
+		int count = rgb.length / 3;
+		if (xyz.length < count * 3) throw new IllegalArgumentException("xyz must have 3 values per color: " + xyz.length);
+		float m00 = this.m00 * 100, m01 = this.m01 * 100, m02 = this.m02 * 100, m10 = this.m10 * 100, m11 = this.m11 * 100;
+		float m12 = this.m12 * 100, m20 = this.m20 * 100, m21 = this.m21 * 100, m22 = this.m22 * 100;
+		float[] red8 = this.red8, green8 = this.green8, blue8 = this.blue8;
+		for (int i = 0, n = count * 3; i < n; i += 3) {
+			float r = red8[rgb[i] & 0xff], g = green8[rgb[i + 1] & 0xff], b = blue8[rgb[i + 2] & 0xff];
+			xyz[i] = m00 * r + m01 * g + m02 * b;
+			xyz[i + 1] = m10 * r + m11 * g + m12 * b;
+			xyz[i + 2] = m20 * r + m21 * g + m22 * b;
+		}
+	}
+
+	/** Converts device RGB to Lab relative to the PCS white point.
+	 * @param rgb 3 values per color [0..1].
+	 * @param lab Receives 3 values per color. May be the same array as rgb. */
+	public void Lab (float[] rgb, float[] lab) {
+		XYZ(rgb, lab);
+		float wX = 1 / pcsWhitePoint.X(), wY = 1 / pcsWhitePoint.Y(), wZ = 1 / pcsWhitePoint.Z();
+		for (int i = 0, n = rgb.length / 3 * 3; i < n; i += 3) {
+			float fx = labF(lab[i] * wX), fy = labF(lab[i + 1] * wY), fz = labF(lab[i + 2] * wZ);
+			lab[i] = 116 * fy - 16;
+			lab[i + 1] = 500 * (fx - fy);
+			lab[i + 2] = 200 * (fy - fz);
+		}
+	}
+
+	/** Converts PCS XYZ [0..100] to device RGB. Values are clamped [0..1].
+	 * @param xyz 3 values per color.
+	 * @param rgb Receives 3 values per color. May be the same array as xyz. */
+	public void RGB (float[] xyz, float[] rgb) {
+		int count = xyz.length / 3;
+		if (rgb.length < count * 3) throw new IllegalArgumentException("rgb must have 3 values per color: " + rgb.length);
+		float i00 = this.i00 / 100, i01 = this.i01 / 100, i02 = this.i02 / 100, i10 = this.i10 / 100, i11 = this.i11 / 100;
+		float i12 = this.i12 / 100, i20 = this.i20 / 100, i21 = this.i21 / 100, i22 = this.i22 / 100;
+		for (int i = 0, n = count * 3; i < n; i += 3) {
+			float X = xyz[i], Y = xyz[i + 1], Z = xyz[i + 2];
+			rgb[i] = red.invert(i00 * X + i01 * Y + i02 * Z);
+			rgb[i + 1] = green.invert(i10 * X + i11 * Y + i12 * Z);
+			rgb[i + 2] = blue.invert(i20 * X + i21 * Y + i22 * Z);
+		}
+	}
+
+	/** @return The colorant matrix from linear device RGB to PCS XYZ [0..1], row major. */
+	public float[] matrix () {
+		return new float[] {m00, m01, m02, m10, m11, m12, m20, m21, m22};
+	}
+
+	public String toString () {
+		var buffer = new StringBuilder(deviceClass.trim()).append(' ').append(colorSpace.trim()).append(' ')
+			.append(version >>> 24).append('.').append(version >>> 20 & 15).append(' ');
+		for (byte b : id)
+			buffer.append(Character.forDigit(b >> 4 & 15, 16)).append(Character.forDigit(b & 15, 16));
+		return buffer.toString();
+	}
+
+	static private float labF (float t) {
+		return t > Lab.e ? (float)Math.cbrt(t) : (Lab.k * t + 16) / 116;
+	}
+
+	static private xy primary (XYZ colorant, float[][] toNative) {
+		float[] xyz = matrixMultiply(colorant.X(), colorant.Y(), colorant.Z(), toNative);
+		float sum = xyz[0] + xyz[1] + xyz[2];
+		return new xy(xyz[0] / sum, xyz[1] / sum);
+	}
+
+	static private Curve curve (ByteBuffer buffer, int offset) {
+		check(buffer, offset, 12, "TRC");
+		int type = buffer.getInt(offset);
+		if (type == 0x63757276) { // curv
+			int count = buffer.getInt(offset + 8);
+			if (count < 0 || count > (buffer.capacity() - offset - 12) / 2)
+				throw new IllegalArgumentException("Invalid curve entry count: " + count);
+			if (count == 0) return new Curve(1);
+			if (count == 1) return new Curve((buffer.getShort(offset + 12) & 0xffff) / 256f);
+			var table = new float[count];
+			for (int i = 0; i < count; i++)
+				table[i] = (buffer.getShort(offset + 12 + i * 2) & 0xffff) / 65535f;
+			return new Curve(table);
+		}
+		if (type == 0x70617261) { // para
+			int function = buffer.getShort(offset + 8) & 0xffff;
+			int[] counts = {1, 3, 4, 5, 7};
+			if (function >= counts.length) throw new IllegalArgumentException("Unknown parametric curve: " + function);
+			check(buffer, offset, 12 + counts[function] * 4, "para");
+			var params = new float[7];
+			for (int i = 0; i < counts[function]; i++)
+				params[i] = s15Fixed16(buffer, offset + 12 + i * 4);
+			return new Curve(function, params);
+		}
+		throw new IllegalArgumentException("Unknown curve type: " + signature(buffer.array(), offset));
+	}
+
+	/** @return XYZ scaled to [0..100]. */
+	static private XYZ xyzTag (ByteBuffer buffer, int offset) {
+		check(buffer, offset, 20, "XYZ");
+		if (buffer.getInt(offset) != 0x58595a20) throw new IllegalArgumentException("Invalid XYZ tag.");
+		return xyz(buffer, offset + 8);
+	}
+
+	/** @return XYZ scaled to [0..100]. */
+	static private XYZ xyz (ByteBuffer buffer, int offset) {
+		return new XYZ(s15Fixed16(buffer, offset) * 100, s15Fixed16(buffer, offset + 4) * 100, s15Fixed16(buffer, offset + 8) * 100);
+	}
+
+	/** @throws IllegalArgumentException if the length bytes at the offset are not all within the profile. */
+	static private void check (ByteBuffer buffer, int offset, int length, String tag) {
+		if (offset < 0 || offset > buffer.capacity() - length) throw new IllegalArgumentException("Truncated " + tag + " tag.");
+	}
+
+	static private float s15Fixed16 (ByteBuffer buffer, int offset) {
+		return buffer.getInt(offset) / 65536f;
+	}
+
+	static private String signature (byte[] data, int offset) {
+		return new String(data, offset, 4, StandardCharsets.ISO_8859_1);
+	}
+
+	/** Returns the header's profile ID, or the MD5 of the profile with the flags, rendering intent and ID fields zeroed. */
+	static private byte[] id (byte[] data) {
+		if (data.length < 128) throw new IllegalArgumentException("Not an ICC profile.");
+		byte[] id = new byte[16];
+		System.arraycopy(data, 84, id, 0, 16);
+		for (byte b : id)
+			if (b != 0) return id;
+		try {
+			var md5 = MessageDigest.getInstance("MD5");
+			md5.update(data, 0, 44);
+			md5.update(new byte[4]);
+			md5.update(data, 48, 16);
+			md5.update(new byte[4]);
+			md5.update(data, 68, 16);
+			md5.update(new byte[16]);
+			md5.update(data, 100, data.length - 100);
+			return md5.digest();
+		} catch (NoSuchAlgorithmException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/** A tone curve from device values to linear values, compiled into forward and inverse tables with linear interpolation. */
+	static public class Curve {
+		static private final int size = 4096;
+
+		/** The gamma, or NaN if the curve is not a pure power function. */
+		public final float gamma;
+		private final float[] forward = new float[size + 1], inverse = new float[size + 1];
+
+		Curve (float gamma) {
+			this.gamma = gamma;
+			for (int i = 0; i <= size; i++)
+				forward[i] = (float)Math.pow(i / (double)size, gamma);
+			invert();
+		}
+
+		Curve (float[] table) {
+			gamma = Float.NaN;
+			int last = table.length - 1;
+			for (int i = 0; i <= size; i++) {
+				float position = i * last / (float)size;
+				int index = Math.min((int)position, last - 1);
+				forward[i] = table[index] + (table[index + 1] - table[index]) * (position - index);
+			}
+			invert();
+		}
+
+		/** ICC parametric curve functions 0 to 4. */
+		Curve (int function, float[] p) {
+			gamma = function == 0 ? p[0] : Float.NaN;
+			double g = p[0], a = p[1], b = p[2], c = p[3], d = p[4], e = p[5], f = p[6];
+			for (int i = 0; i <= size; i++) {
+				double x = i / (double)size, y = switch (function) {
+				case 0 -> Math.pow(x, g);
+				case 1 -> x >= -b / a ? Math.pow(a * x + b, g) : 0;
+				case 2 -> x >= -b / a ? Math.pow(a * x + b, g) + c : c;
+				case 3 -> x >= d ? Math.pow(a * x + b, g) : c * x;
+				default -> x >= d ? Math.pow(a * x + b, g) + e : c * x + f;
+				};
+				forward[i] = (float)y;
+			}
+			invert();
+		}
+
+		/** Samples the inverse of the forward table, which is assumed to be monotonically increasing. The inverse is indexed by
+		 * the square root of the linear value, so it stays nearly linear for power curves that are steep near black. */
+		private void invert () {
+			float[] forward = this.forward;
+			for (int i = 0, j = 0; i <= size; i++) {
+				float y = i / (float)size;
+				y *= y;
+				while (j < size - 1 && forward[j + 1] < y)
+					j++;
+				float low = forward[j], high = forward[j + 1];
+				float t = high > low ? clamp((y - low) / (high - low)) : 0;
+				inverse[i] = (j + t) / size;
+			}
+		}
+
+		/** @param encoded [0..1], clamped.
+		 * @return Linear [0..1]. */
+		public float apply (float encoded) {
+			return lookup(forward, encoded);
+		}
+
+		/** @param linear [0..1], clamped.
+		 * @return Encoded [0..1]. */
+		public float invert (float linear) {
+			return lookup(inverse, linear > 0 ? (float)Math.sqrt(linear) : 0);
+		}
+
+		float[] table8 () {
+			var table = new float[256];
+			for (int i = 0; i < 256; i++)
+				table[i] = apply(i / 255f);
+			return table;
+		}
+
+		static private float lookup (float[] table, float value) {
+			if (!(value > 0)) return table[0];
+			if (value >= 1) return table[size];
+			float position = value * size;
+			int index = (int)position;
+			return table[index] + (table[index + 1] - table[index]) * (position - index);
+		}
+	}
+
+	private record Key (long high, long low) {}
+}
@@ -0,0 +1,340 @@
+package com.esotericsoftware.color;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/** Opt-in instrumentation of hot paths, as counters and histograms polled with {@link #snapshot()} and as JFR events. Disabled
+ * by default, when each probe costs a volatile static field read. Enable with {@link #enable(boolean)} or the system property
+ * <code>com.esotericsoftware.color.metrics=true</code>. JFR events are emitted only while enabled and a recording includes them,
+ * in the "Color" category. Thread safe. */
+public class Metrics {
+	static private volatile boolean enabled = Boolean.getBoolean("com.esotericsoftware.color.metrics");
+
+	static private final LongAdder[] counters = new LongAdder[Counter.values().length];
+	static private final Histogram[] histograms = new Histogram[Distribution.values().length];
+	static private final List<WeakReference<Cache<?, ?>>> caches = new CopyOnWriteArrayList<>();
+	static private boolean registered;
+
+	static {
+		for (int i = 0; i < counters.length; i++)
+			counters[i] = new LongAdder();
+		for (int i = 0; i < histograms.length; i++)
+			histograms[i] = new Histogram();
+		if (enabled) enable(true);
+	}
+
+	private Metrics () {
+	}
+
+	/** Read by probes. */
+	static public boolean enabled () {
+		return enabled;
+	}
+
+	/** Registers the JFR periodic events the first time metrics are enabled. */
+	static public synchronized void enable (boolean enabled) {
+		if (enabled && !registered) {
+			Events.register();
+			registered = true;
+		}
+		Metrics.enabled = enabled;
+	}
+
+	/** Zeroes the counters and histograms. Cache statistics are kept by each {@link Cache}. */
+	static public void reset () {
+		for (LongAdder counter : counters)
+			counter.reset();
+		for (Histogram histogram : histograms)
+			histogram.reset();
+	}
+
+	static public Snapshot snapshot () {
+		var counterValues = new EnumMap<Counter, Long>(Counter.class);
+		for (Counter counter : Counter.values())
+			counterValues.put(counter, counters[counter.ordinal()].sum());
+		var distributions = new EnumMap<Distribution, Histogram.Snapshot>(Distribution.class);
+		for (Distribution distribution : Distribution.values())
+			distributions.put(distribution, histograms[distribution.ordinal()].snapshot());
+		var cacheStats = new ArrayList<CacheStats>(caches.size());
+		for (WeakReference<Cache<?, ?>> reference : caches) {
+			Cache<?, ?> cache = reference.get();
+			if (cache != null)
+				cacheStats.add(new CacheStats(cache.name(), cache.size(), cache.capacity(), cache.hits(), cache.misses()));
+		}
+		return new Snapshot(counterValues, distributions, cacheStats);
+	}
+
+	/** Called by probes when {@link #enabled()}. */
+	static public void count (Counter counter) {
+		counters[counter.ordinal()].increment();
+	}
+
+	/** Called by probes when {@link #enabled()}. */
+	static public void record (Distribution distribution, long value) {
+		histograms[distribution.ordinal()].record(value);
+	}
+
+	/** Called by gamut mapping probes when {@link #enabled()}.
+	 * @param clamped True if the color was outside the gamut. */
+	static public void gamut (boolean clamped) {
+		counters[Counter.gamutTests.ordinal()].increment();
+		if (clamped) counters[Counter.gamutClamps.ordinal()].increment();
+	}
+
+	/** Called by {@link com.esotericsoftware.color.space.HCT} when {@link #enabled()} and the solver falls back to bisection. */
+	static public void hctBisection (float hue, float chroma, float tone) {
+		counters[Counter.hctBisections.ordinal()].increment();
+		Events.hctBisection(hue, chroma, tone);
+	}
+
+	/** Called by CCT probes when {@link #enabled()} and a result is NaN. */
+	static public void cctInvalid (float u, float v, float K) {
+		counters[Counter.cctInvalid.ordinal()].increment();
+		Events.cctInvalid(u, v, K);
+	}
+
+	/** Returns {@link System#nanoTime()}, or 0 when disabled. Pass the result to {@link #end(Distribution, long)}. */
+	static public long start () {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/** Records the time since {@link #start()} and emits a JFR evaluation event. Does nothing if the start was 0. */
+	static public void end (Distribution distribution, long start) {
+		if (start == 0) return;
+		long end = System.nanoTime();
+		histograms[distribution.ordinal()].record(end - start);
+		Events.evaluation(distribution, end - start);
+	}
+
+	/** Reports the cache's statistics in {@link #snapshot()} and JFR events. The cache is held weakly, so registering does not
+	 * keep it reachable.
+	 * @return The cache. */
+	static public <K, V> Cache<K, V> register (Cache<K, V> cache) {
+		if (cache == null) throw new IllegalArgumentException("cache cannot be null.");
+		caches.removeIf(reference -> reference.get() == null);
+		caches.add(new WeakReference<>(cache));
+		return cache;
+	}
+
+	static public enum Counter {
+		/** {@link com.esotericsoftware.color.space.HCT} solves that fell back to bisection. */
+		hctBisections,
+		/** CCT conversions with a NaN result. */
+		cctInvalid,
+		/** Gamut mapping calls. */
+		gamutTests,
+		/** Gamut mapping calls where the color was outside the gamut and was moved. */
+		gamutClamps
+	}
+
+	static public enum Distribution {
+		/** {@link com.esotericsoftware.color.space.HCT} solver iterations, including failed solves. */
+		hctIterations,
+		/** {@link Spectrum#CRI(CRI.Method)} nanoseconds. */
+		criNanos,
+		/** {@link Spectrum#TM30(TM30.Method)} nanoseconds. */
+		tm30Nanos
+	}
+
+	public record Snapshot (EnumMap<Counter, Long> counters, EnumMap<Distribution, Histogram.Snapshot> distributions,
+		List<CacheStats> caches) {
+
+		public long get (Counter counter) {
+			return counters.get(counter);
+		}
+
+		public Histogram.Snapshot get (Distribution distribution) {
+			return distributions.get(distribution);
+		}
+
+		/** @return [0..1] or NaN if no colors were gamut mapped. */
+		public float gamutClampRate () {
+			long tests = get(Counter.gamutTests);
+			return tests == 0 ? Float.NaN : get(Counter.gamutClamps) / (float)tests;
+		}
+	}
+
+	public record CacheStats (String name, int size, int capacity, long hits, long misses) {
+		/** @return [0..1] or NaN if the cache has not been used. */
+		public float hitRatio () {
+			long total = hits + misses;
+			return total == 0 ? Float.NaN : hits / (float)total;
+		}
+	}
+
+	/** Non-negative values in power of 2 buckets: bucket 0 is 0, bucket n is [2^(n-1)..2^n). */
+	static public class Histogram {
+		private final LongAdder count = new LongAdder(), sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+		private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+		public void record (long value) {
+			if (value < 0) value = 0;
+			count.increment();
+			sum.add(value);
+			max.accumulate(value);
+			buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+		}
+
+		public void reset () {
+			count.reset();
+			sum.reset();
+			max.reset();
+			for (int i = 0; i < 64; i++)
+				buckets.set(i, 0);
+		}
+
+		public Snapshot snapshot () {
+			var values = new long[64];
+			for (int i = 0; i < 64; i++)
+				values[i] = buckets.get(i);
+			return new Snapshot(count.sum(), sum.sum(), max.get(), values);
+		}
+
+		public record Snapshot (long count, long sum, long max, long[] buckets) {
+			/** @return NaN if empty. */
+			public double mean () {
+				return count == 0 ? Double.NaN : sum / (double)count;
+			}
+
+			/** Returns the upper bound of the bucket containing the percentile, at most {@link #max()}.
+			 * @param percentile [0..1].
+			 * @return 0 if empty. */
+			public long percentile (float percentile) {
+				if (percentile < 0 || percentile > 1) throw new IllegalArgumentException("percentile must be [0..1]: " + percentile);
+				long target = (long)Math.ceil(count * (double)percentile), seen = 0;
+				for (int i = 0; i < 64; i++) {
+					seen += buckets[i];
+					if (seen >= target && seen > 0) return i == 0 ? 0 : Math.min(max, (1L << i) - 1);
+				}
+				return 0;
+			}
+		}
+	}
+
+	/** Separate from {@link Metrics} so jdk.jfr is only loaded once enabled. */
+	static private class Events {
+		static void register () {
+			FlightRecorder.addPeriodicEvent(CountersEvent.class, () -> {
+				if (!enabled) return;
+				var event = new CountersEvent();
+				event.hctBisections = counters[Counter.hctBisections.ordinal()].sum();
+				event.cctInvalid = counters[Counter.cctInvalid.ordinal()].sum();
+				event.gamutTests = counters[Counter.gamutTests.ordinal()].sum();
+				event.gamutClamps = counters[Counter.gamutClamps.ordinal()].sum();
+				event.commit();
+			});
+			FlightRecorder.addPeriodicEvent(CacheEvent.class, () -> {
+				if (!enabled) return;
+				for (WeakReference<Cache<?, ?>> reference : caches) {
+					Cache<?, ?> cache = reference.get();
+					if (cache == null) continue;
+					var event = new CacheEvent();
+					event.name = cache.name();
+					event.size = cache.size();
+					event.capacity = cache.capacity();
+					event.hits = cache.hits();
+					event.misses = cache.misses();
+					event.hitRatio = cache.hitRatio();
+					event.commit();
+				}
+			});
+		}
+
+		static void hctBisection (float hue, float chroma, float tone) {
+			var event = new HCTBisectionEvent();
+			if (!event.isEnabled()) return;
+			event.hue = hue;
+			event.chroma = chroma;
+			event.tone = tone;
+			event.commit();
+		}
+
+		static void cctInvalid (float u, float v, float K) {
+			var event = new CCTInvalidEvent();
+			if (!event.isEnabled()) return;
+			event.u = u;
+			event.v = v;
+			event.K = K;
+			event.commit();
+		}
+
+		static void evaluation (Distribution distribution, long nanos) {
+			var event = new EvaluationEvent();
+			if (!event.isEnabled()) return;
+			event.metric = distribution.name();
+			event.nanos = nanos;
+			event.commit();
+		}
+	}
+
+	@Name("com.esotericsoftware.color.HCTBisection")
+	@Label("HCT Bisection")
+	@Description("The HCT solver did not converge and fell back to bisecting the gamut boundary.")
+	@Category("Color")
+	static class HCTBisectionEvent extends Event {
+		@Label("Hue") float hue;
+		@Label("Chroma") float chroma;
+		@Label("Tone") float tone;
+	}
+
+	@Name("com.esotericsoftware.color.CCTInvalid")
+	@Label("Invalid CCT")
+	@Description("A CCT conversion was out of range and returned NaN.")
+	@Category("Color")
+	static class CCTInvalidEvent extends Event {
+		@Label("u'") float u;
+		@Label("v'") float v;
+		@Label("Kelvin") float K;
+	}
+
+	@Name("com.esotericsoftware.color.Evaluation")
+	@Label("Color Metric Evaluation")
+	@Description("Time to evaluate a color rendition metric, such as CRI or TM-30.")
+	@Category("Color")
+	static class EvaluationEvent extends Event {
+		@Label("Metric") String metric;
+		@Label("Nanoseconds") long nanos;
+	}
+
+	@Name("com.esotericsoftware.color.Counters")
+	@Label("Color Counters")
+	@Category("Color")
+	@Period("10 s")
+	@StackTrace(false)
+	static class CountersEvent extends Event {
+		@Label("HCT Bisections") long hctBisections;
+		@Label("Invalid CCTs") long cctInvalid;
+		@Label("Gamut Tests") long gamutTests;
+		@Label("Gamut Clamps") long gamutClamps;
+	}
+
+	@Name("com.esotericsoftware.color.Cache")
+	@Label("Color Cache")
+	@Category("Color")
+	@Period("10 s")
+	@StackTrace(false)
+	static class CacheEvent extends Event {
+		@Label("Name") String name;
+		@Label("Size") int size;
+		@Label("Capacity") int capacity;
+		@Label("Hits") long hits;
+		@Label("Misses") long misses;
+		@Label("Hit Ratio") float hitRatio;
+	}
+}
@@ -2,9 +2,12 @@
 package com.esotericsoftware.color;
 
 import com.esotericsoftware.color.space.XYZ;
+import com.esotericsoftware.color.space.xy;
 
 public class Observer {
-	/** [2, 10] */
+	static private final Cache<Key, Observer> cache = Metrics.register(new Cache<>("Observer", 64));
+
+	/** Field size in degrees, [1..10]. */
 	public final int fov;
 	/** Years. 0 for no age adjustment. */
 	public final int age;
@@ -16,6 +19,8 @@ public class Observer {
 	public float[] zbar;
 	/** Ybar sum * 5nm. */
 	public float ybarIntegral;
+	/** White points normalized to Y=100. For {@link #CIE2_2015}, {@link #CIE10_2015} and CIE 2006 observers A, D50-D75, and E
+	 * are derived once from the illuminant spectra, C and F are null. */
 	public XYZ A, C, D50, D55, D65, D75, E, F2, F7, F11;
 
 	public Observer (int fov) {
@@ -23,14 +28,50 @@ public class Observer {
 		this.age = 0;
 	}
 
-	// public Observer (int age, Observer base) {
-	// this.age = age;
-	// fov = base.fov;
-	// xbar = new float[81];
-	// ybar = new float[81];
-	// zbar = new float[81];
-	// // BOZO - Apply age adjustments.
-	// }
+	/** CIE 170-1:2006 physiological observer for a field size and age. The cone fundamentals of {@link #CIE2_2015} are adjusted
+	 * for the photopigment optical density and macular pigment density of the field size and for the lens density of the age,
+	 * then transformed to XYZ with the CIE 170-2 2 degree matrix, the 10 degree matrix, or a blend between them. See
+	 * {@link #get(int, int)} to share instances.
+	 * <p>
+	 * Lens density uses the CIE 170-1 age factor, 1 + 0.02(A-32) to age 60 and 1.56 + 0.0667(A-60) after. The CIE 170-1 table of
+	 * age dependent ocular media density is not included, so the 32 year lens density spectrum it scales is the lens terms of van
+	 * de Kraats and van Norren (2007) at age 32. Results differ slightly from the CIE tables, most below 420nm.
+	 * @param fov Field size in degrees, [1..10].
+	 * @param age Years, [20..80]. */
+	public Observer (int fov, int age) {
+		this(fov, age, CIE2006.generate(fov, age));
+	}
+
+	/** Copies the tables and white points computed on a separate instance, so the constructor does not leak this. */
+	private Observer (int fov, int age, Observer tables) {
+		this.fov = fov;
+		this.age = age;
+		xbar = tables.xbar;
+		ybar = tables.ybar;
+		zbar = tables.zbar;
+		ybarIntegral = tables.ybarIntegral;
+		A = tables.A;
+		D50 = tables.D50;
+		D55 = tables.D55;
+		D65 = tables.D65;
+		D75 = tables.D75;
+		E = tables.E;
+	}
+
+	/** Returns a shared CIE 2006 observer, or {@link #CIE2_2015} or {@link #CIE10_2015} for age 32 at 2 or 10 degrees.
+	 * @see #Observer(int, int) */
+	static public Observer get (int fov, int age) {
+		if (age == 32) {
+			if (fov == 2) return CIE2_2015;
+			if (fov == 10) return CIE10_2015;
+		}
+		return cache.get(new Key(fov, age), key -> new Observer(key.fov, key.age));
+	}
+
+	/** Returns the cache used by {@link #get(int, int)}. */
+	static public Cache<?, Observer> cache () {
+		return cache;
+	}
 
 	/** CIE 1931 2 degree standard observer. */
 	static public final Observer CIE2_1931 = new Observer(2);
@@ -172,4 +213,147 @@ public class Observer {
 	/** The observer to use by default for methods where an observer is not specified. Change as needed. Defaults to
 	 * {@link #CIE2_1931}. */
 	static public Observer Default = CIE2_1931;
+	static {
+		CIE2_2015.whitePoints();
+		CIE10_2015.whitePoints();
+	}
+
+	private void whitePoints () {
+		A = whitePoint(Illuminant.A());
+		D50 = whitePoint(Illuminant.D(new xy(0.34567f, 0.3585f)));
+		D55 = whitePoint(Illuminant.D(new xy(0.33242f, 0.34743f)));
+		D65 = whitePoint(Illuminant.D(new xy(0.31271f, 0.32902f)));
+		D75 = whitePoint(Illuminant.D(new xy(0.29902f, 0.31485f)));
+		E = new XYZ(100, 100, 100);
+	}
+
+	/** @return The illuminant's white point for this observer, normalized to Y=100. */
+	public XYZ whitePoint (Spectrum illuminant) {
+		XYZ xyz = illuminant.XYZ(this);
+		return xyz.scl(100 / xyz.Y());
+	}
+
+	static private record Key (int fov, int age) {}
+
+	/** CIE 2006 cone fundamentals, relative to {@link #CIE2_2015} (2 degrees, age 32). */
+	static private class CIE2006 {
+		/** CIE 170-2 LMS to XYZ, 2 and 10 degrees. */
+		static final double[][] LMS_XYZ_2 = {{1.94735469, -1.41445123, 0.36476327}, {0.68990272, 0.34832189, 0}, {0, 0, 1.93485343}};
+		static final double[][] LMS_XYZ_10 = {{1.93986443, -1.34664359, 0.43044935}, {0.69283932, 0.34967567, 0},
+			{0, 0, 2.14687945}};
+		/** Photopigment absorbance peaks for L, M, and S cones, nm. */
+		static final double[] peaks = {557, 530, 420};
+		/** LMS for 380-780nm at 5nm, 2 degrees, age 32. */
+		static final double[][] lms = new double[81][];
+		/** Peak of each cone in {@link #lms}. */
+		static final double[] lmsPeaks = new double[3];
+		/** Macular pigment density, 1 at 460nm. */
+		static final double[] macula = new double[81];
+		static {
+			for (int i = 0; i < 81; i++) {
+				lms[i] = LMS(LMS_XYZ_2, CIE2_2015, i);
+				for (int c = 0; c < 3; c++) {
+					lms[i][c] = Math.max(0, lms[i][c]);
+					lmsPeaks[c] = Math.max(lmsPeaks[c], lms[i][c]);
+				}
+			}
+			// The macular template is recovered from the 2 and 10 degree L and M fundamentals, which differ only by photopigment
+			// self-screening, macular density, and normalization. Above 550nm macular density is zero, which gives the normalization.
+			var residual = new double[2][81];
+			var normalization = new double[2];
+			for (int i = 0; i < 81; i++) {
+				double[] lms10 = LMS(LMS_XYZ_10, CIE10_2015, i);
+				for (int c = 0; c < 2; c++) {
+					double wavelength = 380 + i * 5;
+					residual[c][i] = Math.log10(lms10[c] / lms[i][c])
+						- Math.log10(selfScreening(c, 10, wavelength) / selfScreening(c, 2, wavelength));
+					if (wavelength >= 600 && wavelength <= 650) normalization[c] += residual[c][i] / 11;
+				}
+			}
+			double delta = maculaPeak(10) - maculaPeak(2);
+			for (int i = 0; i < 34; i++) // < 550nm.
+				macula[i] = Math.max(0, (normalization[0] - residual[0][i] + normalization[1] - residual[1][i]) / (2 * delta));
+		}
+
+		/** @return An observer with the color matching functions and white points, but not the age. */
+		static Observer generate (int fov, int age) {
+			if (fov < 1 || fov > 10) throw new IllegalArgumentException("fov must be [1..10]: " + fov);
+			if (age < 20 || age > 80) throw new IllegalArgumentException("age must be [20..80]: " + age);
+			double maculaDelta = maculaPeak(fov) - maculaPeak(2);
+			var cones = new double[3][81];
+			var max = new double[3];
+			for (int i = 0; i < 81; i++) {
+				double wavelength = 380 + i * 5;
+				double density = maculaDelta * macula[i] + (ageFactor(age) - 1) * lens(wavelength);
+				for (int c = 0; c < 3; c++) {
+					double value = lms[i][c] * selfScreening(c, fov, wavelength) / selfScreening(c, 2, wavelength)
+						* Math.pow(10, -density);
+					cones[c][i] = value;
+					max[c] = Math.max(max[c], value);
+				}
+			}
+			double t = Math.min(1, Math.max(0, (fov - 2) / 8d));
+			float[] xbar = new float[81], ybar = new float[81], zbar = new float[81];
+			float ybarSum = 0;
+			for (int i = 0; i < 81; i++) {
+				// Each cone keeps its peak, as CIE 170-1 normalizes the fundamentals to peak at 1.
+				double L = cones[0][i] * lmsPeaks[0] / max[0], M = cones[1][i] * lmsPeaks[1] / max[1],
+					S = cones[2][i] * lmsPeaks[2] / max[2];
+				xbar[i] = (float)(transform(0, t, L, M, S));
+				ybar[i] = (float)(transform(1, t, L, M, S));
+				zbar[i] = (float)(transform(2, t, L, M, S));
+				ybarSum += ybar[i];
+			}
+			var observer = new Observer(fov);
+			observer.xbar = xbar;
+			observer.ybar = ybar;
+			observer.zbar = zbar;
+			observer.ybarIntegral = ybarSum * 5;
+			observer.whitePoints();
+			return observer;
+		}
+
+		static private double transform (int row, double t, double L, double M, double S) {
+			double[] m2 = LMS_XYZ_2[row], m10 = LMS_XYZ_10[row];
+			return (m2[0] + (m10[0] - m2[0]) * t) * L + (m2[1] + (m10[1] - m2[1]) * t) * M + (m2[2] + (m10[2] - m2[2]) * t) * S;
+		}
+
+		static private double[] LMS (double[][] LMS_XYZ, Observer observer, int i) {
+			double[] x = LMS_XYZ[0], y = LMS_XYZ[1];
+			double S = observer.zbar[i] / LMS_XYZ[2][2], X = observer.xbar[i] - x[2] * S, Y = observer.ybar[i];
+			double det = x[0] * y[1] - x[1] * y[0];
+			return new double[] {(X * y[1] - x[1] * Y) / det, (x[0] * Y - y[0] * X) / det, S};
+		}
+
+		/** Fraction of light absorbed by the photopigment, from its peak optical density for the field size (CIE 170-1) and the
+		 * Govardovskii et al. (2000) A1 absorbance template. */
+		static private double selfScreening (int cone, double fov, double wavelength) {
+			double density = cone < 2 ? 0.38 + 0.54 * Math.exp(-fov / 1.333) : 0.3 + 0.45 * Math.exp(-fov / 1.333);
+			double peak = peaks[cone], x = peak / wavelength;
+			double a = 0.8795 + 0.0459 * Math.exp(-(peak - 300) * (peak - 300) / 11940);
+			double alpha = 1 / (Math.exp(69.7 * (a - x)) + Math.exp(28 * (0.922 - x)) + Math.exp(-14.9 * (1.104 - x)) + 0.674);
+			double betaPeak = 189 + 0.315 * peak, betaWidth = -40.5 + 0.195 * peak, beta = (wavelength - betaPeak) / betaWidth;
+			return 1 - Math.pow(10, -density * (alpha + 0.26 * Math.exp(-beta * beta)));
+		}
+
+		/** CIE 170-1 macular pigment peak optical density for the field size. */
+		static private double maculaPeak (double fov) {
+			return 0.485 * Math.exp(-fov / 6.132);
+		}
+
+		/** CIE 170-1 factor for the age dependent ocular media density, 1 at age 32. */
+		static private double ageFactor (double age) {
+			return age <= 60 ? 1 + 0.02 * (age - 32) : 1.56 + 0.0667 * (age - 60);
+		}
+
+		/** Age dependent lens optical density at age 32: the Rayleigh, young lens, and aging lens terms of van de Kraats and van
+		 * Norren (2007), standing in for the CIE 170-1 tabulated values. */
+		static private double lens (double wavelength) {
+			double A2 = 32 * 32, rayleigh = 400 / wavelength, young = 0.029 * (wavelength - 370), oldUV = 0.021 * (wavelength - 325),
+				old = 0.008 * (wavelength - 325);
+			rayleigh *= rayleigh;
+			return (0.225 + 0.000031 * A2) * rayleigh * rayleigh + (0.998 - 0.000063 * A2) * 2.13 * Math.exp(-young * young)
+				+ (0.059 + 0.000186 * A2) * 11.95 * Math.exp(-oldUV * oldUV) + (0.016 + 0.000132 * A2) * 1.43 * Math.exp(-old * old);
+		}
+	}
 }
@@ -0,0 +1,286 @@
+package com.esotericsoftware.color;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.Color;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.RGB;
+
+/** Immutable k-d tree of palette colors for nearest color queries. Candidates are found by Euclidean distance in the index
+ * {@link Space}, then ranked by {@link Lab#deltaE2000(Lab, float, float, float)}. Since Euclidean and deltaE2000 ordering can
+ * differ, more candidates give results closer to an exhaustive deltaE2000 search. Thread safe; {@link #with(RGB...)} returns
+ * a new snapshot and does not affect readers of this one. */
+public class PaletteIndex {
+	public final Space space;
+	public final float kL, kC, kH;
+	/** Number of Euclidean nearest candidates ranked by deltaE2000 per result. */
+	public final int candidates;
+	private final RGB[] colors;
+	private final Lab[] labs;
+	/** Tree order: palette index and 3 coordinates per node, and the split axis of each node. */
+	private final int[] order;
+	private final float[] coords;
+	private final byte[] axes;
+
+	/** Uses {@link Space#lab}, deltaE2000 with 1 for lightness, chroma, and hue, and 8 candidates. */
+	public PaletteIndex (RGB... colors) {
+		this(Space.lab, 1, 1, 1, 8, colors);
+	}
+
+	/** @param candidates >= 1. */
+	public PaletteIndex (Space space, float kL, float kC, float kH, int candidates, RGB... colors) {
+		if (space == null) throw new IllegalArgumentException("space cannot be null.");
+		if (candidates < 1) throw new IllegalArgumentException("candidates must be >= 1: " + candidates);
+		if (colors.length == 0) throw new IllegalArgumentException("colors must not be empty.");
+		this.space = space;
+		this.kL = kL;
+		this.kC = kC;
+		this.kH = kH;
+		this.candidates = candidates;
+		this.colors = colors.clone();
+		int n = colors.length;
+		labs = new Lab[n];
+		order = new int[n];
+		coords = new float[n * 3];
+		axes = new byte[n];
+		for (int i = 0; i < n; i++) {
+			RGB rgb = colors[i];
+			labs[i] = rgb.Lab();
+			order[i] = i;
+			space.coords(rgb, coords, i * 3);
+		}
+		build(0, n);
+	}
+
+	private void build (int lo, int hi) {
+		if (hi - lo <= 1) return;
+		// Split on the axis with the most spread.
+		float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+		float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+		for (int i = lo; i < hi; i++) {
+			for (int a = 0; a < 3; a++) {
+				float v = coords[i * 3 + a];
+				min[a] = Math.min(min[a], v);
+				max[a] = Math.max(max[a], v);
+			}
+		}
+		int axis = 0;
+		for (int a = 1; a < 3; a++)
+			if (max[a] - min[a] > max[axis] - min[axis]) axis = a;
+		int mid = (lo + hi) >>> 1;
+		select(lo, hi - 1, mid, axis);
+		axes[mid] = (byte)axis;
+		build(lo, mid);
+		build(mid + 1, hi);
+	}
+
+	/** Quickselect so the node at k has the median value on the axis for [lo..hi]. */
+	private void select (int lo, int hi, int k, int axis) {
+		while (hi > lo) {
+			float pivot = coords[((lo + hi) >>> 1) * 3 + axis];
+			int i = lo, j = hi;
+			while (i <= j) {
+				while (coords[i * 3 + axis] < pivot)
+					i++;
+				while (coords[j * 3 + axis] > pivot)
+					j--;
+				if (i <= j) swap(i++, j--);
+			}
+			if (k <= j)
+				hi = j;
+			else if (k >= i)
+				lo = i;
+			else
+				return;
+		}
+	}
+
+	private void swap (int a, int b) {
+		int t = order[a];
+		order[a] = order[b];
+		order[b] = t;
+		for (int i = 0; i < 3; i++) {
+			float f = coords[a * 3 + i];
+			coords[a * 3 + i] = coords[b * 3 + i];
+			coords[b * 3 + i] = f;
+		}
+	}
+
+	/** Returns a new index with the colors added. */
+	public PaletteIndex with (RGB... colors) {
+		RGB[] all = Arrays.copyOf(this.colors, this.colors.length + colors.length);
+		System.arraycopy(colors, 0, all, this.colors.length, colors.length);
+		return new PaletteIndex(space, kL, kC, kH, candidates, all);
+	}
+
+	public int size () {
+		return colors.length;
+	}
+
+	public RGB color (int index) {
+		return colors[index];
+	}
+
+	/** @return The palette index of the closest color by deltaE2000 among the candidates. */
+	public int nearest (RGB color) {
+		var query = new Query(Math.min(candidates, colors.length));
+		return nearest(color, query);
+	}
+
+	/** @param rgb 0xRRGGBB, alpha is ignored. */
+	public int nearest (int rgb) {
+		return nearest(new RGB(rgb));
+	}
+
+	/** @return Palette indices of up to k closest colors, closest first. */
+	public int[] nearest (RGB color, int k) {
+		if (k < 1) throw new IllegalArgumentException("k must be >= 1: " + k);
+		k = Math.min(k, colors.length);
+		var query = new Query(Math.min(Math.max(candidates, k), colors.length));
+		search(color, query);
+		int count = query.count;
+		Lab lab = color.Lab();
+		var deltaE = new float[count];
+		var indices = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			indices[i] = i;
+			deltaE[i] = lab.deltaE2000(labs[query.index[i]], kL, kC, kH);
+		}
+		Arrays.sort(indices, (a, b) -> Float.compare(deltaE[a], deltaE[b]));
+		var result = new int[k];
+		for (int i = 0; i < k; i++)
+			result[i] = query.index[indices[i]];
+		return result;
+	}
+
+	/** Finds the nearest palette index for many colors.
+	 * @param rgb 0xRRGGBB, alpha is ignored.
+	 * @param out Receives a palette index per color. */
+	public void nearest (int[] rgb, int[] out) {
+		nearest(rgb, out, 0, rgb.length);
+	}
+
+	/** Same as {@link #nearest(int[], int[])}, but colors are matched in parallel. */
+	public void nearestParallel (int[] rgb, int[] out) {
+		int chunk = 1024;
+		IntStream.range(0, (rgb.length + chunk - 1) / chunk).parallel()
+			.forEach(c -> nearest(rgb, out, c * chunk, Math.min(rgb.length, c * chunk + chunk)));
+	}
+
+	private void nearest (int[] rgb, int[] out, int from, int to) {
+		if (out.length < rgb.length) throw new IllegalArgumentException("out must have a value per color: " + out.length);
+		var query = new Query(Math.min(candidates, colors.length));
+		int last = -1, result = 0;
+		for (int i = from; i < to; i++) {
+			int value = rgb[i] & 0xffffff;
+			if (value != last) { // Runs of identical pixels are common.
+				result = nearest(new RGB(value), query);
+				last = value;
+			}
+			out[i] = result;
+		}
+	}
+
+	private int nearest (RGB color, Query query) {
+		search(color, query);
+		Lab lab = color.Lab();
+		int best = query.index[0];
+		if (query.count > 1) {
+			float bestDeltaE = Float.MAX_VALUE;
+			for (int i = 0; i < query.count; i++) {
+				float deltaE = lab.deltaE2000(labs[query.index[i]], kL, kC, kH);
+				if (deltaE < bestDeltaE) {
+					bestDeltaE = deltaE;
+					best = query.index[i];
+				}
+			}
+		}
+		return best;
+	}
+
+	private void search (RGB color, Query query) {
+		space.coords(color, query.point, 0);
+		query.count = 0;
+		search(query, 0, order.length);
+	}
+
+	private void search (Query query, int lo, int hi) {
+		if (lo >= hi) return;
+		int mid = (lo + hi) >>> 1, c = mid * 3;
+		float[] point = query.point;
+		float dx = point[0] - coords[c], dy = point[1] - coords[c + 1], dz = point[2] - coords[c + 2];
+		query.offer(dx * dx + dy * dy + dz * dz, order[mid]);
+		if (hi - lo == 1) return;
+		int axis = axes[mid];
+		float diff = point[axis] - coords[c + axis];
+		if (diff < 0) {
+			search(query, lo, mid);
+			if (diff * diff < query.worst()) search(query, mid + 1, hi);
+		} else {
+			search(query, mid + 1, hi);
+			if (diff * diff < query.worst()) search(query, lo, mid);
+		}
+	}
+
+	/** Bounded sorted list of the closest nodes found so far. */
+	static private class Query {
+		final float[] point = new float[3];
+		final float[] distance;
+		final int[] index;
+		int count;
+
+		Query (int size) {
+			distance = new float[size];
+			index = new int[size];
+		}
+
+		float worst () {
+			return count < distance.length ? Float.MAX_VALUE : distance[count - 1];
+		}
+
+		void offer (float d, int i) {
+			if (count == distance.length) {
+				if (d >= distance[count - 1]) return;
+				count--;
+			}
+			int p = count++;
+			for (; p > 0 && distance[p - 1] > d; p--) {
+				distance[p] = distance[p - 1];
+				index[p] = index[p - 1];
+			}
+			distance[p] = d;
+			index[p] = i;
+		}
+	}
+
+	/** The space in which candidates are found by Euclidean distance. */
+	public enum Space {
+		lab {
+			void coords (Color color, float[] out, int i) {
+				Lab lab = color.Lab();
+				out[i] = lab.L();
+				out[i + 1] = lab.a();
+				out[i + 2] = lab.b();
+			}
+		},
+		oklab {
+			void coords (Color color, float[] out, int i) {
+				var oklab = color.Oklab();
+				out[i] = oklab.L();
+				out[i + 1] = oklab.a();
+				out[i + 2] = oklab.b();
+			}
+		},
+		cam16ucs {
+			void coords (Color color, float[] out, int i) {
+				var ucs = color.CAM16UCS();
+				out[i] = ucs.J();
+				out[i + 1] = ucs.a();
+				out[i + 2] = ucs.b();
+			}
+		};
+
+		abstract void coords (Color color, float[] out, int i);
+	}
+}
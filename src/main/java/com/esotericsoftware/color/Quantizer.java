@@ -0,0 +1,568 @@
+package com.esotericsoftware.color;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.CAM16;
+import com.esotericsoftware.color.space.CAM16UCS;
+import com.esotericsoftware.color.space.Oklab;
+import com.esotericsoftware.color.space.RGB;
+
+/** Reduces packed ARGB pixels to a small weighted palette. Pixels are first counted in a compact hash of 6 bits per channel,
+ * then the unique colors are clustered by median cut or Wu's method in a perceptual space and optionally refined with k-means.
+ * Thread safe. */
+public class Quantizer {
+	static private final int chunk = 1 << 16;
+
+	/** Uses Wu's method in Oklab with 4 k-means iterations. */
+	static public Swatch[] quantize (int[] argb, int colors) {
+		return quantize(argb, colors, Method.wu, Space.oklab, 4);
+	}
+
+	/** Pixels with alpha < 128 are ignored.
+	 * @param colors Maximum number of swatches, >= 1. Fewer are returned if there are fewer distinct colors.
+	 * @param iterations Number of k-means iterations, 0 to disable.
+	 * @return Swatches sorted by weight, heaviest first. */
+	static public Swatch[] quantize (int[] argb, int colors, Method method, Space space, int iterations) {
+		if (colors < 1) throw new IllegalArgumentException("colors must be >= 1: " + colors);
+		if (method == null) throw new IllegalArgumentException("method cannot be null.");
+		if (space == null) throw new IllegalArgumentException("space cannot be null.");
+		if (iterations < 0) throw new IllegalArgumentException("iterations must be >= 0: " + iterations);
+		Points points = new Points(histogram(argb), space);
+		if (points.count == 0) return new Swatch[0];
+		float[] centers = method.clusters(points, Math.min(colors, points.count));
+		float[] weights = kmeans(points, centers, iterations);
+
+		int k = centers.length / 3, count = 0;
+		var swatches = new Swatch[k];
+		for (int i = 0; i < k; i++) {
+			if (weights[i] <= 0) continue;
+			swatches[count++] = space.swatch(centers[i * 3], centers[i * 3 + 1], centers[i * 3 + 2], weights[i] / points.total);
+		}
+		swatches = Arrays.copyOf(swatches, count);
+		Arrays.sort(swatches, (a, b) -> Float.compare(b.weight, a.weight));
+		return swatches;
+	}
+
+	/** Counts opaque pixels in parallel. */
+	static Histogram histogram (int[] argb) {
+		// Few large chunks, since merging histograms costs more than filling them.
+		int chunk = Math.max(Quantizer.chunk, argb.length / (ForkJoinPool.getCommonPoolParallelism() * 2) + 1);
+		return IntStream.range(0, (argb.length + chunk - 1) / chunk).parallel().mapToObj(c -> {
+			var histogram = new Histogram(1024);
+			int last = 0, run = 0;
+			for (int i = c * chunk, n = Math.min(argb.length, i + chunk); i < n; i++) {
+				int pixel = argb[i];
+				if (pixel >>> 24 < 128) continue;
+				if (pixel == last) {
+					run++;
+					continue;
+				}
+				if (run > 0) histogram.add(last, run);
+				last = pixel;
+				run = 1;
+			}
+			if (run > 0) histogram.add(last, run);
+			return histogram;
+		}).reduce((a, b) -> {
+			if (a.size < b.size) {
+				Histogram t = a;
+				a = b;
+				b = t;
+			}
+			a.add(b);
+			return a;
+		}).orElseGet( () -> new Histogram(16));
+	}
+
+	/** Lloyd iterations weighted by pixel count. Assignment is parallel for large point sets.
+	 * @return The weight of each cluster. */
+	static private float[] kmeans (Points points, float[] centers, int iterations) {
+		int k = centers.length / 3, n = points.count;
+		float[] weights = null;
+		for (int iteration = 0; iteration <= iterations; iteration++) {
+			// The last pass only computes the weights of the final centers.
+			boolean update = iteration < iterations;
+			double[] sums = IntStream.range(0, (n + 4095) / 4096).parallel().mapToObj(c -> {
+				var sum = new double[k * 4];
+				for (int i = c * 4096, end = Math.min(n, i + 4096); i < end; i++) {
+					int nearest = points.nearest(i, centers);
+					float w = points.w[i];
+					sum[nearest * 4] += w;
+					sum[nearest * 4 + 1] += w * points.x[i];
+					sum[nearest * 4 + 2] += w * points.y[i];
+					sum[nearest * 4 + 3] += w * points.z[i];
+				}
+				return sum;
+			}).reduce((a, b) -> {
+				for (int i = 0; i < a.length; i++)
+					a[i] += b[i];
+				return a;
+			}).get();
+			weights = new float[k];
+			float moved = 0;
+			for (int i = 0; i < k; i++) {
+				double w = sums[i * 4];
+				weights[i] = (float)w;
+				if (!update) continue;
+				if (w == 0) {
+					// Move an empty cluster to the point with the largest weighted error.
+					points.farthest(centers, i);
+					moved = Float.MAX_VALUE;
+					continue;
+				}
+				float x = (float)(sums[i * 4 + 1] / w), y = (float)(sums[i * 4 + 2] / w), z = (float)(sums[i * 4 + 3] / w);
+				moved = Math.max(moved,
+					Math.abs(x - centers[i * 3]) + Math.abs(y - centers[i * 3 + 1]) + Math.abs(z - centers[i * 3 + 2]));
+				centers[i * 3] = x;
+				centers[i * 3 + 1] = y;
+				centers[i * 3 + 2] = z;
+			}
+			if (update && moved < 1e-6f) iteration = iterations - 1;
+		}
+		return weights;
+	}
+
+	/** Splits the box with the largest weighted squared error along its widest axis at the weighted median. */
+	static float[] medianCut (Points points, int colors) {
+		int n = points.count;
+		var order = new int[n];
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+		var keys = new long[n];
+		// Boxes are ranges of order: start, end.
+		var starts = new int[colors];
+		var ends = new int[colors];
+		var errors = new double[colors];
+		starts[0] = 0;
+		ends[0] = n;
+		errors[0] = points.error(order, 0, n);
+		int boxes = 1;
+		while (boxes < colors) {
+			int box = -1;
+			for (int i = 0; i < boxes; i++)
+				if (ends[i] - starts[i] > 1 && errors[i] > 0 && (box == -1 || errors[i] > errors[box])) box = i;
+			if (box == -1) break;
+			int start = starts[box], end = ends[box];
+			float[] axis = points.widest(order, start, end);
+			for (int i = start; i < end; i++)
+				keys[i] = (long)sortable(axis[order[i]]) << 32 | order[i];
+			Arrays.sort(keys, start, end);
+			double half = 0, total = 0;
+			for (int i = start; i < end; i++) {
+				order[i] = (int)keys[i];
+				total += points.w[order[i]];
+			}
+			int split = start + 1;
+			for (int i = start; i < end - 1; i++) {
+				half += points.w[order[i]];
+				split = i + 1;
+				if (half >= total / 2) break;
+			}
+			ends[box] = split;
+			errors[box] = points.error(order, start, split);
+			starts[boxes] = split;
+			ends[boxes] = end;
+			errors[boxes] = points.error(order, split, end);
+			boxes++;
+		}
+		var centers = new float[boxes * 3];
+		for (int i = 0; i < boxes; i++)
+			points.mean(order, starts[i], ends[i], centers, i * 3);
+		return centers;
+	}
+
+	/** Maps a float to an int with the same ordering. */
+	static private int sortable (float value) {
+		int bits = Float.floatToIntBits(value);
+		return bits < 0 ? bits ^ 0x7fffffff : bits;
+	}
+
+	/** Xiaolin Wu's greedy variance minimization using cumulative moments on a 32x32x32 grid over the points' bounds. */
+	static float[] wu (Points points, int colors) {
+		int size = 33, n = points.count;
+		float[] min = points.min(), max = points.max();
+		float[] scale = new float[3];
+		for (int a = 0; a < 3; a++)
+			scale[a] = max[a] > min[a] ? 31.999f / (max[a] - min[a]) : 0;
+		var wt = new double[size * size * size];
+		var mx = new double[wt.length];
+		var my = new double[wt.length];
+		var mz = new double[wt.length];
+		var m2 = new double[wt.length];
+		for (int i = 0; i < n; i++) {
+			float x = points.x[i], y = points.y[i], z = points.z[i], w = points.w[i];
+			int index = index(1 + (int)((x - min[0]) * scale[0]), 1 + (int)((y - min[1]) * scale[1]),
+				1 + (int)((z - min[2]) * scale[2]));
+			wt[index] += w;
+			mx[index] += w * x;
+			my[index] += w * y;
+			mz[index] += w * z;
+			m2[index] += w * (x * x + y * y + z * z);
+		}
+		// Cumulative moments.
+		for (double[] m : new double[][] {wt, mx, my, mz, m2}) {
+			for (int r = 1; r < size; r++) {
+				var area = new double[size];
+				for (int g = 1; g < size; g++) {
+					double line = 0;
+					for (int b = 1; b < size; b++) {
+						int index = index(r, g, b);
+						line += m[index];
+						area[b] += line;
+						m[index] = m[index(r - 1, g, b)] + area[b];
+					}
+				}
+			}
+		}
+		double[][] moments = {wt, mx, my, mz, m2};
+		var boxes = new int[colors][];
+		var variance = new double[colors];
+		boxes[0] = new int[] {0, 32, 0, 32, 0, 32};
+		int count = 1, next = 0;
+		for (int i = 1; i < colors; i++) {
+			int[] box2 = new int[6];
+			if (cut(moments, boxes[next], box2)) {
+				boxes[i] = box2;
+				variance[next] = cells(boxes[next]) > 1 ? variance(moments, boxes[next]) : 0;
+				variance[i] = cells(box2) > 1 ? variance(moments, box2) : 0;
+				count = i + 1;
+			} else {
+				variance[next] = 0;
+				i--;
+			}
+			next = 0;
+			double best = variance[0];
+			for (int j = 1; j <= i; j++) {
+				if (variance[j] > best) {
+					best = variance[j];
+					next = j;
+				}
+			}
+			if (best <= 0) break;
+		}
+		var centers = new float[count * 3];
+		int k = 0;
+		for (int i = 0; i < count; i++) {
+			int[] box = boxes[i];
+			double w = volume(box, wt);
+			if (w <= 0) continue;
+			centers[k++] = (float)(volume(box, mx) / w);
+			centers[k++] = (float)(volume(box, my) / w);
+			centers[k++] = (float)(volume(box, mz) / w);
+		}
+		return Arrays.copyOf(centers, k);
+	}
+
+	static private int index (int r, int g, int b) {
+		return (r * 33 + g) * 33 + b;
+	}
+
+	static private int cells (int[] box) {
+		return (box[1] - box[0]) * (box[3] - box[2]) * (box[5] - box[4]);
+	}
+
+	/** Box: r0 (exclusive), r1, g0, g1, b0, b1. */
+	static private double volume (int[] box, double[] m) {
+		return m[index(box[1], box[3], box[5])] - m[index(box[1], box[3], box[4])] - m[index(box[1], box[2], box[5])]
+			+ m[index(box[1], box[2], box[4])] - m[index(box[0], box[3], box[5])] + m[index(box[0], box[3], box[4])]
+			+ m[index(box[0], box[2], box[5])] - m[index(box[0], box[2], box[4])];
+	}
+
+	static private double variance (double[][] moments, int[] box) {
+		double x = volume(box, moments[1]), y = volume(box, moments[2]), z = volume(box, moments[3]);
+		return volume(box, moments[4]) - (x * x + y * y + z * z) / volume(box, moments[0]);
+	}
+
+	/** Moment of the part of the box below the cut, where the cut is on the axis at the position. */
+	static private double bottom (int[] box, int axis, int position, double[] m) {
+		int[] part = box.clone();
+		part[axis * 2 + 1] = position;
+		return volume(part, m);
+	}
+
+	static private boolean cut (double[][] moments, int[] box1, int[] box2) {
+		double wholeW = volume(box1, moments[0]), wholeX = volume(box1, moments[1]), wholeY = volume(box1, moments[2]);
+		double wholeZ = volume(box1, moments[3]);
+		double best = 0;
+		int bestAxis = -1, bestPosition = 0;
+		for (int axis = 0; axis < 3; axis++) {
+			for (int position = box1[axis * 2] + 1; position < box1[axis * 2 + 1]; position++) {
+				double w = bottom(box1, axis, position, moments[0]);
+				double rest = wholeW - w;
+				if (w == 0 || rest == 0) continue;
+				double x = bottom(box1, axis, position, moments[1]), y = bottom(box1, axis, position, moments[2]);
+				double z = bottom(box1, axis, position, moments[3]);
+				double score = (x * x + y * y + z * z) / w;
+				x = wholeX - x;
+				y = wholeY - y;
+				z = wholeZ - z;
+				score += (x * x + y * y + z * z) / rest;
+				if (score > best) {
+					best = score;
+					bestAxis = axis;
+					bestPosition = position;
+				}
+			}
+		}
+		if (bestAxis == -1) return false;
+		System.arraycopy(box1, 0, box2, 0, 6);
+		box1[bestAxis * 2 + 1] = bestPosition;
+		box2[bestAxis * 2] = bestPosition;
+		return true;
+	}
+
+	public enum Method {
+		medianCut {
+			float[] clusters (Points points, int colors) {
+				return medianCut(points, colors);
+			}
+		},
+		wu {
+			float[] clusters (Points points, int colors) {
+				return wu(points, colors);
+			}
+		};
+
+		abstract float[] clusters (Points points, int colors);
+	}
+
+	public enum Space {
+		oklab {
+			void coords (int rgb, float[] out) {
+				Oklab oklab = new RGB(rgb).Oklab();
+				out[0] = oklab.L();
+				out[1] = oklab.a();
+				out[2] = oklab.b();
+			}
+
+			Swatch swatch (float x, float y, float z, float weight) {
+				var oklab = new Oklab(x, y, z);
+				return new Swatch(oklab.RGB(), oklab, weight);
+			}
+		},
+		/** Uses {@link CAM16.VC#sRGB}. */
+		cam16ucs {
+			void coords (int rgb, float[] out) {
+				CAM16UCS ucs = new RGB(rgb).CAM16UCS();
+				out[0] = ucs.J();
+				out[1] = ucs.a();
+				out[2] = ucs.b();
+			}
+
+			Swatch swatch (float x, float y, float z, float weight) {
+				RGB rgb = new CAM16UCS(x, y, z).CAM16(CAM16.VC.sRGB).RGB(CAM16.VC.sRGB);
+				return new Swatch(rgb, rgb.Oklab(), weight);
+			}
+		};
+
+		abstract void coords (int rgb, float[] out);
+
+		abstract Swatch swatch (float x, float y, float z, float weight);
+	}
+
+	/** @param weight Fraction of the counted pixels [0..1]. */
+	public record Swatch (RGB rgb, Oklab oklab, float weight) {}
+
+	/** Open addressing hash of colors reduced to 6 bits per channel, with the count and channel sums of each bucket. */
+	static class Histogram {
+		int[] keys, counts;
+		long[] sums;
+		int size, mask;
+
+		Histogram (int capacity) {
+			capacity = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+			keys = new int[capacity];
+			Arrays.fill(keys, -1);
+			counts = new int[capacity];
+			sums = new long[capacity * 3];
+			mask = capacity - 1;
+		}
+
+		void add (int rgb, int count) {
+			int r = rgb >>> 16 & 0xff, g = rgb >>> 8 & 0xff, b = rgb & 0xff;
+			add(r >>> 2 << 12 | g >>> 2 << 6 | b >>> 2, count, (long)r * count, (long)g * count, (long)b * count, true);
+		}
+
+		void add (Histogram other) {
+			for (int i = 0; i < other.keys.length; i++)
+				if (other.keys[i] != -1)
+					add(other.keys[i], other.counts[i], other.sums[i * 3], other.sums[i * 3 + 1], other.sums[i * 3 + 2], true);
+		}
+
+		private void add (int key, int count, long r, long g, long b, boolean grow) {
+			int slot = (key * 0x9e3779b1) >>> 8 & mask;
+			while (true) {
+				int existing = keys[slot];
+				if (existing == key) break;
+				if (existing == -1) {
+					if (grow && (size + 1) * 2 > keys.length) {
+						grow();
+						add(key, count, r, g, b, false);
+						return;
+					}
+					keys[slot] = key;
+					size++;
+					break;
+				}
+				slot = slot + 1 & mask;
+			}
+			counts[slot] += count;
+			sums[slot * 3] += r;
+			sums[slot * 3 + 1] += g;
+			sums[slot * 3 + 2] += b;
+		}
+
+		private void grow () {
+			int[] oldKeys = keys, oldCounts = counts;
+			long[] oldSums = sums;
+			int capacity = oldKeys.length << 1;
+			keys = new int[capacity];
+			Arrays.fill(keys, -1);
+			counts = new int[capacity];
+			sums = new long[capacity * 3];
+			mask = capacity - 1;
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++)
+				if (oldKeys[i] != -1) add(oldKeys[i], oldCounts[i], oldSums[i * 3], oldSums[i * 3 + 1], oldSums[i * 3 + 2], false);
+		}
+	}
+
+	/** Unique colors of a histogram in the clustering space. The color of each bucket is the mean of its pixels. */
+	static class Points {
+		final int count;
+		final float[] x, y, z, w;
+		final float total;
+
+		Points (Histogram histogram, Space space) {
+			int n = histogram.size;
+			count = n;
+			x = new float[n];
+			y = new float[n];
+			z = new float[n];
+			w = new float[n];
+			var slots = new int[n];
+			for (int i = 0, k = 0; i < histogram.keys.length; i++)
+				if (histogram.keys[i] != -1) slots[k++] = i;
+			IntStream.range(0, n).parallel().forEach(i -> {
+				int slot = slots[i], c = histogram.counts[slot];
+				long[] sums = histogram.sums;
+				int r = (int)((sums[slot * 3] + c / 2) / c), g = (int)((sums[slot * 3 + 1] + c / 2) / c);
+				int b = (int)((sums[slot * 3 + 2] + c / 2) / c);
+				var out = new float[3];
+				space.coords(r << 16 | g << 8 | b, out);
+				x[i] = out[0];
+				y[i] = out[1];
+				z[i] = out[2];
+				w[i] = c;
+			});
+			double sum = 0;
+			for (float weight : w)
+				sum += weight;
+			total = (float)sum;
+		}
+
+		int nearest (int i, float[] centers) {
+			float px = x[i], py = y[i], pz = z[i], best = Float.MAX_VALUE;
+			int nearest = 0;
+			for (int c = 0, k = centers.length / 3; c < k; c++) {
+				float dx = px - centers[c * 3], dy = py - centers[c * 3 + 1], dz = pz - centers[c * 3 + 2];
+				float d = dx * dx + dy * dy + dz * dz;
+				if (d < best) {
+					best = d;
+					nearest = c;
+				}
+			}
+			return nearest;
+		}
+
+		/** Moves the center to the point with the largest weighted squared distance to its nearest center. */
+		void farthest (float[] centers, int center) {
+			float best = -1;
+			int farthest = 0;
+			for (int i = 0; i < count; i++) {
+				int c = nearest(i, centers);
+				float dx = x[i] - centers[c * 3], dy = y[i] - centers[c * 3 + 1], dz = z[i] - centers[c * 3 + 2];
+				float error = w[i] * (dx * dx + dy * dy + dz * dz);
+				if (error > best) {
+					best = error;
+					farthest = i;
+				}
+			}
+			centers[center * 3] = x[farthest];
+			centers[center * 3 + 1] = y[farthest];
+			centers[center * 3 + 2] = z[farthest];
+		}
+
+		float[] min () {
+			float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+			for (int i = 0; i < count; i++) {
+				min[0] = Math.min(min[0], x[i]);
+				min[1] = Math.min(min[1], y[i]);
+				min[2] = Math.min(min[2], z[i]);
+			}
+			return min;
+		}
+
+		float[] max () {
+			float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+			for (int i = 0; i < count; i++) {
+				max[0] = Math.max(max[0], x[i]);
+				max[1] = Math.max(max[1], y[i]);
+				max[2] = Math.max(max[2], z[i]);
+			}
+			return max;
+		}
+
+		void mean (int[] order, int start, int end, float[] out, int offset) {
+			double sx = 0, sy = 0, sz = 0, sw = 0;
+			for (int i = start; i < end; i++) {
+				int p = order[i];
+				float weight = w[p];
+				sx += weight * x[p];
+				sy += weight * y[p];
+				sz += weight * z[p];
+				sw += weight;
+			}
+			out[offset] = (float)(sx / sw);
+			out[offset + 1] = (float)(sy / sw);
+			out[offset + 2] = (float)(sz / sw);
+		}
+
+		/** Weighted sum of squared distances to the mean. */
+		double error (int[] order, int start, int end) {
+			double sx = 0, sy = 0, sz = 0, s2 = 0, sw = 0;
+			for (int i = start; i < end; i++) {
+				int p = order[i];
+				double weight = w[p], px = x[p], py = y[p], pz = z[p];
+				sx += weight * px;
+				sy += weight * py;
+				sz += weight * pz;
+				s2 += weight * (px * px + py * py + pz * pz);
+				sw += weight;
+			}
+			return sw == 0 ? 0 : s2 - (sx * sx + sy * sy + sz * sz) / sw;
+		}
+
+		/** Returns the coordinate array with the largest range in the box. */
+		float[] widest (int[] order, int start, int end) {
+			float[][] axes = {x, y, z};
+			float[] best = x;
+			float bestRange = -1;
+			for (float[] axis : axes) {
+				float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+				for (int i = start; i < end; i++) {
+					float v = axis[order[i]];
+					min = Math.min(min, v);
+					max = Math.max(max, v);
+				}
+				if (max - min > bestRange) {
+					bestRange = max - min;
+					best = axis;
+				}
+			}
+			return best;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package com.esotericsoftware.color;
+
+import static com.esotericsoftware.color.Colors.*;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.Gamut.RGBGamut;
+import com.esotericsoftware.color.space.LMS.CAT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.XYZ;
+
+/** Renders reflectances lit by an illuminant spectrum as display RGB, eg to preview a palette or image under a luminaire. The
+ * illuminant, color matching functions, chromatic adaptation to the display white, and XYZ to display RGB are fused when
+ * constructed into one RGB weight per wavelength, so each color is three 81 term dot products. Reflectances are 380-780nm @
+ * 5nm, measured or from a {@link SpectralUpsampler}. Immutable and thread safe. */
+public class Relighting {
+	static private final int chunk = 8192;
+
+	public final Spectrum illuminant;
+	public final RGBGamut display;
+	public final Observer observer;
+	/** The illuminant's white point, normalized to Y=100. */
+	public final XYZ white;
+	/** Linear display RGB per unit reflectance: 81 red, then 81 green, then 81 blue weights. */
+	private final float[] weights = new float[3 * 81];
+
+	/** Uses {@link Observer#Default} and complete {@link CAT#Bradford} adaptation, so a perfect white reflector is display
+	 * white. */
+	public Relighting (Spectrum illuminant, RGBGamut display) {
+		this(illuminant, display, Observer.Default, CAT.Bradford, 1);
+	}
+
+	/** @param illuminant Resampled to 380-780nm @ 5nm if needed.
+	 * @param degree Degree of adaptation to the display white, [0..1]. 1 discounts the illuminant, 0 shows its color cast, and
+	 *           between is partial adaptation as in CAM16's D. */
+	public Relighting (Spectrum illuminant, RGBGamut display, Observer observer, CAT transform, float degree) {
+		if (illuminant == null) throw new IllegalArgumentException("illuminant cannot be null.");
+		if (display == null) throw new IllegalArgumentException("display cannot be null.");
+		if (observer == null) throw new IllegalArgumentException("observer cannot be null.");
+		if (transform == null) throw new IllegalArgumentException("transform cannot be null.");
+		if (!(degree >= 0 && degree <= 1)) throw new IllegalArgumentException("degree must be [0..1]: " + degree);
+		if (illuminant.start() != 380 || illuminant.step() != 5) illuminant = illuminant.resample(380, 780, 5);
+		this.illuminant = illuminant;
+		this.display = display;
+		this.observer = observer;
+
+		float[] values = illuminant.values();
+		int n = Math.min(values.length, 81);
+		double sum = 0, X = 0, Z = 0;
+		for (int i = 0; i < n; i++) {
+			sum += values[i] * observer.ybar[i];
+			X += values[i] * observer.xbar[i];
+			Z += values[i] * observer.zbar[i];
+		}
+		if (!(sum > 0)) throw new IllegalArgumentException("illuminant must have visible power.");
+		white = new XYZ((float)(X / sum * 100), 100, (float)(Z / sum * 100));
+
+		// Display XYZ_RGB * adaptation, for XYZ with the illuminant's white at Y=1.
+		float[] forward = transform.forward(), backward = transform.backward();
+		float[] source = multiply(forward, white), target = multiply(forward, display.whitePoint());
+		var adaptation = new double[9];
+		for (int row = 0; row < 3; row++) {
+			for (int col = 0; col < 3; col++) {
+				for (int k = 0; k < 3; k++) {
+					double scale = degree * target[k] / source[k] + 1 - degree;
+					adaptation[row * 3 + col] += backward[row * 3 + k] * scale * forward[k * 3 + col];
+				}
+			}
+		}
+		var matrix = new double[9];
+		for (int row = 0; row < 3; row++)
+			for (int col = 0; col < 3; col++)
+				for (int k = 0; k < 3; k++)
+					matrix[row * 3 + col] += display.XYZ_RGB[row][k] * adaptation[k * 3 + col];
+		for (int i = 0; i < n; i++) {
+			double power = values[i] / sum, x = power * observer.xbar[i], y = power * observer.ybar[i], z = power * observer.zbar[i];
+			weights[i] = (float)(matrix[0] * x + matrix[1] * y + matrix[2] * z);
+			weights[81 + i] = (float)(matrix[3] * x + matrix[4] * y + matrix[5] * z);
+			weights[162 + i] = (float)(matrix[6] * x + matrix[7] * y + matrix[8] * z);
+		}
+	}
+
+	/** @param reflectance 81 values, [0..1].
+	 * @return Linear display RGB, not clamped. */
+	public LRGB LRGB (float[] reflectance) {
+		if (reflectance.length < 81) throw new IllegalArgumentException("reflectance must have 81 values: " + reflectance.length);
+		float[] weights = this.weights;
+		float r = 0, g = 0, b = 0;
+		for (int i = 0; i < 81; i++) {
+			float value = reflectance[i];
+			r += value * weights[i];
+			g += value * weights[81 + i];
+			b += value * weights[162 + i];
+		}
+		return new LRGB(r, g, b);
+	}
+
+	/** @param reflectance 81 values, [0..1].
+	 * @return Display RGB encoded with the sRGB transfer function, clamped. */
+	public RGB RGB (float[] reflectance) {
+		LRGB rgb = LRGB(reflectance);
+		return new RGB(sRGB(rgb.r()), sRGB(rgb.g()), sRGB(rgb.b()));
+	}
+
+	/** Writes linear display RGB planes, not clamped.
+	 * @param reflectances 81 values per color. */
+	public void linear (float[] reflectances, float[] r, float[] g, float[] b) {
+		linear(reflectances, r, g, b, 0, check(reflectances.length / 81, r.length, g.length, b.length));
+	}
+
+	/** Same as {@link #linear(float[], float[], float[], float[])}, in parallel. */
+	public void linearParallel (float[] reflectances, float[] r, float[] g, float[] b) {
+		int n = check(reflectances.length / 81, r.length, g.length, b.length), chunk = Relighting.chunk / 81;
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> linear(reflectances, r, g, b, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Writes colors [from..to). */
+	public void linear (float[] reflectances, float[] r, float[] g, float[] b, int from, int to) {
+		float[] weights = this.weights;
+		for (int i = from; i < to; i++) {
+			float rr = 0, gg = 0, bb = 0;
+			for (int w = 0, s = i * 81; w < 81; w++, s++) {
+				float value = reflectances[s];
+				rr += value * weights[w];
+				gg += value * weights[81 + w];
+				bb += value * weights[162 + w];
+			}
+			r[i] = rr;
+			g[i] = gg;
+			b[i] = bb;
+		}
+	}
+
+	/** Writes packed opaque 0xAARRGGBB, encoded with {@link Colors#sRGB8(float)}.
+	 * @param reflectances 81 values per color. */
+	public void rgb (float[] reflectances, int[] out) {
+		rgb(reflectances, out, 0, check(reflectances.length / 81, out.length));
+	}
+
+	/** Same as {@link #rgb(float[], int[])}, in parallel. */
+	public void rgbParallel (float[] reflectances, int[] out) {
+		int n = check(reflectances.length / 81, out.length), chunk = Relighting.chunk / 81;
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> rgb(reflectances, out, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Writes colors [from..to). */
+	public void rgb (float[] reflectances, int[] out, int from, int to) {
+		float[] weights = this.weights;
+		for (int i = from; i < to; i++) {
+			float r = 0, g = 0, b = 0;
+			for (int w = 0, s = i * 81; w < 81; w++, s++) {
+				float value = reflectances[s];
+				r += value * weights[w];
+				g += value * weights[81 + w];
+				b += value * weights[162 + w];
+			}
+			out[i] = 0xff000000 | sRGB8(r) << 16 | sRGB8(g) << 8 | sRGB8(b);
+		}
+	}
+
+	/** Relights packed 0xAARRGGBB pixels by upsampling each to a reflectance, keeping alpha.
+	 * @param upsampler Its gamut is the gamut of the input pixels, which are decoded with the sRGB transfer function.
+	 * @param out May be the same array as in. */
+	public void argb (SpectralUpsampler upsampler, int[] in, int[] out) {
+		argb(upsampler, in, out, 0, check(in.length, out.length));
+	}
+
+	/** Same as {@link #argb(SpectralUpsampler, int[], int[])}, in parallel. */
+	public void argbParallel (SpectralUpsampler upsampler, int[] in, int[] out) {
+		int n = check(in.length, out.length);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> argb(upsampler, in, out, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Relights pixels [from..to). Runs of equal pixels are computed once. */
+	public void argb (SpectralUpsampler upsampler, int[] in, int[] out, int from, int to) {
+		float[] weights = this.weights, c = new float[3];
+		int last = 0, result = 0;
+		boolean cached = false;
+		for (int i = from; i < to; i++) {
+			int pixel = in[i];
+			if (!cached || (pixel & 0xffffff) != last) {
+				last = pixel & 0xffffff;
+				cached = true;
+				upsampler.coefficients(linear8(pixel >>> 16 & 0xff), linear8(pixel >>> 8 & 0xff), linear8(pixel & 0xff), c);
+				float c0 = c[0], c1 = c[1], c2 = c[2], r = 0, g = 0, b = 0;
+				for (int w = 0; w < 81; w++) {
+					float t = w / 80f, x = (c0 * t + c1) * t + c2, value = 0.5f + x / (2 * (float)Math.sqrt(1 + x * x));
+					r += value * weights[w];
+					g += value * weights[81 + w];
+					b += value * weights[162 + w];
+				}
+				result = sRGB8(r) << 16 | sRGB8(g) << 8 | sRGB8(b);
+			}
+			out[i] = (pixel & 0xff000000) | result;
+		}
+	}
+
+	static private float[] multiply (float[] m, XYZ xyz) {
+		float X = xyz.X(), Y = xyz.Y(), Z = xyz.Z();
+		return new float[] {m[0] * X + m[1] * Y + m[2] * Z, m[3] * X + m[4] * Y + m[5] * Z, m[6] * X + m[7] * Y + m[8] * Z};
+	}
+}
@@ -0,0 +1,227 @@
+package com.esotericsoftware.color;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.HCT;
+import com.esotericsoftware.color.space.RGB;
+
+/** UI color scheme of named {@link Role roles} derived from a seed color using {@link HCT} {@link TonalPalette tonal
+ * palettes}. Each role that is paired with another role is guaranteed to meet a WCAG contrast ratio against it, moving the
+ * role's tone and if needed the pair's tone. Schemes are immutable and memoized by seed, variant, dark, and contrast. */
+public class Scheme {
+	static private final Cache<Key, Scheme> cache = Metrics.register(new Cache<>("Scheme", 1024));
+
+	/** Seed color, 0xRRGGBB. */
+	public final int seed;
+	public final HCT source;
+	public final Variant variant;
+	public final boolean dark;
+	/** Minimum contrast ratio for text roles [1..21]. */
+	public final float contrast;
+	private final TonalPalette[] palettes;
+	private final RGB[] colors;
+	private final int[] tones;
+
+	private Scheme (int seed, Variant variant, boolean dark, float contrast) {
+		this.seed = seed;
+		this.variant = variant;
+		this.dark = dark;
+		this.contrast = contrast;
+		source = new RGB(seed).HCT();
+
+		float hue = source.h(), chroma = source.C();
+		palettes = new TonalPalette[Palette.values.length];
+		palettes[Palette.primary.ordinal()] = TonalPalette.get(hue, variant.chroma(variant.primaryChroma, chroma));
+		palettes[Palette.secondary.ordinal()] = TonalPalette.get(hue + variant.secondaryHue,
+			variant.chroma(variant.secondaryChroma, chroma));
+		palettes[Palette.tertiary.ordinal()] = TonalPalette.get(hue + variant.tertiaryHue,
+			variant.chroma(variant.tertiaryChroma, chroma));
+		palettes[Palette.neutral.ordinal()] = TonalPalette.get(hue, variant.neutralChroma);
+		palettes[Palette.neutralVariant.ordinal()] = TonalPalette.get(hue, variant.neutralVariantChroma);
+		palettes[Palette.error.ordinal()] = TonalPalette.get(25, variant == Variant.monochrome ? 0 : 84);
+
+		Role[] roles = Role.values;
+		colors = new RGB[roles.length];
+		tones = new int[roles.length];
+		for (Role role : roles) {
+			TonalPalette palette = palettes[role.palette.ordinal()];
+			int tone = dark ? role.darkTone : role.lightTone;
+			if (role.pair != null) {
+				int pair = role.pair.ordinal();
+				float ratio = role.text ? contrast : Math.min(3, contrast);
+				tone = contrastTone(palette, tone, colors[pair], tones[pair], ratio);
+				RGB rgb = palette.tone(tone);
+				if (rgb.contrastRatio(colors[pair]) < ratio) {
+					// Unreachable with the pair's tone, move the pair away from this role.
+					TonalPalette pairPalette = palettes[role.pair.palette.ordinal()];
+					int pairTone = tones[pair], step = tone > pairTone ? -1 : 1;
+					while (pairTone + step >= 0 && pairTone + step <= 100) {
+						pairTone += step;
+						if (rgb.contrastRatio(pairPalette.tone(pairTone)) >= ratio) break;
+					}
+					colors[pair] = pairPalette.tone(pairTone);
+					tones[pair] = pairTone;
+				}
+			}
+			colors[role.ordinal()] = palette.tone(tone);
+			tones[role.ordinal()] = tone;
+		}
+	}
+
+	public RGB get (Role role) {
+		return colors[role.ordinal()];
+	}
+
+	/** @return [0..100] */
+	public int tone (Role role) {
+		return tones[role.ordinal()];
+	}
+
+	public TonalPalette palette (Palette palette) {
+		return palettes[palette.ordinal()];
+	}
+
+	/** Returns the tone nearest the requested tone that meets the contrast ratio against the background, moving away from the
+	 * background tone. If the ratio is unreachable, the extreme tone with the most contrast is used. */
+	static private int contrastTone (TonalPalette palette, int tone, RGB background, int backgroundTone, float ratio) {
+		int step = tone > backgroundTone || (tone == backgroundTone && backgroundTone < 50) ? 1 : -1;
+		for (int t = tone; t >= 0 && t <= 100; t += step)
+			if (palette.tone(t).contrastRatio(background) >= ratio) return t;
+		return palette.tone(0).contrastRatio(background) >= palette.tone(100).contrastRatio(background) ? 0 : 100;
+	}
+
+	/** Uses 4.5 contrast (WCAG AA for normal text). */
+	static public Scheme get (RGB seed, Variant variant, boolean dark) {
+		return get(seed.r8() << 16 | seed.g8() << 8 | seed.b8(), variant, dark, 4.5f);
+	}
+
+	/** Uses 4.5 contrast (WCAG AA for normal text).
+	 * @param seed 0xRRGGBB, alpha is ignored. */
+	static public Scheme get (int seed, Variant variant, boolean dark) {
+		return get(seed, variant, dark, 4.5f);
+	}
+
+	/** Returns a memoized scheme.
+	 * @param seed 0xRRGGBB, alpha is ignored.
+	 * @param contrast Minimum contrast ratio between text roles and their backgrounds [1..21], eg 4.5 for WCAG AA or 7 for AAA.
+	 *           Non-text roles use the lesser of this and 3. */
+	static public Scheme get (int seed, Variant variant, boolean dark, float contrast) {
+		if (variant == null) throw new IllegalArgumentException("variant cannot be null.");
+		if (!(contrast >= 1 && contrast <= 21)) throw new IllegalArgumentException("contrast must be [1..21]: " + contrast);
+		return cache.get(new Key(seed & 0xffffff, variant, dark, contrast),
+			key -> new Scheme(key.seed, key.variant, key.dark, key.contrast));
+	}
+
+	/** Returns memoized schemes for many seeds, computing missing schemes in parallel.
+	 * @param seeds 0xRRGGBB, alpha is ignored. */
+	static public Scheme[] get (int[] seeds, Variant variant, boolean dark, float contrast) {
+		var schemes = new Scheme[seeds.length];
+		IntStream.range(0, seeds.length).parallel().forEach(i -> schemes[i] = get(seeds[i], variant, dark, contrast));
+		return schemes;
+	}
+
+	/** Returns the cache used by {@link #get(int, Variant, boolean, float)}. */
+	static public Cache<?, Scheme> cache () {
+		return cache;
+	}
+
+	public String toString () {
+		return "Scheme(" + Colors.hex(new RGB(seed)) + ", " + variant + (dark ? ", dark" : ", light") + ", " + contrast + ")";
+	}
+
+	private record Key (int seed, Variant variant, boolean dark, float contrast) {}
+
+	public enum Palette {
+		primary, secondary, tertiary, neutral, neutralVariant, error;
+
+		static final Palette[] values = values();
+	}
+
+	/** Named scheme colors. On roles are paired with the role they are drawn on and meet the scheme's text contrast against it.
+	 * Other paired roles meet the non-text contrast (3:1). */
+	public enum Role {
+		surface(Palette.neutral, 98, 6), //
+		onSurface(Palette.neutral, 10, 90, surface, true), //
+		surfaceVariant(Palette.neutralVariant, 90, 30), //
+		onSurfaceVariant(Palette.neutralVariant, 30, 80, surfaceVariant, true), //
+		inverseSurface(Palette.neutral, 20, 90), //
+		inverseOnSurface(Palette.neutral, 95, 20, inverseSurface, true), //
+		outline(Palette.neutralVariant, 50, 60, surface, false), //
+		primary(Palette.primary, 40, 80, surface, false), //
+		onPrimary(Palette.primary, 100, 20, primary, true), //
+		primaryContainer(Palette.primary, 90, 30), //
+		onPrimaryContainer(Palette.primary, 10, 90, primaryContainer, true), //
+		inversePrimary(Palette.primary, 80, 40, inverseSurface, false), //
+		secondary(Palette.secondary, 40, 80, surface, false), //
+		onSecondary(Palette.secondary, 100, 20, secondary, true), //
+		secondaryContainer(Palette.secondary, 90, 30), //
+		onSecondaryContainer(Palette.secondary, 10, 90, secondaryContainer, true), //
+		tertiary(Palette.tertiary, 40, 80, surface, false), //
+		onTertiary(Palette.tertiary, 100, 20, tertiary, true), //
+		tertiaryContainer(Palette.tertiary, 90, 30), //
+		onTertiaryContainer(Palette.tertiary, 10, 90, tertiaryContainer, true), //
+		error(Palette.error, 40, 80, surface, false), //
+		onError(Palette.error, 100, 20, error, true), //
+		errorContainer(Palette.error, 90, 30), //
+		onErrorContainer(Palette.error, 10, 90, errorContainer, true);
+
+		static final Role[] values = values();
+
+		public final Palette palette;
+		public final int lightTone, darkTone;
+		/** The role this role must contrast against, or null. */
+		public final Role pair;
+		/** True if {@link #pair} uses the text contrast, else the non-text contrast. */
+		public final boolean text;
+
+		Role (Palette palette, int lightTone, int darkTone) {
+			this(palette, lightTone, darkTone, null, false);
+		}
+
+		Role (Palette palette, int lightTone, int darkTone, Role pair, boolean text) {
+			this.palette = palette;
+			this.lightTone = lightTone;
+			this.darkTone = darkTone;
+			this.pair = pair;
+			this.text = text;
+		}
+	}
+
+	/** Determines the hue and chroma of each palette relative to the seed. Chroma of NaN uses the seed's chroma. */
+	public enum Variant {
+		/** Calm primary with muted secondary and a tertiary rotated 60 degrees. */
+		tonalSpot(36, 0, 16, 60, 24, 6, 8),
+		/** Maximum primary chroma. */
+		vibrant(200, 15, 24, 30, 32, 10, 12),
+		/** Nearly grayscale. */
+		neutral(12, 0, 8, 60, 16, 2, 2),
+		/** Grayscale. */
+		monochrome(0, 0, 0, 0, 0, 0, 0),
+		/** Primary matches the seed's chroma. */
+		fidelity(Float.NaN, 0, 16, 60, 24, 4, 8),
+		/** Secondary and tertiary are adjacent hues, like {@link RGB#analogous(float)} with 30 degrees. */
+		analogous(Float.NaN, -30, Float.NaN, 30, Float.NaN, 4, 8),
+		/** Hues evenly spaced, like {@link RGB#triadic()}. */
+		triadic(Float.NaN, 120, Float.NaN, 240, Float.NaN, 4, 8),
+		/** Hues split around the complement, like {@link RGB#splitComplementary()}. */
+		splitComplementary(Float.NaN, 150, Float.NaN, 210, Float.NaN, 4, 8);
+
+		public final float primaryChroma, secondaryHue, secondaryChroma, tertiaryHue, tertiaryChroma;
+		public final float neutralChroma, neutralVariantChroma;
+
+		Variant (float primaryChroma, float secondaryHue, float secondaryChroma, float tertiaryHue, float tertiaryChroma,
+			float neutralChroma, float neutralVariantChroma) {
+			this.primaryChroma = primaryChroma;
+			this.secondaryHue = secondaryHue;
+			this.secondaryChroma = secondaryChroma;
+			this.tertiaryHue = tertiaryHue;
+			this.tertiaryChroma = tertiaryChroma;
+			this.neutralChroma = neutralChroma;
+			this.neutralVariantChroma = neutralVariantChroma;
+		}
+
+		float chroma (float chroma, float seedChroma) {
+			return Float.isNaN(chroma) ? seedChroma : chroma;
+		}
+	}
+}
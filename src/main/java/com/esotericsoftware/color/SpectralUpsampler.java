@@ -0,0 +1,383 @@
+package com.esotericsoftware.color;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.Gamut.RGBGamut;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.XYZ;
+
+/** Converts linear RGB to smooth reflectance spectra, 380-780nm @ 5nm, using the sigmoid polynomial model of Jakob and Hanika
+ * (2019). A reflectance is <code>s(c0*t^2 + c1*t + c2)</code> where <code>s(x) = 0.5 + x / (2 * sqrt(1 + x^2))</code> and
+ * <code>t</code> is the wavelength mapped from 380-780nm to 0-1. The three coefficients are fit once per gamut for a 3D grid of
+ * colors, so that each reflectance lit by the gamut's daylight white point matches its color in CIELAB. Upsampling is then a
+ * trilinear table lookup. RGB is clamped to [0..1], since reflectances cannot exceed 1. Thread safe. */
+public class SpectralUpsampler {
+	static private final Cache<Key, SpectralUpsampler> cache = Metrics.register(new Cache<>("SpectralUpsampler", 16));
+	static private final int chunk = 8192;
+
+	public final RGBGamut gamut;
+	public final Observer observer;
+	/** Grid entries per axis. */
+	public final int resolution;
+	/** Largest CIELAB distance between a grid color and its fit reflectance. Saturated colors outside the gamut of
+	 * reflectances, such as near the Rec. 2020 primaries, cannot be matched. */
+	public final float maxError;
+	/** [largest component][z][y][x][coefficient]. */
+	private final float[] table;
+	/** Largest component value for each z grid index, denser near 0 and 1. */
+	private final float[] scale;
+
+	/** Returns a shared upsampler with 32 {@link #resolution} and {@link Observer#Default}. */
+	static public SpectralUpsampler get (RGBGamut gamut) {
+		return get(gamut, Observer.Default, 32);
+	}
+
+	/** Returns a shared upsampler. */
+	static public SpectralUpsampler get (RGBGamut gamut, Observer observer, int resolution) {
+		return cache.get(new Key(gamut, observer, resolution), key -> new SpectralUpsampler(gamut, observer, resolution));
+	}
+
+	static public Cache<?, SpectralUpsampler> cache () {
+		return cache;
+	}
+
+	/** Fits the coefficient table, in parallel. This takes about 3 * resolution^3 small solves, so prefer
+	 * {@link #get(RGBGamut, Observer, int)}.
+	 * @param gamut Its white point must be a daylight chromaticity, as for sRGB, Display P3, and Rec. 2020.
+	 * @param resolution [8..64]. */
+	public SpectralUpsampler (RGBGamut gamut, Observer observer, int resolution) {
+		if (resolution < 8 || resolution > 64) throw new IllegalArgumentException("resolution must be [8..64]: " + resolution);
+		this.gamut = gamut;
+		this.observer = observer;
+		this.resolution = resolution;
+
+		// CMFs weighted by the illuminant, so a reflectance of 1 gives Y=1.
+		float[] illuminant = Illuminant.D(gamut.whitePoint().xy()).values();
+		var weights = new double[3 * 81];
+		double sum = 0;
+		for (int i = 0; i < 81; i++)
+			sum += illuminant[i] * observer.ybar[i];
+		var white = new double[3];
+		for (int i = 0; i < 81; i++) {
+			double value = illuminant[i] / sum;
+			weights[i] = value * observer.xbar[i];
+			weights[81 + i] = value * observer.ybar[i];
+			weights[162 + i] = value * observer.zbar[i];
+			white[0] += weights[i];
+			white[1] += weights[81 + i];
+			white[2] += weights[162 + i];
+		}
+		// The gamut's RGB to XYZ, rescaled so RGB white maps to the spectral white.
+		var matrix = new double[9];
+		XYZ gamutWhite = gamut.XYZ(new LRGB(1, 1, 1));
+		float[] gamutWhiteValues = {gamutWhite.X(), gamutWhite.Y(), gamutWhite.Z()};
+		for (int row = 0; row < 3; row++)
+			for (int column = 0; column < 3; column++)
+				matrix[row * 3 + column] = gamut.RGB_XYZ[row][column] * white[row] / gamutWhiteValues[row];
+
+		scale = new float[resolution];
+		for (int i = 0; i < resolution; i++)
+			scale[i] = (float)smoothstep(smoothstep(i / (double)(resolution - 1)));
+
+		table = new float[3 * resolution * resolution * resolution * 3];
+		int res = resolution, start = resolution / 5;
+		var errors = new double[3 * res];
+		IntStream.range(0, 3 * res).parallel().forEach(job -> {
+			int component = job / res, y = job % res;
+			var fitter = new Fitter(weights, white);
+			var rgb = new double[3];
+			var target = new double[3];
+			for (int x = 0; x < res; x++) {
+				// Fit outward from a mid brightness, starting each solve from its neighbor's coefficients.
+				for (int pass = 0; pass < 2; pass++) {
+					fitter.c[0] = 0;
+					fitter.c[1] = 0;
+					fitter.c[2] = 0;
+					int step = pass == 0 ? 1 : -1;
+					for (int z = pass == 0 ? start : start - 1; z >= 0 && z < res; z += step) {
+						double max = scale[z];
+						rgb[component] = max;
+						rgb[(component + 1) % 3] = x / (double)(res - 1) * max;
+						rgb[(component + 2) % 3] = y / (double)(res - 1) * max;
+						for (int row = 0; row < 3; row++)
+							target[row] = matrix[row * 3] * rgb[0] + matrix[row * 3 + 1] * rgb[1] + matrix[row * 3 + 2] * rgb[2];
+						double error = fitter.fit(target);
+						if (max > 0.01) errors[job] = Math.max(errors[job], error); // Black cannot be fit exactly.
+						int index = (((component * res + z) * res + y) * res + x) * 3;
+						table[index] = (float)fitter.c[0];
+						table[index + 1] = (float)fitter.c[1];
+						table[index + 2] = (float)fitter.c[2];
+					}
+				}
+			}
+		});
+		double maxError = 0;
+		for (double error : errors)
+			maxError = Math.max(maxError, error);
+		this.maxError = (float)maxError;
+	}
+
+	/** Returns the interpolated sigmoid polynomial coefficients for linear RGB in this gamut.
+	 * @param out Receives c0, c1, and c2. */
+	public void coefficients (float r, float g, float b, float[] out) {
+		coefficients(r, g, b, out, 0);
+	}
+
+	private void coefficients (float r, float g, float b, float[] out, int offset) {
+		r = r > 0 ? Math.min(r, 1) : 0; // Also NaN.
+		g = g > 0 ? Math.min(g, 1) : 0;
+		b = b > 0 ? Math.min(b, 1) : 0;
+		int component;
+		float max, x, y;
+		if (r >= g && r >= b) {
+			component = 0;
+			max = r;
+			x = g;
+			y = b;
+		} else if (g >= b) {
+			component = 1;
+			max = g;
+			x = b;
+			y = r;
+		} else {
+			component = 2;
+			max = b;
+			x = r;
+			y = g;
+		}
+		int res = resolution, last = res - 1;
+		if (max > 0) {
+			x = x / max * last;
+			y = y / max * last;
+		}
+		// Binary search the z axis.
+		float[] scale = this.scale;
+		int low = 0, high = last - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (scale[mid] <= max)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		int zi = low, xi = Math.min((int)x, last - 1), yi = Math.min((int)y, last - 1);
+		float fz = (max - scale[zi]) / (scale[zi + 1] - scale[zi]), fx = x - xi, fy = y - yi;
+		int dx = 3, dy = res * 3, dz = res * res * 3;
+		int index = (((component * res + zi) * res + yi) * res + xi) * 3;
+		float[] table = this.table;
+		for (int i = 0; i < 3; i++, index++) {
+			float c00 = table[index] + (table[index + dx] - table[index]) * fx;
+			float c10 = table[index + dy] + (table[index + dy + dx] - table[index + dy]) * fx;
+			float c01 = table[index + dz] + (table[index + dz + dx] - table[index + dz]) * fx;
+			float c11 = table[index + dz + dy] + (table[index + dz + dy + dx] - table[index + dz + dy]) * fx;
+			float c0 = c00 + (c10 - c00) * fy, c1 = c01 + (c11 - c01) * fy;
+			out[offset + i] = c0 + (c1 - c0) * fz;
+		}
+	}
+
+	/** Returns the reflectance for RGB in this gamut, decoded with the sRGB transfer function. */
+	public Spectrum spectrum (RGB rgb) {
+		return spectrum(rgb.LRGB());
+	}
+
+	/** Returns the reflectance for linear RGB in this gamut. */
+	public Spectrum spectrum (LRGB rgb) {
+		var values = new float[81];
+		reflectance(rgb.r(), rgb.g(), rgb.b(), values, 0);
+		return new Spectrum(values);
+	}
+
+	/** Writes the reflectance for linear RGB in this gamut.
+	 * @param out Receives 81 values, 380-780nm @ 5nm, starting at the offset. */
+	public void reflectance (float r, float g, float b, float[] out, int offset) {
+		var c = new float[3];
+		coefficients(r, g, b, c, 0);
+		evaluate(c[0], c[1], c[2], out, offset);
+	}
+
+	/** Writes the coefficients for linear RGB planes.
+	 * @param out Receives c0, c1, and c2 for each color, 3 * n values. */
+	public void coefficients (float[] r, float[] g, float[] b, float[] out) {
+		coefficients(r, g, b, out, 0, Colors.check(r.length, g.length, b.length, out.length / 3));
+	}
+
+	/** Same as {@link #coefficients(float[], float[], float[], float[])}, in parallel. */
+	public void coefficientsParallel (float[] r, float[] g, float[] b, float[] out) {
+		int n = Colors.check(r.length, g.length, b.length, out.length / 3);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> coefficients(r, g, b, out, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Writes the coefficients for colors [from..to). */
+	public void coefficients (float[] r, float[] g, float[] b, float[] out, int from, int to) {
+		for (int i = from; i < to; i++)
+			coefficients(r[i], g[i], b[i], out, i * 3);
+	}
+
+	/** Writes reflectances for linear RGB planes.
+	 * @param out Receives 81 values per color, 81 * n values. */
+	public void reflectances (float[] r, float[] g, float[] b, float[] out) {
+		reflectances(r, g, b, out, 0, Colors.check(r.length, g.length, b.length, out.length / 81));
+	}
+
+	/** Same as {@link #reflectances(float[], float[], float[], float[])}, in parallel. */
+	public void reflectancesParallel (float[] r, float[] g, float[] b, float[] out) {
+		int n = Colors.check(r.length, g.length, b.length, out.length / 81);
+		int chunk = SpectralUpsampler.chunk / 81;
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> reflectances(r, g, b, out, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Writes reflectances for colors [from..to). */
+	public void reflectances (float[] r, float[] g, float[] b, float[] out, int from, int to) {
+		var c = new float[3];
+		for (int i = from; i < to; i++) {
+			coefficients(r[i], g[i], b[i], c, 0);
+			evaluate(c[0], c[1], c[2], out, i * 81);
+		}
+	}
+
+	/** Writes the sigmoid polynomial at 380-780nm @ 5nm.
+	 * @param out Receives 81 values starting at the offset. */
+	static public void evaluate (float c0, float c1, float c2, float[] out, int offset) {
+		for (int i = 0; i < 81; i++) {
+			float t = i / 80f, x = (c0 * t + c1) * t + c2;
+			out[offset + i] = 0.5f + x / (2 * (float)Math.sqrt(1 + x * x));
+		}
+	}
+
+	/** Returns the sigmoid polynomial at a wavelength.
+	 * @param wavelength Nanometers, 380 to 780 maps to 0 to 1 in the polynomial. */
+	static public float evaluate (float c0, float c1, float c2, float wavelength) {
+		float t = (wavelength - 380) / 400, x = (c0 * t + c1) * t + c2;
+		return 0.5f + x / (2 * (float)Math.sqrt(1 + x * x));
+	}
+
+	static private double smoothstep (double x) {
+		return x * x * (3 - 2 * x);
+	}
+
+	/** Gauss-Newton fit of the coefficients to a CIELAB target, with an analytic Jacobian and step halving. Not thread safe. */
+	static private class Fitter {
+		final double[] weights, white, c = new double[3], lab = new double[3], target = new double[3];
+		final double[][] jacobian = new double[3][3];
+		final double[] dXYZ = new double[9];
+
+		Fitter (double[] weights, double[] white) {
+			this.weights = weights;
+			this.white = white;
+		}
+
+		/** @param xyz Relative to a white of Y=1.
+		 * @return The remaining CIELAB distance. */
+		double fit (double[] xyz) {
+			Lab(xyz[0], xyz[1], xyz[2], target, null);
+			double[] c = this.c, lab = this.lab, target = this.target;
+			double[][] jacobian = this.jacobian;
+			double error = eval(c[0], c[1], c[2], true);
+			for (int iteration = 0; iteration < 15 && error > 0.001; iteration++) {
+				double r0 = lab[0] - target[0], r1 = lab[1] - target[1], r2 = lab[2] - target[2];
+				// Solve J * delta = r with Cramer's rule.
+				double[] j0 = jacobian[0], j1 = jacobian[1], j2 = jacobian[2];
+				double det = j0[0] * (j1[1] * j2[2] - j1[2] * j2[1]) - j0[1] * (j1[0] * j2[2] - j1[2] * j2[0])
+					+ j0[2] * (j1[0] * j2[1] - j1[1] * j2[0]);
+				if (Math.abs(det) < 1e-15) break;
+				double d0 = (r0 * (j1[1] * j2[2] - j1[2] * j2[1]) - j0[1] * (r1 * j2[2] - j1[2] * r2)
+					+ j0[2] * (r1 * j2[1] - j1[1] * r2)) / det;
+				double d1 = (j0[0] * (r1 * j2[2] - j1[2] * r2) - r0 * (j1[0] * j2[2] - j1[2] * j2[0])
+					+ j0[2] * (j1[0] * r2 - r1 * j2[0])) / det;
+				double d2 = (j0[0] * (j1[1] * r2 - r1 * j2[1]) - j0[1] * (j1[0] * r2 - r1 * j2[0])
+					+ r0 * (j1[0] * j2[1] - j1[1] * j2[0])) / det;
+				// Halve the step until the error decreases.
+				double c0 = c[0], c1 = c[1], c2 = c[2], next = error;
+				for (int halving = 0; halving < 8; halving++, d0 *= 0.5, d1 *= 0.5, d2 *= 0.5) {
+					c[0] = c0 - d0;
+					c[1] = c1 - d1;
+					c[2] = c2 - d2;
+					// Keep the polynomial bounded for near black and near white colors, which are approached asymptotically.
+					double max = Math.max(Math.abs(c[0]), Math.max(Math.abs(c[1]), Math.abs(c[2])));
+					if (max > 200) {
+						c[0] *= 200 / max;
+						c[1] *= 200 / max;
+						c[2] *= 200 / max;
+					}
+					next = eval(c[0], c[1], c[2], false);
+					if (next < error) break;
+				}
+				if (next >= error) {
+					c[0] = c0;
+					c[1] = c1;
+					c[2] = c2;
+					break;
+				}
+				error = eval(c[0], c[1], c[2], true);
+			}
+			return error;
+		}
+
+		/** Sets {@link #lab} and optionally {@link #jacobian}.
+		 * @return The CIELAB distance to {@link #target}. */
+		private double eval (double c0, double c1, double c2, boolean derivatives) {
+			double[] weights = this.weights, dXYZ = this.dXYZ;
+			double X = 0, Y = 0, Z = 0;
+			if (derivatives) Arrays.fill(dXYZ, 0);
+			for (int i = 0; i < 81; i++) {
+				double t = i / 80d, x = (c0 * t + c1) * t + c2, root = Math.sqrt(1 + x * x);
+				double s = 0.5 + x / (2 * root), wx = weights[i], wy = weights[81 + i], wz = weights[162 + i];
+				X += s * wx;
+				Y += s * wy;
+				Z += s * wz;
+				if (derivatives) {
+					double ds = 1 / (2 * root * root * root), dt2 = ds * t * t, dt = ds * t;
+					dXYZ[0] += dt2 * wx;
+					dXYZ[1] += dt * wx;
+					dXYZ[2] += ds * wx;
+					dXYZ[3] += dt2 * wy;
+					dXYZ[4] += dt * wy;
+					dXYZ[5] += ds * wy;
+					dXYZ[6] += dt2 * wz;
+					dXYZ[7] += dt * wz;
+					dXYZ[8] += ds * wz;
+				}
+			}
+			double[] lab = this.lab, target = this.target;
+			Lab(X, Y, Z, lab, derivatives ? jacobian : null);
+			double r0 = lab[0] - target[0], r1 = lab[1] - target[1], r2 = lab[2] - target[2];
+			return Math.sqrt(r0 * r0 + r1 * r1 + r2 * r2);
+		}
+
+		/** @param jacobian If not null, receives d(Lab)/d(c) using {@link #dXYZ}. */
+		private void Lab (double X, double Y, double Z, double[] lab, double[][] jacobian) {
+			double x = X / white[0], y = Y / white[1], z = Z / white[2];
+			double fx = f(x), fy = f(y), fz = f(z);
+			lab[0] = 116 * fy - 16;
+			lab[1] = 500 * (fx - fy);
+			lab[2] = 200 * (fy - fz);
+			if (jacobian != null) {
+				double dfx = df(x) / white[0], dfy = df(y) / white[1], dfz = df(z) / white[2];
+				for (int k = 0; k < 3; k++) {
+					double dx = dfx * dXYZ[k], dy = dfy * dXYZ[3 + k], dz = dfz * dXYZ[6 + k];
+					jacobian[0][k] = 116 * dy;
+					jacobian[1][k] = 500 * (dx - dy);
+					jacobian[2][k] = 200 * (dy - dz);
+				}
+			}
+		}
+
+		static private double f (double t) {
+			return t > 216 / 24389d ? Math.cbrt(t) : (24389 / 27d * t + 16) / 116;
+		}
+
+		static private double df (double t) {
+			if (t > 216 / 24389d) {
+				double cbrt = Math.cbrt(t);
+				return 1 / (3 * cbrt * cbrt);
+			}
+			return 24389 / 27d / 116;
+		}
+	}
+
+	static private record Key (RGBGamut gamut, Observer observer, int resolution) {}
+}
@@ -3,6 +3,7 @@ package com.esotericsoftware.color;
 
 import static com.esotericsoftware.color.Colors.*;
 
+import com.esotericsoftware.color.Metrics.Distribution;
 import com.esotericsoftware.color.space.CAM02;
 import com.esotericsoftware.color.space.CAM02UCS;
 import com.esotericsoftware.color.space.CAM16;
@@ -46,17 +47,18 @@ public record Spectrum (float[] values, int step, int start) {
 	/** CIE 13.3-1995. Requires 380nm @ 5nm to [700..780+]nm. */
 	public CRI CRI (CRI.Method method) {
 		checkVisibleRange();
+		long start = Metrics.start();
 		XYZ testXYZ = XYZ();
 		CCT cct = testXYZ.CCT();
 		if (cct.invalid()) throw new IllegalStateException("Cannot calculate CRI for spectrum with invalid CCT.");
 		Spectrum reference = cct.reference();
 		XYZ refXYZ = reference.XYZ();
 		uv1960 testuv = null, refuv = null;
-		CAM16.VC testVC = null, refVC = null;
+		CAM16Kernel testCAM = null, refCAM = null;
 		switch (method) {
 		case CAM16UCS -> {
-			refVC = CAM16.VC.with(refXYZ.scl(100 / refXYZ.Y()), 100, 20, 2, true);
-			testVC = CAM16.VC.with(testXYZ.scl(100 / testXYZ.Y()), 100, 20, 2, true);
+			refCAM = CAM16Kernel.get(CAM16.VC.get(refXYZ.scl(100 / refXYZ.Y()), 100, 20, 2, true));
+			testCAM = CAM16Kernel.get(CAM16.VC.get(testXYZ.scl(100 / testXYZ.Y()), 100, 20, 2, true));
 		}
 		case UVW -> {
 			testuv = testXYZ.uv1960();
@@ -70,7 +72,7 @@ public record Spectrum (float[] values, int step, int start) {
 			XYZ test = illuminate(tcs).scl(100 / testXYZ.Y());
 			XYZ ref = reference.illuminate(tcs).scl(100 / refXYZ.Y());
 			float deltaE = switch (method) {
-			case CAM16UCS -> test.CAM16UCS(testVC).dst(ref.CAM16UCS(refVC));
+			case CAM16UCS -> testCAM.CAM16UCS(test).dst(refCAM.CAM16UCS(ref));
 			case UVW -> {
 				UVW testUVW = test.uv1960().chromaticAdaptation(testuv, refuv).UVW(test.Y(), refuv);
 				UVW refUVW = ref.uv1960().UVW(ref.Y(), refuv);
@@ -80,6 +82,7 @@ public record Spectrum (float[] values, int step, int start) {
 			samples[i] = 100 - 4.6f * deltaE;
 			if (i < 8) sumRa += samples[i];
 		}
+		Metrics.end(Distribution.criNanos, start);
 		return new CRI(sumRa / 8, samples);
 	}
 
@@ -100,6 +103,7 @@ public record Spectrum (float[] values, int step, int start) {
 	/** ANSI/IES TM-30-18. Requires 380nm @ 5nm to [700..780+]nm. */
 	public TM30 TM30 (TM30.Method method) {
 		checkVisibleRange();
+		long start = Metrics.start();
 		XYZ testXYZ = XYZ(Observer.CIE10_1964);
 		CCT cct = testXYZ.CCT();
 		if (cct.invalid()) throw new IllegalStateException("Cannot calculate TM30 for spectrum with invalid CCT.");
@@ -113,12 +117,12 @@ public record Spectrum (float[] values, int step, int start) {
 		float Rf = 0;
 		switch (method) {
 		case CAM02UCS -> {
-			CAM02.VC refVC = CAM02.VC.with(refWP, 100, 20, 2, true);
-			CAM02.VC testVC = CAM02.VC.with(testWP, 100, 20, 2, true);
+			var refCAM = CAM02Kernel.get(CAM02.VC.get(refWP, 100, 20, 2, true));
+			var testCAM = CAM02Kernel.get(CAM02.VC.get(testWP, 100, 20, 2, true));
 			for (int i = 0; i < 99; i++) {
 				float[] ces = TM30.CES[i];
-				CAM02UCS testColor = illuminate(ces, Observer.CIE10_1964).scl(100 / testXYZ.Y()).CAM02UCS(testVC);
-				CAM02UCS refColor = reference.illuminate(ces, Observer.CIE10_1964).scl(100 / refXYZ.Y()).CAM02UCS(refVC);
+				CAM02UCS testColor = testCAM.CAM02UCS(illuminate(ces, Observer.CIE10_1964).scl(100 / testXYZ.Y()));
+				CAM02UCS refColor = refCAM.CAM02UCS(reference.illuminate(ces, Observer.CIE10_1964).scl(100 / refXYZ.Y()));
 				float deltaE = testColor.dst(refColor);
 				colorSamples[i] = deltaEtoRf(deltaE);
 				Rf += deltaE;
@@ -134,12 +138,12 @@ public record Spectrum (float[] values, int step, int start) {
 			}
 		}
 		case CAM16UCS -> {
-			CAM16.VC refVC = CAM16.VC.with(refWP, 100, 20, 2, true);
-			CAM16.VC testVC = CAM16.VC.with(testWP, 100, 20, 2, true);
+			var refCAM = CAM16Kernel.get(CAM16.VC.get(refWP, 100, 20, 2, true));
+			var testCAM = CAM16Kernel.get(CAM16.VC.get(testWP, 100, 20, 2, true));
 			for (int i = 0; i < 99; i++) {
 				float[] ces = TM30.CES[i];
-				CAM16UCS testColor = illuminate(ces, Observer.CIE10_1964).scl(100 / testXYZ.Y()).CAM16UCS(testVC);
-				CAM16UCS refColor = reference.illuminate(ces, Observer.CIE10_1964).scl(100 / refXYZ.Y()).CAM16UCS(refVC);
+				CAM16UCS testColor = testCAM.CAM16UCS(illuminate(ces, Observer.CIE10_1964).scl(100 / testXYZ.Y()));
+				CAM16UCS refColor = refCAM.CAM16UCS(reference.illuminate(ces, Observer.CIE10_1964).scl(100 / refXYZ.Y()));
 				float deltaE = testColor.dst(refColor);
 				colorSamples[i] = deltaEtoRf(deltaE);
 				Rf += deltaE;
@@ -175,6 +179,7 @@ public record Spectrum (float[] values, int step, int start) {
 				hueAngleBins[i] = 100;
 		}
 		float Rg = polygonArea(testAverages) / polygonArea(refAverages) * 100;
+		Metrics.end(Distribution.tm30Nanos, start);
 		return new TM30(deltaEtoRf(Rf / 99), Rg, chromaShift, hueShift, hueAngleBins, colorSamples);
 	}
 
@@ -0,0 +1,73 @@
+package com.esotericsoftware.color;
+
+import com.esotericsoftware.color.space.HCT;
+import com.esotericsoftware.color.space.RGB;
+
+/** {@link HCT} colors sharing a hue and chroma, varying only by tone. Integer tones are solved once and then reused. Thread
+ * safe. */
+public class TonalPalette {
+	static private final Cache<Key, TonalPalette> cache = Metrics.register(new Cache<>("TonalPalette", 512));
+
+	/** Hue angle [0..360]. */
+	public final float hue;
+	/** Requested chroma [0+]. Tones that cannot reach it in sRGB use the maximum available chroma. */
+	public final float chroma;
+	private final RGB[] tones = new RGB[101];
+
+	public TonalPalette (float hue, float chroma) {
+		this.hue = hue(hue);
+		this.chroma = Math.max(0, chroma);
+	}
+
+	/** Returns a shared palette for the hue and chroma. Equivalent hues, such as 10, 370 and -350, share a palette. */
+	static public TonalPalette get (float hue, float chroma) {
+		return cache.get(new Key(hue(hue), Math.max(0, chroma)), key -> new TonalPalette(key.hue, key.chroma));
+	}
+
+	/** @return [0..360), 0 for NaN. */
+	static private float hue (float hue) {
+		if (Float.isNaN(hue)) return 0;
+		hue %= 360;
+		return hue < 0 ? hue + 360 : hue + 0f; // Adding 0 turns -0 into 0 so the keys are equal.
+	}
+
+	/** Returns the cache used by {@link #get(float, float)}. */
+	static public Cache<?, TonalPalette> cache () {
+		return cache;
+	}
+
+	/** @param tone [0..100] */
+	public RGB tone (int tone) {
+		if (tone < 0 || tone > 100) throw new IllegalArgumentException("tone must be [0..100]: " + tone);
+		RGB rgb = tones[tone];
+		if (rgb == null) tones[tone] = rgb = new HCT(hue, chroma, tone).RGB(); // RGB is immutable, a racing write is harmless.
+		return rgb;
+	}
+
+	/** @param tone [0..100] */
+	public RGB tone (float tone) {
+		int index = (int)tone;
+		if (index == tone) return tone(index);
+		return HCT(tone).RGB();
+	}
+
+	/** @param tone [0..100] */
+	public HCT HCT (float tone) {
+		return new HCT(hue, chroma, tone);
+	}
+
+	public boolean equals (Object object) {
+		if (!(object instanceof TonalPalette other)) return false;
+		return Float.compare(hue, other.hue) == 0 && Float.compare(chroma, other.chroma) == 0;
+	}
+
+	public int hashCode () {
+		return 31 * Float.hashCode(hue) + Float.hashCode(chroma);
+	}
+
+	public String toString () {
+		return "TonalPalette(" + hue + ", " + chroma + ")";
+	}
+
+	private record Key (float hue, float chroma) {}
+}
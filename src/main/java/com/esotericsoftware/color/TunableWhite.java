@@ -0,0 +1,117 @@
+package com.esotericsoftware.color;
+
+import com.esotericsoftware.color.space.CCT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.RGBWW;
+import com.esotericsoftware.color.space.RGBWW.WW;
+import com.esotericsoftware.color.space.xy;
+
+/** Lookup table of RGBWW drives for a tunable white fixture on a mired x Duv grid. Each grid point is solved once with
+ * {@link CCT#uv()}, {@link Gamut#LRGB(xy)}, and {@link LRGB#RGBWW(WW)}, then commands are answered by bilinear interpolation.
+ * The interpolation error is measured at the center of every cell when the table is built. Thread safe. */
+public class TunableWhite {
+	public final Gamut gamut;
+	public final WW ww;
+	public final float minK, maxK, minDuv, maxDuv;
+	/** Grid size. */
+	public final int miredSteps, duvSteps;
+	/** Largest and mean difference of any drive [0..1] between interpolation and an exact solve, at cell centers. */
+	public final float maxError, meanError;
+	private final float minMired, miredScale, duvScale;
+	/** 5 drives per grid point, Duv major. */
+	private final float[] table;
+
+	/** Uses {@link Gamut#sRGB}, 1000K to 20000K, Duv -0.02 to 0.02, and a 128 x 16 grid. */
+	public TunableWhite (WW ww) {
+		this(Gamut.sRGB, ww, 1000, 20000, -0.02f, 0.02f, 128, 16);
+	}
+
+	/** @param gamut Converts chromaticity to the fixture's linear RGB.
+	 * @param miredSteps Number of grid points between minK and maxK, spaced evenly in mired, >= 2.
+	 * @param duvSteps Number of grid points between minDuv and maxDuv, >= 2. */
+	public TunableWhite (Gamut gamut, WW ww, float minK, float maxK, float minDuv, float maxDuv, int miredSteps, int duvSteps) {
+		if (gamut == null) throw new IllegalArgumentException("gamut cannot be null.");
+		if (ww == null) throw new IllegalArgumentException("ww cannot be null.");
+		if (!(minK >= 1000 && maxK > minK))
+			throw new IllegalArgumentException("K must be 1000+ and maxK > minK: " + minK + ", " + maxK);
+		if (!(maxDuv > minDuv)) throw new IllegalArgumentException("maxDuv must be > minDuv: " + minDuv + ", " + maxDuv);
+		if (miredSteps < 2) throw new IllegalArgumentException("miredSteps must be >= 2: " + miredSteps);
+		if (duvSteps < 2) throw new IllegalArgumentException("duvSteps must be >= 2: " + duvSteps);
+		this.gamut = gamut;
+		this.ww = ww;
+		this.minK = minK;
+		this.maxK = maxK;
+		this.minDuv = minDuv;
+		this.maxDuv = maxDuv;
+		this.miredSteps = miredSteps;
+		this.duvSteps = duvSteps;
+
+		minMired = 1e6f / maxK;
+		float maxMired = 1e6f / minK;
+		miredScale = (miredSteps - 1) / (maxMired - minMired);
+		duvScale = (duvSteps - 1) / (maxDuv - minDuv);
+		table = new float[miredSteps * duvSteps * 5];
+		for (int d = 0; d < duvSteps; d++)
+			for (int m = 0; m < miredSteps; m++)
+				solve(minMired + m / miredScale, minDuv + d / duvScale, table, (d * miredSteps + m) * 5);
+
+		var exact = new float[5];
+		var lerped = new float[5];
+		float max = 0, total = 0;
+		for (int d = 0; d < duvSteps - 1; d++) {
+			for (int m = 0; m < miredSteps - 1; m++) {
+				float mired = minMired + (m + 0.5f) / miredScale, duv = minDuv + (d + 0.5f) / duvScale;
+				solve(mired, duv, exact, 0);
+				lookup(mired, duv, 1, lerped, 0);
+				float error = 0;
+				for (int i = 0; i < 5; i++)
+					error = Math.max(error, Math.abs(exact[i] - lerped[i]));
+				max = Math.max(max, error);
+				total += error;
+			}
+		}
+		maxError = max;
+		meanError = total / ((miredSteps - 1) * (duvSteps - 1));
+	}
+
+	/** Solves one point exactly. Chromaticities outside the gamut are clamped to it. */
+	private void solve (float mired, float duv, float[] out, int offset) {
+		xy xy = new CCT(1e6f / mired, duv).xy();
+		LRGB lrgb = gamut.LRGB(xy).clamp();
+		LRGB.RGBWW(lrgb.r(), lrgb.g(), lrgb.b(), ww, out, offset);
+	}
+
+	/** Writes the interpolated drives. K and Duv outside the table are clamped.
+	 * @param intensity [0..1] scales all drives.
+	 * @param out Receives r, g, b, w1, w2 starting at the offset. */
+	public void get (float K, float Duv, float intensity, float[] out, int offset) {
+		lookup(1e6f / K, Duv, intensity, out, offset);
+	}
+
+	/** Allocates, see {@link #get(float, float, float, float[], int)}. */
+	public RGBWW get (float K, float Duv, float intensity) {
+		var out = new float[5];
+		lookup(1e6f / K, Duv, intensity, out, 0);
+		return new RGBWW(out[0], out[1], out[2], out[3], out[4]);
+	}
+
+	/** Returns the drives from an exact solve, bypassing the table. */
+	public RGBWW solve (float K, float Duv, float intensity) {
+		var out = new float[5];
+		solve(1e6f / K, Duv, out, 0);
+		return new RGBWW(out[0] * intensity, out[1] * intensity, out[2] * intensity, out[3] * intensity, out[4] * intensity);
+	}
+
+	private void lookup (float mired, float duv, float intensity, float[] out, int offset) {
+		float fm = Colors.clamp((mired - minMired) * miredScale, 0, miredSteps - 1);
+		float fd = Colors.clamp((duv - minDuv) * duvScale, 0, duvSteps - 1);
+		int m = Math.min((int)fm, miredSteps - 2), d = Math.min((int)fd, duvSteps - 2);
+		float tm = fm - m, td = fd - d;
+		float w00 = (1 - tm) * (1 - td) * intensity, w10 = tm * (1 - td) * intensity;
+		float w01 = (1 - tm) * td * intensity, w11 = tm * td * intensity;
+		float[] table = this.table;
+		int i00 = (d * miredSteps + m) * 5, i01 = i00 + miredSteps * 5;
+		for (int i = 0; i < 5; i++)
+			out[offset + i] = table[i00 + i] * w00 + table[i00 + 5 + i] * w10 + table[i01 + i] * w01 + table[i01 + 5 + i] * w11;
+	}
+}
@@ -0,0 +1,434 @@
+package com.esotericsoftware.color;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.YCbCr.YCbCrColorSpace;
+
+/** Fixed-point conversion between interleaved RGB and YCbCr video frames (often called YUV), using 16-bit integer
+ * coefficients. Results are deterministic and match {@link com.esotericsoftware.color.space.Color#YCbCr(YCbCrColorSpace)}
+ * within one code value. Samples are 8 to 12 bits, limited (video) or full range, with 4:4:4, 4:2:2 or 4:2:0 chroma in planar
+ * or semi-planar layouts. Frames are processed in bands of rows, which the parallel methods run concurrently. Thread safe. */
+public class YCbCrConverter {
+	static private final int chunk = 8192;
+
+	public final YCbCrColorSpace colorSpace;
+	public final int bits;
+	public final boolean fullRange;
+	public final Layout layout;
+	public final Siting siting;
+	public final Filter filter;
+
+	final int max, black, mid;
+	final int yr, yg, yb, ur, ug, ub, vr, vg, vb;
+	final int ry, rv, gu, gv, bu;
+	private final int hShift, vShift;
+
+	/** @param bits [8..12], the same for RGB and YCbCr samples.
+	 * @param fullRange True for full range, eg 0..255 for 8-bit, false for limited range, eg Y 16..235 and CbCr 16..240.
+	 * @param siting Where chroma samples are located when subsampled.
+	 * @param filter How chroma is downsampled and upsampled. */
+	public YCbCrConverter (YCbCrColorSpace colorSpace, int bits, boolean fullRange, Layout layout, Siting siting,
+		Filter filter) {
+		if (bits < 8 || bits > 12) throw new IllegalArgumentException("bits must be [8..12]: " + bits);
+		this.colorSpace = colorSpace;
+		this.bits = bits;
+		this.fullRange = fullRange;
+		this.layout = layout;
+		this.siting = siting;
+		this.filter = filter;
+
+		max = (1 << bits) - 1;
+		mid = 1 << bits - 1;
+		black = fullRange ? 0 : 16 << bits - 8;
+		double scaleY = fullRange ? 1 : (219 << bits - 8) / (double)max;
+		double scaleC = fullRange ? 1 : (224 << bits - 8) / (double)max;
+		double kr = colorSpace == YCbCrColorSpace.ITU_BT_601 ? 0.299 : 0.2126;
+		double kb = colorSpace == YCbCrColorSpace.ITU_BT_601 ? 0.114 : 0.0722, kg = 1 - kr - kb;
+		// Rows are adjusted to sum exactly, so white has full luma and grays have no chroma.
+		yr = fixed(kr * scaleY);
+		yb = fixed(kb * scaleY);
+		yg = fixed(scaleY) - yr - yb;
+		ur = fixed(-kr / (2 * (1 - kb)) * scaleC);
+		ub = fixed(0.5 * scaleC);
+		ug = -ur - ub;
+		vr = ub;
+		vb = fixed(-kb / (2 * (1 - kr)) * scaleC);
+		vg = -vr - vb;
+		ry = fixed(1 / scaleY);
+		rv = fixed(2 * (1 - kr) / scaleC);
+		gu = fixed(2 * kb * (1 - kb) / kg / scaleC);
+		gv = fixed(2 * kr * (1 - kr) / kg / scaleC);
+		bu = fixed(2 * (1 - kb) / scaleC);
+
+		// Downsampling kernels: 1 is nearest, 1 1 is centered, 1 2 1 is co-sited. The shift is the log2 of the kernel sum.
+		boolean linear = filter == Filter.linear;
+		hShift = layout.shiftX == 0 || !linear ? 0 : siting == Siting.center ? 1 : 2;
+		vShift = layout.shiftY == 0 || !linear ? 0 : siting != Siting.topLeft ? 1 : 2;
+	}
+
+	/** Converts an RGB frame to YCbCr.
+	 * @param rgb Interleaved RGB, 3 samples per pixel. The stride is in samples.
+	 * @param v Ignored for semi-planar layouts, where u has interleaved CbCr. */
+	public void encode (Plane rgb, Plane y, Plane u, Plane v, int width, int height) {
+		check(width, height, rgb, y, u, v);
+		encode(rgb, y, u, v, width, height, 0, height);
+	}
+
+	/** Same as {@link #encode(Plane, Plane, Plane, Plane, int, int)}, in parallel. */
+	public void encodeParallel (Plane rgb, Plane y, Plane u, Plane v, int width, int height) {
+		check(width, height, rgb, y, u, v);
+		int band = band(width), bands = (height + band - 1) / band;
+		IntStream.range(0, bands).parallel()
+			.forEach(i -> encode(rgb, y, u, v, width, height, i * band, Math.min(height, i * band + band)));
+	}
+
+	/** Converts rows [fromRow..toRow).
+	 * @param fromRow Must be even for 4:2:0.
+	 * @param toRow Must be even for 4:2:0, unless it is the height. */
+	public void encode (Plane rgb, Plane y, Plane u, Plane v, int width, int height, int fromRow, int toRow) {
+		int shiftX = layout.shiftX, shiftY = layout.shiftY;
+		if ((fromRow & shiftY) != 0) throw new IllegalArgumentException("fromRow must be even for 4:2:0: " + fromRow);
+		if ((toRow & shiftY) != 0 && toRow != height) throw new IllegalArgumentException("toRow must be even for 4:2:0: " + toRow);
+		int chromaWidth = (width + shiftX) >> shiftX;
+		var samples = new int[width * 3];
+		var luma = new int[width];
+		int[][] cb = new int[3][width], cr = new int[3][width]; // Rows above, at, and below the block's first row.
+		int[] outCb = new int[chromaWidth], outCr = new int[chromaWidth];
+		int shift = 10 + hShift + vShift, round = 1 << shift - 1, mid = this.mid, max = this.max;
+		int lumaRound = (black << 16) + 32768;
+		for (int row = fromRow; row < toRow; row += 1 << shiftY) {
+			int last = Math.min(height, row + (1 << shiftY)) - 1;
+			for (int yy = row; yy <= last; yy++) {
+				rgb.read(rgb.offset + yy * rgb.stride, 1, samples, width * 3);
+				for (int x = 0, i = 0; x < width; x++, i += 3) {
+					int r = samples[i], g = samples[i + 1], b = samples[i + 2];
+					luma[x] = Math.min(max, (yr * r + yg * g + yb * b + lumaRound) >> 16);
+				}
+				y.write(y.offset + yy * y.stride, 1, luma, width);
+				chroma(samples, width, cb[1 + yy - row], cr[1 + yy - row]);
+			}
+			if (shiftY != 0) {
+				if (last == row) { // Odd height.
+					System.arraycopy(cb[1], 0, cb[2], 0, width);
+					System.arraycopy(cr[1], 0, cr[2], 0, width);
+				}
+				if (vShift == 2) {
+					if (row == 0) {
+						System.arraycopy(cb[1], 0, cb[0], 0, width);
+						System.arraycopy(cr[1], 0, cr[0], 0, width);
+					} else {
+						rgb.read(rgb.offset + (row - 1) * rgb.stride, 1, samples, width * 3);
+						chroma(samples, width, cb[0], cr[0]);
+					}
+				}
+			}
+			int vShift = this.vShift;
+			int[] cb0 = cb[0], cr0 = cr[0], cb1 = cb[1], cr1 = cr[1], cb2 = cb[2], cr2 = cr[2];
+			for (int i = 0; i < chromaWidth; i++) {
+				int sumCb, sumCr;
+				if (vShift == 0) {
+					sumCb = cb1[i];
+					sumCr = cr1[i];
+				} else if (vShift == 1) {
+					sumCb = cb1[i] + cb2[i];
+					sumCr = cr1[i] + cr2[i];
+				} else {
+					sumCb = cb0[i] + (cb1[i] << 1) + cb2[i];
+					sumCr = cr0[i] + (cr1[i] << 1) + cr2[i];
+				}
+				outCb[i] = Math.max(0, Math.min(max, mid + ((sumCb + round) >> shift)));
+				outCr[i] = Math.max(0, Math.min(max, mid + ((sumCr + round) >> shift)));
+			}
+			int chromaRow = row >> shiftY;
+			if (layout.semiPlanar) {
+				int start = u.offset + chromaRow * u.stride;
+				u.write(start, 2, outCb, chromaWidth);
+				u.write(start + 1, 2, outCr, chromaWidth);
+			} else {
+				u.write(u.offset + chromaRow * u.stride, 1, outCb, chromaWidth);
+				v.write(v.offset + chromaRow * v.stride, 1, outCr, chromaWidth);
+			}
+		}
+	}
+
+	/** Stores chroma for a row of RGB samples with 10 fractional bits, without the midpoint offset, then downsamples it
+	 * horizontally in place. */
+	private void chroma (int[] samples, int width, int[] cb, int[] cr) {
+		int ur = this.ur, ug = this.ug, ub = this.ub, vr = this.vr, vg = this.vg, vb = this.vb;
+		for (int x = 0, i = 0; x < width; x++, i += 3) {
+			int r = samples[i], g = samples[i + 1], b = samples[i + 2];
+			cb[x] = (ur * r + ug * g + ub * b + 32) >> 6;
+			cr[x] = (vr * r + vg * g + vb * b + 32) >> 6;
+		}
+		if (hShift == 0 && layout.shiftX == 0) return;
+		downsample(cb, width);
+		downsample(cr, width);
+	}
+
+	/** Writes chroma [0..chromaWidth) from the full width row. Safe in place, since each write is behind the reads. */
+	private void downsample (int[] row, int width) {
+		int chromaWidth = (width + 1) >> 1, last = width - 1;
+		switch (hShift) {
+		case 0 -> {
+			for (int i = 0; i < chromaWidth; i++)
+				row[i] = row[i << 1];
+		}
+		case 1 -> {
+			for (int i = 0; i < chromaWidth; i++) {
+				int x = i << 1;
+				row[i] = row[x] + row[Math.min(last, x + 1)];
+			}
+		}
+		default -> {
+			int first = row[0];
+			row[0] = first * 3 + row[Math.min(last, 1)];
+			for (int i = 1; i < chromaWidth; i++) {
+				int x = i << 1;
+				row[i] = row[x - 1] + (row[x] << 1) + row[Math.min(last, x + 1)];
+			}
+		}
+		}
+	}
+
+	/** Converts a YCbCr frame to RGB.
+	 * @param v Ignored for semi-planar layouts, where u has interleaved CbCr.
+	 * @param rgb Receives interleaved RGB, 3 samples per pixel. The stride is in samples. */
+	public void decode (Plane y, Plane u, Plane v, Plane rgb, int width, int height) {
+		check(width, height, rgb, y, u, v);
+		decode(y, u, v, rgb, width, height, 0, height);
+	}
+
+	/** Same as {@link #decode(Plane, Plane, Plane, Plane, int, int)}, in parallel. */
+	public void decodeParallel (Plane y, Plane u, Plane v, Plane rgb, int width, int height) {
+		check(width, height, rgb, y, u, v);
+		int band = band(width), bands = (height + band - 1) / band;
+		IntStream.range(0, bands).parallel()
+			.forEach(i -> decode(y, u, v, rgb, width, height, i * band, Math.min(height, i * band + band)));
+	}
+
+	/** Converts rows [fromRow..toRow). */
+	public void decode (Plane y, Plane u, Plane v, Plane rgb, int width, int height, int fromRow, int toRow) {
+		int shiftX = layout.shiftX, shiftY = layout.shiftY;
+		int chromaWidth = (width + shiftX) >> shiftX, chromaHeight = (height + shiftY) >> shiftY;
+		var samples = new int[width * 3];
+		var luma = new int[width];
+		int[] rowCb = new int[chromaWidth], rowCr = new int[chromaWidth];
+		int[] cb1 = new int[width], cr1 = new int[width], cb2 = new int[width], cr2 = new int[width];
+		boolean nearest = filter == Filter.nearest;
+		boolean cositedX = siting != Siting.center, cositedY = siting == Siting.topLeft;
+		int black = this.black, max = this.max;
+		for (int row = fromRow; row < toRow; row++) {
+			// Vertical weights in quarters.
+			int j = row >> shiftY, j2 = j, weight = 4;
+			if (shiftY != 0 && !nearest) {
+				if (cositedY) {
+					if ((row & 1) != 0) {
+						j2 = Math.min(chromaHeight - 1, j + 1);
+						weight = 2;
+					}
+				} else {
+					j2 = (row & 1) == 0 ? Math.max(0, j - 1) : Math.min(chromaHeight - 1, j + 1);
+					weight = 3;
+				}
+			}
+			upsample(u, v, j, chromaWidth, width, rowCb, rowCr, cb1, cr1, nearest, cositedX);
+			if (weight != 4) upsample(u, v, j2, chromaWidth, width, rowCb, rowCr, cb2, cr2, nearest, cositedX);
+			y.read(y.offset + row * y.stride, 1, luma, width);
+			int weight2 = 4 - weight;
+			for (int x = 0, i = 0; x < width; x++, i += 3) {
+				int Cb = cb1[x] * weight, Cr = cr1[x] * weight;
+				if (weight2 != 0) {
+					Cb += cb2[x] * weight2;
+					Cr += cr2[x] * weight2;
+				}
+				Cb = (Cb + 8) >> 4;
+				Cr = (Cr + 8) >> 4;
+				int Y = ry * (luma[x] - black) + 32768;
+				samples[i] = Math.max(0, Math.min(max, (Y + rv * Cr) >> 16));
+				samples[i + 1] = Math.max(0, Math.min(max, (Y - gu * Cb - gv * Cr) >> 16));
+				samples[i + 2] = Math.max(0, Math.min(max, (Y + bu * Cb) >> 16));
+			}
+			rgb.write(rgb.offset + row * rgb.stride, 1, samples, width * 3);
+		}
+	}
+
+	/** Reads a chroma row and upsamples it horizontally to the full width, without the midpoint offset, in quarters. */
+	private void upsample (Plane u, Plane v, int chromaRow, int chromaWidth, int width, int[] rowCb, int[] rowCr, int[] cb,
+		int[] cr, boolean nearest, boolean cosited) {
+		if (layout.semiPlanar) {
+			int start = u.offset + chromaRow * u.stride;
+			u.read(start, 2, rowCb, chromaWidth);
+			u.read(start + 1, 2, rowCr, chromaWidth);
+		} else {
+			u.read(u.offset + chromaRow * u.stride, 1, rowCb, chromaWidth);
+			v.read(v.offset + chromaRow * v.stride, 1, rowCr, chromaWidth);
+		}
+		int mid = this.mid;
+		for (int i = 0; i < chromaWidth; i++) {
+			rowCb[i] -= mid;
+			rowCr[i] -= mid;
+		}
+		if (layout.shiftX == 0 || nearest) {
+			int shiftX = layout.shiftX;
+			for (int x = 0; x < width; x++) {
+				cb[x] = rowCb[x >> shiftX] << 2;
+				cr[x] = rowCr[x >> shiftX] << 2;
+			}
+			return;
+		}
+		int lastChroma = chromaWidth - 1;
+		for (int x = 0; x < width; x++) {
+			int i = x >> 1, i2, weight;
+			if (cosited) {
+				if ((x & 1) == 0) {
+					cb[x] = rowCb[i] << 2;
+					cr[x] = rowCr[i] << 2;
+					continue;
+				}
+				i2 = Math.min(lastChroma, i + 1);
+				weight = 2;
+			} else {
+				i2 = (x & 1) == 0 ? Math.max(0, i - 1) : Math.min(lastChroma, i + 1);
+				weight = 3;
+			}
+			cb[x] = rowCb[i] * weight + rowCb[i2] * (4 - weight);
+			cr[x] = rowCr[i] * weight + rowCr[i2] * (4 - weight);
+		}
+	}
+
+	/** Returns the chroma plane size in samples for a frame, for each of Cb and Cr, or both for semi-planar layouts. */
+	public int chromaSize (int width, int height) {
+		int size = ((width + layout.shiftX) >> layout.shiftX) * ((height + layout.shiftY) >> layout.shiftY);
+		return layout.semiPlanar ? size * 2 : size;
+	}
+
+	private int band (int width) {
+		return Math.max(1, chunk / width >> layout.shiftY) << layout.shiftY;
+	}
+
+	private void check (int width, int height, Plane rgb, Plane y, Plane u, Plane v) {
+		if (width <= 0) throw new IllegalArgumentException("width must be > 0: " + width);
+		if (height <= 0) throw new IllegalArgumentException("height must be > 0: " + height);
+		if (v == null && !layout.semiPlanar) throw new IllegalArgumentException("v is required for planar layouts.");
+		for (Plane plane : new Plane[] {rgb, y, u, layout.semiPlanar ? u : v})
+			if (plane.sampleBits < bits) throw new IllegalArgumentException("8-bit planes cannot hold " + bits + "-bit samples.");
+	}
+
+	static private int fixed (double value) {
+		return (int)Math.round(value * 65536);
+	}
+
+	/** Chroma subsampling and plane arrangement. */
+	static public enum Layout {
+		/** Full resolution chroma, Y, Cb and Cr planes. */
+		i444(0, 0, false),
+		/** Half width chroma, Y, Cb and Cr planes. */
+		i422(1, 0, false),
+		/** Half width chroma, a Y plane and an interleaved CbCr plane. */
+		nv16(1, 0, true),
+		/** Half width and height chroma, Y, Cb and Cr planes. */
+		i420(1, 1, false),
+		/** Half width and height chroma, a Y plane and an interleaved CbCr plane. */
+		nv12(1, 1, true);
+
+		/** 1 when chroma is subsampled horizontally or vertically. */
+		public final int shiftX, shiftY;
+		public final boolean semiPlanar;
+
+		Layout (int shiftX, int shiftY, boolean semiPlanar) {
+			this.shiftX = shiftX;
+			this.shiftY = shiftY;
+			this.semiPlanar = semiPlanar;
+		}
+	}
+
+	/** Location of subsampled chroma samples relative to luma. */
+	static public enum Siting {
+		/** Centered between luma samples (JPEG, MPEG-1). */
+		center,
+		/** Co-sited with even luma columns, centered vertically (MPEG-2, H.264 default). */
+		left,
+		/** Co-sited with even luma columns and rows (BT.2020, HEVC type 2). */
+		topLeft
+	}
+
+	/** Chroma resampling filter. */
+	static public enum Filter {
+		/** Uses the first pixel of each block to downsample and replicates samples to upsample. */
+		nearest,
+		/** Averages pixels around the chroma site to downsample, with a 1 2 1 kernel when co-sited, and interpolates linearly to
+		 * upsample. */
+		linear
+	}
+
+	/** Samples in a byte[], short[], or ByteBuffer. Offsets and strides are in samples. 16-bit samples are unsigned and in a
+	 * ByteBuffer use its byte order. */
+	static public class Plane {
+		final byte[] bytes;
+		final short[] shorts;
+		final ByteBuffer buffer;
+		final int sampleBits;
+		public final int offset, stride;
+
+		public Plane (byte[] samples, int offset, int stride) {
+			bytes = samples;
+			shorts = null;
+			buffer = null;
+			sampleBits = 8;
+			this.offset = offset;
+			this.stride = stride;
+		}
+
+		public Plane (short[] samples, int offset, int stride) {
+			bytes = null;
+			shorts = samples;
+			buffer = null;
+			sampleBits = 16;
+			this.offset = offset;
+			this.stride = stride;
+		}
+
+		/** @param wide True for 16-bit samples, false for 8-bit. */
+		public Plane (ByteBuffer buffer, boolean wide, int offset, int stride) {
+			bytes = null;
+			shorts = null;
+			this.buffer = buffer;
+			sampleBits = wide ? 16 : 8;
+			this.offset = offset;
+			this.stride = stride;
+		}
+
+		void read (int start, int step, int[] values, int count) {
+			if (bytes != null) {
+				for (int i = 0, s = start; i < count; i++, s += step)
+					values[i] = bytes[s] & 0xff;
+			} else if (shorts != null) {
+				for (int i = 0, s = start; i < count; i++, s += step)
+					values[i] = shorts[s] & 0xffff;
+			} else if (sampleBits == 8) {
+				for (int i = 0, s = start; i < count; i++, s += step)
+					values[i] = buffer.get(s) & 0xff;
+			} else {
+				for (int i = 0, s = start << 1; i < count; i++, s += step << 1)
+					values[i] = buffer.getShort(s) & 0xffff;
+			}
+		}
+
+		void write (int start, int step, int[] values, int count) {
+			if (bytes != null) {
+				for (int i = 0, s = start; i < count; i++, s += step)
+					bytes[s] = (byte)values[i];
+			} else if (shorts != null) {
+				for (int i = 0, s = start; i < count; i++, s += step)
+					shorts[s] = (short)values[i];
+			} else if (sampleBits == 8) {
+				for (int i = 0, s = start; i < count; i++, s += step)
+					buffer.put(s, (byte)values[i]);
+			} else {
+				for (int i = 0, s = start << 1; i < count; i++, s += step << 1)
+					buffer.putShort(s, (short)values[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package com.esotericsoftware.color;
+
+import java.util.stream.IntStream;
+
+import com.esotericsoftware.color.space.YCoCg;
+
+/** Lossless integer YCoCg-R transform (Malvar and Sullivan), a reversible lifting form of {@link YCoCg}. For n-bit RGB, Y has
+ * n bits and Co and Cg are signed with n + 1 bits. Co and Cg are twice the {@link YCoCg} values, scaled to the sample range.
+ * Round trips are bit exact. The batch loops are branch free shifts and adds, which the JIT can vectorize. Thread safe. */
+public class YCoCgR {
+	static private final int chunk = 8192;
+
+	private YCoCgR () {
+	}
+
+	/** Returns packed YCoCg-R for a packed 0xRRGGBB color: Y in bits 18-25 and Co and Cg as 9-bit two's complement in bits 9-17
+	 * and 0-8. Bits 24-31 of the color are ignored. */
+	static public int encode (int rgb) {
+		int r = (rgb >> 16) & 0xff, g = (rgb >> 8) & 0xff, b = rgb & 0xff;
+		int Co = r - b, t = b + (Co >> 1), Cg = g - t, Y = t + (Cg >> 1);
+		return Y << 18 | (Co & 0x1ff) << 9 | (Cg & 0x1ff);
+	}
+
+	/** Returns the packed 0xRRGGBB color for packed YCoCg-R from {@link #encode(int)}. */
+	static public int decode (int ycocg) {
+		int Y = ycocg >>> 18, Co = ycocg << 14 >> 23, Cg = ycocg << 23 >> 23;
+		int t = Y - (Cg >> 1), g = Cg + t, b = t - (Co >> 1), r = b + Co;
+		return r << 16 | g << 8 | b;
+	}
+
+	/** Encodes packed 0xRRGGBB colors with {@link #encode(int)}.
+	 * @param ycocg May be the same array as rgb. */
+	static public void encode (int[] rgb, int[] ycocg) {
+		encode(rgb, ycocg, 0, Colors.check(rgb.length, ycocg.length));
+	}
+
+	/** Same as {@link #encode(int[], int[])}, in parallel. */
+	static public void encodeParallel (int[] rgb, int[] ycocg) {
+		int n = Colors.check(rgb.length, ycocg.length);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> encode(rgb, ycocg, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Encodes colors [from..to). */
+	static public void encode (int[] rgb, int[] ycocg, int from, int to) {
+		for (int i = from; i < to; i++) {
+			int color = rgb[i], r = (color >> 16) & 0xff, g = (color >> 8) & 0xff, b = color & 0xff;
+			int Co = r - b, t = b + (Co >> 1), Cg = g - t;
+			ycocg[i] = t + (Cg >> 1) << 18 | (Co & 0x1ff) << 9 | (Cg & 0x1ff);
+		}
+	}
+
+	/** Decodes packed YCoCg-R to packed 0xRRGGBB colors with {@link #decode(int)}.
+	 * @param rgb May be the same array as ycocg. */
+	static public void decode (int[] ycocg, int[] rgb) {
+		decode(ycocg, rgb, 0, Colors.check(ycocg.length, rgb.length));
+	}
+
+	/** Same as {@link #decode(int[], int[])}, in parallel. */
+	static public void decodeParallel (int[] ycocg, int[] rgb) {
+		int n = Colors.check(ycocg.length, rgb.length);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> decode(ycocg, rgb, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Decodes colors [from..to). */
+	static public void decode (int[] ycocg, int[] rgb, int from, int to) {
+		for (int i = from; i < to; i++) {
+			int value = ycocg[i], Co = value << 14 >> 23, Cg = value << 23 >> 23;
+			int t = (value >>> 18) - (Cg >> 1), b = t - (Co >> 1);
+			rgb[i] = b + Co << 16 | Cg + t << 8 | b;
+		}
+	}
+
+	/** Encodes 8-bit interleaved RGB, 3 bytes per pixel, to planes.
+	 * @param Co Receives [-255..255].
+	 * @param Cg Receives [-255..255]. */
+	static public void encode (byte[] rgb, byte[] Y, short[] Co, short[] Cg) {
+		encode(rgb, Y, Co, Cg, 0, Colors.check(rgb.length / 3, Y.length, Co.length, Cg.length));
+	}
+
+	/** Same as {@link #encode(byte[], byte[], short[], short[])}, in parallel. */
+	static public void encodeParallel (byte[] rgb, byte[] Y, short[] Co, short[] Cg) {
+		int n = Colors.check(rgb.length / 3, Y.length, Co.length, Cg.length);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> encode(rgb, Y, Co, Cg, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Encodes pixels [from..to). */
+	static public void encode (byte[] rgb, byte[] Y, short[] Co, short[] Cg, int from, int to) {
+		for (int i = from, s = from * 3; i < to; i++, s += 3) {
+			int r = rgb[s] & 0xff, g = rgb[s + 1] & 0xff, b = rgb[s + 2] & 0xff;
+			int co = r - b, t = b + (co >> 1), cg = g - t;
+			Y[i] = (byte)(t + (cg >> 1));
+			Co[i] = (short)co;
+			Cg[i] = (short)cg;
+		}
+	}
+
+	/** Decodes planes to 8-bit interleaved RGB, 3 bytes per pixel. */
+	static public void decode (byte[] Y, short[] Co, short[] Cg, byte[] rgb) {
+		decode(Y, Co, Cg, rgb, 0, Colors.check(rgb.length / 3, Y.length, Co.length, Cg.length));
+	}
+
+	/** Same as {@link #decode(byte[], short[], short[], byte[])}, in parallel. */
+	static public void decodeParallel (byte[] Y, short[] Co, short[] Cg, byte[] rgb) {
+		int n = Colors.check(rgb.length / 3, Y.length, Co.length, Cg.length);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> decode(Y, Co, Cg, rgb, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Decodes pixels [from..to). */
+	static public void decode (byte[] Y, short[] Co, short[] Cg, byte[] rgb, int from, int to) {
+		for (int i = from, s = from * 3; i < to; i++, s += 3) {
+			int co = Co[i], cg = Cg[i], t = (Y[i] & 0xff) - (cg >> 1), b = t - (co >> 1);
+			rgb[s] = (byte)(b + co);
+			rgb[s + 1] = (byte)(cg + t);
+			rgb[s + 2] = (byte)b;
+		}
+	}
+
+	/** Encodes 16-bit interleaved RGB, 3 unsigned shorts per pixel, to planes.
+	 * @param Co Receives [-65535..65535].
+	 * @param Cg Receives [-65535..65535]. */
+	static public void encode (short[] rgb, short[] Y, int[] Co, int[] Cg) {
+		encode(rgb, Y, Co, Cg, 0, Colors.check(rgb.length / 3, Y.length, Co.length, Cg.length));
+	}
+
+	/** Same as {@link #encode(short[], short[], int[], int[])}, in parallel. */
+	static public void encodeParallel (short[] rgb, short[] Y, int[] Co, int[] Cg) {
+		int n = Colors.check(rgb.length / 3, Y.length, Co.length, Cg.length);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> encode(rgb, Y, Co, Cg, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Encodes pixels [from..to). */
+	static public void encode (short[] rgb, short[] Y, int[] Co, int[] Cg, int from, int to) {
+		for (int i = from, s = from * 3; i < to; i++, s += 3) {
+			int r = rgb[s] & 0xffff, g = rgb[s + 1] & 0xffff, b = rgb[s + 2] & 0xffff;
+			int co = r - b, t = b + (co >> 1), cg = g - t;
+			Y[i] = (short)(t + (cg >> 1));
+			Co[i] = co;
+			Cg[i] = cg;
+		}
+	}
+
+	/** Decodes planes to 16-bit interleaved RGB, 3 unsigned shorts per pixel. */
+	static public void decode (short[] Y, int[] Co, int[] Cg, short[] rgb) {
+		decode(Y, Co, Cg, rgb, 0, Colors.check(rgb.length / 3, Y.length, Co.length, Cg.length));
+	}
+
+	/** Same as {@link #decode(short[], int[], int[], short[])}, in parallel. */
+	static public void decodeParallel (short[] Y, int[] Co, int[] Cg, short[] rgb) {
+		int n = Colors.check(rgb.length / 3, Y.length, Co.length, Cg.length);
+		IntStream.range(0, (n + chunk - 1) / chunk).parallel()
+			.forEach(c -> decode(Y, Co, Cg, rgb, c * chunk, Math.min(n, c * chunk + chunk)));
+	}
+
+	/** Decodes pixels [from..to). */
+	static public void decode (short[] Y, int[] Co, int[] Cg, short[] rgb, int from, int to) {
+		for (int i = from, s = from * 3; i < to; i++, s += 3) {
+			int co = Co[i], cg = Cg[i], t = (Y[i] & 0xffff) - (cg >> 1), b = t - (co >> 1);
+			rgb[s] = (short)(b + co);
+			rgb[s + 1] = (short)(cg + t);
+			rgb[s + 2] = (short)b;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.esotericsoftware.color.space;
+
+/** Academy Color Encoding System for color grading (logarithmic with a linear toe, AP1 primaries). */
+public record ACEScct (
+	/** Red [0..1]. */
+	float r,
+	/** Green [0..1]. */
+	float g,
+	/** Blue [0..1]. */
+	float b) implements Color {
+
+	public LRGB LRGB () {
+		return new ACEScg(decode(r), decode(g), decode(b)).LRGB();
+	}
+
+	public RGB RGB () {
+		return LRGB().RGB();
+	}
+
+	public XYZ XYZ () {
+		return new ACEScg(decode(r), decode(g), decode(b)).XYZ();
+	}
+
+	static float encode (float linear) {
+		if (linear <= 0.0078125f) return 10.5402377416545f * linear + 0.0729055341958355f;
+		return (float)((Math.log(linear) / Math.log(2) + 9.72f) / 17.52f);
+	}
+
+	static float decode (float encoded) {
+		if (encoded <= 0.155251141552511f) return (encoded - 0.0729055341958355f) / 10.5402377416545f;
+		if (encoded < 1.4679964f) return (float)Math.pow(2, encoded * 17.52f - 9.72f); // (log2(65504) + 9.72) / 17.52
+		return 65504;
+	}
+
+	@SuppressWarnings("all")
+	public ACEScct ACEScct () {
+		return this;
+	}
+}
@@ -3,8 +3,10 @@ package com.esotericsoftware.color.space;
 
 import static com.esotericsoftware.color.Colors.*;
 
+import com.esotericsoftware.color.Cache;
 import com.esotericsoftware.color.Observer;
 import com.esotericsoftware.color.Colors;
+import com.esotericsoftware.color.Metrics;
 
 /** Color Appearance Model 2016. Predicts color appearance under viewing conditions. */
 public record CAM16 (
@@ -152,5 +154,39 @@ public record CAM16 (
 
 		static public final VC sRGB = VC.with(Observer.Default.D65, 64, 20, 2, false);
 		static public final VC HCT = VC.with(Observer.Default.D65, 200 / PI * Lab.LstarToYn(50), 50, 2, false);
+
+		static private final Cache<Key, VC> cache = Metrics.register(new Cache<>("CAM16.VC", 256));
+
+		/** Same as {@link #with(XYZ, float, float, float, boolean)}, but returns a VC shared through a bounded cache. The VC and its
+		 * {@link #rgbD()} must not be modified. */
+		static public VC get (XYZ wp, float La, float Yb, float surround, boolean discounting) {
+			return get(wp, La, Yb, surround, discounting, 0);
+		}
+
+		/** @param quantum Relative precision, [0..1). The white point, La, and Yb are each rounded to a step of at most this fraction
+		 *           of their magnitude before the lookup, so nearly equal conditions share a VC computed from the rounded values, eg
+		 *           0.001 keeps each within 0.05%. The surround and discounting are never rounded. 0 for exact values. */
+		static public VC get (XYZ wp, float La, float Yb, float surround, boolean discounting, float quantum) {
+			if (!(quantum >= 0 && quantum < 1)) throw new IllegalArgumentException("quantum must be [0..1): " + quantum);
+			var key = quantum == 0 ? new Key(wp.X(), wp.Y(), wp.Z(), La, Yb, surround, discounting)
+				: new Key(round(wp.X(), quantum), round(wp.Y(), quantum), round(wp.Z(), quantum), round(La, quantum),
+					round(Yb, quantum), surround, discounting);
+			return cache.get(key, k -> with(new XYZ(k.X, k.Y, k.Z), k.La, k.Yb, k.surround, k.discounting));
+		}
+
+		/** Rounds to a multiple of the quantum scaled by the value's power of 2, so the step is a fixed fraction of the value and
+		 * values in the same octave share the same grid. */
+		static private float round (float value, float quantum) {
+			if (value == 0 || !Float.isFinite(value)) return value;
+			double step = Math.scalb((double)quantum, Math.getExponent(value));
+			return (float)(Math.rint(value / step) * step);
+		}
+
+		/** Returns the cache used by {@link #get(XYZ, float, float, float, boolean, float)}. */
+		static public Cache<?, VC> cache () {
+			return cache;
+		}
+
+		private record Key (float X, float Y, float Z, float La, float Yb, float surround, boolean discounting) {}
 	}
 }
@@ -4,6 +4,7 @@ package com.esotericsoftware.color.space;
 import static com.esotericsoftware.color.Colors.*;
 
 import com.esotericsoftware.color.Illuminant;
+import com.esotericsoftware.color.Metrics;
 import com.esotericsoftware.color.Observer;
 import com.esotericsoftware.color.Spectrum;
 import com.esotericsoftware.color.Colors;
@@ -39,7 +40,10 @@ public record CCT ( //
 
 	/** Requires [1000K+] else returns NaN. */
 	public uv uv () {
-		if (K < 1000) return new uv(Float.NaN, Float.NaN);
+		if (K < 1000) {
+			if (Metrics.enabled()) Metrics.cctInvalid(Float.NaN, Float.NaN, K);
+			return new uv(Float.NaN, Float.NaN);
+		}
 		float[] Robertson = CCT.Robertson;
 		float pr = Robertson[0], mired = 1e6f / K;
 		for (int i = 5; i <= 645; i += 5) {
@@ -81,7 +85,10 @@ public record CCT ( //
 	/** Returns CIE Illuminant D Series daylight locus coordinates for {@link #K()}.
 	 * @return Requires [4000.25000K+] else returns NaN. */
 	public xy xyDaylight () {
-		if (K < 4000 || K > 25000) return new xy(Float.NaN, Float.NaN);
+		if (K < 4000 || K > 25000) {
+			if (Metrics.enabled()) Metrics.cctInvalid(Float.NaN, Float.NaN, K);
+			return new xy(Float.NaN, Float.NaN);
+		}
 		float K3 = K * K * K;
 		float K2 = K * K;
 		float x;
@@ -30,6 +30,11 @@ public interface Color {
 		return new ACEScc(ACEScc.encode(cg.r()), ACEScc.encode(cg.g()), ACEScc.encode(cg.b()));
 	}
 
+	default public ACEScct ACEScct () {
+		ACEScg cg = ACEScg();
+		return new ACEScct(ACEScct.encode(cg.r()), ACEScct.encode(cg.g()), ACEScct.encode(cg.b()));
+	}
+
 	default public C1C2C3 C1C2C3 () {
 		RGB rgb = RGB();
 		return new C1C2C3((float)Math.atan(rgb.r() / Math.max(rgb.g(), rgb.b())), //
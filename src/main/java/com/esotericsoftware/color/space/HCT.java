@@ -4,6 +4,8 @@ package com.esotericsoftware.color.space;
 import static com.esotericsoftware.color.Colors.*;
 
 import com.esotericsoftware.color.Colors;
+import com.esotericsoftware.color.Metrics;
+import com.esotericsoftware.color.Metrics.Distribution;
 
 /** Material color system. {@link CAM16} hue/chroma with {@link Lab} L* tone. */
 public record HCT (
@@ -34,7 +36,9 @@ public record HCT (
 		}
 		float Y = Lab.LstarToY(T);
 		RGB rgb = findRGB(h, C, Y, vc);
-		return rgb != null ? rgb : bisectToLimit(Y, h);
+		if (rgb != null) return rgb;
+		if (Metrics.enabled()) Metrics.hctBisection(this.h, this.C, T);
+		return bisectToLimit(Y, h);
 	}
 
 	public XYZ XYZ () {
@@ -63,7 +67,9 @@ public record HCT (
 		float tInnerCoeff = 1 / (float)Math.pow(1.64 - Math.pow(0.29, vc.n()), 0.73);
 		float p1 = 0.25f * ((float)Math.cos(h + 2) + 3.8f) * 50000 / 13 * vc.Nc() * Ncb;
 		float hSin = (float)Math.sin(h), hCos = (float)Math.cos(h);
-		for (int i = 0; i < 5; i++) {
+		RGB rgb = null;
+		int i = 0;
+		while (i < 5) {
 			float jNormalized = j / 100;
 			float alpha = C == 0 || j == 0 ? 0 : C / (float)Math.sqrt(jNormalized);
 			float t = (float)Math.pow(alpha * tInnerCoeff, 1.0 / 0.9);
@@ -76,16 +82,18 @@ public record HCT (
 			float rr = rCScaled * 1373.2198709594231f + gCScaled * -1100.4251190754821f + bCScaled * -7.278681089101213f;
 			float gg = rCScaled * -271.815969077903f + gCScaled * 559.6580465940733f + bCScaled * -32.46047482791194f;
 			float bb = rCScaled * 1.9622899599665666f + gCScaled * -57.173814538844006f + bCScaled * 308.7233197812385f;
-			if (rr < 0 || gg < 0 || bb < 0) return null;
+			i++;
+			if (rr < 0 || gg < 0 || bb < 0) break;
 			float fnj = 0.2126f * rr + 0.7152f * gg + 0.0722f * bb;
-			if (fnj <= 0) return null;
-			if (i == 4 || Math.abs(fnj - Y) < 0.002f) {
-				if (rr > 100.01f || gg > 100.01f || bb > 100.01f) return null;
-				return new RGB(sRGB(rr / 100), sRGB(gg / 100), sRGB(bb / 100));
+			if (fnj <= 0) break;
+			if (i == 5 || Math.abs(fnj - Y) < 0.002f) {
+				if (rr <= 100.01f && gg <= 100.01f && bb <= 100.01f) rgb = new RGB(sRGB(rr / 100), sRGB(gg / 100), sRGB(bb / 100));
+				break;
 			}
 			j -= (fnj - Y) * j / (2 * fnj);
 		}
-		return null;
+		if (Metrics.enabled()) Metrics.record(Distribution.hctIterations, i);
+		return rgb;
 	}
 
 	static private RGB bisectToLimit (float y, float targetHue) {
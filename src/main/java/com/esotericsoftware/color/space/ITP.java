@@ -14,12 +14,12 @@ public record ITP (
 	/** Red-green axis [-0.5..0.5]. */
 	float Cp) implements Color {
 
-	static private final float PQ_m1 = 0.1593017578125f; // 2610 / 16384
-	static private final float PQ_m2 = 78.84375f; // 2523 / 32
-	static private final float PQ_c1 = 0.8359375f; // 3424 / 4096
-	static private final float PQ_c2 = 18.8515625f; // 2413 / 128
-	static private final float PQ_c3 = 18.6875f; // 2392 /128
-	static private final float PQ_n = 0.15930175781f; // 2610 / 16384
+	static public final float PQ_m1 = 0.1593017578125f; // 2610 / 16384
+	static public final float PQ_m2 = 78.84375f; // 2523 / 32
+	static public final float PQ_c1 = 0.8359375f; // 3424 / 4096
+	static public final float PQ_c2 = 18.8515625f; // 2413 / 128
+	static public final float PQ_c3 = 18.6875f; // 2392 /128
+	static public final float PQ_n = 0.15930175781f; // 2610 / 16384
 
 	public RGB RGB () {
 		float L = PQ_EOTF(I + 0.00860514f * Ct + 0.11103f * Cp); // PQ to linear.
@@ -51,7 +51,8 @@ public record ITP (
 		return this;
 	}
 
-	static float PQ_EOTF (float value) {
+	/** PQ to linear, where 1 is 10000 cd/m2. See {@link com.esotericsoftware.color.HDR} for tables. */
+	static public float PQ_EOTF (float value) {
 		if (value <= 0) return 0;
 		float pow = (float)Math.pow(value, 1 / PQ_m2);
 		float num = Math.max(0, pow - PQ_c1);
@@ -60,7 +61,8 @@ public record ITP (
 		return (float)Math.pow(num / denom, 1 / PQ_n);
 	}
 
-	static float PQ_EOTF_inverse (float value) {
+	/** Linear, where 1 is 10000 cd/m2, to PQ. */
+	static public float PQ_EOTF_inverse (float value) {
 		if (value <= 0) return 0;
 		float pow = (float)Math.pow(value, PQ_m1);
 		float num = PQ_c1 + PQ_c2 * pow;
@@ -72,5 +72,15 @@ public record LMS (
 			this.forward = forward;
 			this.backward = backward;
 		}
+
+		/** @return A copy of the XYZ to LMS matrix, row major. */
+		public float[] forward () {
+			return forward.clone();
+		}
+
+		/** @return A copy of the LMS to XYZ matrix, row major. */
+		public float[] backward () {
+			return backward.clone();
+		}
 	}
 }
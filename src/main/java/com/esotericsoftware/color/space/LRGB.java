@@ -48,16 +48,31 @@ public record LRGB (
 	/** Convert to RGBW using one calibrated white LED color. Moves power from RGB to W.
 	 * @param w White LED color. */
 	public RGBW RGBW (LRGB w) {
-		float W = 1;
-		if (w.r > 0) W = Math.min(W, r / w.r);
-		if (w.g > 0) W = Math.min(W, g / w.g);
-		if (w.b > 0) W = Math.min(W, b / w.b);
+		float W = RGBW(r, g, b, w.r, w.g, w.b);
 		return new RGBW(Math.max(0, r - W * w.r), Math.max(0, g - W * w.g), Math.max(0, b - W * w.b), W);
 	}
 
+	/** Allocation free {@link #RGBW(LRGB)}.
+	 * @return The white value [0..1]. The RGB values are {@code max(0, r - W * wr)}, etc. */
+	static public float RGBW (float r, float g, float b, float wr, float wg, float wb) {
+		float W = 1;
+		if (wr > 0) W = Math.min(W, r / wr);
+		if (wg > 0) W = Math.min(W, g / wg);
+		if (wb > 0) W = Math.min(W, b / wb);
+		return W;
+	}
+
 	/** Convert to RGBWW using two calibrated white LED colors. Moves power from RGB to WW.
 	 * @param ww White LED colors with precomputed values. */
 	public RGBWW RGBWW (WW ww) {
+		float[] out = new float[5];
+		RGBWW(r, g, b, ww, out, 0);
+		return new RGBWW(out[0], out[1], out[2], out[3], out[4]);
+	}
+
+	/** Allocation free {@link #RGBWW(WW)}.
+	 * @param out Receives r, g, b, w1, w2 starting at the offset. */
+	static public void RGBWW (float r, float g, float b, WW ww, float[] out, int offset) {
 		float w1r = ww.r1(), w1g = ww.g1(), w1b = ww.b1();
 		float w2r = ww.r2(), w2g = ww.g2(), w2b = ww.b2();
 		// W1 at maximum possible value, find best W2.
@@ -129,11 +144,11 @@ public record LRGB (
 				bestScore = score;
 			}
 		}
-		return new RGBWW( //
-			Math.max(0, r - bestW1 * w1r - bestW2 * w2r), //
-			Math.max(0, g - bestW1 * w1g - bestW2 * w2g), //
-			Math.max(0, b - bestW1 * w1b - bestW2 * w2b), //
-			bestW1, bestW2);
+		out[offset] = Math.max(0, r - bestW1 * w1r - bestW2 * w2r);
+		out[offset + 1] = Math.max(0, g - bestW1 * w1g - bestW2 * w2g);
+		out[offset + 2] = Math.max(0, b - bestW1 * w1b - bestW2 * w2b);
+		out[offset + 3] = bestW1;
+		out[offset + 4] = bestW2;
 	}
 
 	/** @return NaN if invalid. */
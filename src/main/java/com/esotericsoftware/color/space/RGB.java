@@ -3,6 +3,7 @@ package com.esotericsoftware.color.space;
 
 import static com.esotericsoftware.color.Colors.*;
 
+import com.esotericsoftware.color.CSS;
 import com.esotericsoftware.color.Gamut;
 import com.esotericsoftware.color.Colors;
 
@@ -29,10 +30,16 @@ public record RGB (
 			((rgb & 0x0000ff)) / 255f);
 	}
 
+	/** @param hex 6 hex digits, optionally prefixed by #. See {@link CSS} for other syntaxes. */
 	public RGB (String hex) {
-		this(Integer.parseInt(hex.substring(0, 2), 16) / 255f, //
-			Integer.parseInt(hex.substring(2, 4), 16) / 255f, //
-			Integer.parseInt(hex.substring(4, 6), 16) / 255f);
+		this(hex(hex, 0), hex(hex, 1), hex(hex, 2));
+	}
+
+	static private float hex (String hex, int channel) {
+		int i = (hex.startsWith("#") ? 1 : 0) + channel * 2;
+		int high = hexDigit(hex.charAt(i)), low = hexDigit(hex.charAt(i + 1));
+		if (high < 0 || low < 0) throw new NumberFormatException("Invalid hex color: " + hex);
+		return (high << 4 | low) / 255f;
 	}
 
 	public float get (int index) {
@@ -3,6 +3,7 @@ package com.esotericsoftware.color.space;
 
 import static com.esotericsoftware.color.Colors.*;
 
+import com.esotericsoftware.color.ChromaticAdaptation;
 import com.esotericsoftware.color.Illuminant;
 import com.esotericsoftware.color.Colors;
 import com.esotericsoftware.color.space.LMS.CAT;
@@ -65,7 +66,7 @@ public record XYZ (
 		float h = (float)Math.atan2(b, a) * radDeg;
 		h = h < 0 ? h + 360 : h;
 		float hRad = h * degRad, eT = 0.25f * ((float)Math.cos(hRad + 2) + 3.8f); // Eccentricity factor.
-		float A = (2 * rA + gA + 0.05f * bA) * vc.Nbb(); // Achromatic response.
+		float A = (2 * rA + gA + 0.05f * bA - 0.305f) * vc.Nbb(); // Achromatic response.
 		// Lightness, signed power to handle negative A values.
 		float J = 100 * Math.signum(A) * (float)Math.pow(Math.abs(A) / vc.Aw(), vc.c() * vc.z());
 		float t = (50000 / 13f * vc.Nc() * vc.Ncb() * eT * (float)Math.sqrt(a * a + b * b)) / (rA + gA + 21 / 20f * bA); // Chroma.
@@ -216,12 +217,10 @@ public record XYZ (
 		return chromaticAdaptation(sourceIlluminant, destIlluminant, CAT.Bradford);
 	}
 
-	/** @return This color adapted to appear under the target illuminant as it would under the source illuminant. */
+	/** Uses {@link ChromaticAdaptation#get(XYZ, XYZ, CAT)}.
+	 * @return This color adapted to appear under the target illuminant as it would under the source illuminant. */
 	public XYZ chromaticAdaptation (XYZ sourceIlluminant, XYZ targetIlluminant, CAT transform) {
-		LMS lms = LMS(transform), sourceLMS = sourceIlluminant.LMS(transform), targetLMS = targetIlluminant.LMS(transform);
-		return new LMS(lms.L() * targetLMS.L() / sourceLMS.L(), //
-			lms.M() * targetLMS.M() / sourceLMS.M(), //
-			lms.S() * targetLMS.S() / sourceLMS.S()).XYZ(transform);
+		return ChromaticAdaptation.get(sourceIlluminant, targetIlluminant, transform).XYZ(this);
 	}
 
 	public XYZ lerp (XYZ other, float t) {
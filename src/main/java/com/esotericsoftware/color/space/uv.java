@@ -4,6 +4,7 @@ package com.esotericsoftware.color.space;
 import static com.esotericsoftware.color.Colors.*;
 
 import com.esotericsoftware.color.Gamut;
+import com.esotericsoftware.color.Metrics;
 import com.esotericsoftware.color.Colors;
 
 /** CIE 1976 u'v' chromaticity coordinates. */
@@ -40,8 +41,10 @@ public record uv (
 				dv = dv * fc + pdv * f;
 				float length = (float)Math.sqrt(du * du + dv * dv);
 				if (i >= 565) length = -length;
-				return new CCT(1e6f / (Robertson[i] * fc + Robertson[i - 5] * f),
+				var cct = new CCT(1e6f / (Robertson[i] * fc + Robertson[i - 5] * f),
 					((cu * fc + pu * f - u) * du + (cv * fc + pv * f - v) * dv) / length);
+				if (Metrics.enabled() && cct.invalid()) Metrics.cctInvalid(this.u, this.v, Float.NaN);
+				return cct;
 			}
 			pdt = dt;
 		}
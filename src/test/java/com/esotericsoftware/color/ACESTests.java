@@ -0,0 +1,155 @@
+package com.esotericsoftware.color;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.ACES.Space;
+import com.esotericsoftware.color.ACES.Transform;
+import com.esotericsoftware.color.space.ACES2065_1;
+import com.esotericsoftware.color.space.ACEScc;
+import com.esotericsoftware.color.space.ACEScct;
+import com.esotericsoftware.color.space.ACEScg;
+import com.esotericsoftware.color.space.Color;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.RGB;
+
+public class ACESTests extends Tests {
+	@Test
+	public void testLog2Exp2 () {
+		var random = new Random(555);
+		for (int i = 0; i < 100000; i++) {
+			float value = (float)Math.pow(2, random.nextFloat() * 60 - 30);
+			double log = Math.log(value) / Math.log(2);
+			assertEquals(log, ACES.log2(value), 0.0000002 + Math.ulp((float)log));
+			float power = random.nextFloat() * 40 - 20;
+			double exact = Math.pow(2, power);
+			assertEquals(exact, ACES.exp2(power), exact * 0.0000002 + Math.ulp((float)exact));
+		}
+		assertEquals(1, ACES.exp2(0));
+		assertEquals(0, ACES.log2(1));
+		assertEquals(-10, ACES.log2(1 / 1024f));
+	}
+
+	@Test
+	public void testACEScct () {
+		var rgb = new RGB(0.2f, 0.5f, 0.8f);
+		assertClose(rgb, rgb.ACEScct().RGB(), 0.0001, "ACEScct round trip");
+		assertClose(rgb.ACEScg().XYZ(), rgb.ACEScct().XYZ(), 0.001, "ACEScct XYZ");
+		// Matches ACEScc above the toe.
+		ACEScg cg = new ACEScg(0.18f, 0.5f, 1);
+		assertClose(new ACEScg(0.18f, 0.5f, 1).ACEScc(), cg.ACEScct(), 0.000001, "log");
+		assertEquals(0.0729055341958355f, new ACEScg(0, 0, 0).ACEScct().r());
+		assertEquals(0.155251141552511f, new ACEScg(0.0078125f, 0, 0).ACEScct().r(), 0.000001f); // Continuous.
+		assertEquals(0.4135884f, cg.ACEScct().r(), 0.000001f); // 18% gray.
+	}
+
+	@Test
+	public void testRecords () {
+		var random = new Random(555);
+		int n = 20000;
+		float[] r = new float[n], g = new float[n], b = new float[n];
+		for (int i = 0; i < n; i++) {
+			r[i] = random.nextFloat() * 1.2f - 0.1f;
+			g[i] = random.nextFloat() * 1.2f - 0.1f;
+			b[i] = random.nextFloat();
+			if (i % 3 == 0) r[i] *= r[i] * r[i] * 0.01f; // Near black, in the toes.
+		}
+		var planes = new float[Space.values().length][][];
+		for (Space space : Space.values()) {
+			float[] outR = new float[n], outG = new float[n], outB = new float[n];
+			ACES.convert(Space.lrgb, space, r, g, b, outR, outG, outB);
+			planes[space.ordinal()] = new float[][] {outR, outG, outB};
+		}
+		for (int i = 0; i < n; i += 7) {
+			var lrgb = new LRGB(r[i], g[i], b[i]);
+			assertRecord(lrgb, planes[Space.lrgb.ordinal()], i, 0);
+			assertRecord(lrgb.ACES2065_1(), planes[Space.aces2065_1.ordinal()], i, 0.000001);
+			assertRecord(lrgb.ACEScg(), planes[Space.acescg.ordinal()], i, 0.000001);
+			assertRecord(lrgb.ACEScc(), planes[Space.acescc.ordinal()], i, 0.000001);
+			assertRecord(lrgb.ACEScct(), planes[Space.acescct.ordinal()], i, 0.000001);
+		}
+	}
+
+	@Test
+	public void testPairs () {
+		// Every pair, against the record path. The record matrices round trip through linear sRGB within 3e-4.
+		var random = new Random(555);
+		int n = 1000;
+		for (Space from : Space.values()) {
+			float[] r = new float[n], g = new float[n], b = new float[n];
+			var lrgb = new LRGB[n];
+			for (int i = 0; i < n; i++) {
+				lrgb[i] = new LRGB(random.nextFloat() * 0.9f + 0.1f, random.nextFloat() * 0.9f + 0.1f, random.nextFloat() * 0.9f + 0.1f);
+				float[] values = Colors.floats(convert(lrgb[i], from));
+				r[i] = values[0];
+				g[i] = values[1];
+				b[i] = values[2];
+			}
+			for (Space to : Space.values()) {
+				float[] outR = new float[n], outG = new float[n], outB = new float[n];
+				ACES.convertParallel(from, to, r, g, b, outR, outG, outB);
+				for (int i = 0; i < n; i++) {
+					Color source = (Color)record(from, r[i], g[i], b[i]);
+					assertRecord(convert(source, to), new float[][] {outR, outG, outB}, i, 0.001);
+				}
+			}
+		}
+	}
+
+	static private Record record (Space space, float r, float g, float b) {
+		return switch (space) {
+		case lrgb -> new LRGB(r, g, b);
+		case aces2065_1 -> new ACES2065_1(r, g, b);
+		case acescg -> new ACEScg(r, g, b);
+		case acescc -> new ACEScc(r, g, b);
+		case acescct -> new ACEScct(r, g, b);
+		};
+	}
+
+	static private Record convert (Color color, Space space) {
+		return switch (space) {
+		case lrgb -> color.LRGB();
+		case aces2065_1 -> color.ACES2065_1();
+		case acescg -> color.ACEScg();
+		case acescc -> color.ACEScc();
+		case acescct -> color.ACEScct();
+		};
+	}
+
+	@Test
+	public void testTransform () {
+		Transform transform = ACES.get(Space.acescct, Space.acescc);
+		assertSame(transform, ACES.get(Space.acescct, Space.acescc));
+		assertArrayEquals(new float[] {1, 0, 0, 0, 1, 0, 0, 0, 1}, transform.matrix());
+		float[] m = ACES.get(Space.aces2065_1, Space.acescg).matrix();
+		var cg = new ACES2065_1(0.3f, 0.6f, 0.1f).ACEScg();
+		assertEquals(cg.r(), m[0] * 0.3f + m[1] * 0.6f + m[2] * 0.1f, 0.000001f);
+		assertEquals(1, m[0] + m[1] + m[2], 0.0001f); // White is preserved.
+
+		// In place, over more than one chunk.
+		int n = 20000;
+		float[] r = new float[n], g = new float[n], b = new float[n];
+		for (int i = 0; i < n; i++) {
+			r[i] = i / (float)n;
+			g[i] = 1 - r[i];
+			b[i] = 0.5f;
+		}
+		float[] r2 = r.clone(), g2 = g.clone(), b2 = b.clone();
+		Transform log = ACES.get(Space.acescg, Space.acescct);
+		log.apply(r, g, b, r, g, b);
+		log.applyParallel(r2, g2, b2, r2, g2, b2);
+		assertArrayEquals(r, r2);
+		assertArrayEquals(b, b2);
+		ACES.get(Space.acescct, Space.acescg).apply(r, g, b, r, g, b);
+		for (int i = 0; i < n; i++)
+			assertEquals(i / (float)n, r[i], 0.000002f);
+		assertThrows(IllegalArgumentException.class, () -> log.apply(r, g, new float[1], r, g, b));
+	}
+
+	private void assertRecord (Record expected, float[][] planes, int i, double epsilon) {
+		float[] values = Colors.floats(expected);
+		assertArrayEquals(values, new float[] {planes[0][i], planes[1][i], planes[2][i]}, (float)epsilon,
+			expected.getClass().getSimpleName() + " " + i);
+	}
+}
@@ -0,0 +1,148 @@
+package com.esotericsoftware.color;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.space.CAM02;
+import com.esotericsoftware.color.space.CAM16;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.XYZ;
+
+public class CAMKernelTests extends Tests {
+	@Test
+	public void testCAM16 () {
+		var random = new Random(555);
+		for (CAM16.VC vc : new CAM16.VC[] {CAM16.VC.sRGB, CAM16.VC.HCT,
+			CAM16.VC.with(Observer.CIE2_1931.A, 40, 18, 1, true)}) {
+			var kernel = new CAM16Kernel(vc);
+			for (int i = 0; i < 1000; i++) {
+				XYZ xyz = new RGB(random.nextInt()).XYZ();
+				CAM16 expected = xyz.CAM16(vc), actual = kernel.CAM16(xyz);
+				assertEquals(expected.J(), actual.J(), 0.01f, "J");
+				assertEquals(expected.C(), actual.C(), 0.01f, "C");
+				if (expected.C() > 1) assertEquals(expected.h(), actual.h(), 0.05f, "h");
+				assertEquals(expected.Q(), actual.Q(), 0.01f, "Q");
+				assertEquals(expected.M(), actual.M(), 0.01f, "M");
+				assertEquals(expected.s(), actual.s(), 0.01f, "s");
+				assertClose(expected.CAM16UCS(), kernel.CAM16UCS(xyz), 0.01, "UCS");
+				assertClose(expected.CAM16LCD(), kernel.CAM16LCD(xyz), 0.01, "LCD");
+				assertClose(expected.CAM16SCD(), kernel.CAM16SCD(xyz), 0.01, "SCD");
+				assertClose(xyz, kernel.XYZ(expected), 0.01, "XYZ");
+				assertClose(xyz, kernel.XYZ(expected.CAM16UCS()), 0.01, "UCS XYZ");
+				assertClose(xyz, kernel.XYZ(expected.CAM16LCD()), 0.01, "LCD XYZ");
+				assertClose(xyz, kernel.XYZ(expected.CAM16SCD()), 0.01, "SCD XYZ");
+			}
+		}
+	}
+
+	@Test
+	public void testCAM02 () {
+		var random = new Random(555);
+		for (CAM02.VC vc : new CAM02.VC[] {CAM02.VC.sRGB, CAM02.VC.with(Observer.CIE2_1931.A, 40, 18, 1, true)}) {
+			var kernel = new CAM02Kernel(vc);
+			for (int i = 0; i < 1000; i++) {
+				XYZ xyz = new RGB(random.nextInt()).XYZ();
+				CAM02 expected = xyz.CAM02(vc), actual = kernel.CAM02(xyz);
+				assertEquals(expected.J(), actual.J(), 0.01f, "J");
+				assertEquals(expected.C(), actual.C(), 0.01f, "C");
+				if (expected.C() > 1) assertEquals(expected.h(), actual.h(), 0.05f, "h");
+				assertEquals(expected.Q(), actual.Q(), 0.01f, "Q");
+				assertEquals(expected.M(), actual.M(), 0.01f, "M");
+				assertEquals(expected.s(), actual.s(), 0.01f, "s");
+				assertClose(expected.CAM02UCS(), kernel.CAM02UCS(xyz), 0.01, "UCS");
+				assertClose(expected.CAM02LCD(), kernel.CAM02LCD(xyz), 0.01, "LCD");
+				assertClose(expected.CAM02SCD(), kernel.CAM02SCD(xyz), 0.01, "SCD");
+				assertClose(expected.XYZ(vc), kernel.XYZ(expected), 0.01, "XYZ");
+				assertClose(xyz, kernel.XYZ(kernel.CAM02UCS(xyz)), 0.01, "UCS XYZ");
+			}
+		}
+	}
+
+	@Test
+	public void testBatch () {
+		var random = new Random(555);
+		int count = 5000;
+		var xyz = new float[count * 3];
+		for (int i = 0; i < count; i++) {
+			XYZ color = new RGB(random.nextInt()).XYZ();
+			xyz[i * 3] = color.X();
+			xyz[i * 3 + 1] = color.Y();
+			xyz[i * 3 + 2] = color.Z();
+		}
+		var kernel16 = new CAM16Kernel(CAM16.VC.sRGB);
+		var kernel02 = new CAM02Kernel(CAM02.VC.sRGB);
+		var out = new float[count * 3];
+		var parallel = new float[count * 3];
+		var back = new float[count * 3];
+		for (CAM16Kernel.Space space : CAM16Kernel.Space.values()) {
+			kernel16.forward(space, xyz, out);
+			kernel16.forwardParallel(space, xyz, parallel);
+			assertArrayEquals(out, parallel, space.name());
+			for (int i = 0; i < count; i += 97) {
+				XYZ color = new XYZ(xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]);
+				float[] expected = switch (space) {
+				case jch -> {
+					CAM16 cam = kernel16.CAM16(color);
+					yield new float[] {cam.J(), cam.C(), cam.h()};
+				}
+				case ucs -> Colors.floats(kernel16.CAM16UCS(color));
+				case lcd -> Colors.floats(kernel16.CAM16LCD(color));
+				case scd -> Colors.floats(kernel16.CAM16SCD(color));
+				};
+				assertEquals(expected[0], out[i * 3], 0.0001f, space.name());
+				assertEquals(expected[1], out[i * 3 + 1], 0.0001f, space.name());
+			}
+			kernel16.inverseParallel(space, out, back);
+			assertClose(xyz, back, 0.02, space.name());
+		}
+		for (CAM02Kernel.Space space : CAM02Kernel.Space.values()) {
+			kernel02.forward(space, xyz, out);
+			kernel02.inverse(space, out, back);
+			assertClose(xyz, back, 0.02, space.name());
+		}
+	}
+
+	@Test
+	public void testCache () {
+		XYZ wp = Observer.CIE2_1931.D50;
+		CAM16.VC vc = CAM16.VC.get(wp, 64, 20, 2, false);
+		assertSame(vc, CAM16.VC.get(new XYZ(wp.X(), wp.Y(), wp.Z()), 64, 20, 2, false));
+		assertNotSame(vc, CAM16.VC.get(wp, 64, 20, 2, true));
+		assertClose(CAM16.VC.with(wp, 64, 20, 2, false).rgbD(), vc.rgbD(), 0, "rgbD");
+		assertSame(CAM16Kernel.get(vc), CAM16Kernel.get(CAM16.VC.get(wp, 64, 20, 2, false)));
+		// Kernels are keyed by value, so separately computed VCs share one.
+		assertSame(CAM16Kernel.get(vc), CAM16Kernel.get(CAM16.VC.with(wp, 64, 20, 2, false)));
+		assertSame(CAM02Kernel.get(CAM02.VC.with(wp, 64, 20, 2, false)), CAM02Kernel.get(CAM02.VC.with(wp, 64, 20, 2, false)));
+		assertNotSame(CAM16Kernel.get(vc), CAM16Kernel.get(CAM16.VC.with(wp, 64, 20, 2, true)));
+
+		// Quantized conditions share a VC computed from the rounded values.
+		CAM02.VC a = CAM02.VC.get(wp, 100.02f, 20, 2, true, 0.01f), b = CAM02.VC.get(wp, 99.98f, 20, 2, true, 0.01f);
+		assertSame(a, b);
+		assertEquals(100, a.La(), 0.5f);
+		assertSame(CAM02Kernel.get(a), CAM02Kernel.get(b));
+
+		// Quantization is relative and never changes the surround, so results stay close to the exact VC.
+		XYZ D65 = Observer.Default.D65;
+		for (float quantum : new float[] {0.001f, 0.01f, 0.05f}) {
+			CAM16.VC exact = CAM16.VC.with(D65, 64, 20, 2, false), rounded = CAM16.VC.get(D65, 64, 20, 2, false, quantum);
+			assertEquals(exact.c(), rounded.c());
+			assertEquals(exact.Nc(), rounded.Nc());
+			assertEquals(64, rounded.La(), 64 * quantum / 2);
+			assertEquals(20, rounded.Yb(), 20 * quantum / 2);
+			assertEquals(D65.X(), rounded.wp().X(), D65.X() * quantum / 2);
+			XYZ xyz = new RGB(0x336699).XYZ();
+			assertEquals(xyz.CAM16(exact).J(), xyz.CAM16(rounded).J(), 100 * quantum);
+		}
+		CAM02.VC dim = CAM02.VC.get(D65, 64, 20, 1, false, 0.05f);
+		assertEquals(CAM02.VC.with(D65, 64, 20, 1, false).c(), dim.c());
+		assertThrows(IllegalArgumentException.class, () -> CAM16.VC.get(D65, 64, 20, 2, false, 1));
+
+		// White points derived for the 2015 observers.
+		for (Observer observer : new Observer[] {Observer.CIE2_2015, Observer.CIE10_2015}) {
+			assertEquals(100, observer.D65.Y(), 0.001f);
+			assertEquals(0.3127f, observer.D65.xy().x(), 0.003f);
+			assertEquals(0.4476f, observer.A.xy().x(), 0.01f);
+		}
+	}
+}
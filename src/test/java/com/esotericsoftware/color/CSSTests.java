@@ -0,0 +1,133 @@
+package com.esotericsoftware.color;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.CSS.Syntax;
+import com.esotericsoftware.color.space.HSL;
+import com.esotericsoftware.color.space.LCh;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.Oklab;
+import com.esotericsoftware.color.space.Oklch;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.XYZ;
+
+public class CSSTests extends Tests {
+	@Test
+	public void testParse () {
+		var values = new float[4];
+		assertEquals(Syntax.hex, CSS.parse("#f80", values));
+		assertArrayEquals(new float[] {1, 0x88 / 255f, 0, 1}, values);
+		assertEquals(Syntax.hex, CSS.parse("  #FF880080 ", values));
+		assertArrayEquals(new float[] {1, 0x88 / 255f, 0, 0x80 / 255f}, values);
+		assertEquals(Syntax.hex, CSS.parse("#ff88", values));
+		assertEquals(0x88 / 255f, values[3]);
+		assertNull(CSS.parse("#ff8g00", values));
+		assertNull(CSS.parse("#ff880", values));
+		assertNull(CSS.parse("#\uff46\uff46\uff46", values), "Fullwidth letters are not hex digits");
+		assertNull(CSS.parse("#\u0661\u0662\u0663", values), "Arabic-Indic digits are not hex digits");
+
+		// Out of range numbers are clamped to the largest finite float, so they can be written back.
+		assertEquals(Syntax.lab, CSS.parse("lab(1e50 -1e50 1e39)", values));
+		assertEquals(Float.MAX_VALUE, values[0]);
+		assertEquals(-Float.MAX_VALUE, values[1]);
+		assertEquals(Float.MAX_VALUE, values[2]);
+		CSS.write(Syntax.lab, values, new StringBuilder());
+
+		assertEquals(Syntax.rgb, CSS.parse("rgb(255 128 0 / 50%)", values));
+		assertArrayEquals(new float[] {1, 128 / 255f, 0, 0.5f}, values, 0.00001f, "rgb");
+		assertEquals(Syntax.rgb, CSS.parse("RGBA(100%, 50%, 0%, 0.25)", values));
+		assertArrayEquals(new float[] {1, 0.5f, 0, 0.25f}, values, 0.00001f, "legacy rgb");
+		assertNull(CSS.parse("rgb(255, 128 0)", values));
+		assertNull(CSS.parse("lab(50, 20, 30)", values));
+
+		assertEquals(Syntax.hsl, CSS.parse("hsl(0.5turn 50% 25%)", values));
+		assertArrayEquals(new float[] {180, 0.5f, 0.25f, 1}, values, 0.00001f, "hsl");
+		assertEquals(Syntax.hsl, CSS.parse("hsl(-90deg 100 50)", values));
+		assertArrayEquals(new float[] {270, 1, 0.5f, 1}, values, 0.00001f, "hsl number");
+		assertEquals(Syntax.hsl, CSS.parse("hsla(3.14159265rad,10%,20%,.5)", values));
+		assertArrayEquals(new float[] {180, 0.1f, 0.2f, 0.5f}, values, 0.0001f, "hsla");
+		assertNull(CSS.parse("hsl(10px 50% 25%)", values));
+
+		assertEquals(Syntax.lab, CSS.parse("lab(50% -100% 1e1)", values));
+		assertArrayEquals(new float[] {50, -125, 10, 1}, values, 0.0001f, "lab");
+		assertEquals(Syntax.lch, CSS.parse("lch(52.2 72.2 none)", values));
+		assertTrue(Float.isNaN(values[2]));
+		assertEquals(Syntax.oklab, CSS.parse("oklab(62.8% 0.225 -25%)", values));
+		assertArrayEquals(new float[] {0.628f, 0.225f, -0.1f, 1}, values, 0.00001f, "oklab");
+		assertEquals(Syntax.oklch, CSS.parse("oklch(0.7 50% 400 / none)", values));
+		assertArrayEquals(new float[] {0.7f, 0.2f, 40, 0}, values, 0.0001f, "oklch");
+
+		assertEquals(Syntax.displayP3, CSS.parse("color(display-p3 1 0.5 0)", values));
+		assertArrayEquals(new float[] {1, 0.5f, 0, 1}, values);
+		assertEquals(Syntax.xyzD65, CSS.parse("color(xyz 0.1 0.2 0.3)", values));
+		assertEquals(Syntax.srgbLinear, CSS.parse("color(srgb-linear 50% 0 1 / 0.1)", values));
+		assertNull(CSS.parse("color(prophoto 1 1 1)", values));
+		assertNull(CSS.parse("color(display-p3)", values));
+		assertNull(CSS.parse("rgb(1 2 3", values));
+		assertNull(CSS.parse("", values));
+
+		// Ranges within a larger sequence.
+		var text = new StringBuilder("a: #00ff00; b: oklch(0.5 0.1 120);");
+		assertEquals(Syntax.hex, CSS.parse(text, 3, 10, values));
+		assertEquals(Syntax.oklch, CSS.parse(text, 15, 33, values));
+	}
+
+	@Test
+	public void testRecords () {
+		assertEquals(new RGB(1, 0x88 / 255f, 0), CSS.parse("#ff8800"));
+		assertEquals(new HSL(120, 0.5f, 0.25f), CSS.parse("hsl(120 50% 25%)"));
+		assertEquals(new Lab(50, 20, -30), CSS.parse("lab(50 20 -30)"));
+		assertEquals(new LCh(50, 20, 30), CSS.parse("lch(50 20 30)"));
+		assertEquals(new Oklab(0.5f, 0.1f, -0.1f), CSS.parse("oklab(0.5 0.1 -0.1)"));
+		assertEquals(new Oklch(0.5f, 0.1f, 30), CSS.parse("oklch(0.5 0.1 30)"));
+		assertEquals(new LRGB(0.5f, 0.25f, 1), CSS.parse("color(srgb-linear 0.5 0.25 1)"));
+		assertThrows(IllegalArgumentException.class, () -> CSS.parse("rgb(nope)"));
+
+		// display-p3 red is outside sRGB.
+		XYZ red = (XYZ)CSS.parse("color(display-p3 1 0 0)");
+		assertClose(Gamut.DisplayP3.XYZ(new LRGB(1, 0, 0)), red, 0.0001, "display-p3");
+		LRGB srgb = Gamut.sRGB.LRGB(red);
+		assertTrue(srgb.g() < 0);
+		// White is the same in every RGB space.
+		assertClose(Gamut.sRGB.XYZ(new LRGB(1, 1, 1)), (XYZ)CSS.parse("color(rec2020 1 1 1)"), 0.01, "rec2020");
+		assertClose(new XYZ(95.05f, 100, 108.9f), (XYZ)CSS.parse("color(xyz-d50 0.9642 1 0.8252)"), 0.3, "xyz-d50");
+	}
+
+	@Test
+	public void testWrite () {
+		assertEquals("#ff8800", CSS.toString(new RGB(1, 0x88 / 255f, 0)));
+		assertEquals("#ff880080", CSS.toString(Syntax.hex, new float[] {1, 0x88 / 255f, 0, 0x80 / 255f}));
+		assertEquals("rgb(255 127.5 0 / 0.5)", CSS.toString(Syntax.rgb, new float[] {1, 0.5f, 0, 0.5f}));
+		assertEquals("hsl(none 0% 50%)", CSS.toString(new HSL(Float.NaN, 0, 0.5f)));
+		assertEquals("lab(50 -20.125 30)", CSS.toString(new Lab(50, -20.125f, 30)));
+		assertEquals("oklch(0.62796 0.25768 29.234)", CSS.toString(new Oklch(0.62796f, 0.25768f, 29.2339f)));
+		assertEquals("color(display-p3 1 0.5 0.00001)", CSS.toString(Syntax.displayP3, new float[] {1, 0.5f, 0.00001f, 1}));
+		assertEquals("color(xyz-d65 0.5 1 0)", CSS.toString(new XYZ(50, 100, 0)));
+		assertThrows(IllegalArgumentException.class, () -> CSS.toString(new com.esotericsoftware.color.space.HSV(0, 0, 0)));
+		assertThrows(IllegalArgumentException.class, () -> CSS.toString(Syntax.lab, new float[] {Float.POSITIVE_INFINITY, 0, 0}));
+
+		// Too large to scale exactly, written with an exponent.
+		assertEquals("lab(1.0E20 0 0)", CSS.toString(Syntax.lab, new float[] {1e20f, 0, 0}));
+		var large = new float[4];
+		CSS.parse(CSS.toString(Syntax.lab, new float[] {-4e16f, 0, 0}), large);
+		assertEquals(-4e16f, large[0]);
+
+		// Round trip.
+		var values = new float[4];
+		for (String css : new String[] {"#12345678", "rgb(10 20 30 / 0.5)", "hsl(200 30% 40%)", "lab(50 -20 30)",
+			"lch(50 20 none)", "oklab(0.5 -0.1 0.1)", "oklch(0.5 0.1 300)", "color(display-p3 0.1 0.2 0.3 / 0.4)",
+			"color(rec2020 1 0 0)"}) {
+			Syntax syntax = CSS.parse(css, values);
+			assertEquals(css, CSS.write(syntax, values, new StringBuilder()).toString());
+		}
+	}
+
+	@Test
+	public void testRGBHex () {
+		assertEquals(new RGB(1, 0x88 / 255f, 0), new RGB("ff8800"));
+		assertEquals(new RGB(1, 0x88 / 255f, 0), new RGB("#FF8800"));
+		assertThrows(IllegalArgumentException.class, () -> new RGB("ff88zz"));
+		assertThrows(IllegalArgumentException.class, () -> new RGB("\uff46\uff46\uff46\uff46\uff46\uff46"));
+	}
+}
@@ -0,0 +1,122 @@
+package com.esotericsoftware.color;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.CVD.Method;
+import com.esotericsoftware.color.CVD.Type;
+import com.esotericsoftware.color.space.LMS.CAT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.RGB;
+
+public class CVDTests extends Tests {
+	@Test
+	public void testSimulate () {
+		var random = new Random(555);
+		for (Type type : Type.values()) {
+			for (Method method : Method.values()) {
+				if (method == Method.vienot && type == Type.tritan) {
+					assertThrows(IllegalArgumentException.class, () -> CVD.simulate(type, method, 1));
+					continue;
+				}
+				CVD cvd = CVD.simulate(type, method, 1);
+				assertSame(cvd, CVD.simulate(type, method, 1));
+				// Neutrals are unchanged.
+				assertClose(new LRGB(1, 1, 1), cvd.LRGB(new LRGB(1, 1, 1)), 0.01, type + " " + method);
+				assertClose(new LRGB(0.3f, 0.3f, 0.3f), cvd.LRGB(new LRGB(0.3f, 0.3f, 0.3f)), 0.01, type + " " + method);
+				// Brettel and Vienot are projections, so simulating twice changes nothing.
+				if (method != Method.machado) {
+					for (int i = 0; i < 100; i++) {
+						LRGB once = cvd.LRGB(new LRGB(random.nextFloat(), random.nextFloat(), random.nextFloat()));
+						assertClose(once, cvd.LRGB(once), 0.0001, "idempotent");
+					}
+				}
+				// Severity 0 is the identity.
+				CVD none = CVD.simulate(type, method, 0);
+				assertArrayEquals(new float[] {1, 0, 0, 0, 1, 0, 0, 0, 1}, none.matrix(), 0.000001f, "identity");
+				int[] pixels = {0xff123456, 0x80ff0000, 0x0000ff00};
+				var out = new int[3];
+				none.argb(pixels, out);
+				assertArrayEquals(pixels, out);
+			}
+		}
+		// Colors differing only in the missing cone's response are confused.
+		for (Type type : Type.values()) {
+			float[] axis = new float[3];
+			axis[type.ordinal()] = 0.05f;
+			float[] xyz = Colors.matrixMultiply(axis[0], axis[1], axis[2], CAT.HPE.backward());
+			float[] delta = Colors.matrixMultiply(xyz[0], xyz[1], xyz[2], Gamut.sRGB.XYZ_RGB);
+			var a = new LRGB(0.5f, 0.4f, 0.3f);
+			var b = new LRGB(a.r() + delta[0], a.g() + delta[1], a.b() + delta[2]);
+			float normal = distance(a, b);
+			assertEquals(0, distance(CVD.simulate(type, Method.brettel, 1), a, b), 0.0001f);
+			if (type != Type.tritan) assertEquals(0, distance(CVD.simulate(type, Method.vienot, 1), a, b), 0.0001f);
+			// Machado is derived from different cone fundamentals, and partial severity is between.
+			float full = distance(CVD.simulate(type, Method.machado, 1), a, b);
+			float partial = distance(CVD.simulate(type, Method.machado, 0.5f), a, b);
+			assertTrue(full < normal * 0.5f && partial > full && partial < normal, type + " " + full + " " + partial);
+		}
+		assertThrows(IllegalArgumentException.class, () -> new CVD(Type.protan, Method.brettel, 1.5f, false));
+	}
+
+	@Test
+	public void testDaltonize () {
+		var red = new LRGB(0.8f, 0.2f, 0.1f);
+		var green = new LRGB(0.45f, 0.55f, 0.1f);
+		CVD simulate = CVD.simulate(Type.deutan, Method.brettel, 1), daltonize = CVD.daltonize(Type.deutan, Method.brettel, 1);
+		// Daltonized colors remain more distinguishable to the simulated deficiency.
+		float before = distance(simulate, red, green);
+		float after = distance(simulate.LRGB(daltonize.LRGB(red)), simulate.LRGB(daltonize.LRGB(green)));
+		assertTrue(after > before * 1.5f, before + " " + after);
+		assertClose(new LRGB(0.5f, 0.5f, 0.5f), daltonize.LRGB(new LRGB(0.5f, 0.5f, 0.5f)), 0.01, "gray");
+		assertArrayEquals(new float[] {1, 0, 0, 0, 1, 0, 0, 0, 1}, CVD.daltonize(Type.tritan, Method.machado, 0).matrix(),
+			0.000001f, "identity");
+	}
+
+	@Test
+	public void testBatch () {
+		var random = new Random(555);
+		int n = 50000;
+		var pixels = new int[n];
+		for (int i = 0; i < n; i++)
+			pixels[i] = i % 7 == 0 ? pixels[i - 1 < 0 ? 0 : i - 1] : random.nextInt(); // Some runs.
+		for (CVD cvd : new CVD[] {CVD.simulate(Type.protan, Method.brettel, 1), CVD.daltonize(Type.tritan, Method.machado, 0.7f)}) {
+			var out = new int[n];
+			cvd.argb(pixels, out);
+			var parallel = new int[n];
+			cvd.argbParallel(pixels, parallel);
+			assertArrayEquals(out, parallel);
+			for (int i = 0; i < n; i += 97) {
+				assertEquals(pixels[i] >>> 24, out[i] >>> 24);
+				assertClose(cvd.RGB(new RGB(pixels[i])), new RGB(out[i]), 0.5f / 255 + 0.00001, "argb");
+			}
+			cvd.argb(pixels, pixels); // In place.
+			assertArrayEquals(out, pixels);
+		}
+	}
+
+	@Test
+	public void testSRGB8 () {
+		for (int code = 0; code < 256; code++) {
+			assertEquals(Colors.linear(code / 255f), Colors.linear8(code));
+			assertEquals(code, Colors.sRGB8(Colors.linear8(code)));
+		}
+		for (int i = 0; i <= 10000; i++) {
+			float linear = i / 10000f;
+			assertEquals(Math.round(Colors.sRGB(linear) * 255), Colors.sRGB8(linear), "" + linear);
+		}
+		assertEquals(0, Colors.sRGB8(-1));
+		assertEquals(255, Colors.sRGB8(2));
+		assertEquals(0, Colors.sRGB8(Float.NaN));
+	}
+
+	static private float distance (CVD cvd, LRGB a, LRGB b) {
+		return distance(cvd.LRGB(a), cvd.LRGB(b));
+	}
+
+	static private float distance (LRGB a, LRGB b) {
+		float dr = a.r() - b.r(), dg = a.g() - b.g(), db = a.b() - b.b();
+		return (float)Math.sqrt(dr * dr + dg * dg + db * db);
+	}
+}
@@ -0,0 +1,78 @@
+package com.esotericsoftware.color;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.Gamut.RGBGamut;
+import com.esotericsoftware.color.space.LMS;
+import com.esotericsoftware.color.space.LMS.CAT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.XYZ;
+import com.esotericsoftware.color.space.xy;
+
+public class ChromaticAdaptationTests extends Tests {
+	@Test
+	public void testXYZ () {
+		XYZ D65 = Observer.CIE2_1931.D65, D50 = Observer.CIE2_1931.D50, A = Observer.CIE2_1931.A;
+		var random = new Random(555);
+		for (CAT cat : CAT.values()) {
+			var adaptation = new ChromaticAdaptation(D65, A, cat);
+			assertClose(A, adaptation.XYZ(D65), 0.01, cat.name());
+			for (int i = 0; i < 100; i++) {
+				var xyz = new XYZ(random.nextFloat() * 100, random.nextFloat() * 100, random.nextFloat() * 100);
+				assertClose(unfused(xyz, D65, A, cat), adaptation.XYZ(xyz), 0.01, cat.name());
+			}
+		}
+		ChromaticAdaptation cached = ChromaticAdaptation.get(D65, D50, CAT.Bradford);
+		assertSame(cached, ChromaticAdaptation.get(new XYZ(D65.X(), D65.Y(), D65.Z()), D50, CAT.Bradford));
+		assertNotSame(cached, ChromaticAdaptation.get(D65, D50, CAT.CAT16));
+		// Known Bradford D65 to D50 matrix.
+		assertClose(new float[] {1.0478112f, 0.0228866f, -0.0501270f, 0.0295424f, 0.9904844f, -0.0170491f, -0.0092345f, 0.0150436f,
+			0.7521316f}, cached.matrix(), 0.0005, "Bradford D65 to D50");
+	}
+
+	@Test
+	public void testBatch () {
+		var adaptation = ChromaticAdaptation.get(Observer.CIE2_1931.D65, Observer.CIE2_1931.D50, CAT.CAT02);
+		var random = new Random(555);
+		int count = 20000;
+		var in = new float[count * 3];
+		for (int i = 0; i < in.length; i++)
+			in[i] = random.nextFloat() * 100;
+		var out = new float[in.length];
+		var parallel = new float[in.length];
+		adaptation.apply(in, out);
+		adaptation.applyParallel(in, parallel);
+		assertArrayEquals(out, parallel);
+		for (int i = 0; i < count; i += 101) {
+			XYZ expected = adaptation.XYZ(new XYZ(in[i * 3], in[i * 3 + 1], in[i * 3 + 2]));
+			assertEquals(expected.X(), out[i * 3], 0.0001f);
+			assertEquals(expected.Y(), out[i * 3 + 1], 0.0001f);
+			assertEquals(expected.Z(), out[i * 3 + 2], 0.0001f);
+		}
+		adaptation.apply(in, in); // In place.
+		assertArrayEquals(out, in);
+	}
+
+	@Test
+	public void testRGBGamut () {
+		var p3D50 = new RGBGamut(new xy(0.68f, 0.32f), new xy(0.265f, 0.69f), new xy(0.15f, 0.06f), Observer.CIE2_1931.D50);
+		var adaptation = ChromaticAdaptation.get(Gamut.sRGB, p3D50, CAT.Bradford);
+		assertSame(adaptation, ChromaticAdaptation.get(Gamut.sRGB, p3D50, CAT.Bradford));
+		// White maps to white.
+		assertClose(new LRGB(1, 1, 1), adaptation.LRGB(new LRGB(1, 1, 1)), 0.001, "white");
+		var random = new Random(555);
+		for (int i = 0; i < 100; i++) {
+			var rgb = new LRGB(random.nextFloat(), random.nextFloat(), random.nextFloat());
+			XYZ xyz = Gamut.sRGB.XYZ(rgb).chromaticAdaptation(Gamut.sRGB.whitePoint(), p3D50.whitePoint(), CAT.Bradford);
+			LRGB actual = adaptation.LRGB(rgb);
+			assertClose(xyz, p3D50.XYZ(actual), 0.01, "XYZ");
+		}
+	}
+
+	static private XYZ unfused (XYZ xyz, XYZ source, XYZ target, CAT cat) {
+		LMS lms = xyz.LMS(cat), s = source.LMS(cat), t = target.LMS(cat);
+		return new LMS(lms.L() * t.L() / s.L(), lms.M() * t.M() / s.M(), lms.S() * t.S() / s.S()).XYZ(cat);
+	}
+}
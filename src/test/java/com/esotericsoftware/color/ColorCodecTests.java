@@ -0,0 +1,107 @@
+package com.esotericsoftware.color;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.ColorCodec.Precision;
+import com.esotericsoftware.color.ColorCodec.Space;
+import com.esotericsoftware.color.space.LCh;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.RGBWW;
+import com.esotericsoftware.color.space.XYZ;
+
+public class ColorCodecTests extends Tests {
+	@Test
+	public void testSingle () {
+		var buffer = ByteBuffer.allocate(64);
+		Record[] colors = {new RGB(0.25f, 0.5f, 1), new XYZ(41.24f, 21.26f, 1.93f), new LCh(50, 30, 120),
+			new RGBWW(0.1f, 0.2f, 0.3f, 0.4f, 0.5f)};
+		for (Precision precision : Precision.values()) {
+			for (Record color : colors) {
+				buffer.clear();
+				ColorCodec.write(buffer, color, precision);
+				ColorCodec codec = ColorCodec.peek(buffer.flip());
+				assertEquals(Space.of(color.getClass()), codec.space);
+				assertEquals(1 + codec.space.components * precision.bytes, buffer.remaining());
+				Record decoded = ColorCodec.read(buffer);
+				assertEquals(color.getClass(), decoded.getClass());
+				double epsilon = switch (precision) {
+				case float32 -> 0;
+				case float16 -> 0.05;
+				case fixed16 -> 0.005;
+				case fixed8 -> 0.8;
+				};
+				assertClose(color, decoded, epsilon, color + " " + precision);
+			}
+		}
+	}
+
+	@Test
+	public void testFrames () {
+		var random = new Random(555);
+		int count = 1000;
+		var values = new float[count * 3];
+		for (int i = 0; i < values.length; i++)
+			values[i] = random.nextFloat();
+		var buffer = ByteBuffer.allocate(count * 20);
+		var decoded = new float[values.length];
+		for (Precision precision : Precision.values()) {
+			ColorCodec codec = ColorCodec.get(Space.rgb, precision);
+			buffer.clear();
+			codec.write(buffer, values, count);
+			assertEquals(codec.bytes(count), buffer.position());
+			buffer.flip();
+			assertFalse(ColorCodec.peekDelta(buffer));
+			assertEquals(count, codec.read(buffer, decoded));
+			float epsilon = precision == Precision.fixed8 ? 0.002f : 0.0005f;
+			assertClose(values, decoded, epsilon, precision.name());
+		}
+		assertThrows(IllegalArgumentException.class, () -> {
+			buffer.clear();
+			ColorCodec.get(Space.rgb, Precision.fixed8).write(buffer, values, count);
+			ColorCodec.get(Space.hsl, Precision.fixed8).read(buffer.flip(), decoded);
+		});
+	}
+
+	@Test
+	public void testDelta () {
+		var random = new Random(555);
+		int count = 512;
+		var frame = new float[count * 3];
+		for (int i = 0; i < frame.length; i++)
+			frame[i] = random.nextFloat();
+		var buffer = ByteBuffer.allocate(count * 20);
+		for (Precision precision : Precision.values()) {
+			ColorCodec codec = ColorCodec.get(Space.rgb, precision);
+			float[] previous = frame.clone(), decoded = new float[frame.length];
+			buffer.clear();
+			codec.write(buffer, previous, count);
+			codec.read(buffer.flip(), decoded);
+			for (int f = 0; f < 10; f++) {
+				// Change a few colors per frame.
+				var next = previous.clone();
+				for (int i = 0; i < 20; i++)
+					next[random.nextInt(next.length)] = random.nextFloat();
+				buffer.clear();
+				codec.writeDelta(buffer, next, previous, count);
+				int full = codec.bytes(count);
+				if (precision.bytes > 1) // Fixed8 is already one byte per component.
+					assertTrue(buffer.position() < full, precision + " delta: " + buffer.position() + " >= " + full);
+				buffer.flip();
+				assertTrue(ColorCodec.peekDelta(buffer));
+				assertEquals(count, codec.read(buffer, decoded, decoded)); // In place.
+				var expected = new float[next.length];
+				buffer.clear();
+				codec.write(buffer, next, count);
+				codec.read(buffer.flip(), expected);
+				assertArrayEquals(expected, decoded, precision.name());
+				previous = next;
+			}
+			buffer.clear();
+			codec.writeDelta(buffer, previous, previous, count);
+			assertEquals(1 + 2 + count * 3, buffer.position()); // Unchanged values take one byte.
+		}
+	}
+}
@@ -1132,4 +1132,33 @@ public class ColorsTest extends Tests {
 		// Error should not accumulate significantly
 		assertClose(start, current, 0.01f, "Lab conversion stability");
 	}
+
+	@Test
+	public void testFormatting () {
+		var rgb = new RGB(1, 0.5f, 0);
+		assertArrayEquals(new float[] {1, 0.5f, 0}, floats(rgb));
+		assertArrayEquals(new float[] {0.1f, 0.2f, 0.3f, 0.4f}, floats(new CMYK(0.1f, 0.2f, 0.3f, 0.4f)));
+		var values = new float[6];
+		assertEquals(3, floats(new Lab(50, 10, -20), values, 2));
+		assertArrayEquals(new float[] {0, 0, 50, 10, -20, 0}, values);
+		assertArrayEquals(new float[] {1, 2, 3}, floats(new Mixed(1, 2, 3)));
+		assertThrows(IllegalArgumentException.class, () -> floats(new Named("a", 1)));
+
+		assertEquals("ff8000", hex(rgb));
+		assertEquals("1.0, 0.5, 0.0", Colors.toString(rgb));
+		assertEquals("255, 128, 0", toString255(rgb));
+		assertEquals("0.1, 0.2, 0.3, 0.4", Colors.toString(new CMYK(0.1f, 0.2f, 0.3f, 0.4f)));
+		var buffer = new StringBuilder("#");
+		assertSame(buffer, hex(rgb, buffer));
+		assertEquals("#ff8000", buffer.toString());
+		var writer = new java.io.StringWriter();
+		Colors.toString(rgb, writer);
+		writer.append(" / ");
+		toString255(rgb, writer);
+		assertEquals("1.0, 0.5, 0.0 / 255, 128, 0", writer.toString());
+	}
+
+	public record Mixed (float a, int b, double c) {}
+
+	public record Named (String name, float value) {}
 }
@@ -0,0 +1,101 @@
+package com.esotericsoftware.color;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.Contrast.Repair;
+import com.esotericsoftware.color.space.RGB;
+
+public class ContrastTests extends Tests {
+	@Test
+	public void testRatios () {
+		var random = new Random(555);
+		int n = 300;
+		var packed = new int[n];
+		var colors = new RGB[n];
+		for (int i = 0; i < n; i++) {
+			packed[i] = random.nextInt();
+			colors[i] = new RGB(packed[i]);
+		}
+		var contrast = new Contrast(packed);
+		var fromRecords = new Contrast(colors);
+		var ratios = new float[n * n];
+		contrast.ratios(ratios);
+		var parallel = new float[n * n];
+		contrast.ratiosParallel(parallel);
+		assertArrayEquals(ratios, parallel);
+		for (int fg = 0; fg < n; fg += 7) {
+			for (int bg = 0; bg < n; bg += 11) {
+				float expected = colors[fg].contrastRatio(colors[bg]);
+				assertEquals(expected, ratios[fg * n + bg], expected * 0.0001f);
+				assertEquals(ratios[fg * n + bg], ratios[bg * n + fg]);
+				assertEquals(expected, fromRecords.ratio(fg, bg), expected * 0.0001f);
+			}
+			assertEquals(1, ratios[fg * n + fg], 0.000001f);
+		}
+		assertEquals(21, Contrast.ratio(0f, 1f), 0.0001f);
+		assertThrows(IllegalArgumentException.class, () -> contrast.ratios(new float[n]));
+	}
+
+	@Test
+	public void testAPCA () {
+		RGB black = new RGB(0, 0, 0), white = new RGB(1, 1, 1);
+		// APCA reference values.
+		assertEquals(106.04f, Contrast.APCA(black, white), 0.01f);
+		assertEquals(-107.88f, Contrast.APCA(white, black), 0.01f);
+		assertEquals(0, Contrast.APCA(white, white));
+		assertEquals(63.06f, Contrast.APCA(new RGB(0x888888), white), 0.05f);
+		assertEquals(-68.54f, Contrast.APCA(white, new RGB(0x888888)), 0.05f);
+		// Clipped to 0 before the offset, so small nonzero values are at least 7.3.
+		float low = Contrast.APCA(new RGB(0x112233), new RGB(0x444444));
+		assertTrue(Math.abs(low) >= 7.3f && Math.abs(low) < 10, "Lc: " + low);
+
+		var random = new Random(555);
+		int n = 200;
+		var packed = new int[n];
+		for (int i = 0; i < n; i++)
+			packed[i] = random.nextInt();
+		var contrast = new Contrast(packed);
+		var lc = new float[n * n];
+		contrast.APCA(lc);
+		var parallel = new float[n * n];
+		contrast.APCAParallel(parallel);
+		assertArrayEquals(lc, parallel);
+		for (int text = 0; text < n; text += 13)
+			for (int bg = 0; bg < n; bg += 17)
+				assertEquals(Contrast.APCA(new RGB(packed[text]), new RGB(packed[bg])), lc[text * n + bg], 0.01f);
+	}
+
+	@Test
+	public void testRepair () {
+		var random = new Random(555);
+		for (Repair method : Repair.values()) {
+			for (int i = 0; i < 50; i++) {
+				RGB fg = new RGB(random.nextInt()), bg = new RGB(random.nextInt());
+				float target = i % 2 == 0 ? 4.5f : 7;
+				RGB repaired = Contrast.repair(fg, bg, target, method);
+				if (fg.contrastRatio(bg) >= target) {
+					assertSame(fg, repaired);
+					continue;
+				}
+				if (repaired == null) continue; // Mid luminance backgrounds may not reach 7.
+				float ratio = repaired.contrastRatio(bg);
+				assertTrue(ratio >= target - 0.001f, method + " " + ratio);
+				assertTrue(ratio < target + 0.1f, method + " " + ratio); // Minimal change.
+			}
+		}
+		// Hue is kept.
+		RGB blue = new RGB(0x6080ff), repaired = Contrast.repair(blue, new RGB(1, 1, 1), 4.5f, Repair.hct);
+		assertEquals(blue.HCT().h(), repaired.HCT().h(), 2);
+		assertTrue(repaired.HCT().T() < blue.HCT().T());
+		// Oklch reduces chroma to fit sRGB rather than clipping channels.
+		RGB pure = new RGB(0x0000ff);
+		repaired = Contrast.repair(pure, new RGB(0x000080), 4.5f, Repair.oklch);
+		assertTrue(repaired.contrastRatio(new RGB(0x000080)) >= 4.5f);
+		assertEquals(pure.Oklch().h(), repaired.Oklch().h(), 0.1f);
+		// A mid gray background cannot reach 21.
+		assertNull(Contrast.repair(new RGB(0.5f, 0.5f, 0.5f), new RGB(0.5f, 0.5f, 0.5f), 20, Repair.oklch));
+		assertThrows(IllegalArgumentException.class, () -> Contrast.repair(blue, blue, 22, Repair.hct));
+	}
+}
@@ -0,0 +1,82 @@
+package com.esotericsoftware.color;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.DMX.Patch;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.RGBW;
+import com.esotericsoftware.color.space.RGBWW;
+import com.esotericsoftware.color.space.RGBWW.WW;
+
+public class DMXTests extends Tests {
+	static final LRGB warm = new LRGB(1, 0.8f, 0.6f), cool = new LRGB(0.8f, 0.9f, 1);
+	static final WW ww = new WW(warm, cool);
+
+	@Test
+	public void testMatchesSingle () {
+		var lrgb = new float[] {0.9f, 0.7f, 0.5f, 0.2f, 0.6f, 0.9f, 1, 0.1f, 0.4f};
+		var dmx = new DMX( //
+			new Patch(0, 0, warm, false), //
+			new Patch(0, 10, ww, false), //
+			new Patch(1, 500, ww, true));
+		var universes = new byte[dmx.universes()][512];
+		dmx.solve(lrgb, universes);
+
+		RGBW rgbw = new LRGB(lrgb[0], lrgb[1], lrgb[2]).RGBW(warm);
+		assertEquals(rgbw.r8(), u8(universes[0], 0), "R");
+		assertEquals(rgbw.g8(), u8(universes[0], 1), "G");
+		assertEquals(rgbw.b8(), u8(universes[0], 2), "B");
+		assertEquals(rgbw.w8(), u8(universes[0], 3), "W");
+
+		RGBWW rgbww = new LRGB(lrgb[3], lrgb[4], lrgb[5]).RGBWW(ww);
+		assertEquals(rgbww.r8(), u8(universes[0], 10), "R");
+		assertEquals(rgbww.g8(), u8(universes[0], 11), "G");
+		assertEquals(rgbww.b8(), u8(universes[0], 12), "B");
+		assertEquals(rgbww.w1_8(), u8(universes[0], 13), "W1");
+		assertEquals(rgbww.w2_8(), u8(universes[0], 14), "W2");
+
+		rgbww = new LRGB(lrgb[6], lrgb[7], lrgb[8]).RGBWW(ww);
+		float[] expected = {rgbww.r(), rgbww.g(), rgbww.b(), rgbww.w1(), rgbww.w2()};
+		for (int i = 0; i < 5; i++)
+			assertEquals(Colors.dmx16(expected[i]), u16(universes[1], 500 + i * 2), "16-bit channel " + i);
+		assertEquals(0, universes[0][4], "Unpatched channel");
+	}
+
+	@Test
+	public void testParallel () {
+		int count = 2000;
+		var patches = new Patch[count];
+		var lrgb = new float[count * 3];
+		for (int i = 0; i < count; i++) {
+			boolean wide = i % 3 == 0;
+			patches[i] = new Patch(i / 50, (i % 50) * 10, ww, wide);
+			lrgb[i * 3] = (i % 17) / 16f;
+			lrgb[i * 3 + 1] = (i % 13) / 12f;
+			lrgb[i * 3 + 2] = (i % 7) / 6f;
+		}
+		var dmx = new DMX(patches);
+		assertEquals(40, dmx.universes());
+		var serial = new byte[40][512];
+		var parallel = new byte[40][512];
+		dmx.solve(lrgb, serial);
+		dmx.solveParallel(lrgb, parallel);
+		for (int u = 0; u < 40; u++)
+			assertArrayEquals(serial[u], parallel[u], "Universe " + u);
+	}
+
+	@Test
+	public void testPatchValidation () {
+		assertThrows(IllegalArgumentException.class, () -> new Patch(0, 508, ww, false));
+		assertThrows(IllegalArgumentException.class, () -> new Patch(0, 505, warm, true));
+		assertThrows(IllegalArgumentException.class, () -> new Patch(-1, 0, warm, false));
+		new Patch(0, 504, warm, true);
+	}
+
+	static private int u8 (byte[] universe, int offset) {
+		return universe[offset] & 0xff;
+	}
+
+	static private int u16 (byte[] universe, int offset) {
+		return (universe[offset] & 0xff) << 8 | universe[offset + 1] & 0xff;
+	}
+}
@@ -0,0 +1,132 @@
+package com.esotericsoftware.color;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.DeltaE.Metric;
+import com.esotericsoftware.color.DeltaE.Stats;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.RGB;
+
+public class DeltaETests extends Tests {
+	@Test
+	public void testKernels () {
+		var random = new Random(555);
+		for (int i = 0; i < 2000; i++) {
+			RGB rgb1 = new RGB(random.nextInt()), rgb2 = new RGB(random.nextInt());
+			Lab lab1 = rgb1.Lab(), lab2 = rgb2.Lab();
+			assertEquals(lab1.deltaE2000(lab2), DeltaE.deltaE2000(lab1.L(), lab1.a(), lab1.b(), lab2.L(), lab2.a(), lab2.b()),
+				0.001f, "deltaE2000");
+			assertEquals(lab1.dst(lab2), Metric.cie76.difference(lab1.L(), lab1.a(), lab1.b(), lab2.L(), lab2.a(), lab2.b()),
+				0.0001f, "deltaE76");
+
+			var c1 = new float[3];
+			var c2 = new float[3];
+			int p1 = rgb(rgb1), p2 = rgb(rgb2);
+			Metric.cie2000.coords(p1, c1);
+			assertEquals(lab1.L(), c1[0], 0.001f, "L");
+			assertEquals(lab1.a(), c1[1], 0.001f, "a");
+			assertEquals(lab1.b(), c1[2], 0.001f, "b");
+			Metric.oklab.coords(p1, c1);
+			Metric.oklab.coords(p2, c2);
+			float oklab = Metric.oklab.difference(c1[0], c1[1], c1[2], c2[0], c2[1], c2[2]);
+			assertEquals(rgb1.Oklab().dst(rgb2.Oklab()), oklab, 0.0001f, "Oklab");
+		}
+		// Known CIE94 value: reference (50, 2.6772, -79.7751) vs (50, 0, -82.7485).
+		assertEquals(1.3950f, DeltaE.deltaE94(50, 2.6772f, -79.7751f, 50, 0, -82.7485f), 0.001f);
+	}
+
+	@Test
+	public void testStats () {
+		var random = new Random(1);
+		int n = 100_000;
+		var rgb1 = new int[n];
+		var rgb2 = new int[n];
+		for (int i = 0; i < n; i++) {
+			rgb1[i] = random.nextInt() & 0xffffff;
+			rgb2[i] = i % 4 == 0 ? rgb1[i] : rgb1[i] ^ random.nextInt(0x080808);
+		}
+		for (Metric metric : new Metric[] {Metric.cie76, Metric.cie94, Metric.cie2000, Metric.oklab}) {
+			var map = new float[n];
+			Stats stats = DeltaE.compare(metric, rgb1, rgb2, map);
+			float[] sorted = map.clone();
+			Arrays.sort(sorted);
+			double sum = 0;
+			for (float d : map)
+				sum += d;
+			assertEquals(n, stats.count());
+			assertEquals((float)(sum / n), stats.mean(), 0.0001f, metric + " mean");
+			assertEquals(sorted[n - 1], stats.max(), metric + " max");
+			float p95 = sorted[(int)Math.ceil(n * 0.95) - 1];
+			assertEquals(p95, stats.p95(), p95 * 0.01f, metric + " p95");
+
+			var parallelMap = new float[n];
+			Stats parallel = DeltaE.compareParallel(metric, rgb1, rgb2, parallelMap);
+			assertArrayEquals(map, parallelMap);
+			assertEquals(stats.max(), parallel.max());
+			assertEquals(stats.p95(), parallel.p95());
+			assertEquals(stats.mean(), parallel.mean(), 0.0001f);
+		}
+	}
+
+	@Test
+	public void testEmpty () {
+		Stats stats = DeltaE.compare(Metric.cie2000, new int[0], new int[0], null);
+		assertEquals(0, stats.count());
+		assertTrue(Float.isNaN(stats.p95()));
+		assertEquals(stats, DeltaE.compareParallel(Metric.cie2000, new int[0], new int[0], null));
+		var empty = new float[0];
+		assertEquals(stats, DeltaE.compareParallel(Metric.oklab, empty, empty, empty, empty, empty, empty, null));
+	}
+
+	@Test
+	public void testOklabP95 () {
+		// Oklab differences are about 1/100 of L*a*b* differences, p95 must resolve them.
+		var random = new Random(3);
+		int n = 50_000;
+		var rgb1 = new int[n];
+		var rgb2 = new int[n];
+		for (int i = 0; i < n; i++) {
+			rgb1[i] = random.nextInt() & 0xffffff;
+			rgb2[i] = rgb1[i] ^ random.nextInt(4) ^ random.nextInt(4) << 8 ^ random.nextInt(4) << 16;
+		}
+		var map = new float[n];
+		Stats stats = DeltaE.compareParallel(Metric.oklab, rgb1, rgb2, map);
+		Arrays.sort(map);
+		float p95 = map[(int)Math.ceil(n * 0.95) - 1];
+		assertTrue(p95 < 0.05f, "p95: " + p95);
+		assertEquals(p95, stats.p95(), p95 * 0.01f);
+	}
+
+	@Test
+	public void testPlanar () {
+		var random = new Random(2);
+		int n = 5000;
+		var rgb1 = new int[n];
+		var rgb2 = new int[n];
+		for (int i = 0; i < n; i++) {
+			rgb1[i] = random.nextInt();
+			rgb2[i] = random.nextInt();
+		}
+		for (Metric metric : Metric.values()) {
+			float[] L1 = new float[n], a1 = new float[n], b1 = new float[n], L2 = new float[n], a2 = new float[n], b2 = new float[n];
+			DeltaE.planar(metric, rgb1, L1, a1, b1);
+			DeltaE.planar(metric, rgb2, L2, a2, b2);
+			var packed = new float[n];
+			var planar = new float[n];
+			Stats s1 = DeltaE.compare(metric, rgb1, rgb2, packed);
+			Stats s2 = DeltaE.compareParallel(metric, L1, a1, b1, L2, a2, b2, planar);
+			assertArrayEquals(packed, planar, metric.name());
+			assertEquals(s1.max(), s2.max());
+		}
+		Stats empty = DeltaE.compare(Metric.cie76, new int[0], new int[0], null);
+		assertEquals(0, empty.count());
+		assertTrue(Float.isNaN(empty.mean()));
+	}
+
+	static private int rgb (RGB rgb) {
+		return rgb.r8() << 16 | rgb.g8() << 8 | rgb.b8();
+	}
+}
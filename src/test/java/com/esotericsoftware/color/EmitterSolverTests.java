@@ -0,0 +1,92 @@
+package com.esotericsoftware.color;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.EmitterSolver.Emitter;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.XYZ;
+import com.esotericsoftware.color.space.xy;
+
+public class EmitterSolverTests extends Tests {
+	static final Emitter red = new Emitter(new xy(0.64f, 0.33f), 21.26729f);
+	static final Emitter green = new Emitter(new xy(0.3f, 0.6f), 71.51522f);
+	static final Emitter blue = new Emitter(new xy(0.15f, 0.06f), 7.2175f);
+	static final Emitter white = new Emitter(new xy(0.3127f, 0.329f), 60);
+	static final Emitter amber = new Emitter(new xy(0.575f, 0.42f), 30);
+	static final Emitter lime = new Emitter(new xy(0.41f, 0.55f), 50);
+	static final Emitter cyan = new Emitter(new xy(0.07f, 0.5f), 15);
+
+	@Test
+	public void testRGB () {
+		var solver = new EmitterSolver(red, green, blue);
+		float[] drives = solver.solve(new LRGB(0.5f, 0.3f, 0.2f).XYZ());
+		assertEquals(0.5f, drives[0], 0.001f, "R");
+		assertEquals(0.3f, drives[1], 0.001f, "G");
+		assertEquals(0.2f, drives[2], 0.001f, "B");
+
+		// Out of gamut, negative drives are not allowed.
+		drives = solver.solve(new XYZ(10, 20, 80));
+		for (float drive : drives)
+			assertTrue(drive >= 0 && drive <= 1, "Drive in range: " + drive);
+	}
+
+	@Test
+	public void testMultiEmitter () {
+		var solver = new EmitterSolver(red, green, blue, white, amber, lime, cyan);
+		assertEquals(7, solver.size());
+		assertEquals(6, solver.gamut.vertices.length, "Hull excludes white");
+		assertTrue(solver.gamut.contains(new xy(0.3127f, 0.329f)));
+		assertFalse(solver.gamut.contains(new xy(0.2f, 0.7f)));
+
+		XYZ[] targets = {new xy(0.3127f, 0.329f).XYZ(80), new xy(0.45f, 0.41f).XYZ(100), new xy(0.2f, 0.3f).XYZ(20),
+			new xy(0.6f, 0.35f).XYZ(15)};
+		for (XYZ target : targets) {
+			float[] drives = solver.solve(target);
+			for (float drive : drives)
+				assertTrue(drive >= 0 && drive <= 1, "Drive in range: " + drive);
+			XYZ actual = solver.XYZ(drives);
+			assertEquals(target.X(), actual.X(), 0.01f, "X " + target);
+			assertEquals(target.Y(), actual.Y(), 0.01f, "Y " + target);
+			assertEquals(target.Z(), actual.Z(), 0.01f, "Z " + target);
+		}
+
+		// A heavy weight on white moves the same color onto the other emitters.
+		XYZ target = new xy(0.3127f, 0.329f).XYZ(30);
+		float[] light = new EmitterSolver(new float[] {1, 1, 1, 1000, 1, 1, 1}, red, green, blue, white, amber, lime, cyan)
+			.solve(target);
+		assertTrue(light[3] < solver.solve(target)[3], "Weight reduces white");
+	}
+
+	@Test
+	public void testMax () {
+		var solver = new EmitterSolver(red, green, blue);
+		xy d65 = new xy(0.3127f, 0.329f);
+		float[] drives = solver.solveMax(d65);
+		assertEquals(100, solver.XYZ(drives).Y(), 0.2f, "sRGB white is the brightest D65");
+		assertEquals(1, Math.max(drives[0], Math.max(drives[1], drives[2])), 0.01f, "An emitter is at full");
+
+		var rgbw = new EmitterSolver(red, green, blue, white);
+		assertTrue(rgbw.XYZ(rgbw.solveMax(d65)).Y() > 150, "White adds flux");
+	}
+
+	@Test
+	public void testBatch () {
+		var solver = new EmitterSolver(red, green, blue, white, amber, lime);
+		int count = 1000;
+		var xyz = new float[count * 3];
+		for (int i = 0; i < count; i++) {
+			XYZ target = new LRGB((i % 11) / 10f, (i % 7) / 6f, (i % 5) / 4f).XYZ();
+			xyz[i * 3] = target.X();
+			xyz[i * 3 + 1] = target.Y();
+			xyz[i * 3 + 2] = target.Z();
+		}
+		var serial = new float[count * 6];
+		var parallel = new float[count * 6];
+		solver.solve(xyz, serial);
+		solver.solveParallel(xyz, parallel);
+		assertArrayEquals(serial, parallel);
+		float[] single = solver.solve(new XYZ(xyz[30], xyz[31], xyz[32]));
+		for (int i = 0; i < 6; i++)
+			assertEquals(single[i], serial[60 + i], "Batch matches single " + i);
+	}
+}
@@ -0,0 +1,75 @@
+package com.esotericsoftware.color;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.Fades.Easing;
+import com.esotericsoftware.color.Fades.Space;
+import com.esotericsoftware.color.space.LRGB;
+
+public class FadesTests extends Tests {
+	static final LRGB red = new LRGB(0.8f, 0.1f, 0.05f), blue = new LRGB(0.05f, 0.2f, 0.9f), gray = new LRGB(0.3f, 0.3f, 0.3f);
+
+	@Test
+	public void testMatchesLerp () {
+		LRGB[][] pairs = {{red, blue}, {blue, red}, {gray, blue}, {red, gray}, {gray, gray}};
+		float[] times = {0, 0.25f, 0.5f, 0.9f, 1};
+		for (Space space : Space.values()) {
+			var fades = new Fades(space, pairs.length);
+			for (int i = 0; i < pairs.length; i++)
+				fades.set(i, pairs[i][0], pairs[i][1], 10, 2, Easing.linear);
+			var lrgb = new float[pairs.length * 3];
+			for (float t : times) {
+				fades.update(10 + t * 2, lrgb);
+				for (int i = 0; i < pairs.length; i++) {
+					LRGB a = pairs[i][0], b = pairs[i][1];
+					LRGB expected = switch (space) {
+					case lrgb -> a.lerp(b, t);
+					case oklab -> a.Oklab().lerp(b.Oklab(), t).LRGB();
+					case oklch -> a.Oklch().lerp(b.Oklch(), t).LRGB();
+					case lab -> a.Lab().lerp(b.Lab(), t).LRGB();
+					case lch -> a.LCh().lerp(b.LCh(), t).LRGB();
+					};
+					String message = space + " " + i + " " + t;
+					assertEquals(expected.r(), lrgb[i * 3], 0.0005f, message);
+					assertEquals(expected.g(), lrgb[i * 3 + 1], 0.0005f, message);
+					assertEquals(expected.b(), lrgb[i * 3 + 2], 0.0005f, message);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTiming () {
+		var fades = new Fades(Space.oklab, 2);
+		fades.set(0, red, blue, 1, 1, Easing.inOut);
+		fades.set(1, red, blue, 1, 0, Easing.linear);
+		var lrgb = new float[6];
+		fades.update(0, lrgb);
+		assertEquals(red.r(), lrgb[0], 0.0001f, "Before start");
+		assertEquals(red.r(), lrgb[3], 0.0001f, "Zero duration before start");
+		fades.update(5, lrgb);
+		assertEquals(blue.b(), lrgb[2], 0.0001f, "After end");
+		assertEquals(blue.b(), lrgb[5], 0.0001f, "Zero duration after start");
+		assertFalse(fades.done(0, 1.5f));
+		assertTrue(fades.done(0, 2));
+
+		for (Easing easing : Easing.values()) {
+			assertEquals(0, easing.apply(0), EPSILON_F, easing.name());
+			assertEquals(1, easing.apply(1), EPSILON_F, easing.name());
+		}
+		assertEquals(0.5f, Easing.inOut.apply(0.5f), EPSILON_F);
+	}
+
+	@Test
+	public void testParallel () {
+		int count = 100_000;
+		var fades = new Fades(Space.oklch, count);
+		for (int i = 0; i < count; i++)
+			fades.set(i, new LRGB(i % 7 / 6f, i % 11 / 10f, i % 13 / 12f), blue, i % 5, 3, Easing.values()[i % 6]);
+		var serial = new float[count * 3];
+		var parallel = new float[count * 3];
+		fades.update(2.5f, serial);
+		fades.updateParallel(2.5f, parallel);
+		assertArrayEquals(serial, parallel);
+	}
+}
@@ -0,0 +1,139 @@
+package com.esotericsoftware.color;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.DeltaE.Metric;
+import com.esotericsoftware.color.DeltaE.Stats;
+import com.esotericsoftware.color.HDR.CodeTable;
+import com.esotericsoftware.color.HDR.Lut;
+import com.esotericsoftware.color.HDR.Transfer;
+import com.esotericsoftware.color.space.ITP;
+import com.esotericsoftware.color.space.RGB;
+
+public class HDRTests extends Tests {
+	@Test
+	public void testTransfer () {
+		// BT.2100 reference points.
+		assertEquals(0.5081, Transfer.pq.encode(0.01), 0.0001); // 100 cd/m2.
+		assertEquals(0.7518, Transfer.pq.encode(0.1), 0.0001); // 1000 cd/m2.
+		assertEquals(1, Transfer.pq.encode(1), 0.000001);
+		assertEquals(0.5, Transfer.hlg.encode(1 / 12d), 0.000001);
+		assertEquals(1, Transfer.hlg.encode(1), 0.000001);
+		for (Transfer transfer : Transfer.values())
+			for (int i = 0; i <= 100; i++)
+				assertEquals(i / 100d, transfer.decode(transfer.encode(i / 100d)), 0.000001, transfer.name());
+		assertEquals(ITP.PQ_EOTF_inverse(0.3f), Transfer.pq.encode(0.3), 0.00001);
+	}
+
+	@Test
+	public void testLut () {
+		var random = new Random(555);
+		for (Transfer transfer : Transfer.values()) {
+			for (boolean encode : new boolean[] {true, false}) {
+				Lut lut = HDR.lut(transfer, encode, 0.00001f);
+				assertSame(lut, HDR.lut(transfer, encode, 0.00001f));
+				assertTrue(lut.maxError <= 0.00001f);
+				for (int i = 0; i < 10000; i++) {
+					float value = random.nextFloat();
+					if (i % 2 == 0) value *= value * value * value; // Dense near 0.
+					double exact = encode ? transfer.encode(value) : transfer.decode(value);
+					assertEquals(exact, lut.get(value), 0.000011, transfer + " " + encode + " " + value);
+				}
+				assertEquals(lut.get(1), lut.get(2));
+				assertEquals(lut.get(0), lut.get(Float.NaN));
+			}
+		}
+		assertThrows(IllegalArgumentException.class, () -> new Lut(Transfer.pq, true, 0));
+	}
+
+	@Test
+	public void testCodeTable () {
+		for (Transfer transfer : Transfer.values()) {
+			for (int bits : new int[] {10, 12}) {
+				for (boolean narrow : new boolean[] {true, false}) {
+					CodeTable table = HDR.codeTable(transfer, bits, narrow);
+					assertEquals(narrow ? 64 << bits - 10 : 0, table.black);
+					assertEquals(narrow ? 940 << bits - 10 : (1 << bits) - 1, table.white);
+					assertEquals(0, table.linear(table.black));
+					assertEquals(1, table.linear(table.white), 0.000001f);
+					int max = (1 << bits) - 1;
+					var codes = new short[max + 1];
+					for (int code = 0; code <= max; code++) {
+						codes[code] = (short)code;
+						int clamped = Math.max(table.black, Math.min(table.white, code));
+						double exact = transfer.decode((clamped - table.black) / (double)(table.white - table.black));
+						assertEquals(exact, table.linear(code), 0.000001, "decode");
+						// Every code survives a round trip, except at the flat black end of PQ.
+						if (exact > 0.000001) assertEquals(clamped, table.code(table.linear(code)), transfer + " " + bits + " " + code);
+					}
+					var linear = new float[codes.length];
+					var encoded = new short[codes.length];
+					table.decode(codes, linear, 0, codes.length);
+					table.encode(linear, encoded, 0, codes.length);
+					for (int code = 0; code <= max; code++) {
+						assertEquals(table.linear(code), linear[code]);
+						if (linear[code] > 0.000001f) assertEquals(table.code(linear[code]), encoded[code] & 0xffff);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testICtCp () {
+		var random = new Random(555);
+		int n = 20000;
+		float[] r = new float[n], g = new float[n], b = new float[n];
+		for (int i = 0; i < n; i++) {
+			r[i] = random.nextFloat();
+			g[i] = random.nextFloat();
+			b[i] = random.nextFloat();
+		}
+		float[] I = new float[n], Ct = new float[n], Cp = new float[n];
+		HDR.ICtCp(r, g, b, I, Ct, Cp);
+		float[] pI = new float[n], pCt = new float[n], pCp = new float[n];
+		HDR.ICtCpParallel(r, g, b, pI, pCt, pCp);
+		assertArrayEquals(I, pI);
+		assertArrayEquals(Cp, pCp);
+		for (int i = 0; i < n; i += 37) {
+			// The record path from sRGB, converted to Rec. 2020 the same way.
+			ITP expected = new RGB(Colors.sRGB(r[i]), Colors.sRGB(g[i]), Colors.sRGB(b[i])).ITP();
+			float rr = 0.627404f * r[i] + 0.329282f * g[i] + 0.0433136f * b[i];
+			float gg = 0.069097f * r[i] + 0.91954f * g[i] + 0.0113612f * b[i];
+			float bb = 0.0163916f * r[i] + 0.0880132f * g[i] + 0.895595f * b[i];
+			var out = new float[3];
+			HDR.ICtCp(rr, gg, bb, out);
+			assertEquals(expected.I(), out[0], 0.0001f);
+			assertEquals(expected.Ct(), out[1], 0.0001f);
+			assertEquals(expected.Cp(), out[2], 0.0001f);
+			assertTrue(HDR.deltaEITP(expected.I(), expected.Ct(), expected.Cp(), out[0], out[1], out[2]) < 0.05f);
+		}
+		float[] r2 = new float[n], g2 = new float[n], b2 = new float[n];
+		HDR.Rec2020Parallel(I, Ct, Cp, r2, g2, b2);
+		assertClose(r, r2, 0.0005, "r");
+		assertClose(g, g2, 0.0005, "g");
+		assertClose(b, b2, 0.0005, "b");
+		HDR.Rec2020(I, Ct, Cp, I, Ct, Cp); // In place.
+		assertArrayEquals(r2, I);
+	}
+
+	@Test
+	public void testDeltaEITP () {
+		assertEquals(0, HDR.deltaEITP(0.5f, 0.1f, -0.1f, 0.5f, 0.1f, -0.1f));
+		assertEquals(720 * 0.01f, HDR.deltaEITP(0.5f, 0, 0, 0.51f, 0, 0), 0.001f);
+		assertEquals(720 * 0.005f, HDR.deltaEITP(0.5f, 0, 0, 0.5f, 0.01f, 0), 0.001f); // T is Ct / 2.
+
+		int[] rgb1 = {0xff0000, 0x00ff00, 0x123456, 0x808080}, rgb2 = {0xff0000, 0x00fe00, 0x123457, 0x000000};
+		var map = new float[4];
+		Stats stats = DeltaE.compare(Metric.itp, rgb1, rgb2, map);
+		assertEquals(0, map[0]);
+		for (int i = 1; i < 4; i++) {
+			ITP a = new RGB(rgb1[i]).ITP(), b = new RGB(rgb2[i]).ITP();
+			assertEquals(HDR.deltaEITP(a.I(), a.Ct(), a.Cp(), b.I(), b.Ct(), b.Cp()), map[i], 0.05f);
+		}
+		assertTrue(map[3] > map[1]);
+		assertEquals(map[3], stats.max(), 0.0001f);
+	}
+}
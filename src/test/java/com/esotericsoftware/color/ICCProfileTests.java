@@ -0,0 +1,229 @@
+package com.esotericsoftware.color;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.space.LMS.CAT;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.XYZ;
+
+public class ICCProfileTests extends Tests {
+	static private final XYZ D50 = new XYZ(96.42f, 100, 82.49f);
+
+	@Test
+	public void testParametric () {
+		ICCProfile profile = new ICCProfile(sRGB(false));
+		assertEquals(0x04300000, profile.version);
+		assertEquals("mntr", profile.deviceClass);
+		assertClose(D50, profile.pcsWhitePoint, 0.01, "PCS");
+		assertNative(profile);
+
+		var adaptation = ChromaticAdaptation.get(Gamut.sRGB.whitePoint(), D50, CAT.Bradford);
+		var random = new Random(555);
+		for (int i = 0; i < 1000; i++) {
+			var rgb = new RGB(random.nextFloat(), random.nextFloat(), random.nextFloat());
+			XYZ expected = adaptation.XYZ(Gamut.sRGB.XYZ(rgb.LRGB()));
+			assertClose(expected, profile.XYZ(rgb), 0.05, "XYZ");
+			assertClose(rgb, profile.RGB(profile.XYZ(rgb)), 0.002, "RGB");
+			assertEquals(Colors.linear(rgb.r()), profile.red.apply(rgb.r()), 0.0002f);
+		}
+	}
+
+	@Test
+	public void testJDK () {
+		for (int space : new int[] {ColorSpace.CS_sRGB, ColorSpace.CS_LINEAR_RGB}) {
+			ICCProfile profile = new ICCProfile(ICC_Profile.getInstance(space).getData());
+			assertEquals(0.64f, profile.gamut.red.xy().x(), 0.002f);
+			assertEquals(0.33f, profile.gamut.red.xy().y(), 0.002f);
+			assertEquals(0.3f, profile.gamut.green.xy().x(), 0.002f);
+			assertEquals(0.15f, profile.gamut.blue.xy().x(), 0.002f);
+			for (int i = 0; i <= 100; i++) {
+				float value = i / 100f;
+				float expected = space == ColorSpace.CS_sRGB ? Colors.linear(value) : value;
+				assertEquals(expected, profile.green.apply(value), 0.002f);
+				assertEquals(value, profile.green.invert(profile.green.apply(value)), 0.005f);
+			}
+		}
+	}
+
+	@Test
+	public void testBatch () {
+		ICCProfile profile = new ICCProfile(sRGB(true));
+		assertNative(profile);
+		assertEquals(2.2f, profile.red.gamma, 0.01f);
+		var random = new Random(555);
+		int count = 10000;
+		var bytes = new byte[count * 3];
+		random.nextBytes(bytes);
+		var rgb = new float[count * 3];
+		for (int i = 0; i < rgb.length; i++)
+			rgb[i] = (bytes[i] & 0xff) / 255f;
+		float[] xyz = new float[rgb.length], parallel = new float[rgb.length], xyz8 = new float[rgb.length];
+		profile.XYZ(rgb, xyz);
+		profile.XYZParallel(rgb, parallel);
+		profile.XYZ(bytes, xyz8);
+		assertArrayEquals(xyz, parallel);
+		assertClose(xyz, xyz8, 0.0001, "8-bit");
+		for (int i = 0; i < count; i += 97)
+			assertClose(profile.XYZ(new RGB(rgb[i * 3], rgb[i * 3 + 1], rgb[i * 3 + 2])),
+				new XYZ(xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]), 0.0001, "XYZ");
+		var back = new float[rgb.length];
+		profile.RGB(xyz, back);
+		assertClose(rgb, back, 0.003, "RGB");
+
+		var lab = new float[] {1, 1, 1, 0, 0, 0};
+		profile.Lab(lab, lab);
+		assertArrayEquals(new float[] {100, 0, 0, 0, 0, 0}, lab, 0.05f, "Lab");
+	}
+
+	@Test
+	public void testCache () {
+		byte[] data = sRGB(false);
+		ICCProfile profile = ICCProfile.get(data);
+		assertSame(profile, ICCProfile.get(data.clone()));
+		assertNotSame(profile, ICCProfile.get(sRGB(true)));
+		// The rendering intent is excluded from the computed ID.
+		byte[] intent = data.clone();
+		intent[67] = 1;
+		assertSame(profile, ICCProfile.get(intent));
+		// A profile ID in the header is used as is.
+		byte[] id = data.clone();
+		id[84] = 42;
+		assertEquals(42, ICCProfile.get(id).id[0]);
+
+		assertThrows(IllegalArgumentException.class, () -> new ICCProfile(new byte[200]));
+		assertThrows(IllegalArgumentException.class,
+			() -> new ICCProfile(ICC_Profile.getInstance(ColorSpace.CS_PYCC).getData()));
+	}
+
+	@Test
+	public void testMalformed () {
+		byte[] data = sRGB(true);
+		var buffer = ByteBuffer.wrap(data);
+		int rXYZ = 132, rTRC = 132 + 4 * 12, curve = buffer.getInt(rTRC + 4);
+		for (int count : new int[] {0x7fffff00, -5, 100}) {
+			byte[] bad = data.clone();
+			ByteBuffer.wrap(bad).putInt(curve + 8, count);
+			assertThrows(IllegalArgumentException.class, () -> new ICCProfile(bad), "curv count " + count);
+		}
+		for (int offset : new int[] {data.length, data.length - 4, -8, Integer.MAX_VALUE}) {
+			byte[] bad = data.clone();
+			ByteBuffer.wrap(bad).putInt(rXYZ + 4, offset);
+			assertThrows(IllegalArgumentException.class, () -> new ICCProfile(bad), "tag offset " + offset);
+		}
+		byte[] size = data.clone();
+		ByteBuffer.wrap(size).putInt(rXYZ + 8, Integer.MAX_VALUE);
+		assertThrows(IllegalArgumentException.class, () -> new ICCProfile(size));
+
+		// Truncated and corrupted profiles fail only with IllegalArgumentException.
+		var random = new Random(555);
+		for (byte[] profile : new byte[][] {data, sRGB(false)}) {
+			for (int length = 0; length < profile.length; length++)
+				parseUntrusted(Arrays.copyOf(profile, length));
+			for (int i = 0; i < 5000; i++) {
+				byte[] bad = profile.clone();
+				for (int ii = 0, n = 1 + random.nextInt(4); ii < n; ii++)
+					bad[128 + random.nextInt(bad.length - 128)] = (byte)random.nextInt();
+				parseUntrusted(bad);
+			}
+		}
+	}
+
+	private void parseUntrusted (byte[] data) {
+		try {
+			new ICCProfile(data);
+		} catch (IllegalArgumentException ignored) {
+		}
+	}
+
+	private void assertNative (ICCProfile profile) {
+		assertEquals(0.64f, profile.gamut.red.xy().x(), 0.001f);
+		assertEquals(0.6f, profile.gamut.green.xy().y(), 0.001f);
+		assertEquals(0.06f, profile.gamut.blue.xy().y(), 0.001f);
+		assertEquals(0.3127f, profile.gamut.whitePoint().xy().x(), 0.001f);
+		assertEquals(0.329f, profile.gamut.whitePoint().xy().y(), 0.001f);
+	}
+
+	/** Builds a D50 adapted sRGB profile, v4 with chad and parametric curves or v2 with a D65 media white point and gamma 2.2. */
+	static private byte[] sRGB (boolean v2) {
+		XYZ D65 = Gamut.sRGB.whitePoint();
+		var adaptation = ChromaticAdaptation.get(D65, D50, CAT.Bradford);
+		var buffer = ByteBuffer.allocate(1024);
+		buffer.putInt(4, 0x6c636d73); // lcms
+		buffer.putInt(8, v2 ? 0x02100000 : 0x04300000);
+		buffer.put(12, "mntrRGB XYZ ".getBytes());
+		buffer.putInt(36, 0x61637370); // acsp
+		putXYZ(buffer, 68, D50);
+		String[] tags = v2 ? new String[] {"rXYZ", "gXYZ", "bXYZ", "wtpt", "rTRC", "gTRC", "bTRC"}
+			: new String[] {"rXYZ", "gXYZ", "bXYZ", "wtpt", "chad", "rTRC", "gTRC", "bTRC"};
+		buffer.putInt(128, tags.length);
+		int offset = 132 + tags.length * 12;
+		for (int i = 0; i < tags.length; i++) {
+			int start = offset;
+			switch (tags[i]) {
+			case "rXYZ", "gXYZ", "bXYZ" -> {
+				int column = "rgb".indexOf(tags[i].charAt(0));
+				float[][] m = Gamut.sRGB.RGB_XYZ;
+				offset = putXYZTag(buffer, offset, adaptation.XYZ(new XYZ(m[0][column], m[1][column], m[2][column])));
+			}
+			case "wtpt" -> offset = putXYZTag(buffer, offset, v2 ? D65 : D50);
+			case "chad" -> {
+				buffer.putInt(offset, 0x73663332); // sf32
+				float[] m = adaptation.matrix();
+				for (int ii = 0; ii < 9; ii++)
+					buffer.putInt(offset + 8 + ii * 4, Math.round(m[ii] * 65536));
+				offset += 44;
+			}
+			default -> {
+				if (i > 0 && tags[i - 1].endsWith("TRC")) { // Shared curve.
+					buffer.putInt(132 + i * 12, sig(tags[i]));
+					buffer.putInt(132 + i * 12 + 4, buffer.getInt(132 + (i - 1) * 12 + 4));
+					buffer.putInt(132 + i * 12 + 8, buffer.getInt(132 + (i - 1) * 12 + 8));
+					continue;
+				}
+				if (v2) {
+					buffer.putInt(offset, 0x63757276); // curv
+					buffer.putInt(offset + 8, 1);
+					buffer.putShort(offset + 12, (short)Math.round(2.2f * 256));
+					offset += 16;
+				} else {
+					buffer.putInt(offset, 0x70617261); // para
+					buffer.putShort(offset + 8, (short)3);
+					float[] params = {2.4f, 1 / 1.055f, 0.055f / 1.055f, 1 / 12.92f, 0.04045f};
+					for (int ii = 0; ii < params.length; ii++)
+						buffer.putInt(offset + 12 + ii * 4, Math.round(params[ii] * 65536));
+					offset += 32;
+				}
+			}
+			}
+			buffer.putInt(132 + i * 12, sig(tags[i]));
+			buffer.putInt(132 + i * 12 + 4, start);
+			buffer.putInt(132 + i * 12 + 8, offset - start);
+		}
+		buffer.putInt(0, offset);
+		var data = new byte[offset];
+		buffer.get(0, data);
+		return data;
+	}
+
+	static private int putXYZTag (ByteBuffer buffer, int offset, XYZ xyz) {
+		buffer.putInt(offset, 0x58595a20); // XYZ
+		putXYZ(buffer, offset + 8, xyz);
+		return offset + 20;
+	}
+
+	static private void putXYZ (ByteBuffer buffer, int offset, XYZ xyz) {
+		buffer.putInt(offset, Math.round(xyz.X() / 100 * 65536));
+		buffer.putInt(offset + 4, Math.round(xyz.Y() / 100 * 65536));
+		buffer.putInt(offset + 8, Math.round(xyz.Z() / 100 * 65536));
+	}
+
+	static private int sig (String tag) {
+		return ByteBuffer.wrap(tag.getBytes()).getInt();
+	}
+}
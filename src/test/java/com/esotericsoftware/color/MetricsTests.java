@@ -0,0 +1,119 @@
+package com.esotericsoftware.color;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.Metrics.CacheStats;
+import com.esotericsoftware.color.Metrics.Counter;
+import com.esotericsoftware.color.Metrics.Distribution;
+import com.esotericsoftware.color.Metrics.Histogram;
+import com.esotericsoftware.color.Metrics.Snapshot;
+import com.esotericsoftware.color.space.CCT;
+import com.esotericsoftware.color.space.HCT;
+import com.esotericsoftware.color.space.uv;
+import com.esotericsoftware.color.space.xy;
+
+public class MetricsTests extends Tests {
+	@Test
+	public void testDisabled () {
+		Metrics.enable(false);
+		Metrics.reset();
+		new HCT(120, 200, 50).RGB();
+		Gamut.sRGB.nearest(new xy(0.1f, 0.8f));
+		assertEquals(0, Metrics.start());
+		Snapshot snapshot = Metrics.snapshot();
+		assertEquals(0, snapshot.get(Counter.gamutTests));
+		assertEquals(0, snapshot.get(Distribution.hctIterations).count());
+		assertTrue(Float.isNaN(snapshot.gamutClampRate()));
+	}
+
+	@Test
+	public void testProbes () {
+		Metrics.enable(true);
+		try {
+			probes();
+		} finally {
+			Metrics.enable(false);
+		}
+	}
+
+	private void probes () {
+		Metrics.reset();
+		new HCT(120, 40, 50).RGB(); // Converges.
+		new HCT(120, 200, 50).RGB(); // Out of gamut, falls back to bisection.
+		Gamut.sRGB.nearest(new xy(0.1f, 0.8f));
+		Gamut.sRGB.raycast(new xy(0.3127f, 0.329f));
+		Gamut.sRGB.nearest(new uv(0.2f, 0.47f));
+		new CCT(500).uv();
+		new uv(Float.NaN, 0.5f).CCT();
+		new CCT(6500).reference().CRI();
+
+		Snapshot snapshot = Metrics.snapshot();
+		assertEquals(1, snapshot.get(Counter.hctBisections));
+		Histogram.Snapshot iterations = snapshot.get(Distribution.hctIterations);
+		assertEquals(2, iterations.count());
+		assertTrue(iterations.max() >= 1 && iterations.max() <= 5);
+		assertEquals(3, snapshot.get(Counter.gamutTests));
+		assertEquals(1, snapshot.get(Counter.gamutClamps));
+		assertEquals(1 / 3f, snapshot.gamutClampRate(), 0.0001f);
+		assertEquals(2, snapshot.get(Counter.cctInvalid));
+		assertEquals(1, snapshot.get(Distribution.criNanos).count());
+		assertTrue(snapshot.get(Distribution.criNanos).sum() > 0);
+		assertEquals(0, snapshot.get(Distribution.tm30Nanos).count());
+
+		Metrics.reset();
+		assertEquals(0, Metrics.snapshot().get(Counter.gamutTests));
+	}
+
+	@Test
+	public void testCaches () {
+		long hits = TonalPalette.cache().hits();
+		Metrics.enable(false);
+		TonalPalette.get(10, 20);
+		TonalPalette.get(10, 20);
+		assertEquals(hits, TonalPalette.cache().hits(), "Not counted while disabled");
+		Metrics.enable(true);
+		try {
+			TonalPalette.get(10, 20);
+		} finally {
+			Metrics.enable(false);
+		}
+		CacheStats stats = null;
+		for (CacheStats cache : Metrics.snapshot().caches())
+			if (cache.name().equals("TonalPalette")) stats = cache;
+		assertEquals(TonalPalette.cache().hits(), stats.hits());
+		assertEquals(TonalPalette.cache().hitRatio(), stats.hitRatio());
+		assertTrue(stats.hits() >= 1);
+
+		// Only registered caches are reported.
+		var cache = new Cache<Integer, String>("MetricsTests", 4);
+		assertFalse(hasCache(Metrics.snapshot(), "MetricsTests"));
+		assertSame(cache, Metrics.register(cache));
+		assertTrue(hasCache(Metrics.snapshot(), "MetricsTests"));
+	}
+
+	private boolean hasCache (Snapshot snapshot, String name) {
+		for (CacheStats cache : snapshot.caches())
+			if (name.equals(cache.name())) return true;
+		return false;
+	}
+
+	@Test
+	public void testHistogram () {
+		var histogram = new Histogram();
+		assertEquals(0, histogram.snapshot().percentile(0.5f));
+		assertTrue(Double.isNaN(histogram.snapshot().mean()));
+		for (int i = 1; i <= 100; i++)
+			histogram.record(i);
+		histogram.record(0);
+		Histogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(101, snapshot.count());
+		assertEquals(5050, snapshot.sum());
+		assertEquals(100, snapshot.max());
+		assertEquals(1, snapshot.buckets()[0]);
+		assertEquals(1, snapshot.buckets()[1]); // 1
+		assertEquals(2, snapshot.buckets()[2]); // 2, 3
+		assertEquals(63, snapshot.percentile(0.5f)); // 51st value is in [32..63].
+		assertEquals(100, snapshot.percentile(1));
+		assertThrows(IllegalArgumentException.class, () -> snapshot.percentile(2));
+	}
+}
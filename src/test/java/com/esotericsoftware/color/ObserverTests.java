@@ -0,0 +1,68 @@
+package com.esotericsoftware.color;
+
+import org.junit.jupiter.api.Test;
+
+public class ObserverTests extends Tests {
+	@Test
+	public void testStandardFieldSizes () {
+		// The generated observers reproduce the tabulated CIE 2006 observers they are derived from.
+		for (Observer expected : new Observer[] {Observer.CIE2_2015, Observer.CIE10_2015}) {
+			var observer = new Observer(expected.fov, 32);
+			assertClose(expected.xbar, observer.xbar, 0.02, "xbar");
+			assertClose(expected.ybar, observer.ybar, 0.02, "ybar");
+			assertClose(expected.zbar, observer.zbar, 0.02, "zbar");
+			assertEquals(expected.ybarIntegral, observer.ybarIntegral, 0.5);
+			assertClose(expected.D65, observer.D65, 0.5, "D65");
+		}
+	}
+
+	@Test
+	public void testAge () {
+		Observer young = new Observer(2, 20), old = new Observer(2, 80);
+		// The lens yellows with age, absorbing short wavelengths relative to the S cone peak.
+		int i400 = (400 - 380) / 5, i480 = (480 - 380) / 5;
+		assertTrue(old.zbar[i400] / old.zbar[i480] < young.zbar[i400] / young.zbar[i480] * 0.7f);
+		assertTrue(old.xbar[i400] / old.ybar[i480] < young.xbar[i400] / young.ybar[i480]);
+		for (int i = 0; i < 81; i++) {
+			assertTrue(young.ybar[i] >= 0);
+			assertTrue(old.zbar[i] >= 0);
+		}
+
+		// Lens density scales by the CIE 170-1 age factor: 1 + 0.02(A-32) to 60, then 1.56 + 0.0667(A-60).
+		float base = lensRatio(new Observer(2, 32)), at20 = lensRatio(young) - base, at60 = lensRatio(new Observer(2, 60)) - base,
+			at80 = lensRatio(old) - base;
+		assertEquals(-0.24f / 0.56f, at20 / at60, 0.001f);
+		assertEquals((1.56f + 0.0667f * 20 - 1) / 0.56f, at80 / at60, 0.001f);
+	}
+
+	/** @return S cone log density difference between 480 and 400nm, which cancels the normalization. */
+	private float lensRatio (Observer observer) {
+		return (float)Math.log10(observer.zbar[(480 - 380) / 5] / observer.zbar[(400 - 380) / 5]);
+	}
+
+	@Test
+	public void testFieldSize () {
+		// Smaller fields have more macular pigment, reducing sensitivity near 460nm relative to longer wavelengths.
+		Observer small = Observer.get(1, 32), large = Observer.get(10, 32);
+		int i460 = (460 - 380) / 5, i600 = (600 - 380) / 5;
+		assertTrue(small.ybar[i460] / small.ybar[i600] < large.ybar[i460] / large.ybar[i600]);
+	}
+
+	@Test
+	public void testGet () {
+		assertSame(Observer.CIE2_2015, Observer.get(2, 32));
+		assertSame(Observer.CIE10_2015, Observer.get(10, 32));
+		Observer observer = Observer.get(5, 60);
+		assertSame(observer, Observer.get(5, 60));
+		assertEquals(5, observer.fov);
+		assertEquals(60, observer.age);
+		assertEquals("Observer", Observer.cache().name());
+		Observer subclass = new Observer(5, 60) {};
+		assertArrayEquals(observer.zbar, subclass.zbar);
+		assertEquals(observer.D65, subclass.D65);
+		assertThrows(IllegalArgumentException.class, () -> new Observer(0, 32));
+		assertThrows(IllegalArgumentException.class, () -> new Observer(11, 32));
+		assertThrows(IllegalArgumentException.class, () -> Observer.get(2, 19));
+		assertThrows(IllegalArgumentException.class, () -> Observer.get(2, 81));
+	}
+}
@@ -0,0 +1,104 @@
+package com.esotericsoftware.color;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.PaletteIndex.Space;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.RGB;
+
+public class PaletteIndexTests extends Tests {
+	@Test
+	public void testExhaustive () {
+		var random = new Random(555);
+		RGB[] palette = palette(random, 500);
+		for (Space space : Space.values()) {
+			// All candidates ranked matches a linear deltaE2000 scan.
+			var index = new PaletteIndex(space, 1, 1, 1, palette.length, palette);
+			for (int i = 0; i < 50; i++) {
+				RGB query = new RGB(random.nextInt());
+				assertEquals(scan(palette, query), index.nearest(query), space + " " + query);
+			}
+		}
+	}
+
+	@Test
+	public void testCandidates () {
+		var random = new Random(1);
+		RGB[] palette = palette(random, 2000);
+		var index = new PaletteIndex(palette);
+		int matches = 0, count = 500;
+		for (int i = 0; i < count; i++) {
+			RGB query = new RGB(random.nextInt());
+			int nearest = index.nearest(query), exact = scan(palette, query);
+			if (nearest == exact) matches++;
+			float found = query.Lab().deltaE2000(palette[nearest].Lab()), best = query.Lab().deltaE2000(palette[exact].Lab());
+			assertTrue(found - best < 1, "Candidates are close to exact: " + found + " " + best);
+		}
+		assertTrue(matches > count * 0.95f, "Matches: " + matches);
+
+		// Palette colors find themselves.
+		for (int i = 0; i < palette.length; i += 37)
+			assertEquals(palette[i].Lab().deltaE2000(palette[index.nearest(palette[i])].Lab()), 0, 0.001f);
+	}
+
+	@Test
+	public void testKNearest () {
+		var random = new Random(2);
+		RGB[] palette = palette(random, 300);
+		var index = new PaletteIndex(Space.oklab, 1, 1, 1, 300, palette);
+		RGB query = new RGB(0x336699);
+		int[] nearest = index.nearest(query, 5);
+		assertEquals(5, nearest.length);
+		assertEquals(index.nearest(query), nearest[0]);
+		Lab lab = query.Lab();
+		for (int i = 1; i < nearest.length; i++)
+			assertTrue(lab.deltaE2000(palette[nearest[i - 1]].Lab()) <= lab.deltaE2000(palette[nearest[i]].Lab()), "Sorted");
+		assertEquals(3, new PaletteIndex(palette[0], palette[1], palette[2]).nearest(query, 10).length);
+	}
+
+	@Test
+	public void testSnapshotAndBatch () {
+		var random = new Random(3);
+		var index = new PaletteIndex(palette(random, 100));
+		RGB added = new RGB(0x123456);
+		PaletteIndex snapshot = index.with(added);
+		assertEquals(100, index.size());
+		assertEquals(101, snapshot.size());
+		assertEquals(100, snapshot.nearest(added));
+		assertNotEquals(100, index.nearest(added));
+
+		var pixels = new int[20000];
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = i % 3 == 0 ? pixels[Math.max(0, i - 1)] : random.nextInt();
+		var serial = new int[pixels.length];
+		var parallel = new int[pixels.length];
+		snapshot.nearest(pixels, serial);
+		snapshot.nearestParallel(pixels, parallel);
+		assertArrayEquals(serial, parallel);
+		for (int i = 0; i < pixels.length; i += 999)
+			assertEquals(snapshot.nearest(pixels[i]), serial[i]);
+	}
+
+	static private RGB[] palette (Random random, int count) {
+		var palette = new RGB[count];
+		for (int i = 0; i < count; i++)
+			palette[i] = new RGB(random.nextInt());
+		return palette;
+	}
+
+	static private int scan (RGB[] palette, RGB query) {
+		Lab lab = query.Lab();
+		int best = 0;
+		float bestDeltaE = Float.MAX_VALUE;
+		for (int i = 0; i < palette.length; i++) {
+			float deltaE = lab.deltaE2000(palette[i].Lab());
+			if (deltaE < bestDeltaE) {
+				bestDeltaE = deltaE;
+				best = i;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,75 @@
+package com.esotericsoftware.color;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.Quantizer.Method;
+import com.esotericsoftware.color.Quantizer.Space;
+import com.esotericsoftware.color.Quantizer.Swatch;
+import com.esotericsoftware.color.space.RGB;
+
+public class QuantizerTests extends Tests {
+	static final int[] colors = {0xff0000, 0x00c000, 0x2040ff, 0xf0f0f0};
+	static final float[] fractions = {0.4f, 0.3f, 0.2f, 0.1f};
+
+	@Test
+	public void testDominant () {
+		int[] argb = image(new Random(555), 200_000, 4);
+		for (Method method : Method.values()) {
+			for (Space space : Space.values()) {
+				Swatch[] swatches = Quantizer.quantize(argb, 4, method, space, 4);
+				assertEquals(4, swatches.length, method + " " + space);
+				for (int i = 0; i < 4; i++) {
+					String message = method + " " + space + " " + i;
+					assertEquals(fractions[i], swatches[i].weight(), 0.01f, message);
+					assertTrue(swatches[i].rgb().deltaE2000(new RGB(colors[i])) < 3, message + " " + swatches[i].rgb());
+					assertEquals(swatches[i].rgb().Oklab().L(), swatches[i].oklab().L(), 0.01f, message);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPalette () {
+		var random = new Random(1);
+		var argb = new int[300_000];
+		for (int i = 0; i < argb.length; i++)
+			argb[i] = 0xff000000 | random.nextInt(0x1000000);
+		for (Method method : Method.values()) {
+			Swatch[] swatches = Quantizer.quantize(argb, 16, method, Space.oklab, 8);
+			assertEquals(16, swatches.length, method.name());
+			float total = 0;
+			for (int i = 0; i < swatches.length; i++) {
+				total += swatches[i].weight();
+				if (i > 0) assertTrue(swatches[i - 1].weight() >= swatches[i].weight(), "Sorted");
+			}
+			assertEquals(1, total, 0.001f, method.name());
+		}
+	}
+
+	@Test
+	public void testEdgeCases () {
+		assertEquals(0, Quantizer.quantize(new int[0], 8).length);
+		assertEquals(0, Quantizer.quantize(new int[] {0x00ff0000, 0x10ffffff}, 8).length, "Transparent ignored");
+		Swatch[] swatches = Quantizer.quantize(new int[] {0xff336699, 0xff336699, 0xff336699}, 8);
+		assertEquals(1, swatches.length, "Fewer colors than requested");
+		assertEquals(1, swatches[0].weight(), EPSILON_F);
+		assertEquals(0x336699, swatches[0].rgb().r8() << 16 | swatches[0].rgb().g8() << 8 | swatches[0].rgb().b8());
+		assertThrows(IllegalArgumentException.class, () -> Quantizer.quantize(new int[1], 0));
+	}
+
+	/** Pixels of the colors in their fractions with some noise. */
+	static int[] image (Random random, int size, int noise) {
+		var argb = new int[size];
+		for (int i = 0; i < size; i++) {
+			float f = (i + 0.5f) / size;
+			int c = f < 0.4f ? 0 : f < 0.7f ? 1 : f < 0.9f ? 2 : 3, rgb = colors[c];
+			int r = Math.min(255, Math.max(0, (rgb >> 16 & 0xff) + random.nextInt(noise * 2 + 1) - noise));
+			int g = Math.min(255, Math.max(0, (rgb >> 8 & 0xff) + random.nextInt(noise * 2 + 1) - noise));
+			int b = Math.min(255, Math.max(0, (rgb & 0xff) + random.nextInt(noise * 2 + 1) - noise));
+			argb[i] = 0xff000000 | r << 16 | g << 8 | b;
+		}
+		return argb;
+	}
+}
@@ -0,0 +1,75 @@
+package com.esotericsoftware.color;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.space.CCT;
+import com.esotericsoftware.color.space.LMS.CAT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.RGB;
+
+public class RelightingTests extends Tests {
+	@Test
+	public void testWhite () {
+		var white = new float[81];
+		Arrays.fill(white, 1);
+		var gray = new float[81];
+		Arrays.fill(gray, 0.2f);
+		Spectrum warm = new CCT(2700).reference();
+		// Complete adaptation discounts the illuminant.
+		var relighting = new Relighting(warm, Gamut.sRGB);
+		assertClose(new LRGB(1, 1, 1), relighting.LRGB(white), 0.001, "white");
+		assertClose(new LRGB(0.2f, 0.2f, 0.2f), relighting.LRGB(gray), 0.001, "gray");
+		assertEquals(2700, relighting.white.CCT().K(), 5);
+		// No adaptation shows the warm cast.
+		LRGB cast = new Relighting(warm, Gamut.sRGB, Observer.Default, CAT.Bradford, 0).LRGB(white);
+		assertTrue(cast.r() > 1 && cast.b() < 0.5f);
+		LRGB partial = new Relighting(warm, Gamut.sRGB, Observer.Default, CAT.Bradford, 0.5f).LRGB(white);
+		assertTrue(partial.b() > cast.b() && partial.b() < 1);
+		assertThrows(IllegalArgumentException.class, () -> new Relighting(warm, Gamut.sRGB, Observer.Default, CAT.Bradford, 2));
+		assertThrows(IllegalArgumentException.class,
+			() -> new Relighting(warm, Gamut.sRGB, Observer.Default, CAT.Bradford, Float.NaN));
+	}
+
+	@Test
+	public void testUpsampled () {
+		// Upsampled colors lit by the display's own white reproduce themselves.
+		SpectralUpsampler upsampler = SpectralUpsampler.get(Gamut.sRGB, Observer.Default, 16);
+		var relighting = new Relighting(Illuminant.D(Gamut.sRGB.whitePoint().xy()), Gamut.sRGB);
+		var random = new Random(555);
+		int n = 200;
+		float[] r = new float[n], g = new float[n], b = new float[n];
+		var argb = new int[n];
+		for (int i = 0; i < n; i++) {
+			argb[i] = random.nextInt();
+			var rgb = new RGB(argb[i]);
+			r[i] = Colors.linear(rgb.r());
+			g[i] = Colors.linear(rgb.g());
+			b[i] = Colors.linear(rgb.b());
+		}
+		var reflectances = new float[n * 81];
+		upsampler.reflectances(r, g, b, reflectances);
+		var packed = new int[n];
+		relighting.rgbParallel(reflectances, packed);
+		float[] lr = new float[n], lg = new float[n], lb = new float[n];
+		relighting.linearParallel(reflectances, lr, lg, lb);
+		var relit = new int[n];
+		relighting.argb(upsampler, argb, relit);
+		var parallel = new int[n];
+		relighting.argbParallel(upsampler, argb, parallel);
+		assertArrayEquals(relit, parallel);
+		var single = new float[81];
+		for (int i = 0; i < n; i++) {
+			RGB actual = new RGB(packed[i]);
+			assertClose(new LRGB(r[i], g[i], b[i]), new LRGB(lr[i], lg[i], lb[i]), 0.02, "relit");
+			assertEquals(0xff, packed[i] >>> 24);
+			assertEquals(argb[i] >>> 24, relit[i] >>> 24); // Alpha kept.
+			assertClose(actual, new RGB(relit[i]), 1 / 255f + 0.0001, "argb");
+			System.arraycopy(reflectances, i * 81, single, 0, 81);
+			assertClose(relighting.LRGB(single), new LRGB(lr[i], lg[i], lb[i]), 0.00001, "linear");
+			assertClose(relighting.RGB(single), actual, 0.5f / 255 + 0.0001, "RGB");
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.esotericsoftware.color;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.Scheme.Palette;
+import com.esotericsoftware.color.Scheme.Role;
+import com.esotericsoftware.color.Scheme.Variant;
+import com.esotericsoftware.color.space.HCT;
+import com.esotericsoftware.color.space.RGB;
+
+public class SchemeTests extends Tests {
+	@Test
+	public void testContrast () {
+		int[] seeds = {0x6750a4, 0xff0000, 0x00ff00, 0x0000ff, 0xffff00, 0x777777, 0x000000, 0xffffff, 0x1e88e5, 0xc2185b};
+		for (int seed : seeds) {
+			for (Variant variant : Variant.values()) {
+				for (boolean dark : new boolean[] {false, true}) {
+					for (float contrast : new float[] {4.5f, 7}) {
+						Scheme scheme = Scheme.get(seed, variant, dark, contrast);
+						for (Role role : Role.values()) {
+							if (role.pair == null) continue;
+							float ratio = scheme.get(role).contrastRatio(scheme.get(role.pair));
+							float target = role.text ? contrast : Math.min(3, contrast);
+							assertTrue(ratio >= target, scheme + " " + role + " on " + role.pair + ": " + ratio + " < " + target);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTones () {
+		Scheme scheme = Scheme.get(0x6750a4, Variant.tonalSpot, false);
+		assertEquals(98, scheme.tone(Role.surface));
+		assertEquals(40, scheme.tone(Role.primary));
+		assertEquals(100, scheme.tone(Role.onPrimary));
+		assertEquals(40, Lab(scheme.get(Role.primary)), 1, "Primary tone");
+		assertEquals(36, scheme.palette(Palette.primary).chroma, EPSILON_F, "Primary chroma");
+
+		Scheme dark = Scheme.get(0x6750a4, Variant.tonalSpot, true);
+		assertEquals(80, dark.tone(Role.primary));
+		assertTrue(dark.get(Role.surface).Y() < scheme.get(Role.surface).Y(), "Dark surface is darker");
+
+		Scheme mono = Scheme.get(0x6750a4, Variant.monochrome, false);
+		for (Role role : Role.values())
+			assertTrue(mono.get(role).achromatic(), "Monochrome " + role);
+	}
+
+	@Test
+	public void testHarmony () {
+		HCT seed = new RGB(0x6750a4).HCT();
+		Scheme triadic = Scheme.get(0x6750a4, Variant.triadic, false);
+		assertEquals((seed.h() + 120) % 360, triadic.palette(Palette.secondary).hue, 0.01, "Triadic secondary hue");
+		assertEquals((seed.h() + 240) % 360, triadic.palette(Palette.tertiary).hue, 0.01, "Triadic tertiary hue");
+		assertEquals(seed.C(), triadic.palette(Palette.primary).chroma, 0.01, "Triadic uses seed chroma");
+	}
+
+	@Test
+	public void testMemoization () {
+		Scheme a = Scheme.get(0x123456, Variant.vibrant, false);
+		assertSame(a, Scheme.get(0xff123456, Variant.vibrant, false, 4.5f), "Alpha ignored, same instance");
+		assertSame(a, Scheme.get(new RGB(0x123456), Variant.vibrant, false));
+		assertNotSame(a, Scheme.get(0x123456, Variant.vibrant, true));
+		assertSame(a.palette(Palette.neutral), TonalPalette.get(a.source.h(), Variant.vibrant.neutralChroma));
+
+		TonalPalette ten = TonalPalette.get(10, 40);
+		assertSame(ten, TonalPalette.get(370, 40), "Hue is normalized before the lookup");
+		assertSame(ten, TonalPalette.get(-350, 40));
+		assertSame(TonalPalette.get(0, 40), TonalPalette.get(-360, 40));
+
+		TonalPalette palette = new TonalPalette(300, 40);
+		assertSame(palette.tone(50), palette.tone(50), "Tones are memoized");
+		assertEquals(palette.HCT(50).RGB(), palette.tone(50));
+
+		assertThrows(IllegalArgumentException.class, () -> Scheme.get(0, Variant.tonalSpot, false, 0.5f));
+	}
+
+	@Test
+	public void testBulk () {
+		int[] seeds = new int[64];
+		for (int i = 0; i < seeds.length; i++)
+			seeds[i] = i * 0x040302;
+		Scheme[] schemes = Scheme.get(seeds, Variant.fidelity, true, 4.5f);
+		for (int i = 0; i < seeds.length; i++)
+			assertSame(Scheme.get(seeds[i], Variant.fidelity, true), schemes[i], "Bulk " + i);
+	}
+
+	static private float Lab (RGB rgb) {
+		return rgb.Lab().L();
+	}
+}
@@ -0,0 +1,75 @@
+package com.esotericsoftware.color;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.Lab;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.XYZ;
+
+public class SpectralUpsamplerTests extends Tests {
+	@Test
+	public void testRoundTrip () {
+		SpectralUpsampler upsampler = SpectralUpsampler.get(Gamut.sRGB, Observer.Default, 16);
+		assertSame(upsampler, SpectralUpsampler.get(Gamut.sRGB, Observer.Default, 16));
+		assertTrue(upsampler.maxError < 2, "maxError: " + upsampler.maxError);
+		Spectrum d65 = Illuminant.D(Gamut.sRGB.whitePoint().xy());
+		XYZ white = d65.XYZ();
+		var random = new Random(555);
+		float sum = 0;
+		for (int i = 0; i < 500; i++) {
+			var rgb = new LRGB(random.nextFloat(), random.nextFloat(), random.nextFloat());
+			Spectrum spectrum = upsampler.spectrum(rgb);
+			for (float value : spectrum.values())
+				assertTrue(value >= 0 && value <= 1);
+			Lab actual = d65.illuminate(spectrum.values()).Lab(white), expected = Gamut.sRGB.XYZ(rgb).Lab(Gamut.sRGB.whitePoint());
+			float deltaE = (float)Math.sqrt((actual.L() - expected.L()) * (actual.L() - expected.L())
+				+ (actual.a() - expected.a()) * (actual.a() - expected.a()) + (actual.b() - expected.b()) * (actual.b() - expected.b()));
+			assertTrue(deltaE < 8, "deltaE: " + deltaE);
+			sum += deltaE;
+		}
+		assertTrue(sum / 500 < 1, "mean deltaE: " + sum / 500);
+
+		// White and gray are flat.
+		float[] gray = upsampler.spectrum(new RGB(0.5f, 0.5f, 0.5f)).values();
+		for (float value : gray)
+			assertEquals(gray[40], value, 0.01f);
+		float[] whiteReflectance = upsampler.spectrum(new LRGB(1, 1, 1)).values();
+		assertTrue(whiteReflectance[40] > 0.99f);
+	}
+
+	@Test
+	public void testBatch () {
+		SpectralUpsampler upsampler = SpectralUpsampler.get(Gamut.sRGB, Observer.Default, 16);
+		var random = new Random(555);
+		int n = 300;
+		float[] r = new float[n], g = new float[n], b = new float[n];
+		for (int i = 0; i < n; i++) {
+			r[i] = random.nextFloat() * 1.2f - 0.1f; // Out of range is clamped.
+			g[i] = random.nextFloat();
+			b[i] = random.nextFloat();
+		}
+		var coefficients = new float[n * 3];
+		upsampler.coefficientsParallel(r, g, b, coefficients);
+		var reflectances = new float[n * 81];
+		upsampler.reflectances(r, g, b, reflectances);
+		var parallel = new float[n * 81];
+		upsampler.reflectancesParallel(r, g, b, parallel);
+		assertArrayEquals(reflectances, parallel);
+		var single = new float[81];
+		var c = new float[3];
+		for (int i = 0; i < n; i++) {
+			upsampler.coefficients(r[i], g[i], b[i], c);
+			assertEquals(c[0], coefficients[i * 3]);
+			assertEquals(c[2], coefficients[i * 3 + 2]);
+			upsampler.reflectance(r[i], g[i], b[i], single, 0);
+			for (int w = 0; w < 81; w++)
+				assertEquals(single[w], reflectances[i * 81 + w]);
+			assertEquals(single[20], SpectralUpsampler.evaluate(c[0], c[1], c[2], 480), 0.000001f);
+		}
+		assertThrows(IllegalArgumentException.class, () -> upsampler.reflectances(r, g, b, new float[n]));
+		assertThrows(IllegalArgumentException.class, () -> new SpectralUpsampler(Gamut.sRGB, Observer.Default, 4));
+	}
+}
@@ -0,0 +1,58 @@
+package com.esotericsoftware.color;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.space.CCT;
+import com.esotericsoftware.color.space.LRGB;
+import com.esotericsoftware.color.space.RGBWW;
+import com.esotericsoftware.color.space.RGBWW.WW;
+
+public class TunableWhiteTests extends Tests {
+	static final WW ww = new WW(new CCT(2700).LRGB(), new CCT(6500).LRGB());
+
+	@Test
+	public void testGridPoints () {
+		var table = new TunableWhite(Gamut.sRGB, ww, 2000, 10000, -0.01f, 0.01f, 9, 3);
+		// Grid points are exact: 2000K is the last mired point, Duv 0 is the center row.
+		for (float K : new float[] {2000, 10000}) {
+			RGBWW lerped = table.get(K, 0, 1), exact = table.solve(K, 0, 1);
+			assertEquals(exact.r(), lerped.r(), 0.0001f, "r " + K);
+			assertEquals(exact.w1(), lerped.w1(), 0.0001f, "w1 " + K);
+			assertEquals(exact.w2(), lerped.w2(), 0.0001f, "w2 " + K);
+		}
+		LRGB lrgb = Gamut.sRGB.LRGB(new CCT(10000, 0).xy()).clamp();
+		RGBWW direct = lrgb.RGBWW(ww);
+		assertEquals(direct, table.solve(10000, 0, 1), "Solve matches LRGB.RGBWW");
+	}
+
+	@Test
+	public void testError () {
+		var coarse = new TunableWhite(Gamut.sRGB, ww, 1000, 20000, -0.02f, 0.02f, 8, 3);
+		var fine = new TunableWhite(ww);
+		assertTrue(fine.maxError < coarse.maxError, "Finer grid has less error: " + fine.maxError + " " + coarse.maxError);
+		assertTrue(fine.meanError <= fine.maxError);
+		assertTrue(fine.meanError < 0.005f, "Default grid error: " + fine.meanError);
+
+		// Random commands stay within the reported error plus the nonlinearity inside a half cell.
+		for (int i = 0; i < 200; i++) {
+			float K = 1000 + i * 95, Duv = (i % 9 - 4) * 0.004f;
+			RGBWW lerped = fine.get(K, Duv, 1), exact = fine.solve(K, Duv, 1);
+			assertEquals(exact.w1(), lerped.w1(), fine.maxError * 2 + 0.001f, "w1 " + K + " " + Duv);
+			assertEquals(exact.w2(), lerped.w2(), fine.maxError * 2 + 0.001f, "w2 " + K + " " + Duv);
+		}
+	}
+
+	@Test
+	public void testIntensity () {
+		var table = new TunableWhite(ww);
+		var out = new float[7];
+		table.get(4000, 0.005f, 0.5f, out, 2);
+		RGBWW full = table.get(4000, 0.005f, 1);
+		assertEquals(full.r() * 0.5f, out[2], EPSILON_F);
+		assertEquals(full.w2() * 0.5f, out[6], EPSILON_F);
+		assertEquals(0, out[0]);
+
+		// Outside the table is clamped.
+		assertEquals(table.get(20000, 0.02f, 1), table.get(50000, 0.1f, 1));
+	}
+}
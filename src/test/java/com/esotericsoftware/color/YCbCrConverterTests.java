@@ -0,0 +1,150 @@
+package com.esotericsoftware.color;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.YCbCrConverter.Filter;
+import com.esotericsoftware.color.YCbCrConverter.Layout;
+import com.esotericsoftware.color.YCbCrConverter.Plane;
+import com.esotericsoftware.color.YCbCrConverter.Siting;
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.YCbCr;
+import com.esotericsoftware.color.space.YCbCr.YCbCrColorSpace;
+
+public class YCbCrConverterTests extends Tests {
+	@Test
+	public void testRecords () {
+		var random = new Random(555);
+		int n = 4096;
+		var rgb = new byte[n * 3];
+		random.nextBytes(rgb);
+		for (YCbCrColorSpace colorSpace : YCbCrColorSpace.values()) {
+			var converter = new YCbCrConverter(colorSpace, 8, true, Layout.i444, Siting.center, Filter.linear);
+			byte[] y = new byte[n], u = new byte[n], v = new byte[n];
+			converter.encode(new Plane(rgb, 0, n * 3), new Plane(y, 0, n), new Plane(u, 0, n), new Plane(v, 0, n), n, 1);
+			var back = new byte[n * 3];
+			converter.decode(new Plane(y, 0, n), new Plane(u, 0, n), new Plane(v, 0, n), new Plane(back, 0, n * 3), n, 1);
+			for (int i = 0; i < n; i++) {
+				var color = new RGB((rgb[i * 3] & 0xff) / 255f, (rgb[i * 3 + 1] & 0xff) / 255f, (rgb[i * 3 + 2] & 0xff) / 255f);
+				YCbCr expected = color.YCbCr(colorSpace);
+				assertEquals(expected.Y() * 255, y[i] & 0xff, 1);
+				assertEquals(expected.Cb() * 255 + 128, u[i] & 0xff, 1);
+				assertEquals(expected.Cr() * 255 + 128, v[i] & 0xff, 1);
+				RGB decoded = new YCbCr((y[i] & 0xff) / 255f, ((u[i] & 0xff) - 128) / 255f, ((v[i] & 0xff) - 128) / 255f)
+					.RGB(colorSpace);
+				for (int c = 0; c < 3; c++) {
+					assertEquals(Colors.floats(decoded)[c] * 255, back[i * 3 + c] & 0xff, 1);
+					assertEquals(rgb[i * 3 + c] & 0xff, back[i * 3 + c] & 0xff, 2); // Round trip.
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRange () {
+		for (int bits : new int[] {8, 10, 12}) {
+			var converter = new YCbCrConverter(YCbCrColorSpace.ITU_BT_709_HDTV, bits, false, Layout.i420, Siting.left,
+				Filter.linear);
+			int max = (1 << bits) - 1, scale = 1 << bits - 8;
+			short[] rgb = {0, 0, 0, (short)max, (short)max, (short)max, 0, 0, 0, (short)max, (short)max, (short)max};
+			short[] y = new short[4], u = new short[1], v = new short[1];
+			converter.encode(new Plane(rgb, 0, 6), new Plane(y, 0, 2), new Plane(u, 0, 1), new Plane(v, 0, 1), 2, 2);
+			assertEquals(16 * scale, y[0]);
+			assertEquals(235 * scale, y[1]);
+			assertEquals(128 * scale, u[0]);
+			assertEquals(128 * scale, v[0]);
+			var back = new short[12];
+			converter.decode(new Plane(y, 0, 2), new Plane(u, 0, 1), new Plane(v, 0, 1), new Plane(back, 0, 6), 2, 2);
+			assertArrayEquals(rgb, back);
+		}
+		assertThrows(IllegalArgumentException.class,
+			() -> new YCbCrConverter(YCbCrColorSpace.ITU_BT_601, 16, false, Layout.i444, Siting.center, Filter.linear));
+		var converter = new YCbCrConverter(YCbCrColorSpace.ITU_BT_601, 10, false, Layout.i444, Siting.center, Filter.linear);
+		var bytes = new Plane(new byte[3], 0, 3);
+		assertThrows(IllegalArgumentException.class, () -> converter.encode(bytes, bytes, bytes, bytes, 1, 1));
+	}
+
+	@Test
+	public void testSubsampling () {
+		var random = new Random(555);
+		int width = 37, height = 23; // Odd sizes.
+		var rgb = new byte[width * height * 3];
+		random.nextBytes(rgb);
+		for (Layout layout : Layout.values()) {
+			for (Siting siting : Siting.values()) {
+				for (Filter filter : Filter.values()) {
+					var converter = new YCbCrConverter(YCbCrColorSpace.ITU_BT_601, 8, false, layout, siting, filter);
+					int chroma = converter.chromaSize(width, height);
+					int chromaStride = chroma / ((height + layout.shiftY) >> layout.shiftY);
+					byte[] y = new byte[width * height], u = new byte[chroma], v = layout.semiPlanar ? null : new byte[chroma];
+					Plane yPlane = new Plane(y, 0, width), uPlane = new Plane(u, 0, chromaStride);
+					Plane vPlane = v == null ? null : new Plane(v, 0, chromaStride);
+					converter.encode(new Plane(rgb, 0, width * 3), yPlane, uPlane, vPlane, width, height);
+
+					// Parallel and ByteBuffer planes give identical results.
+					ByteBuffer buffer = ByteBuffer.allocateDirect(y.length + chroma * 2);
+					var yBuffer = new Plane(buffer, false, 0, width);
+					var uBuffer = new Plane(buffer, false, y.length, chromaStride);
+					var vBuffer = new Plane(buffer, false, y.length + chroma, chromaStride);
+					converter.encodeParallel(new Plane(rgb, 0, width * 3), yBuffer, uBuffer, vBuffer, width, height);
+					for (int i = 0; i < y.length; i++)
+						assertEquals(y[i], buffer.get(i));
+					for (int i = 0; i < chroma; i++)
+						assertEquals(u[i], buffer.get(y.length + i));
+
+					var back = new byte[rgb.length];
+					converter.decode(yPlane, uPlane, vPlane, new Plane(back, 0, width * 3), width, height);
+					var backParallel = new byte[rgb.length];
+					converter.decodeParallel(yBuffer, uBuffer, vBuffer, new Plane(backParallel, 0, width * 3), width, height);
+					assertArrayEquals(back, backParallel);
+					if (layout == Layout.i444) {
+						for (int i = 0; i < rgb.length; i++)
+							assertEquals(rgb[i] & 0xff, back[i] & 0xff, 2);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSiting () {
+		// Flat colors survive subsampling exactly.
+		for (Siting siting : Siting.values()) {
+			for (Filter filter : Filter.values()) {
+				var converter = new YCbCrConverter(YCbCrColorSpace.ITU_BT_709_HDTV, 8, true, Layout.nv12, siting, filter);
+				var rgb = new byte[6 * 4 * 3];
+				for (int i = 0; i < rgb.length; i += 3) {
+					rgb[i] = (byte)200;
+					rgb[i + 1] = 50;
+					rgb[i + 2] = 100;
+				}
+				byte[] y = new byte[24], uv = new byte[12];
+				converter.encode(new Plane(rgb, 0, 18), new Plane(y, 0, 6), new Plane(uv, 0, 6), null, 6, 4);
+				var back = new byte[rgb.length];
+				converter.decode(new Plane(y, 0, 6), new Plane(uv, 0, 6), null, new Plane(back, 0, 18), 6, 4);
+				for (int i = 3; i < rgb.length; i++)
+					assertEquals(back[i % 3], back[i]);
+			}
+		}
+
+		// Centered linear chroma is the average of the 2x2 block, co-sited nearest is the top left pixel.
+		var full = new YCbCrConverter(YCbCrColorSpace.ITU_BT_601, 8, true, Layout.i444, Siting.center, Filter.linear);
+		var random = new Random(555);
+		var rgb = new byte[4 * 3];
+		random.nextBytes(rgb);
+		byte[] y = new byte[4], u = new byte[4], v = new byte[4];
+		full.encode(new Plane(rgb, 0, 6), new Plane(y, 0, 2), new Plane(u, 0, 2), new Plane(v, 0, 2), 2, 2);
+		int average = Math.round(((u[0] & 0xff) + (u[1] & 0xff) + (u[2] & 0xff) + (u[3] & 0xff)) / 4f);
+		byte[] u1 = new byte[1], v1 = new byte[1];
+		new YCbCrConverter(YCbCrColorSpace.ITU_BT_601, 8, true, Layout.i420, Siting.center, Filter.linear).encode(
+			new Plane(rgb, 0, 6), new Plane(new byte[4], 0, 2), new Plane(u1, 0, 1), new Plane(v1, 0, 1), 2, 2);
+		assertEquals(average, u1[0] & 0xff, 1);
+		new YCbCrConverter(YCbCrColorSpace.ITU_BT_601, 8, true, Layout.i420, Siting.topLeft, Filter.nearest).encode(
+			new Plane(rgb, 0, 6), new Plane(new byte[4], 0, 2), new Plane(u1, 0, 1), new Plane(v1, 0, 1), 2, 2);
+		assertEquals(u[0], u1[0]);
+		assertEquals(v[0], v1[0]);
+	}
+}
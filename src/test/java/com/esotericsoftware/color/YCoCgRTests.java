@@ -0,0 +1,82 @@
+package com.esotericsoftware.color;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.color.space.RGB;
+import com.esotericsoftware.color.space.YCoCg;
+
+public class YCoCgRTests extends Tests {
+	@Test
+	public void testPacked () {
+		// Every 8-bit color round trips exactly.
+		int n = 1 << 24;
+		var rgb = new int[n];
+		for (int i = 0; i < n; i++)
+			rgb[i] = i;
+		var ycocg = new int[n];
+		YCoCgR.encodeParallel(rgb, ycocg);
+		var back = new int[n];
+		YCoCgR.decode(ycocg, back);
+		for (int i = 0; i < n; i++)
+			if (back[i] != i) assertEquals(i, back[i], "round trip");
+		assertEquals(ycocg[0x123456], YCoCgR.encode(0xff123456));
+		assertEquals(0x123456, YCoCgR.decode(ycocg[0x123456]));
+
+		// In place.
+		YCoCgR.decodeParallel(ycocg, ycocg);
+		assertArrayEquals(rgb, ycocg);
+	}
+
+	@Test
+	public void testRecord () {
+		var random = new Random(555);
+		for (int i = 0; i < 10000; i++) {
+			int color = random.nextInt() & 0xffffff, packed = YCoCgR.encode(color);
+			YCoCg expected = new RGB(color).YCoCg();
+			assertEquals(expected.Y() * 255, packed >>> 18, 1);
+			assertEquals(expected.Co() * 510, packed << 14 >> 23, 0.001f);
+			assertEquals(expected.Cg() * 510, packed << 23 >> 23, 1);
+		}
+		assertEquals(255 << 18, YCoCgR.encode(0xffffff)); // White has no chroma.
+		assertEquals(0, YCoCgR.encode(0));
+	}
+
+	@Test
+	public void testPlanar () {
+		var random = new Random(555);
+		int n = 20000;
+		var rgb8 = new byte[n * 3];
+		random.nextBytes(rgb8);
+		var Y8 = new byte[n];
+		short[] Co8 = new short[n], Cg8 = new short[n];
+		YCoCgR.encode(rgb8, Y8, Co8, Cg8);
+		var packed = new int[n];
+		for (int i = 0; i < n; i++) {
+			int color = (rgb8[i * 3] & 0xff) << 16 | (rgb8[i * 3 + 1] & 0xff) << 8 | rgb8[i * 3 + 2] & 0xff;
+			packed[i] = YCoCgR.encode(color);
+			assertEquals(packed[i] >>> 18, Y8[i] & 0xff);
+			assertEquals(packed[i] << 14 >> 23, Co8[i]);
+			assertEquals(packed[i] << 23 >> 23, Cg8[i]);
+		}
+		var back8 = new byte[n * 3];
+		YCoCgR.decodeParallel(Y8, Co8, Cg8, back8);
+		assertArrayEquals(rgb8, back8);
+
+		var rgb16 = new short[n * 3];
+		for (int i = 0; i < rgb16.length; i++)
+			rgb16[i] = (short)(i % 7 == 0 ? (i % 2 == 0 ? 0 : 65535) : random.nextInt(65536));
+		var Y16 = new short[n];
+		int[] Co16 = new int[n], Cg16 = new int[n];
+		YCoCgR.encodeParallel(rgb16, Y16, Co16, Cg16);
+		var back16 = new short[n * 3];
+		YCoCgR.decode(Y16, Co16, Cg16, back16);
+		assertArrayEquals(rgb16, back16);
+		for (int i = 0; i < n; i++) {
+			assertTrue(Math.abs(Co16[i]) <= 65535);
+			assertTrue(Math.abs(Cg16[i]) <= 65535);
+		}
+		assertThrows(IllegalArgumentException.class, () -> YCoCgR.encode(rgb8, new byte[1], Co8, Cg8));
+	}
+}